@@ -0,0 +1,727 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Canonical labeling of the graph of a part: Particles of isomorphic parts
+ * (equal particles, backbone indices, [START]/[END] attributes and bonds)
+ * get equal canonical indices independent of branch order, ring closure
+ * labels, repetitions or white spaces of their input structures.
+ * <p>
+ * The labeling is determined with colour refinement (1-dimensional
+ * Weisfeiler-Lehman) of an ordered partition of the particles: Starting with
+ * cells of equal particle, backbone index and attributes, cells are split
+ * by the number of neighbors in splitter cells (smaller-half strategy, i.e.
+ * O(m log n) for m bonds and n particles) until the partition is equitable.
+ * Remaining ties are broken by individualization of a particle of the first
+ * non-singleton cell followed by further refinement. NOTE: Tie-breaking
+ * assumes that particles of a cell of an equitable partition are
+ * equivalent (true for trees and rings). For rare highly regular graphs
+ * this need not be the case, i.e. isomorphic parts may get different
+ * canonical forms but different canonical forms never belong to
+ * non-isomorphic parts.
+ * <p>
+ * The canonical PSMILES of a part is written by a depth-first traversal
+ * that starts at the particle with canonical index 0 and visits neighbors in
+ * ascending order of their canonical indices: Bonds that are not part of the
+ * depth-first tree are written as ring closures with labels in ascending
+ * order of their occurrence.
+ *
+ * @author Achim Zielesny
+ */
+public final class CanonicalLabeling {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Canonical indices of particles
+     */
+    private final int[] canonicalIndices;
+
+    /**
+     * Particle indices in canonical order
+     */
+    private final int[] canonicalOrder;
+
+    /**
+     * Canonical PSMILES (null if graph is not connected)
+     */
+    private final String canonicalPSmiles;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor
+     *
+     * @param aPart Part
+     * @throws IllegalArgumentException Thrown if aPart is null or has no
+     * particles
+     */
+    public CanonicalLabeling(PSmilesInner aPart) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aPart == null) {
+            throw new IllegalArgumentException("CanonicalLabeling.Constructor: aPart is null.");
+        }
+        if (aPart.getInnerParticles() == null || aPart.getInnerParticles().length == 0) {
+            throw new IllegalArgumentException("CanonicalLabeling.Constructor: aPart has no particles.");
+        }
+
+        // </editor-fold>
+        String[] tmpParticles = aPart.getInnerParticles();
+        int tmpNumberOfParticles = tmpParticles.length;
+        int[] tmpBackboneIndices = aPart.getInnerBackboneIndices();
+        if (tmpBackboneIndices == null) {
+            tmpBackboneIndices = new int[tmpNumberOfParticles];
+        }
+        int[] tmpBondOffsets = aPart.getBondOffsets();
+        int[] tmpBondTargets = aPart.getBondTargets();
+        // <editor-fold defaultstate="collapsed" desc="Canonical labeling">
+        long[] tmpInitialKeys = CanonicalLabeling.getInitialKeys(tmpParticles, tmpBackboneIndices, aPart.getStartParticleIndex(),
+                aPart.getEndParticleIndex());
+        OrderedPartition tmpPartition = new OrderedPartition(tmpBondOffsets, tmpBondTargets, tmpInitialKeys);
+        tmpPartition.refine();
+        int tmpParticleIndex = tmpPartition.getParticleOfFirstNonSingletonCell();
+        while (tmpParticleIndex >= 0) {
+            tmpPartition.individualize(tmpParticleIndex);
+            tmpPartition.refine();
+            tmpParticleIndex = tmpPartition.getParticleOfFirstNonSingletonCell();
+        }
+        this.canonicalOrder = tmpPartition.getElements();
+        this.canonicalIndices = new int[tmpNumberOfParticles];
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            this.canonicalIndices[this.canonicalOrder[i]] = i;
+        }
+
+        // </editor-fold>
+        this.canonicalPSmiles = this.getCanonicalPSmiles(tmpParticles, tmpBackboneIndices, aPart.getStartParticleIndex(),
+                aPart.getEndParticleIndex(), tmpBondOffsets, tmpBondTargets);
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Canonical indices of particles. NOTE: Do NOT change the returned
+     * array.
+     *
+     * @return Canonical index of every particle
+     */
+    public int[] getCanonicalIndices() {
+        return this.canonicalIndices;
+    }
+
+    /**
+     * Particle indices in canonical order. NOTE: Do NOT change the returned
+     * array.
+     *
+     * @return Particle index of every canonical index
+     */
+    public int[] getCanonicalOrder() {
+        return this.canonicalOrder;
+    }
+
+    /**
+     * Canonical PSMILES of part, e.g. "A-B(C)-D[1]-E-F[1]"
+     *
+     * @return Canonical PSMILES or null if the graph of the part is not
+     * connected
+     */
+    public String getCanonicalPSmiles() {
+        return this.canonicalPSmiles;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private static methods">
+    /**
+     * Returns the 128-bit structural hash of a canonical PSMILES
+     *
+     * @param aCanonicalPSmiles Canonical PSMILES
+     * @return Hash as two 64-bit values
+     */
+    static long[] getStructuralHash(String aCanonicalPSmiles) {
+        int tmpLength = aCanonicalPSmiles.length();
+        long tmpFirstHash = 0xCBF29CE484222325L;
+        long tmpSecondHash = 0x9E3779B97F4A7C15L ^ tmpLength;
+        for (int i = 0; i < tmpLength; i++) {
+            char tmpCharacter = aCanonicalPSmiles.charAt(i);
+            tmpFirstHash = (tmpFirstHash ^ tmpCharacter) * 0x100000001B3L;
+            tmpSecondHash = Long.rotateLeft(tmpSecondHash ^ (tmpCharacter * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL;
+        }
+        tmpFirstHash = CanonicalLabeling.getMixedHash(tmpFirstHash ^ tmpLength);
+        tmpSecondHash = CanonicalLabeling.getMixedHash(tmpSecondHash);
+        tmpFirstHash += tmpSecondHash;
+        tmpSecondHash += tmpFirstHash;
+        return new long[]{tmpFirstHash, tmpSecondHash};
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static methods">
+    /**
+     * Returns the initial keys of the particles: Particles with equal
+     * particle, backbone index and [START]/[END] attributes have equal keys
+     * and the order of keys depends only on these properties.
+     *
+     * @param aParticles Particles
+     * @param aBackboneIndices Backbone indices
+     * @param aStartParticleIndex Index of START particle (-1: None)
+     * @param anEndParticleIndex Index of END particle (-1: None)
+     * @return Initial keys
+     */
+    private static long[] getInitialKeys(String[] aParticles, int[] aBackboneIndices, int aStartParticleIndex, int anEndParticleIndex) {
+        HashMap<String, Integer> tmpParticleRanks = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        for (String tmpParticle : aParticles) {
+            tmpParticleRanks.put(tmpParticle, 0);
+        }
+        String[] tmpDistinctParticles = tmpParticleRanks.keySet().toArray(new String[0]);
+        Arrays.sort(tmpDistinctParticles);
+        for (int i = 0; i < tmpDistinctParticles.length; i++) {
+            tmpParticleRanks.put(tmpDistinctParticles[i], i);
+        }
+        long[] tmpInitialKeys = new long[aParticles.length];
+        for (int i = 0; i < aParticles.length; i++) {
+            long tmpKey = ((long) tmpParticleRanks.get(aParticles[i]) << 33) | ((long) aBackboneIndices[i] << 2);
+            if (i == aStartParticleIndex) {
+                tmpKey |= 2L;
+            }
+            if (i == anEndParticleIndex) {
+                tmpKey |= 1L;
+            }
+            tmpInitialKeys[i] = tmpKey;
+        }
+        return tmpInitialKeys;
+    }
+
+    /**
+     * Returns the final mix of a 64-bit hash (see MurmurHash3)
+     *
+     * @param aHash Hash
+     * @return Mixed hash
+     */
+    private static long getMixedHash(long aHash) {
+        long tmpHash = aHash;
+        tmpHash ^= tmpHash >>> 33;
+        tmpHash *= 0xFF51AFD7ED558CCDL;
+        tmpHash ^= tmpHash >>> 33;
+        tmpHash *= 0xC4CEB9FE1A85EC53L;
+        tmpHash ^= tmpHash >>> 33;
+        return tmpHash;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Writes the canonical PSMILES of the part (see class description)
+     *
+     * @param aParticles Particles
+     * @param aBackboneIndices Backbone indices
+     * @param aStartParticleIndex Index of START particle (-1: None)
+     * @param anEndParticleIndex Index of END particle (-1: None)
+     * @param aBondOffsets Bond offsets of the CSR graph
+     * @param aBondTargets Bond targets of the CSR graph
+     * @return Canonical PSMILES or null if the graph is not connected
+     */
+    private String getCanonicalPSmiles(String[] aParticles, int[] aBackboneIndices, int aStartParticleIndex, int anEndParticleIndex,
+            int[] aBondOffsets, int[] aBondTargets) {
+        int tmpNumberOfParticles = aParticles.length;
+        // <editor-fold defaultstate="collapsed" desc="CSR graph of canonical indices with ascending neighbors">
+        int[] tmpOffsets = new int[tmpNumberOfParticles + 1];
+        int[] tmpTargets = new int[aBondTargets.length];
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            int tmpParticleIndex = this.canonicalOrder[i];
+            int tmpOffset = tmpOffsets[i];
+            for (int k = aBondOffsets[tmpParticleIndex]; k < aBondOffsets[tmpParticleIndex + 1]; k++) {
+                tmpTargets[tmpOffset++] = this.canonicalIndices[aBondTargets[k]];
+            }
+            Arrays.sort(tmpTargets, tmpOffsets[i], tmpOffset);
+            tmpOffsets[i + 1] = tmpOffset;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Depth-first tree and ring closures">
+        int[] tmpDiscoveries = new int[tmpNumberOfParticles];
+        Arrays.fill(tmpDiscoveries, -1);
+        int[] tmpParents = new int[tmpNumberOfParticles];
+        int[] tmpPreorder = new int[tmpNumberOfParticles];
+        int[] tmpNextBonds = Arrays.copyOf(tmpOffsets, tmpNumberOfParticles);
+        boolean[] tmpIsParentBondUsed = new boolean[tmpNumberOfParticles];
+        boolean[] tmpIsSelfBondOpen = new boolean[tmpNumberOfParticles];
+        // Ring closures: Particle with lower discovery and particle with higher discovery
+        int[] tmpRingClosures = new int[16];
+        int tmpNumberOfRingClosures = 0;
+        int[] tmpStack = new int[tmpNumberOfParticles];
+        int tmpStackSize = 0;
+        tmpStack[tmpStackSize++] = 0;
+        tmpDiscoveries[0] = 0;
+        tmpParents[0] = -1;
+        tmpPreorder[0] = 0;
+        int tmpNumberOfDiscoveries = 1;
+        while (tmpStackSize > 0) {
+            int tmpParticle = tmpStack[tmpStackSize - 1];
+            if (tmpNextBonds[tmpParticle] == tmpOffsets[tmpParticle + 1]) {
+                tmpStackSize--;
+                continue;
+            }
+            int tmpNeighbor = tmpTargets[tmpNextBonds[tmpParticle]++];
+            int tmpFirst = -1;
+            if (tmpNeighbor == tmpParticle) {
+                // Self bond is listed twice
+                tmpIsSelfBondOpen[tmpParticle] = !tmpIsSelfBondOpen[tmpParticle];
+                if (!tmpIsSelfBondOpen[tmpParticle]) {
+                    tmpFirst = tmpParticle;
+                }
+            } else if (tmpDiscoveries[tmpNeighbor] < 0) {
+                tmpDiscoveries[tmpNeighbor] = tmpNumberOfDiscoveries;
+                tmpPreorder[tmpNumberOfDiscoveries++] = tmpNeighbor;
+                tmpParents[tmpNeighbor] = tmpParticle;
+                tmpStack[tmpStackSize++] = tmpNeighbor;
+            } else if (tmpNeighbor == tmpParents[tmpParticle] && !tmpIsParentBondUsed[tmpParticle]) {
+                tmpIsParentBondUsed[tmpParticle] = true;
+            } else if (tmpDiscoveries[tmpNeighbor] < tmpDiscoveries[tmpParticle]) {
+                tmpFirst = tmpNeighbor;
+            }
+            if (tmpFirst >= 0) {
+                if (2 * tmpNumberOfRingClosures == tmpRingClosures.length) {
+                    tmpRingClosures = Arrays.copyOf(tmpRingClosures, 2 * tmpRingClosures.length);
+                }
+                tmpRingClosures[2 * tmpNumberOfRingClosures] = tmpFirst;
+                tmpRingClosures[2 * tmpNumberOfRingClosures + 1] = tmpParticle;
+                tmpNumberOfRingClosures++;
+            }
+        }
+        if (tmpNumberOfDiscoveries < tmpNumberOfParticles) {
+            return null;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Children and ring closures of particles in order of discovery">
+        int[] tmpChildOffsets = new int[tmpNumberOfParticles + 1];
+        for (int i = 1; i < tmpNumberOfParticles; i++) {
+            tmpChildOffsets[tmpParents[i] + 1]++;
+        }
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            tmpChildOffsets[i + 1] += tmpChildOffsets[i];
+        }
+        int[] tmpChildren = new int[tmpNumberOfParticles];
+        int[] tmpNextChildren = Arrays.copyOf(tmpChildOffsets, tmpNumberOfParticles);
+        for (int i = 1; i < tmpNumberOfParticles; i++) {
+            int tmpParticle = tmpPreorder[i];
+            tmpChildren[tmpNextChildren[tmpParents[tmpParticle]]++] = tmpParticle;
+        }
+        // Ring closures of a particle are sorted by the discovery of their other particle
+        int[] tmpRingOffsets = new int[tmpNumberOfParticles + 1];
+        for (int i = 0; i < 2 * tmpNumberOfRingClosures; i++) {
+            tmpRingOffsets[tmpRingClosures[i] + 1]++;
+        }
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            tmpRingOffsets[i + 1] += tmpRingOffsets[i];
+        }
+        long[] tmpRings = new long[2 * tmpNumberOfRingClosures];
+        int[] tmpNextRings = Arrays.copyOf(tmpRingOffsets, tmpNumberOfParticles);
+        for (int i = 0; i < tmpNumberOfRingClosures; i++) {
+            int tmpFirst = tmpRingClosures[2 * i];
+            int tmpSecond = tmpRingClosures[2 * i + 1];
+            tmpRings[tmpNextRings[tmpFirst]++] = ((long) tmpDiscoveries[tmpSecond] << 32) | i;
+            tmpRings[tmpNextRings[tmpSecond]++] = ((long) tmpDiscoveries[tmpFirst] << 32) | i;
+        }
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            Arrays.sort(tmpRings, tmpRingOffsets[i], tmpRingOffsets[i + 1]);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Write canonical PSMILES">
+        int[] tmpRingLabels = new int[tmpNumberOfRingClosures];
+        int tmpNumberOfRingLabels = 0;
+        StringBuilder tmpBuilder = new StringBuilder(8 * tmpNumberOfParticles);
+        // Stack entries: 4 * particle + prefix (0: None, 1: Bond, 2: Opening bracket) or -1 for closing bracket
+        int[] tmpWriteStack = new int[2 * tmpNumberOfParticles];
+        int tmpWriteStackSize = 0;
+        tmpWriteStack[tmpWriteStackSize++] = 0;
+        while (tmpWriteStackSize > 0) {
+            int tmpEntry = tmpWriteStack[--tmpWriteStackSize];
+            if (tmpEntry < 0) {
+                tmpBuilder.append(')');
+                continue;
+            }
+            int tmpParticle = tmpEntry >> 2;
+            if ((tmpEntry & 3) == 1) {
+                tmpBuilder.append(PSmilesConstants.PARTICLE_SEPARATOR);
+            } else if ((tmpEntry & 3) == 2) {
+                tmpBuilder.append('(');
+            }
+            int tmpParticleIndex = this.canonicalOrder[tmpParticle];
+            tmpBuilder.append(aParticles[tmpParticleIndex]);
+            if (aBackboneIndices[tmpParticleIndex] > 0) {
+                tmpBuilder.append('\'').append(aBackboneIndices[tmpParticleIndex]).append('\'');
+            }
+            for (int k = tmpRingOffsets[tmpParticle]; k < tmpRingOffsets[tmpParticle + 1]; k++) {
+                int tmpRingClosure = (int) tmpRings[k];
+                if (tmpRingLabels[tmpRingClosure] == 0) {
+                    tmpRingLabels[tmpRingClosure] = ++tmpNumberOfRingLabels;
+                }
+                tmpBuilder.append('[').append(tmpRingLabels[tmpRingClosure]).append(']');
+            }
+            if (tmpParticleIndex == aStartParticleIndex) {
+                tmpBuilder.append("[START]");
+            }
+            if (tmpParticleIndex == anEndParticleIndex) {
+                tmpBuilder.append("[END]");
+            }
+            int tmpChildStart = tmpChildOffsets[tmpParticle];
+            int tmpChildEnd = tmpChildOffsets[tmpParticle + 1];
+            if (tmpChildEnd > tmpChildStart) {
+                // Last child continues the chain, all other children are branches
+                tmpWriteStack[tmpWriteStackSize++] = 4 * tmpChildren[tmpChildEnd - 1] + 1;
+                for (int k = tmpChildEnd - 2; k >= tmpChildStart; k--) {
+                    tmpWriteStack[tmpWriteStackSize++] = -1;
+                    tmpWriteStack[tmpWriteStackSize++] = 4 * tmpChildren[k] + 2;
+                }
+            }
+        }
+        return tmpBuilder.toString();
+
+        // </editor-fold>
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class OrderedPartition">
+    /**
+     * Ordered partition of particles: Cells are contiguous ranges of
+     * this.elements and are identified by their start position. All
+     * decisions depend only on cell positions and neighbor counts, i.e. the
+     * resulting order of cells does not depend on the particle indices.
+     */
+    private static final class OrderedPartition {
+
+        /**
+         * Bond offsets of the CSR graph
+         */
+        private final int[] bondOffsets;
+
+        /**
+         * Bond targets of the CSR graph
+         */
+        private final int[] bondTargets;
+
+        /**
+         * Particles in partition order
+         */
+        private final int[] elements;
+
+        /**
+         * Positions of particles in this.elements
+         */
+        private final int[] positions;
+
+        /**
+         * Start positions of the cells of particles
+         */
+        private final int[] cellStarts;
+
+        /**
+         * End positions (exclusive) of cells (index: start position of cell)
+         */
+        private final int[] cellEnds;
+
+        /**
+         * Queue of splitter cells (start positions, circular)
+         */
+        private final int[] splitterQueue;
+
+        /**
+         * True: Cell is in splitter queue (index: start position of cell)
+         */
+        private final boolean[] isInSplitterQueue;
+
+        /**
+         * Number of neighbors in current splitter cell of particles
+         */
+        private final int[] neighborCounts;
+
+        /**
+         * Number of particles with neighbors in current splitter cell
+         * (index: start position of cell)
+         */
+        private final int[] touchedCounts;
+
+        /**
+         * Start positions of cells with particles with neighbors in current
+         * splitter cell
+         */
+        private final int[] touchedCells;
+
+        /**
+         * Particles of current splitter cell
+         */
+        private final int[] splitter;
+
+        /**
+         * Sort buffer (neighbor count in upper and particle in lower 32 bits)
+         */
+        private final long[] sortBuffer;
+
+        /**
+         * Start positions of the pieces of a split cell
+         */
+        private final int[] pieceStarts;
+
+        /**
+         * Head of splitter queue
+         */
+        private int splitterQueueHead;
+
+        /**
+         * Size of splitter queue
+         */
+        private int splitterQueueSize;
+
+        /**
+         * Start position of first cell that may be non-singleton
+         */
+        private int firstNonSingletonCell;
+
+        /**
+         * Constructor: Cells of particles with equal initial key in
+         * ascending order of keys
+         *
+         * @param aBondOffsets Bond offsets of the CSR graph
+         * @param aBondTargets Bond targets of the CSR graph
+         * @param anInitialKeys Initial keys of particles
+         */
+        private OrderedPartition(int[] aBondOffsets, int[] aBondTargets, long[] anInitialKeys) {
+            int tmpNumberOfParticles = anInitialKeys.length;
+            this.bondOffsets = aBondOffsets;
+            this.bondTargets = aBondTargets;
+            this.elements = new int[tmpNumberOfParticles];
+            this.positions = new int[tmpNumberOfParticles];
+            this.cellStarts = new int[tmpNumberOfParticles];
+            this.cellEnds = new int[tmpNumberOfParticles];
+            this.splitterQueue = new int[tmpNumberOfParticles];
+            this.isInSplitterQueue = new boolean[tmpNumberOfParticles];
+            this.neighborCounts = new int[tmpNumberOfParticles];
+            this.touchedCounts = new int[tmpNumberOfParticles];
+            this.touchedCells = new int[tmpNumberOfParticles];
+            this.splitter = new int[tmpNumberOfParticles];
+            this.sortBuffer = new long[tmpNumberOfParticles];
+            this.pieceStarts = new int[tmpNumberOfParticles];
+            // Counting sort of particles by rank of initial key
+            long[] tmpKeys = anInitialKeys.clone();
+            Arrays.sort(tmpKeys);
+            int tmpNumberOfKeys = 0;
+            for (int i = 0; i < tmpNumberOfParticles; i++) {
+                if (i == 0 || tmpKeys[i] != tmpKeys[i - 1]) {
+                    tmpKeys[tmpNumberOfKeys++] = tmpKeys[i];
+                }
+            }
+            int[] tmpRanks = new int[tmpNumberOfParticles];
+            int[] tmpRankStarts = new int[tmpNumberOfKeys + 1];
+            for (int i = 0; i < tmpNumberOfParticles; i++) {
+                tmpRanks[i] = Arrays.binarySearch(tmpKeys, 0, tmpNumberOfKeys, anInitialKeys[i]);
+                tmpRankStarts[tmpRanks[i] + 1]++;
+            }
+            for (int i = 0; i < tmpNumberOfKeys; i++) {
+                tmpRankStarts[i + 1] += tmpRankStarts[i];
+            }
+            int[] tmpNextPositions = Arrays.copyOf(tmpRankStarts, tmpNumberOfKeys);
+            for (int i = 0; i < tmpNumberOfParticles; i++) {
+                int tmpPosition = tmpNextPositions[tmpRanks[i]]++;
+                this.elements[tmpPosition] = i;
+                this.positions[i] = tmpPosition;
+                this.cellStarts[i] = tmpRankStarts[tmpRanks[i]];
+            }
+            for (int i = 0; i < tmpNumberOfKeys; i++) {
+                this.cellEnds[tmpRankStarts[i]] = tmpRankStarts[i + 1];
+                this.enqueue(tmpRankStarts[i]);
+            }
+            this.firstNonSingletonCell = 0;
+        }
+
+        /**
+         * Particles in partition order
+         *
+         * @return Particles in partition order
+         */
+        private int[] getElements() {
+            return this.elements;
+        }
+
+        /**
+         * Returns the first particle of the first non-singleton cell
+         *
+         * @return First particle of the first non-singleton cell or -1 if
+         * partition is discrete
+         */
+        private int getParticleOfFirstNonSingletonCell() {
+            int tmpNumberOfParticles = this.elements.length;
+            while (this.firstNonSingletonCell < tmpNumberOfParticles
+                    && this.cellEnds[this.firstNonSingletonCell] - this.firstNonSingletonCell == 1) {
+                this.firstNonSingletonCell++;
+            }
+            if (this.firstNonSingletonCell == tmpNumberOfParticles) {
+                return -1;
+            }
+            return this.elements[this.firstNonSingletonCell];
+        }
+
+        /**
+         * Individualizes a particle, i.e. the particle is moved to a
+         * singleton cell at the end of its cell which becomes a splitter
+         *
+         * @param aParticle Particle
+         */
+        private void individualize(int aParticle) {
+            int tmpCellStart = this.cellStarts[aParticle];
+            int tmpCellEnd = this.cellEnds[tmpCellStart];
+            this.swap(this.positions[aParticle], tmpCellEnd - 1);
+            this.cellEnds[tmpCellStart] = tmpCellEnd - 1;
+            this.cellEnds[tmpCellEnd - 1] = tmpCellEnd;
+            this.cellStarts[aParticle] = tmpCellEnd - 1;
+            this.enqueue(tmpCellEnd - 1);
+        }
+
+        /**
+         * Refines the partition until it is equitable, i.e. all particles of
+         * a cell have the same number of neighbors in every cell
+         */
+        private void refine() {
+            int tmpNumberOfParticles = this.elements.length;
+            while (this.splitterQueueSize > 0) {
+                int tmpSplitterStart = this.splitterQueue[this.splitterQueueHead];
+                this.splitterQueueHead = (this.splitterQueueHead + 1) % tmpNumberOfParticles;
+                this.splitterQueueSize--;
+                this.isInSplitterQueue[tmpSplitterStart] = false;
+                int tmpSplitterSize = this.cellEnds[tmpSplitterStart] - tmpSplitterStart;
+                System.arraycopy(this.elements, tmpSplitterStart, this.splitter, 0, tmpSplitterSize);
+                // Count neighbors in splitter and move counted particles to the end of their cells
+                int tmpNumberOfTouchedCells = 0;
+                for (int i = 0; i < tmpSplitterSize; i++) {
+                    int tmpParticle = this.splitter[i];
+                    for (int k = this.bondOffsets[tmpParticle]; k < this.bondOffsets[tmpParticle + 1]; k++) {
+                        int tmpNeighbor = this.bondTargets[k];
+                        int tmpCellStart = this.cellStarts[tmpNeighbor];
+                        // Singleton cells can not be split
+                        if (this.cellEnds[tmpCellStart] - tmpCellStart > 1 && this.neighborCounts[tmpNeighbor]++ == 0) {
+                            if (this.touchedCounts[tmpCellStart]++ == 0) {
+                                this.touchedCells[tmpNumberOfTouchedCells++] = tmpCellStart;
+                            }
+                            this.swap(this.positions[tmpNeighbor], this.cellEnds[tmpCellStart] - this.touchedCounts[tmpCellStart]);
+                        }
+                    }
+                }
+                Arrays.sort(this.touchedCells, 0, tmpNumberOfTouchedCells);
+                for (int i = 0; i < tmpNumberOfTouchedCells; i++) {
+                    this.split(this.touchedCells[i]);
+                }
+            }
+        }
+
+        /**
+         * Splits a cell by the neighbor counts of its particles (particles
+         * without neighbors in splitter first, then ascending counts) and
+         * resets the neighbor counts
+         *
+         * @param aCellStart Start position of cell
+         */
+        private void split(int aCellStart) {
+            int tmpCellEnd = this.cellEnds[aCellStart];
+            int tmpTouchedStart = tmpCellEnd - this.touchedCounts[aCellStart];
+            int tmpNumberOfTouched = tmpCellEnd - tmpTouchedStart;
+            for (int i = 0; i < tmpNumberOfTouched; i++) {
+                int tmpParticle = this.elements[tmpTouchedStart + i];
+                this.sortBuffer[i] = ((long) this.neighborCounts[tmpParticle] << 32) | tmpParticle;
+            }
+            Arrays.sort(this.sortBuffer, 0, tmpNumberOfTouched);
+            int tmpNumberOfPieces = 0;
+            if (tmpTouchedStart > aCellStart) {
+                this.pieceStarts[tmpNumberOfPieces++] = aCellStart;
+            }
+            for (int i = 0; i < tmpNumberOfTouched; i++) {
+                int tmpParticle = (int) this.sortBuffer[i];
+                int tmpPosition = tmpTouchedStart + i;
+                this.elements[tmpPosition] = tmpParticle;
+                this.positions[tmpParticle] = tmpPosition;
+                if (i == 0 || (this.sortBuffer[i] >>> 32) != (this.sortBuffer[i - 1] >>> 32)) {
+                    this.pieceStarts[tmpNumberOfPieces++] = tmpPosition;
+                }
+                this.neighborCounts[tmpParticle] = 0;
+            }
+            this.touchedCounts[aCellStart] = 0;
+            if (tmpNumberOfPieces == 1) {
+                return;
+            }
+            // New cells
+            int tmpLargestPiece = 0;
+            int tmpLargestSize = 0;
+            for (int i = 0; i < tmpNumberOfPieces; i++) {
+                int tmpPieceStart = this.pieceStarts[i];
+                int tmpPieceEnd = i + 1 < tmpNumberOfPieces ? this.pieceStarts[i + 1] : tmpCellEnd;
+                this.cellEnds[tmpPieceStart] = tmpPieceEnd;
+                if (i > 0) {
+                    for (int k = tmpPieceStart; k < tmpPieceEnd; k++) {
+                        this.cellStarts[this.elements[k]] = tmpPieceStart;
+                    }
+                }
+                if (tmpPieceEnd - tmpPieceStart > tmpLargestSize) {
+                    tmpLargestSize = tmpPieceEnd - tmpPieceStart;
+                    tmpLargestPiece = i;
+                }
+            }
+            // Smaller-half strategy: A cell that is not in the queue was already a splitter
+            boolean tmpIsInSplitterQueue = this.isInSplitterQueue[aCellStart];
+            for (int i = 0; i < tmpNumberOfPieces; i++) {
+                int tmpPieceStart = this.pieceStarts[i];
+                if (tmpIsInSplitterQueue ? i > 0 : i != tmpLargestPiece) {
+                    this.enqueue(tmpPieceStart);
+                }
+            }
+        }
+
+        /**
+         * Appends a cell to the splitter queue (if not already contained)
+         *
+         * @param aCellStart Start position of cell
+         */
+        private void enqueue(int aCellStart) {
+            if (!this.isInSplitterQueue[aCellStart]) {
+                this.isInSplitterQueue[aCellStart] = true;
+                this.splitterQueue[(this.splitterQueueHead + this.splitterQueueSize) % this.elements.length] = aCellStart;
+                this.splitterQueueSize++;
+            }
+        }
+
+        /**
+         * Swaps the particles at two positions
+         *
+         * @param aFirstPosition First position
+         * @param aSecondPosition Second position
+         */
+        private void swap(int aFirstPosition, int aSecondPosition) {
+            int tmpFirstParticle = this.elements[aFirstPosition];
+            int tmpSecondParticle = this.elements[aSecondPosition];
+            this.elements[aFirstPosition] = tmpSecondParticle;
+            this.elements[aSecondPosition] = tmpFirstParticle;
+            this.positions[tmpSecondParticle] = aFirstPosition;
+            this.positions[tmpFirstParticle] = aSecondPosition;
+        }
+
+    }
+    // </editor-fold>
+
+}
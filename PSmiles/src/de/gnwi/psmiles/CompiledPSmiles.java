@@ -0,0 +1,1980 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Immutable compiled PSmiles structure: Tokens, particle indices, bonds as
+ * compressed sparse row (CSR) graph, backbone indices, START/END indices and
+ * particle frequencies are determined once in the constructor. A
+ * CompiledPSmiles object is safe to be shared between threads, PSmiles is a
+ * mutable view on a CompiledPSmiles object.
+ * NOTE: Returned arrays and parts are shared and must NOT be changed.
+ *
+ * @author Achim Zielesny
+ */
+public final class CompiledPSmiles {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Instance of PSmilesUtility class
+     */
+    private final PSmilesUtility pSmilesUtility = new PSmilesUtility();
+
+    /**
+     * Parser engine that compiled the input structure
+     */
+    private final PSmilesConstants.ParserEngine parserEngine;
+
+    /**
+     * Snapshot of the hashmap of available particles the input structure was
+     * compiled with (may be null)
+     */
+    private final HashMap<String, String> availableParticles;
+
+    /**
+     * Input structure
+     */
+    private final String inputStructure;
+
+    /**
+     * Error message (null if input structure is valid)
+     */
+    private final String errorMessage;
+
+    /**
+     * True: The input structure is valid, false: Otherwise
+     */
+    private final boolean isValid;
+
+    /**
+     * True: The input structure is a monomer, false: Otherwise
+     */
+    private final boolean isMonomer;
+
+    /**
+     * Sub input structures
+     */
+    private final String[] parts;
+
+    /**
+     * Number of disconnected structures
+     */
+    private final int numberOfParts;
+
+    /**
+     * Whether there is disconnected structure in input structure
+     */
+    private final boolean hasParts;
+
+    /**
+     * Part of pSmiles
+     */
+    private final PSmilesInner[] partOfPSmiles;
+
+    /**
+     * Distinct parts of the part runs: A part run consists of consecutive
+     * instances of the same part (e.g. "5000&lt;A-B&gt;" is a single part run
+     * with 5000 instances)
+     */
+    private final PSmilesInner[] partRunParts;
+
+    /**
+     * Number of part instances of the part runs
+     */
+    private final int[] partRunFrequencies;
+
+    /**
+     * Index of the first part instance of the part runs
+     */
+    private final int[] partRunPartIndices;
+
+    /**
+     * Particle offset of the first part instance of the part runs (length:
+     * number of part runs + 1)
+     */
+    private final int[] partRunParticleOffsets;
+
+    /**
+     * Structure tokens (materialised on demand for multiple parts)
+     */
+    private volatile String[] outerStructureTokens;
+
+    /**
+     * Outer particle index (zero-based position of particles in the
+     * structure tokens of their part, materialised on demand)
+     */
+    private volatile int[] outerParticleIndices;
+
+    /**
+     * Particle type IDs of all particles (see ParticleTypeDictionary,
+     * materialised on demand)
+     */
+    private volatile int[] particleTypeIds;
+
+    /**
+     * Dictionary of the particle type IDs of the molecule
+     */
+    private final ParticleTypeDictionary particleTypeDictionary;
+
+    /**
+     * Particle type IDs of the different particle types of the molecule in
+     * ascending order (index is local particle type index)
+     */
+    private final int[] localParticleTypeIds;
+
+    /**
+     * Frequencies of particle types (index is local particle type index)
+     */
+    private final int[] particleTypeFrequencies;
+
+    /**
+     * Outer backbone index (zero-based position of particles: value
+     * corresponds to index number in input string, materialised on demand)
+     */
+    private volatile int[] outerBackboneIndices;
+
+    /**
+     * Maximum outer backbone index
+     */
+    private final int maxOuterBackboneIndex;
+
+    /**
+     * Number of total particles
+     */
+    private final int numberOfTotalParticles;
+
+    /**
+     * Valence numbers of particles (materialised on demand)
+     */
+    private volatile int[] numberOfConnects;
+
+    /**
+     * Bond offsets of the compressed sparse row (CSR) graph of all parts
+     * (materialised on demand)
+     */
+    private volatile int[] bondOffsets;
+
+    /**
+     * Bond targets of the compressed sparse row (CSR) graph of all parts
+     * (materialised on demand)
+     */
+    private volatile int[] bondTargets;
+
+    /**
+     * Canonical PSMILES (materialised on demand)
+     */
+    private volatile String canonicalPSmiles;
+
+    /**
+     * 128-bit structural hash of canonical PSMILES (materialised on demand)
+     */
+    private volatile long[] structuralHash;
+
+    /**
+     * Maximum number of connections (bonds) of a single particle
+     */
+    private final int maximumNumberOfConnectionsOfSingleParticle;
+
+    /**
+     * Where there is backbone particles
+     */
+    private final boolean hasBackboneAttribute;
+
+    /**
+     * Monomer names
+     */
+    private final String[] monomers;
+
+    /**
+     * HashMap that maps particles of molecule to their frequencies (is NOT
+     * changed after construction)
+     */
+    private final HashMap<String, Integer> particleToFrequencyMap;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Compiles input structure with default parser engine
+     *
+     * @param anInputStructure An input structure (NOT allowed to be a monomer
+     * or to contain monomer shortcuts)
+     */
+    public CompiledPSmiles(CharSequence anInputStructure) {
+        this(anInputStructure, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY), false, PSmilesConstants.DEFAULT_PARSER_ENGINE);
+    }
+
+    /**
+     * Compiles input structure
+     *
+     * @param anInputStructure An input structure (NOT allowed to be a monomer
+     * or to contain monomer shortcuts)
+     * @param aParserEngine Parser engine
+     * @throws IllegalArgumentException Thrown if aParserEngine is null
+     */
+    public CompiledPSmiles(CharSequence anInputStructure, PSmilesConstants.ParserEngine aParserEngine) throws IllegalArgumentException {
+        this(anInputStructure, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY), false, aParserEngine);
+    }
+
+    /**
+     * Compiles input structure. The SINGLE_PASS parser engine reads the
+     * characters of anInputStructure sequentially, i.e. a huge input
+     * structure may be compiled from a MappedCharSequence without prior
+     * conversion to a string. NOTE: The compiled input structure always
+     * holds the input structure without white spaces as a string (see
+     * getInputStructure()), i.e. a copy of the complete input file for a
+     * MappedCharSequence. An input structure with white spaces is
+     * transiently held twice (see PSmilesParser.parse()). The TOKEN_PIPELINE
+     * parser engine converts anInputStructure to a string first.
+     *
+     * @param anInputStructure An input structure (may be a monomer)
+     * @param anAvailableParticles Hashmap of available particles
+     * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
+     * @param aParserEngine Parser engine
+     * @throws IllegalArgumentException Thrown if aParserEngine is null
+     */
+    public CompiledPSmiles(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer,
+            PSmilesConstants.ParserEngine aParserEngine) throws IllegalArgumentException {
+        this(anInputStructure, anAvailableParticles, anIsMonomer, aParserEngine, null);
+    }
+
+    /**
+     * Compiles input structure incrementally: The TOKEN_PIPELINE parser
+     * engine re-uses the (immutable) parts of aPreviousCompiledPSmiles for
+     * unchanged parts of anInputStructure so that only edited parts are
+     * parsed again. Parts are re-used only if aPreviousCompiledPSmiles is
+     * valid, was compiled by the TOKEN_PIPELINE parser engine with the same
+     * monomer flag and an equal hashmap of available particles.
+     * Otherwise (and with the SINGLE_PASS parser engine) anInputStructure is
+     * compiled completely.
+     *
+     * @param anInputStructure An input structure (may be a monomer)
+     * @param anAvailableParticles Hashmap of available particles
+     * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
+     * @param aParserEngine Parser engine
+     * @param aPreviousCompiledPSmiles Previously compiled input structure (may
+     * be null)
+     * @throws IllegalArgumentException Thrown if aParserEngine is null
+     */
+    public CompiledPSmiles(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer,
+            PSmilesConstants.ParserEngine aParserEngine, CompiledPSmiles aPreviousCompiledPSmiles) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.Constructor: aParserEngine is null.");
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Initialisation">
+        String tmpInputStructure = null;
+        String tmpErrorMessage = null;
+        String[] tmpParts = null;
+        String[] tmpStructureTokens = null;
+        PSmilesInner[] tmpPartOfPSmiles = null;
+        boolean tmpHasParts = false;
+
+        // </editor-fold>
+        if (aParserEngine == PSmilesConstants.ParserEngine.SINGLE_PASS) {
+            // <editor-fold defaultstate="collapsed" desc="Check, compilation and bond detection in a single pass">
+            PSmilesParser tmpParser = new PSmilesParser();
+            if (tmpParser.parse(anInputStructure, anAvailableParticles, anIsMonomer)) {
+                tmpParts = tmpParser.getParts();
+                tmpPartOfPSmiles = tmpParser.getPartsOfPSmiles();
+                tmpHasParts = tmpParser.hasParts();
+            } else {
+                tmpErrorMessage = tmpParser.getErrorMessage();
+            }
+            tmpInputStructure = tmpParser.getInputStructure();
+
+            // </editor-fold>
+        } else {
+            // <editor-fold defaultstate="collapsed" desc="Check outer parts">
+            String tmpRawInputStructure = anInputStructure == null ? null : anInputStructure.toString();
+            String tmpCheckMessage = this.preCheckInputStructure(tmpRawInputStructure);
+            if (tmpCheckMessage.isEmpty()) {
+                tmpInputStructure = this.pSmilesUtility.eliminateWhiteSpaces(tmpRawInputStructure);
+                tmpCheckMessage = this.checkOuterParts(tmpInputStructure);
+            }
+            if (!tmpCheckMessage.isEmpty()) {
+                tmpErrorMessage = tmpCheckMessage;
+            } else {
+                tmpStructureTokens = this.pSmilesUtility.getStructureTokens(tmpRawInputStructure);
+                tmpParts = this.partStructures(tmpInputStructure);
+                tmpHasParts = this.pSmilesUtility.hasPart(tmpInputStructure);
+            }
+
+            // </editor-fold>
+            // <editor-fold defaultstate="collapsed" desc="Check inner parts">
+            if (tmpErrorMessage == null) {
+                HashMap<String, PSmilesInner> tmpPartsHashMap = new HashMap<>(PSmilesConstants.DEFAULT_NUMBER_OF_PARTICLES);
+                if (this.isReusable(aPreviousCompiledPSmiles, anAvailableParticles, anIsMonomer)) {
+                    for (int i = 0; i < aPreviousCompiledPSmiles.parts.length; i++) {
+                        tmpPartsHashMap.put(aPreviousCompiledPSmiles.parts[i], aPreviousCompiledPSmiles.partOfPSmiles[i]);
+                    }
+                }
+                tmpPartOfPSmiles = new PSmilesInner[tmpParts.length];
+                for (int i = 0; i < tmpParts.length; i++) {
+                    tmpPartOfPSmiles[i] = tmpPartsHashMap.get(tmpParts[i]);
+                    if (tmpPartOfPSmiles[i] == null) {
+                        tmpPartOfPSmiles[i] = new PSmilesInner(tmpParts[i], anAvailableParticles, anIsMonomer, 1, null, null, 0.0);
+                        tmpPartsHashMap.put(tmpParts[i], tmpPartOfPSmiles[i]);
+                    }
+                    if (tmpPartOfPSmiles[i].getErrorMessage() != null) {
+                        tmpErrorMessage = tmpPartOfPSmiles[i].getErrorMessage();
+                        tmpPartOfPSmiles = null;
+                        break;
+                    }
+                }
+            }
+            // </editor-fold>
+        }
+        this.parserEngine = aParserEngine;
+        // Snapshot: The hashmap of the caller may be changed after compilation
+        this.availableParticles = anAvailableParticles == null ? null : new HashMap<>(anAvailableParticles);
+        this.inputStructure = tmpInputStructure;
+        this.isMonomer = tmpInputStructure != null && anIsMonomer;
+        this.errorMessage = tmpErrorMessage;
+        this.isValid = tmpErrorMessage == null;
+        // NOTE: Particle type IDs are only assigned for valid input structures
+        this.particleTypeDictionary = PSmilesUtility.getParticleTypeDictionary();
+        if (this.isValid) {
+            // <editor-fold defaultstate="collapsed" desc="Particle related data of valid parts">
+            this.parts = tmpParts;
+            this.numberOfParts = tmpParts.length;
+            this.hasParts = tmpHasParts;
+            this.partOfPSmiles = tmpPartOfPSmiles;
+            // <editor-fold defaultstate="collapsed" desc="Part runs">
+            int tmpNumberOfPartRuns = 0;
+            for (int i = 0; i < tmpPartOfPSmiles.length; i++) {
+                if (i == 0 || tmpPartOfPSmiles[i] != tmpPartOfPSmiles[i - 1]) {
+                    tmpNumberOfPartRuns++;
+                }
+            }
+            this.partRunParts = new PSmilesInner[tmpNumberOfPartRuns];
+            this.partRunFrequencies = new int[tmpNumberOfPartRuns];
+            this.partRunPartIndices = new int[tmpNumberOfPartRuns];
+            this.partRunParticleOffsets = new int[tmpNumberOfPartRuns + 1];
+            int tmpPartRunIndex = -1;
+            for (int i = 0; i < tmpPartOfPSmiles.length; i++) {
+                if (i == 0 || tmpPartOfPSmiles[i] != tmpPartOfPSmiles[i - 1]) {
+                    tmpPartRunIndex++;
+                    this.partRunParts[tmpPartRunIndex] = tmpPartOfPSmiles[i];
+                    this.partRunPartIndices[tmpPartRunIndex] = i;
+                }
+                this.partRunFrequencies[tmpPartRunIndex]++;
+            }
+            for (int i = 0; i < tmpNumberOfPartRuns; i++) {
+                this.partRunParticleOffsets[i + 1] = this.partRunParticleOffsets[i] + this.partRunFrequencies[i] * this.partRunParts[i].getInnerParticles().length;
+            }
+            this.numberOfTotalParticles = this.partRunParticleOffsets[tmpNumberOfPartRuns];
+
+            // </editor-fold>
+            // <editor-fold defaultstate="collapsed" desc="Totals and frequencies of part runs">
+            if (tmpNumberOfPartRuns == 1 && this.partRunFrequencies[0] == 1) {
+                this.outerStructureTokens = tmpPartOfPSmiles[0].getInnerStructureTokens();
+            }
+            int tmpMaxBackboneIndex = -1;
+            int tmpMaxConnectionNumber = 0;
+            boolean tmpHasBackboneAttribute = false;
+            for (PSmilesInner tmpPart : this.partRunParts) {
+                for (int tmpBackboneIndex : tmpPart.getInnerBackboneIndices()) {
+                    if (tmpBackboneIndex > tmpMaxBackboneIndex) {
+                        tmpMaxBackboneIndex = tmpBackboneIndex;
+                    }
+                }
+                for (int tmpNumberOfConnects : tmpPart.getNumberOfConnects()) {
+                    if (tmpNumberOfConnects > tmpMaxConnectionNumber) {
+                        tmpMaxConnectionNumber = tmpNumberOfConnects;
+                    }
+                }
+                tmpHasBackboneAttribute |= tmpPart.hasBackboneAttribute();
+            }
+            this.maxOuterBackboneIndex = tmpMaxBackboneIndex;
+            this.maximumNumberOfConnectionsOfSingleParticle = tmpMaxConnectionNumber;
+            // Particle types are remapped to dense local indices so that
+            // per-molecule arrays do not grow with the process-wide dictionary
+            HashMap<Integer, Integer> tmpParticleTypeIdToLocalIndexMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+            int[] tmpLocalParticleTypeIds = new int[PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY];
+            int[] tmpParticleTypeFrequencies = new int[PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY];
+            int tmpNumberOfParticleTypes = 0;
+            for (int i = 0; i < tmpNumberOfPartRuns; i++) {
+                int tmpLastParticleTypeId = -1;
+                int tmpLastLocalIndex = -1;
+                for (int tmpParticleTypeId : this.partRunParts[i].getParticleTypeIds(this.particleTypeDictionary)) {
+                    if (tmpParticleTypeId != tmpLastParticleTypeId) {
+                        Integer tmpLocalIndex = tmpParticleTypeIdToLocalIndexMap.get(tmpParticleTypeId);
+                        if (tmpLocalIndex == null) {
+                            if (tmpNumberOfParticleTypes == tmpLocalParticleTypeIds.length) {
+                                tmpLocalParticleTypeIds = Arrays.copyOf(tmpLocalParticleTypeIds, 2 * tmpNumberOfParticleTypes);
+                                tmpParticleTypeFrequencies = Arrays.copyOf(tmpParticleTypeFrequencies, 2 * tmpNumberOfParticleTypes);
+                            }
+                            tmpLocalIndex = tmpNumberOfParticleTypes;
+                            tmpLocalParticleTypeIds[tmpNumberOfParticleTypes++] = tmpParticleTypeId;
+                            tmpParticleTypeIdToLocalIndexMap.put(tmpParticleTypeId, tmpLocalIndex);
+                        }
+                        tmpLastParticleTypeId = tmpParticleTypeId;
+                        tmpLastLocalIndex = tmpLocalIndex;
+                    }
+                    tmpParticleTypeFrequencies[tmpLastLocalIndex] += this.partRunFrequencies[i];
+                }
+            }
+            this.localParticleTypeIds = Arrays.copyOf(tmpLocalParticleTypeIds, tmpNumberOfParticleTypes);
+            Arrays.sort(this.localParticleTypeIds);
+            this.particleTypeFrequencies = new int[tmpNumberOfParticleTypes];
+            for (int i = 0; i < tmpNumberOfParticleTypes; i++) {
+                this.particleTypeFrequencies[Arrays.binarySearch(this.localParticleTypeIds, tmpLocalParticleTypeIds[i])] = tmpParticleTypeFrequencies[i];
+            }
+            this.particleToFrequencyMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+            for (int i = 0; i < tmpNumberOfParticleTypes; i++) {
+                this.particleToFrequencyMap.put(this.particleTypeDictionary.getParticle(this.localParticleTypeIds[i]), this.particleTypeFrequencies[i]);
+            }
+            this.hasBackboneAttribute = tmpHasBackboneAttribute;
+            this.monomers = this.getMonomerList();
+
+            // </editor-fold>
+        } else {
+            // <editor-fold defaultstate="collapsed" desc="Invalid input structure">
+            this.parts = null;
+            this.numberOfParts = 0;
+            this.hasParts = false;
+            this.partOfPSmiles = null;
+            this.partRunParts = null;
+            this.partRunFrequencies = null;
+            this.partRunPartIndices = null;
+            this.partRunParticleOffsets = null;
+            this.outerStructureTokens = tmpStructureTokens;
+            this.outerParticleIndices = null;
+            this.outerBackboneIndices = null;
+            this.maxOuterBackboneIndex = -1;
+            this.numberOfTotalParticles = 0;
+            this.numberOfConnects = null;
+            this.bondOffsets = null;
+            this.bondTargets = null;
+            this.maximumNumberOfConnectionsOfSingleParticle = 0;
+            this.hasBackboneAttribute = false;
+            this.monomers = null;
+            this.particleTypeIds = null;
+            this.localParticleTypeIds = new int[0];
+            this.particleTypeFrequencies = new int[0];
+            this.particleToFrequencyMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+
+            // </editor-fold>
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Returns the parser engine that compiled the input structure
+     *
+     * @return Parser engine
+     */
+    public PSmilesConstants.ParserEngine getParserEngine() {
+        return this.parserEngine;
+    }
+
+    /**
+     * Returns the input structure
+     *
+     * @return Input structure
+     */
+    public String getInputStructure() {
+        return this.inputStructure;
+    }
+
+    /**
+     * Returns error message
+     *
+     * @return Error message or null if input structure is valid
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * Returns structure tokens
+     *
+     * @return Structure tokens
+     */
+    public String[] getStructureTokens() {
+        String[] tmpStructureTokens = this.outerStructureTokens;
+        if (tmpStructureTokens == null && this.isValid) {
+            ArrayList<String> tmpStructureTokenList = new ArrayList<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
+            for (int i = 0; i < this.partRunParts.length; i++) {
+                List<String> tmpStructureTokensOfPart = Arrays.asList(this.partRunParts[i].getInnerStructureTokens());
+                for (int j = 0; j < this.partRunFrequencies[i]; j++) {
+                    tmpStructureTokenList.addAll(tmpStructureTokensOfPart);
+                }
+            }
+            tmpStructureTokens = tmpStructureTokenList.toArray(new String[0]);
+            this.outerStructureTokens = tmpStructureTokens;
+        }
+        return tmpStructureTokens;
+    }
+
+    /**
+     * Particle index
+     *
+     * @return Particle indices
+     */
+    public int[] getParticleIndices() {
+        int[] tmpParticleIndices = this.outerParticleIndices;
+        if (tmpParticleIndices == null && this.isValid) {
+            tmpParticleIndices = this.getExpandedArray(PSmilesInner::getInnerParticleIndices, false);
+            this.outerParticleIndices = tmpParticleIndices;
+        }
+        return tmpParticleIndices;
+    }
+
+    /**
+     * Dictionary of the particle type IDs of the molecule (the process-wide
+     * dictionary at the time of construction, see
+     * PSmilesUtility.getParticleTypeDictionary())
+     *
+     * @return Dictionary of the particle type IDs
+     */
+    public ParticleTypeDictionary getParticleTypeDictionary() {
+        return this.particleTypeDictionary;
+    }
+
+    /**
+     * Particle type IDs of all particles (see getParticleTypeDictionary())
+     * NOTE: Returned array is NOT allowed to be changed.
+     *
+     * @return Particle type IDs or null if input structure is invalid
+     */
+    public int[] getParticleTypeIds() {
+        int[] tmpParticleTypeIds = this.particleTypeIds;
+        if (tmpParticleTypeIds == null && this.isValid) {
+            tmpParticleTypeIds = this.getExpandedArray(aPart -> aPart.getParticleTypeIds(this.particleTypeDictionary), false);
+            this.particleTypeIds = tmpParticleTypeIds;
+        }
+        return tmpParticleTypeIds;
+    }
+
+    /**
+     * Returns frequency of specified particle type in molecule
+     *
+     * @param aParticleTypeId Particle type ID (see
+     * getParticleTypeDictionary())
+     * @return Frequency of specified particle type in molecule
+     */
+    public int getFrequencyOfParticleType(int aParticleTypeId) {
+        int tmpLocalIndex = Arrays.binarySearch(this.localParticleTypeIds, aParticleTypeId);
+        if (tmpLocalIndex < 0) {
+            return 0;
+        }
+        return this.particleTypeFrequencies[tmpLocalIndex];
+    }
+
+    /**
+     * Backbone indices
+     * 
+     * @return Backbone indices (may be null)
+     */
+    public int[] getBackboneIndices() {
+        int[] tmpBackboneIndices = this.outerBackboneIndices;
+        if (tmpBackboneIndices == null && this.isValid) {
+            tmpBackboneIndices = this.getExpandedArray(PSmilesInner::getInnerBackboneIndices, false);
+            this.outerBackboneIndices = tmpBackboneIndices;
+        }
+        return tmpBackboneIndices;
+    }
+
+    /**
+     * Maximum backbone index
+     * 
+     * @return Maximum backbone index or -1 if no backbone attribute is defined
+     */
+    public int getMaxBackboneIndex() {
+        return this.maxOuterBackboneIndex;
+    }
+
+    /**
+     * Valence numbers of particles
+     *
+     * @return Valence numbers of particles (may be null)
+     */
+    public int[] getNumberOfConnects() {
+        int[] tmpNumberOfConnects = this.numberOfConnects;
+        if (tmpNumberOfConnects == null && this.isValid) {
+            tmpNumberOfConnects = this.getExpandedArray(PSmilesInner::getNumberOfConnects, false);
+            this.numberOfConnects = tmpNumberOfConnects;
+        }
+        return tmpNumberOfConnects;
+    }
+
+    /**
+     * Bond offsets of the compressed sparse row (CSR) graph of all parts: The
+     * neighbors of particle i are getBondTargets()[k] with getBondOffsets()[i]
+     * &lt;= k &lt; getBondOffsets()[i + 1]. Particles are numbered
+     * consecutively over all parts.
+     *
+     * @return Bond offsets (length: total number of particles + 1, may be
+     * null)
+     */
+    public int[] getBondOffsets() {
+        int[] tmpBondOffsets = this.bondOffsets;
+        if (tmpBondOffsets == null && this.isValid) {
+            int[] tmpNumberOfConnects = this.getNumberOfConnects();
+            tmpBondOffsets = new int[this.numberOfTotalParticles + 1];
+            for (int i = 0; i < this.numberOfTotalParticles; i++) {
+                tmpBondOffsets[i + 1] = tmpBondOffsets[i] + tmpNumberOfConnects[i];
+            }
+            this.bondOffsets = tmpBondOffsets;
+        }
+        return tmpBondOffsets;
+    }
+
+    /**
+     * Bond targets of the compressed sparse row (CSR) graph of all parts
+     *
+     * @return Bond targets (every bond twice, may be null)
+     */
+    public int[] getBondTargets() {
+        int[] tmpBondTargets = this.bondTargets;
+        if (tmpBondTargets == null && this.isValid) {
+            tmpBondTargets = this.getExpandedArray(PSmilesInner::getBondTargets, true);
+            this.bondTargets = tmpBondTargets;
+        }
+        return tmpBondTargets;
+    }
+
+    /**
+     * Canonical PSMILES: Equal for all input structures with isomorphic parts
+     * and equal part frequencies (independent of branch order, ring closure
+     * labels, repetitions, white spaces and order of parts, see
+     * CanonicalLabeling), e.g. "2&lt;A-B&gt;&lt;C&gt;" for "&lt;C&gt;&lt;B-A&gt;&lt;A-B&gt;".
+     * A single part with frequency 1 is written without part brackets.
+     *
+     * @return Canonical PSMILES or null if input structure is invalid, a
+     * monomer or has a part that is not connected
+     */
+    public String getCanonicalPSmiles() {
+        String tmpCanonicalPSmiles = this.canonicalPSmiles;
+        if (tmpCanonicalPSmiles == null && this.isValid && !this.isMonomer) {
+            TreeMap<String, Integer> tmpPartToFrequencyMap = new TreeMap<>();
+            for (int i = 0; i < this.partRunParts.length; i++) {
+                String tmpCanonicalPart = this.partRunParts[i].getCanonicalLabeling().getCanonicalPSmiles();
+                if (tmpCanonicalPart == null) {
+                    return null;
+                }
+                tmpPartToFrequencyMap.merge(tmpCanonicalPart, this.partRunFrequencies[i], Integer::sum);
+            }
+            if (tmpPartToFrequencyMap.size() == 1 && tmpPartToFrequencyMap.firstEntry().getValue() == 1) {
+                tmpCanonicalPSmiles = tmpPartToFrequencyMap.firstKey();
+            } else {
+                StringBuilder tmpBuilder = new StringBuilder();
+                for (Map.Entry<String, Integer> tmpEntry : tmpPartToFrequencyMap.entrySet()) {
+                    if (tmpEntry.getValue() > 1) {
+                        tmpBuilder.append(tmpEntry.getValue());
+                    }
+                    tmpBuilder.append('<').append(tmpEntry.getKey()).append('>');
+                }
+                tmpCanonicalPSmiles = tmpBuilder.toString();
+            }
+            this.canonicalPSmiles = tmpCanonicalPSmiles;
+        }
+        return tmpCanonicalPSmiles;
+    }
+
+    /**
+     * 128-bit structural hash of the canonical PSMILES (see
+     * getCanonicalPSmiles()), e.g. for deduplication or as cache key
+     *
+     * @return Hash as two 64-bit values or null if there is no canonical
+     * PSMILES
+     */
+    public long[] getStructuralHash() {
+        long[] tmpStructuralHash = this.structuralHash;
+        if (tmpStructuralHash == null) {
+            String tmpCanonicalPSmiles = this.getCanonicalPSmiles();
+            if (tmpCanonicalPSmiles == null) {
+                return null;
+            }
+            tmpStructuralHash = CanonicalLabeling.getStructuralHash(tmpCanonicalPSmiles);
+            this.structuralHash = tmpStructuralHash;
+        }
+        return tmpStructuralHash.clone();
+    }
+
+    /**
+     * Index of START particle in the particles of the specified part
+     *
+     * @param aPartIndex Part index
+     * @return 0-based index of START particle or -1 if no START particle
+     * exists
+     */
+    public int getStartParticleIndex(int aPartIndex) {
+        return this.partOfPSmiles[aPartIndex].getStartParticleIndex();
+    }
+
+    /**
+     * Index of END particle in the particles of the specified part
+     *
+     * @param aPartIndex Part index
+     * @return 0-based index of END particle or -1 if no END particle exists
+     */
+    public int getEndParticleIndex(int aPartIndex) {
+        return this.partOfPSmiles[aPartIndex].getEndParticleIndex();
+    }
+
+    /**
+     * Returns Monomers
+     *
+     * @return Monomers
+     */
+    public String[] getMonomers() {
+        return this.monomers;
+    }
+
+    /**
+     * Maximum number of connections (bonds) of a single particle
+     *
+     * @return Maximum number of connections (bonds) of a single particle
+     */
+    public int getMaximumNumberOfConnectionsOfSingleParticle() {
+        return this.maximumNumberOfConnectionsOfSingleParticle;
+    }
+
+    /**
+     * Parts of PSmiles
+     *
+     * @return Parts of PSmiles (may be null)
+     */
+    public PSmilesInner[] getPartsOfPSmiles() {
+        return this.partOfPSmiles;
+    }
+
+    /**
+     * Number of parts
+     *
+     * @return Number of parts
+     */
+    public int getNumberOfParts() {
+        return this.numberOfParts;
+    }
+
+    /**
+     * Number of part runs: A part run consists of consecutive instances of
+     * the same part (e.g. "5000&lt;A-B&gt;" is a single part run with 5000
+     * instances)
+     *
+     * @return Number of part runs
+     */
+    public int getNumberOfPartRuns() {
+        return this.partRunParts == null ? 0 : this.partRunParts.length;
+    }
+
+    /**
+     * Distinct part of the specified part run
+     *
+     * @param aPartRunIndex Part run index
+     * @return Distinct part of the specified part run
+     */
+    public PSmilesInner getPartOfPartRun(int aPartRunIndex) {
+        return this.partRunParts[aPartRunIndex];
+    }
+
+    /**
+     * Number of part instances of the specified part run
+     *
+     * @param aPartRunIndex Part run index
+     * @return Number of part instances of the specified part run
+     */
+    public int getFrequencyOfPartRun(int aPartRunIndex) {
+        return this.partRunFrequencies[aPartRunIndex];
+    }
+
+    /**
+     * Index of the first particle of the specified part run (particles are
+     * numbered consecutively over all parts)
+     *
+     * @param aPartRunIndex Part run index
+     * @return Index of the first particle of the specified part run
+     */
+    public int getParticleOffsetOfPartRun(int aPartRunIndex) {
+        return this.partRunParticleOffsets[aPartRunIndex];
+    }
+
+    /**
+     * Index of the part that contains the specified particle (particles are
+     * numbered consecutively over all parts)
+     *
+     * @param aParticleIndex Particle index
+     * @return Part index
+     * @throws IllegalArgumentException Thrown if aParticleIndex is out of range
+     */
+    public int getPartIndexOfParticle(int aParticleIndex) throws IllegalArgumentException {
+        int tmpPartRunIndex = this.getPartRunIndexOfParticle(aParticleIndex);
+        int tmpNumberOfParticlesOfPart = this.partRunParts[tmpPartRunIndex].getInnerParticles().length;
+        return this.partRunPartIndices[tmpPartRunIndex] + (aParticleIndex - this.partRunParticleOffsets[tmpPartRunIndex]) / tmpNumberOfParticlesOfPart;
+    }
+
+    /**
+     * Index of the specified particle in the particles of its part
+     * (particles are numbered consecutively over all parts)
+     *
+     * @param aParticleIndex Particle index
+     * @return Index of particle in the particles of its part
+     * @throws IllegalArgumentException Thrown if aParticleIndex is out of range
+     */
+    public int getParticleIndexInPart(int aParticleIndex) throws IllegalArgumentException {
+        int tmpPartRunIndex = this.getPartRunIndexOfParticle(aParticleIndex);
+        int tmpNumberOfParticlesOfPart = this.partRunParts[tmpPartRunIndex].getInnerParticles().length;
+        return (aParticleIndex - this.partRunParticleOffsets[tmpPartRunIndex]) % tmpNumberOfParticlesOfPart;
+    }
+
+    /**
+     * Returns number of different particles
+     *
+     * @return Number of different particles
+     */
+    public int getNumberOfDifferentParticles() {
+        return this.particleToFrequencyMap.size();
+    }
+
+    /**
+     * Returns frequency of specified particle in molecule
+     *
+     * @param aParticle Particle
+     * @return Frequency of specified particle in molecule
+     */
+    public int getFrequencyOfSpecifiedParticle(String aParticle) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aParticle == null || !this.particleToFrequencyMap.containsKey(aParticle)) {
+            return 0;
+        }
+        // </editor-fold>
+        return this.particleToFrequencyMap.get(aParticle);
+    }
+
+    /**
+     * Returns array with particles of molecule
+     *
+     * @return Array with particles of molecule
+     */
+    public String[] getParticles() {
+        return this.particleToFrequencyMap.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Checks whether there is backbone particles
+     * 
+     * @return True: yes, false: no
+     */
+    public boolean hasBackboneParticle() {
+        return this.hasBackboneAttribute;
+    }
+
+    /**
+     * Checks whether molecule contains particle
+     *
+     * @param aParticle Particle
+     * @return True: Molecule contains particle, false: Otherwise
+     */
+    public boolean hasParticle(String aParticle) {
+        return aParticle != null && this.particleToFrequencyMap.containsKey(aParticle);
+    }
+
+    /**
+     * Returns whether structure is out of substructures.
+     *
+     * @return True: Structure has more than one part, false: Otherwise
+     */
+    public boolean hasMultipleParts() {
+        return this.numberOfParts > 1;
+    }
+
+    /**
+     * Returns total number of particles of molecule
+     *
+     * @return Total number of particles of molecule
+     */
+    public int getTotalNumberOfParticles() {
+        return this.numberOfTotalParticles;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    // <editor-fold defaultstate="collapsed" desc="- Chain and next neighbor related methods">
+    /**
+     * Determines all available neighbors
+     *
+     * @param aSegmentLength Length of segment (2: dimer, 3: trimer etc.)
+     * @param aHasDoublet Whether doublet should be considered or not (e.g. if
+     * true "A-F" and "F-A" will be returned instead one of both)
+     * @return All available neighbors with all segment lengths until
+     * aSegmentLength: Index 0: Particles, Index 1: Dimers, Index 2: Trimes etc.
+     * up to index (aSegmentLength - 1)
+     */
+    public String[][] getNextNeighbors(int aSegmentLength, boolean aHasDoublet) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (!this.isValid || aSegmentLength < 1 || this.numberOfTotalParticles == 0) {
+            return null;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Initialisation">
+        String[] tmpParticleTypes = this.getParticleTypes();
+        SegmentEnumerator tmpSegmentEnumerator = new SegmentEnumerator(aSegmentLength,
+                aHasDoublet ? SegmentEnumerator.ORIENTATION_WALK : SegmentEnumerator.ORIENTATION_END_PARTICLES,
+                this.getParticleTypeRanks(tmpParticleTypes));
+        List<List<String>> tmpResultLists = new ArrayList<>(aSegmentLength);
+        for (int i = 0; i < aSegmentLength; i++) {
+            tmpResultLists.add(new ArrayList<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY));
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Determine neighbor segments of every part">
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            // Segments of repeated parts are determined only once
+            PSmilesInner tmpPart = this.partRunParts[i];
+            tmpSegmentEnumerator.clear();
+            tmpSegmentEnumerator.addSegments(0, tmpPart.getInnerParticles().length, tmpPart.getBondOffsets(), tmpPart.getBondTargets(), this.getLocalParticleTypeIndices(tmpPart), 1);
+            for (int j = 0; j < aSegmentLength; j++) {
+                String[] tmpSegments = tmpSegmentEnumerator.getSegments(j + 1, tmpParticleTypes);
+                if (tmpSegments != null) {
+                    // NOTE: Order of segments corresponds to hash set order
+                    HashSet<String> tmpSegmentHashSet = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+                    tmpSegmentHashSet.addAll(Arrays.asList(tmpSegments));
+                    List<String> tmpSegmentsOfPart = Arrays.asList(tmpSegmentHashSet.toArray(new String[0]));
+                    for (int k = 0; k < this.partRunFrequencies[i]; k++) {
+                        tmpResultLists.get(j).addAll(tmpSegmentsOfPart);
+                    }
+                }
+            }
+        }
+        String[][] tmpResult = new String[aSegmentLength][];
+        for (int i = 0; i < aSegmentLength; i++) {
+            tmpResult[i] = tmpResultLists.get(i).isEmpty() ? null : tmpResultLists.get(i).toArray(new String[0]);
+        }
+        return tmpResult;
+        // </editor-fold>
+    }
+
+    /**
+     * Determines the frequencies of all next-neighbor segments of the
+     * molecule (all parts)
+     *
+     * @param aSegmentLength Length of segment (2: dimer, 3: trimer etc.)
+     * @param aHasDoublet True: Both directions of a segment are counted
+     * separately (e.g. "A-F" and "F-A"), false: Every segment is counted once
+     * in its lexicographically smaller direction
+     * @return Frequencies of segments (in ascending order of segments) with
+     * all segment lengths until aSegmentLength: Index 0: Particles, Index 1:
+     * Dimers, Index 2: Trimers etc. up to index (aSegmentLength - 1) or null
+     * if molecule has no particles
+     */
+    public ParticleFrequency[][] getNextNeighborFrequencies(int aSegmentLength, boolean aHasDoublet) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aSegmentLength < 1 || this.numberOfTotalParticles == 0) {
+            return null;
+        }
+
+        // </editor-fold>
+        String[] tmpParticleTypes = this.getParticleTypes();
+        SegmentEnumerator tmpSegmentEnumerator = new SegmentEnumerator(aSegmentLength,
+                aHasDoublet ? SegmentEnumerator.ORIENTATION_WALK : SegmentEnumerator.ORIENTATION_CANONICAL,
+                this.getParticleTypeRanks(tmpParticleTypes));
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            // Repeated parts are enumerated once with their multiplicity
+            PSmilesInner tmpPart = this.partRunParts[i];
+            tmpSegmentEnumerator.addSegments(0, tmpPart.getInnerParticles().length, tmpPart.getBondOffsets(), tmpPart.getBondTargets(), this.getLocalParticleTypeIndices(tmpPart), this.partRunFrequencies[i]);
+        }
+        ParticleFrequency[][] tmpResult = new ParticleFrequency[aSegmentLength][];
+        for (int j = 0; j < aSegmentLength; j++) {
+            tmpResult[j] = tmpSegmentEnumerator.getSegmentFrequencies(j + 1, tmpParticleTypes);
+        }
+        return tmpResult;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="- Particle matrix related methods">
+    /**
+     * Returns the typed particle matrix: The rows of the particles of all
+     * parts are repeated for every pair of first and last particle
+     * coordinates.
+     *
+     * @param aStartIndex First particle number in the matrix
+     * @param aFirstParticles Coordinates of the first particles (may be null
+     * or contain a single null element: No coordinates)
+     * @param aLastParticles Coordinates of the last particles
+     * @param aBondLength Bond length
+     * @return Typed particle matrix or null if input structure is invalid
+     */
+    public ParticleMatrix getParticleMatrix(int aStartIndex, PointInSpace[] aFirstParticles, PointInSpace[] aLastParticles, double aBondLength) {
+        return this.getParticleMatrix(null, aStartIndex, aFirstParticles, aLastParticles, aBondLength);
+    }
+
+    /**
+     * Returns typed particle matrices for several sets of first and last
+     * particle coordinates (e.g. for the placement of many molecules): The
+     * topology columns (particle type IDs, backbone indices and connections)
+     * are determined once and shared by all matrices, only particle numbers
+     * and coordinates are determined for every set.
+     *
+     * @param aStartIndices First particle numbers of the matrices
+     * @param aFirstParticles Coordinates of the first particles of the
+     * matrices (see getParticleMatrix())
+     * @param aLastParticles Coordinates of the last particles of the
+     * matrices
+     * @param aBondLength Bond length
+     * @return Typed particle matrices or null if input structure is invalid
+     * @throws IllegalArgumentException Thrown if an argument is null or
+     * lengths of arguments differ
+     */
+    public ParticleMatrix[] getParticleMatrices(int[] aStartIndices, PointInSpace[][] aFirstParticles, PointInSpace[][] aLastParticles, double aBondLength)
+            throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aStartIndices == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleMatrices: aStartIndices is null.");
+        }
+        if (aFirstParticles == null || aFirstParticles.length != aStartIndices.length) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleMatrices: aFirstParticles is null or has wrong length.");
+        }
+        if (aLastParticles == null || aLastParticles.length != aStartIndices.length) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleMatrices: aLastParticles is null or has wrong length.");
+        }
+        if (!this.isValid) {
+            return null;
+        }
+
+        // </editor-fold>
+        ParticleMatrix[] tmpParticleMatrices = new ParticleMatrix[aStartIndices.length];
+        ParticleMatrix tmpPreviousParticleMatrix = null;
+        for (int i = 0; i < aStartIndices.length; i++) {
+            tmpParticleMatrices[i] = this.getParticleMatrix(tmpPreviousParticleMatrix, aStartIndices[i], aFirstParticles[i], aLastParticles[i], aBondLength);
+            tmpPreviousParticleMatrix = tmpParticleMatrices[i];
+        }
+        return tmpParticleMatrices;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="- Particle coordinates related methods">
+    /**
+     * Returns coordinates of particles
+     *
+     * @param aFirstParticleCoordinate Coordinate of the first particle
+     * @param aLastParticleCoordinate Coordinate of the last particle
+     * @param aBondLength BondLength
+     * @return Coordinates of the particles (index of particle can be examined
+     * by getParticlesIndex() method). First index is index of molecular
+     * structure, second index is index of particle. If PointInSpaceInterface is
+     * unknown or different in aFirstParticleCoordinate and
+     * aLastParticleCoordinate null is returned.
+     */
+    public PointInSpace[][] getParticleCoordinates(PointInSpace aFirstParticleCoordinate, PointInSpace aLastParticleCoordinate, double aBondLength) {
+        return this.getParticleCoordinates(new PointInSpace[]{aFirstParticleCoordinate},
+                                            new PointInSpace[]{aLastParticleCoordinate}, aBondLength);
+    }
+    
+    /**
+     * Returns coordinates of particles
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength BondLength
+     * @return Coordinates of the particles (index of particle can be examined
+     * by getParticlesIndex() method) First index is index of molecular
+     * structure, second index is index of particle.
+     */
+    public PointInSpace[][] getParticleCoordinates(PointInSpace[] aFirstParticleCoordinates,
+            PointInSpace[] aLastParticleCoordinates, double aBondLength) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (this.getInputStructure() == null || this.getInputStructure().isEmpty()) {
+            return null;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Initialize variables">
+        PointInSpace[][] resultCoordinates = new PointInSpace[aFirstParticleCoordinates.length][];
+        for (int i = 0; i < aFirstParticleCoordinates.length; i++) {
+            resultCoordinates[i] = new PointInSpace[this.numberOfTotalParticles];
+        }
+
+        // </editor-fold>
+        if (this.numberOfTotalParticles == 1) {
+            // <editor-fold defaultstate="collapsed" desc="1 particle only in molecular structure">
+            for (int i = 0; i < aFirstParticleCoordinates.length; i++) {
+                resultCoordinates[i] = new PointInSpace[]{aFirstParticleCoordinates[i]};
+            }
+
+            // </editor-fold>
+        } else {
+            // <editor-fold defaultstate="collapsed" desc="Several particles in molecular structure">
+            this.setParticleCoordinatesOfReplicas(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, resultCoordinates, 0, aFirstParticleCoordinates.length);
+            // </editor-fold>
+        }
+        return resultCoordinates;
+    }
+
+    /**
+     * Returns coordinates of particles: The pairs of first and last particle
+     * coordinates (replicas) are split into disjoint ranges that are placed
+     * in parallel. The result is identical to the serial
+     * getParticleCoordinates().
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength BondLength
+     * @param anExecutorService Executor service for placement tasks (e.g. a
+     * ForkJoinPool)
+     * @return Coordinates of the particles (see serial
+     * getParticleCoordinates())
+     * @throws IllegalArgumentException Thrown if anExecutorService is null
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for placement tasks
+     */
+    public PointInSpace[][] getParticleCoordinates(PointInSpace[] aFirstParticleCoordinates,
+            PointInSpace[] aLastParticleCoordinates, double aBondLength, ExecutorService anExecutorService) throws IllegalArgumentException, InterruptedException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (anExecutorService == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: anExecutorService is null.");
+        }
+        if (this.numberOfTotalParticles <= 1) {
+            return this.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength);
+        }
+
+        // </editor-fold>
+        PointInSpace[][] resultCoordinates = new PointInSpace[aFirstParticleCoordinates.length][];
+        this.invokeReplicaTasks(anExecutorService, aFirstParticleCoordinates.length, (aFromReplica, aToReplica) -> {
+            for (int i = aFromReplica; i < aToReplica; i++) {
+                resultCoordinates[i] = new PointInSpace[this.numberOfTotalParticles];
+            }
+            this.setParticleCoordinatesOfReplicas(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, resultCoordinates, aFromReplica, aToReplica);
+        });
+        return resultCoordinates;
+    }
+
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates into the specified arrays without intermediate
+     * objects: The coordinates of pair i start at index anOffset + i *
+     * getTotalNumberOfParticles().
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @throws IllegalArgumentException Thrown if an argument is null, the
+     * numbers of first and last particle coordinates differ or the coordinate
+     * arrays are too small
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        this.checkCoordinateArrays(aFirstParticleCoordinates, aLastParticleCoordinates, anXCoordinates, aYCoordinates, aZCoordinates, anOffset);
+
+        // </editor-fold>
+        this.setParticleCoordinatesOfReplicas(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, anXCoordinates, aYCoordinates, aZCoordinates, anOffset,
+                0, aFirstParticleCoordinates.length);
+    }
+
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates into the specified arrays (see serial
+     * getParticleCoordinates()): The pairs (replicas) are split into disjoint
+     * ranges that are written in parallel into disjoint slices of the arrays.
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @param anExecutorService Executor service for placement tasks (e.g. a
+     * ForkJoinPool)
+     * @throws IllegalArgumentException Thrown if an argument is null, the
+     * numbers of first and last particle coordinates differ or the coordinate
+     * arrays are too small
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for placement tasks
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset, ExecutorService anExecutorService)
+            throws IllegalArgumentException, InterruptedException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (anExecutorService == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: anExecutorService is null.");
+        }
+        this.checkCoordinateArrays(aFirstParticleCoordinates, aLastParticleCoordinates, anXCoordinates, aYCoordinates, aZCoordinates, anOffset);
+
+        // </editor-fold>
+        this.invokeReplicaTasks(anExecutorService, aFirstParticleCoordinates.length, (aFromReplica, aToReplica) -> {
+            this.setParticleCoordinatesOfReplicas(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, anXCoordinates, aYCoordinates, aZCoordinates, anOffset,
+                    aFromReplica, aToReplica);
+        });
+    }
+
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates as consecutive x, y, z triples into the specified
+     * buffer (starting at its current position which is advanced)
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param aCoordinateBuffer Coordinate buffer (output)
+     * @throws IllegalArgumentException Thrown if an argument is null, the
+     * numbers of first and last particle coordinates differ or the remaining
+     * buffer is too small
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            DoubleBuffer aCoordinateBuffer) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aFirstParticleCoordinates == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aFirstParticleCoordinates is null.");
+        }
+        if (aLastParticleCoordinates == null || aLastParticleCoordinates.length != aFirstParticleCoordinates.length) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aLastParticleCoordinates is null or has wrong length.");
+        }
+        if (aCoordinateBuffer == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aCoordinateBuffer is null.");
+        }
+        if (aCoordinateBuffer.remaining() < 3L * aFirstParticleCoordinates.length * this.numberOfTotalParticles) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aCoordinateBuffer is too small.");
+        }
+
+        // </editor-fold>
+        int tmpMaximumNumberOfParticlesOfPart = 0;
+        for (int j = 0; j < this.getNumberOfPartRuns(); j++) {
+            tmpMaximumNumberOfParticlesOfPart = Math.max(tmpMaximumNumberOfParticlesOfPart, this.partRunParts[j].getInnerParticles().length);
+        }
+        double[] tmpXCoordinates = new double[tmpMaximumNumberOfParticlesOfPart];
+        double[] tmpYCoordinates = new double[tmpMaximumNumberOfParticlesOfPart];
+        double[] tmpZCoordinates = new double[tmpMaximumNumberOfParticlesOfPart];
+        for (int i = 0; i < aFirstParticleCoordinates.length; i++) {
+            for (int j = 0; j < this.getNumberOfPartRuns(); j++) {
+                CoordinateTemplate tmpCoordinateTemplate = this.partRunParts[j].getCoordinateTemplate();
+                int tmpNumberOfParticlesOfPart = tmpCoordinateTemplate.getNumberOfParticles();
+                tmpCoordinateTemplate.setCoordinates(aFirstParticleCoordinates[i], aLastParticleCoordinates[i], aBondLength, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, 0);
+                for (int k = 0; k < this.partRunFrequencies[j]; k++) {
+                    for (int l = 0; l < tmpNumberOfParticlesOfPart; l++) {
+                        aCoordinateBuffer.put(tmpXCoordinates[l]).put(tmpYCoordinates[l]).put(tmpZCoordinates[l]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns monomer names of structure
+     *
+     * @return Monomer names of structure or null if none were found
+     */
+    public String[] getMonomerList() {
+        String[][] tmpStructureTokensOfParts;
+        if (this.partRunParts == null) {
+            tmpStructureTokensOfParts = new String[][]{this.outerStructureTokens};
+        } else {
+            // Structure tokens of repeated parts are checked only once
+            tmpStructureTokensOfParts = new String[this.partRunParts.length][];
+            for (int i = 0; i < this.partRunParts.length; i++) {
+                tmpStructureTokensOfParts[i] = this.partRunParts[i].getInnerStructureTokens();
+            }
+        }
+        HashMap<String, String> tmpMonomersHashMap = new HashMap<>();
+        for (String[] tmpStructureTokens : tmpStructureTokensOfParts) {
+            for (String tmpSingleToken : tmpStructureTokens) {
+                if (pSmilesUtility.isMonomer(tmpSingleToken) && !tmpMonomersHashMap.containsKey(tmpSingleToken)) {
+                    tmpMonomersHashMap.put(tmpSingleToken, tmpSingleToken);
+                }
+            }
+        }
+        if (tmpMonomersHashMap.isEmpty()) {
+            return null;
+        } else {
+            return tmpMonomersHashMap.keySet().toArray(new String[0]);
+        }
+    }
+
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="- Is methods">
+    /**
+     * Returns true if the input structure is valid, false: Otherwise
+     *
+     * @return True: Input structure is valid, false: Otherwise
+     */
+    public boolean isValid() {
+        return this.isValid;
+    }
+
+    /**
+     * Returns true if the input structure is a monomer, false: Otherwise
+     *
+     * @return True: Input structure is a monomer, false: Otherwise
+     */
+    public boolean isMonomer() {
+        return this.isMonomer;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="- Miscellaneous methods">
+    /**
+     * Returns the number of particles for display
+     *
+     * @return Number of particles for display
+     */
+    public int getNumberOfDisplayParticles() {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (this.partRunParts == null && this.outerStructureTokens == null) {
+            return 0;
+        }
+
+        // </editor-fold>
+        if (this.partRunParts == null) {
+            return this.getNumberOfDisplayParticles(this.outerStructureTokens);
+        }
+        int tmpCounter = 0;
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            tmpCounter += this.partRunFrequencies[i] * this.getNumberOfDisplayParticles(this.partRunParts[i].getInnerStructureTokens());
+        }
+        return tmpCounter;
+    }
+    // </editor-fold>
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Get coordinate of tokens. NOTE: No checks are performed due to
+     * performance reasons. Particles of side chains share the coordinate
+     * object of the main chain particle they are attached to.
+     *
+     * @param aPartIndex: Index of the part
+     * @param aFirstParticleCoordinate: First particle coordinate
+     * @param aLastParticleCoordinate: Last particle coordinate
+     * @param aBondLength: Bond length
+     * @return Coordinate: of tokens
+     */
+    PointInSpace[] getCoordinatesOfTokens(
+            int aPartIndex, 
+            IPointInSpace aFirstParticleCoordinate, 
+            IPointInSpace aLastParticleCoordinate,
+            double aBondLength) {
+        CoordinateTemplate tmpCoordinateTemplate = this.partOfPSmiles[aPartIndex].getCoordinateTemplate();
+        int tmpNumberOfParticles = tmpCoordinateTemplate.getNumberOfParticles();
+        double[] tmpXCoordinates = new double[tmpNumberOfParticles];
+        double[] tmpYCoordinates = new double[tmpNumberOfParticles];
+        double[] tmpZCoordinates = new double[tmpNumberOfParticles];
+        tmpCoordinateTemplate.setCoordinates(aFirstParticleCoordinate, aLastParticleCoordinate, aBondLength, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, 0);
+        int[] tmpMainChainPositions = tmpCoordinateTemplate.getMainChainPositions();
+        PointInSpace[] tmpCoordinatesOfMainChain = new PointInSpace[tmpCoordinateTemplate.getNumberOfMainChainParticles()];
+        PointInSpace[] tmpParticleCoordinates = new PointInSpace[tmpNumberOfParticles];
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            int tmpPosition = tmpMainChainPositions[i];
+            if (tmpCoordinatesOfMainChain[tmpPosition] == null) {
+                tmpCoordinatesOfMainChain[tmpPosition] = new PointInSpace(tmpXCoordinates[i], tmpYCoordinates[i], tmpZCoordinates[i]);
+            }
+            tmpParticleCoordinates[i] = tmpCoordinatesOfMainChain[tmpPosition];
+        }
+        return tmpParticleCoordinates;
+    }
+
+    /**
+     * Returns the typed particle matrix (see getParticleMatrix()). The
+     * topology columns (particle type IDs, backbone indices and connections)
+     * of aPreviousParticleMatrix are re-used if it has the same number of
+     * rows, i.e. only particle numbers and coordinates are determined.
+     * NOTE: aPreviousParticleMatrix MUST be a matrix of this compiled input
+     * structure.
+     *
+     * @param aPreviousParticleMatrix Previous particle matrix of this compiled
+     * input structure (may be null)
+     * @param aStartIndex First particle number in the matrix
+     * @param aFirstParticles Coordinates of the first particles (may be null
+     * or contain a single null element: No coordinates)
+     * @param aLastParticles Coordinates of the last particles
+     * @param aBondLength Bond length
+     * @return Typed particle matrix or null if input structure is invalid
+     */
+    ParticleMatrix getParticleMatrix(ParticleMatrix aPreviousParticleMatrix, int aStartIndex, PointInSpace[] aFirstParticles, PointInSpace[] aLastParticles,
+            double aBondLength) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (!this.isValid) {
+            return null;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Initialisation">
+        int tmpNumberOfReplicas = aFirstParticles == null ? 1 : aFirstParticles.length;
+        boolean tmpHasCoordinates = aFirstParticles != null && aFirstParticles.length > 0 && aFirstParticles[0] != null;
+        int tmpNumberOfParticles = this.numberOfTotalParticles;
+        int tmpNumberOfRows = tmpNumberOfReplicas * tmpNumberOfParticles;
+        int[] tmpParticleNumbers;
+        int[] tmpParticleTypeIds;
+        int[] tmpBackboneIndices;
+        int[] tmpConnectionOffsets;
+        int[] tmpRelativeConnections;
+
+        // </editor-fold>
+        if (aPreviousParticleMatrix != null && aPreviousParticleMatrix.getNumberOfRows() == tmpNumberOfRows) {
+            // <editor-fold defaultstate="collapsed" desc="Re-use of topology columns">
+            tmpParticleTypeIds = aPreviousParticleMatrix.getParticleTypeIds();
+            tmpBackboneIndices = aPreviousParticleMatrix.getBackboneIndices();
+            tmpConnectionOffsets = aPreviousParticleMatrix.getConnectionOffsets();
+            tmpRelativeConnections = aPreviousParticleMatrix.getRelativeConnections();
+            if (tmpNumberOfRows > 0 && aPreviousParticleMatrix.getParticleNumbers()[0] == aStartIndex) {
+                tmpParticleNumbers = aPreviousParticleMatrix.getParticleNumbers();
+            } else {
+                tmpParticleNumbers = new int[tmpNumberOfRows];
+                for (int i = 0; i < tmpNumberOfRows; i++) {
+                    tmpParticleNumbers[i] = aStartIndex + i;
+                }
+            }
+
+            // </editor-fold>
+        } else {
+            // <editor-fold defaultstate="collapsed" desc="Topology columns">
+            int tmpNumberOfConnections = 0;
+            int[][] tmpRelativeConnectionsOfPartRuns = new int[this.partRunParts.length][];
+            for (int i = 0; i < this.partRunParts.length; i++) {
+                // Relative connections are determined once per part run
+                int[] tmpBondOffsetsOfPart = this.partRunParts[i].getBondOffsets();
+                int[] tmpBondTargetsOfPart = this.partRunParts[i].getBondTargets();
+                tmpRelativeConnectionsOfPartRuns[i] = new int[tmpBondTargetsOfPart.length];
+                for (int j = 0; j < tmpBondOffsetsOfPart.length - 1; j++) {
+                    for (int k = tmpBondOffsetsOfPart[j]; k < tmpBondOffsetsOfPart[j + 1]; k++) {
+                        tmpRelativeConnectionsOfPartRuns[i][k] = tmpBondTargetsOfPart[k] - j;
+                    }
+                    Arrays.sort(tmpRelativeConnectionsOfPartRuns[i], tmpBondOffsetsOfPart[j], tmpBondOffsetsOfPart[j + 1]);
+                }
+                tmpNumberOfConnections += this.partRunFrequencies[i] * tmpBondTargetsOfPart.length;
+            }
+            tmpConnectionOffsets = new int[tmpNumberOfRows + 1];
+            tmpRelativeConnections = new int[tmpNumberOfReplicas * tmpNumberOfConnections];
+            tmpParticleNumbers = new int[tmpNumberOfRows];
+            tmpParticleTypeIds = new int[tmpNumberOfRows];
+            tmpBackboneIndices = new int[tmpNumberOfRows];
+
+            // </editor-fold>
+            // <editor-fold defaultstate="collapsed" desc="Rows of the part instances of all part runs">
+            int tmpRow = 0;
+            int tmpConnectionIndex = 0;
+            for (int i = 0; i < tmpNumberOfReplicas; i++) {
+                for (int j = 0; j < this.partRunParts.length; j++) {
+                    PSmilesInner tmpPart = this.partRunParts[j];
+                    int tmpNumberOfParticlesOfPart = tmpPart.getInnerParticles().length;
+                    int[] tmpBondOffsetsOfPart = tmpPart.getBondOffsets();
+                    int[] tmpRelativeConnectionsOfPart = tmpRelativeConnectionsOfPartRuns[j];
+                    for (int k = 0; k < this.partRunFrequencies[j]; k++) {
+                        for (int l = 0; l < tmpNumberOfParticlesOfPart; l++) {
+                            tmpConnectionOffsets[tmpRow + l + 1] = tmpConnectionIndex + tmpBondOffsetsOfPart[l + 1];
+                            tmpParticleNumbers[tmpRow + l] = aStartIndex + tmpRow + l;
+                        }
+                        System.arraycopy(tmpRelativeConnectionsOfPart, 0, tmpRelativeConnections, tmpConnectionIndex, tmpRelativeConnectionsOfPart.length);
+                        System.arraycopy(tmpPart.getParticleTypeIds(this.particleTypeDictionary), 0, tmpParticleTypeIds, tmpRow, tmpNumberOfParticlesOfPart);
+                        System.arraycopy(tmpPart.getInnerBackboneIndices(), 0, tmpBackboneIndices, tmpRow, tmpNumberOfParticlesOfPart);
+                        tmpRow += tmpNumberOfParticlesOfPart;
+                        tmpConnectionIndex += tmpRelativeConnectionsOfPart.length;
+                    }
+                }
+            }
+
+            // </editor-fold>
+        }
+        // <editor-fold defaultstate="collapsed" desc="Coordinates">
+        double[] tmpXCoordinates = null;
+        double[] tmpYCoordinates = null;
+        double[] tmpZCoordinates = null;
+        if (tmpHasCoordinates) {
+            tmpXCoordinates = new double[tmpNumberOfRows];
+            tmpYCoordinates = new double[tmpNumberOfRows];
+            tmpZCoordinates = new double[tmpNumberOfRows];
+            this.getParticleCoordinates(aFirstParticles, aLastParticles, aBondLength, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, 0);
+        }
+
+        // </editor-fold>
+        return new ParticleMatrix(this.particleTypeDictionary, tmpParticleNumbers, tmpParticleTypeIds, tmpBackboneIndices, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates,
+                tmpConnectionOffsets, tmpRelativeConnections);
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    // <editor-fold defaultstate="collapsed" desc="- Initialize methods">
+    /**
+     * Returns the number of particles for display in the specified structure
+     * tokens
+     *
+     * @param aStructureTokens Structure tokens
+     * @return Number of particles for display
+     */
+    private int getNumberOfDisplayParticles(String[] aStructureTokens) {
+        int tmpCounter = 0;
+        for (String tmpSingleStructureToken : aStructureTokens) {
+            if (pSmilesUtility.isParticle(tmpSingleStructureToken)) {
+                tmpCounter++;
+            }
+        }
+        return tmpCounter;
+    }
+
+    /**
+     * Returns the array of all particles that is expanded from the specified
+     * array of the distinct parts of the part runs
+     *
+     * @param anArrayOfPart Function that returns the array of a part
+     * @param anIsParticleIndex True: Array values are particle indices of the
+     * part which are shifted by the particle offset of the part instance,
+     * false: Otherwise
+     * @return Expanded array
+     */
+    private int[] getExpandedArray(Function<PSmilesInner, int[]> anArrayOfPart, boolean anIsParticleIndex) {
+        if (this.partRunParts.length == 1 && this.partRunFrequencies[0] == 1) {
+            return anArrayOfPart.apply(this.partRunParts[0]);
+        }
+        int tmpLength = 0;
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            tmpLength += this.partRunFrequencies[i] * anArrayOfPart.apply(this.partRunParts[i]).length;
+        }
+        int[] tmpResult = new int[tmpLength];
+        int tmpTargetIndex = 0;
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            int[] tmpArray = anArrayOfPart.apply(this.partRunParts[i]);
+            int tmpNumberOfParticlesOfPart = this.partRunParts[i].getInnerParticles().length;
+            int tmpParticleOffset = this.partRunParticleOffsets[i];
+            for (int j = 0; j < this.partRunFrequencies[i]; j++) {
+                if (anIsParticleIndex) {
+                    for (int k = 0; k < tmpArray.length; k++) {
+                        tmpResult[tmpTargetIndex + k] = tmpArray[k] + tmpParticleOffset;
+                    }
+                } else {
+                    System.arraycopy(tmpArray, 0, tmpResult, tmpTargetIndex, tmpArray.length);
+                }
+                tmpTargetIndex += tmpArray.length;
+                tmpParticleOffset += tmpNumberOfParticlesOfPart;
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Returns the index of the part run that contains the specified particle
+     *
+     * @param aParticleIndex Particle index
+     * @return Part run index
+     * @throws IllegalArgumentException Thrown if aParticleIndex is out of range
+     */
+    private int getPartRunIndexOfParticle(int aParticleIndex) throws IllegalArgumentException {
+        if (aParticleIndex < 0 || aParticleIndex >= this.numberOfTotalParticles) {
+            throw new IllegalArgumentException("CompiledPSmiles.getPartRunIndexOfParticle: aParticleIndex is out of range.");
+        }
+        int tmpPartRunIndex = Arrays.binarySearch(this.partRunParticleOffsets, aParticleIndex);
+        if (tmpPartRunIndex < 0) {
+            return -tmpPartRunIndex - 2;
+        }
+        // Skip part runs without particles
+        while (this.partRunParticleOffsets[tmpPartRunIndex + 1] == aParticleIndex) {
+            tmpPartRunIndex++;
+        }
+        return tmpPartRunIndex;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Structure check related methods">
+    
+    /**
+     * Returns if the parts of a previously compiled input structure may be
+     * re-used by the TOKEN_PIPELINE parser engine
+     *
+     * @param aPreviousCompiledPSmiles Previously compiled input structure (may
+     * be null)
+     * @param anAvailableParticles Hashmap of available particles
+     * @param anIsMonomer True: Input structure is a monomer, false: Otherwise
+     * @return True: Parts may be re-used, false: Otherwise
+     */
+    private boolean isReusable(CompiledPSmiles aPreviousCompiledPSmiles, HashMap<String, String> anAvailableParticles, boolean anIsMonomer) {
+        if (aPreviousCompiledPSmiles == null
+                || !aPreviousCompiledPSmiles.isValid
+                || aPreviousCompiledPSmiles.parserEngine != PSmilesConstants.ParserEngine.TOKEN_PIPELINE
+                || aPreviousCompiledPSmiles.isMonomer != anIsMonomer) {
+            return false;
+        }
+        return Objects.equals(aPreviousCompiledPSmiles.availableParticles, anAvailableParticles);
+    }
+
+    /**
+     * precheck methode for inputStructure
+     * @param aStructure Molecular structure
+     * @return Error message or ""
+     */
+    private String preCheckInputStructure (String aStructure) {
+        if (aStructure == null || aStructure.isEmpty()) {
+            return "";
+        }
+        if (aStructure.length() < 3) {
+            return "";
+        }
+        char[] tmpStructureCharArray = aStructure.toCharArray();
+        for (int i = 1; i < tmpStructureCharArray.length - 1; i++) {
+            if (Character.isWhitespace(tmpStructureCharArray[i])) {
+                if (Character.isLetterOrDigit(tmpStructureCharArray[i - 1]) && Character.isLetterOrDigit(tmpStructureCharArray[i + 1])) {
+                    return MessagePSmiles.getString("StructureCheck.InvalidWhiteSpace");
+                }
+            }
+        }
+        return "";
+    }
+    
+    /**
+     * Checks the outer parts of the input structure
+     *
+     * @return Error message or null
+     */
+    private String checkOuterParts(String aInputStructure) {
+        // <editor-fold defaultstate="collapsed" desc="Simple check">
+        if (aInputStructure == null || aInputStructure.isEmpty()) {
+            return MessagePSmiles.getString("StructureCheck.NoTokens");
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Initial settings">
+        int tmpNumberOfOpeningAngleBrackets = pSmilesUtility.getFrequencyOfCharacterInString(aInputStructure, "<");
+        int tmpNumberOfClosingAngleBrackets = pSmilesUtility.getFrequencyOfCharacterInString(aInputStructure, ">");
+        int tmpIndexOfOpeningAngleBracket = 0;
+        int tmpIndexOfClosingAngleBracket = -1;
+        int tmpIndexOfLastClosingAnbleBracket;
+        boolean tmpIsOddNumbersOfDelimiter;
+        boolean tmpHasAngleBracket = tmpNumberOfOpeningAngleBrackets + tmpNumberOfClosingAngleBrackets > 0;
+        char[] tmpInputStructure = aInputStructure.toCharArray();
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Checks number of angle brackets">
+        if (tmpHasAngleBracket) {
+            tmpIsOddNumbersOfDelimiter = false;
+            for (int i = 0; i < tmpInputStructure.length; i++) {
+                if (tmpInputStructure[i] == '<') {
+                    if (tmpIsOddNumbersOfDelimiter) {
+                        return MessagePSmiles.getString("StructureCheck.MissingClosingAngleBracket");
+                    } else {
+                        tmpIsOddNumbersOfDelimiter = true;
+                    }
+                } else if (tmpInputStructure[i] == '>') {
+                    if (tmpIsOddNumbersOfDelimiter) {
+                        tmpIsOddNumbersOfDelimiter = false;
+                    } else {
+                        return MessagePSmiles.getString("StructureCheck.MissingOpeningAngleBracket");
+                    }
+                }
+            }
+            if (tmpIsOddNumbersOfDelimiter) {
+                return MessagePSmiles.getString("StructureCheck.MissingClosingAngleBracket");
+            }
+            // Checks whether an empty angle bracket exists
+            if (aInputStructure.contains("<>")) {
+                return MessagePSmiles.getString("StructureCheck.EmptyAngleBrackets");
+            }
+            // Checks whether an character, except numbers and whitespaces, outside bracket exists
+            for (int i = 0; i < tmpInputStructure.length; i++) {
+                tmpIndexOfOpeningAngleBracket = aInputStructure.indexOf("<", tmpIndexOfClosingAngleBracket + 1);
+                if (tmpIndexOfOpeningAngleBracket == -1) {
+                    break;
+                }
+                if (tmpIndexOfOpeningAngleBracket > tmpIndexOfClosingAngleBracket + 1) {
+                    for (int j = tmpIndexOfClosingAngleBracket + 1; j < tmpIndexOfOpeningAngleBracket; j++) {
+                        if (!Character.isDigit(tmpInputStructure[j])) {
+                            return MessagePSmiles.getString("StructureCheck.InvalidCharacterPriorAngularBracket");
+                        }
+                    }
+                }
+                tmpIndexOfClosingAngleBracket = aInputStructure.indexOf(">", tmpIndexOfOpeningAngleBracket + 1);
+            }
+            tmpIndexOfLastClosingAnbleBracket = aInputStructure.lastIndexOf(">");
+            if (tmpIndexOfLastClosingAnbleBracket + 1 < tmpInputStructure.length) {
+                return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterAngleClosingBracket");
+            }
+        }
+        // </editor-fold>
+
+        return "";
+    }
+
+    /**
+     * Checks whether there is disconnected structure in the input structure,
+     * set hasDisconnectedStructure flag and find the disconnectedstrucutres
+     *
+     * @param aSubStrucutre Molecular substrucuture
+     * @return Disconnected Substructure
+     */
+    private String[] partStructures(String aStructure) {
+        if (aStructure == null || aStructure.isEmpty()) {
+            return null;
+        }
+
+        int tmpStructureLength = aStructure.length();
+        int tmpStartPosition = 0;
+        int tmpEndPosition = -1;
+        int tmpPartFrequency = 0;
+        ArrayDeque<String> tmpPartStructure = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
+        String tmpSubstring;
+        //String[] tmpResultString;
+
+        if (pSmilesUtility.hasPart(aStructure)) {
+            for (int i = 0; i < tmpStructureLength; i++) {
+                tmpStartPosition = aStructure.indexOf("<", tmpStartPosition);
+                if (tmpStartPosition - tmpEndPosition > 1) {
+                    tmpPartFrequency = Integer.parseInt(aStructure.substring(tmpEndPosition + 1, tmpStartPosition));
+                } else {
+                    tmpPartFrequency = 1;
+                }
+                tmpEndPosition = aStructure.indexOf(">", tmpStartPosition);
+                tmpSubstring = aStructure.substring(tmpStartPosition + 1, tmpEndPosition);
+                for (int j = 0; j < tmpPartFrequency; j++) {
+                    tmpPartStructure.add(tmpSubstring);
+                }
+                tmpStartPosition = tmpEndPosition + 1;
+                i = tmpStartPosition;
+            }
+        } else {
+            return new String[] {aStructure};
+        }
+        return tmpPartStructure.toArray(new String[0]);
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Particle coordinates related methods">
+    /**
+     * Checks the arguments of getParticleCoordinates() with coordinate arrays
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param anXCoordinates X coordinates
+     * @param aYCoordinates Y coordinates
+     * @param aZCoordinates Z coordinates
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @throws IllegalArgumentException Thrown if an argument is null, the
+     * numbers of first and last particle coordinates differ or the coordinate
+     * arrays are too small
+     */
+    private void checkCoordinateArrays(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset) throws IllegalArgumentException {
+        if (aFirstParticleCoordinates == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aFirstParticleCoordinates is null.");
+        }
+        if (aLastParticleCoordinates == null || aLastParticleCoordinates.length != aFirstParticleCoordinates.length) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: aLastParticleCoordinates is null or has wrong length.");
+        }
+        if (anXCoordinates == null || aYCoordinates == null || aZCoordinates == null) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: A coordinate array is null.");
+        }
+        long tmpEnd = anOffset + (long) aFirstParticleCoordinates.length * this.numberOfTotalParticles;
+        if (anOffset < 0 || tmpEnd > anXCoordinates.length || tmpEnd > aYCoordinates.length || tmpEnd > aZCoordinates.length) {
+            throw new IllegalArgumentException("CompiledPSmiles.getParticleCoordinates: Coordinate arrays are too small.");
+        }
+    }
+
+    /**
+     * Sets the coordinates of the particles of a range of replicas (pairs of
+     * first and last particle coordinates). NOTE: Structure must have more
+     * than one particle.
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param aResultCoordinates Result coordinates (first index is replica
+     * index, arrays of replicas must exist)
+     * @param aFromReplica First replica (inclusive)
+     * @param aToReplica Last replica (exclusive)
+     */
+    private void setParticleCoordinatesOfReplicas(PointInSpace[] aFirstParticleCoordinates, PointInSpace[] aLastParticleCoordinates, double aBondLength,
+            PointInSpace[][] aResultCoordinates, int aFromReplica, int aToReplica) {
+        for (int i = 0; i < this.partRunParts.length; i++) {
+            int tmpPartLength = this.partRunParts[i].getInnerParticles().length;
+            for (int j = aFromReplica; j < aToReplica; j++) {
+                // Coordinates are determined once per part run: Further part instances get copies
+                PointInSpace[] tmpInterimResult = this.getCoordinatesOfTokens(this.partRunPartIndices[i], aFirstParticleCoordinates[j], aLastParticleCoordinates[j], aBondLength);
+                int tmpTargetIndexPosition = this.partRunParticleOffsets[i];
+                System.arraycopy(tmpInterimResult, 0, aResultCoordinates[j], tmpTargetIndexPosition, tmpInterimResult.length);
+                for (int k = 1; k < this.partRunFrequencies[i]; k++) {
+                    tmpTargetIndexPosition += tmpPartLength;
+                    for (int l = 0; l < tmpInterimResult.length; l++) {
+                        aResultCoordinates[j][tmpTargetIndexPosition + l] = new PointInSpace(tmpInterimResult[l].getX(), tmpInterimResult[l].getY(), tmpInterimResult[l].getZ());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the coordinates of the particles of a range of replicas (pairs
+     * of first and last particle coordinates) into the specified arrays: The
+     * coordinates of replica i start at index anOffset + i *
+     * getTotalNumberOfParticles().
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @param aFromReplica First replica (inclusive)
+     * @param aToReplica Last replica (exclusive)
+     */
+    private void setParticleCoordinatesOfReplicas(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset, int aFromReplica, int aToReplica) {
+        int tmpOffset = anOffset + aFromReplica * this.numberOfTotalParticles;
+        for (int i = aFromReplica; i < aToReplica; i++) {
+            for (int j = 0; j < this.getNumberOfPartRuns(); j++) {
+                // Coordinates are determined once per part run: Further part instances are copies
+                CoordinateTemplate tmpCoordinateTemplate = this.partRunParts[j].getCoordinateTemplate();
+                int tmpNumberOfParticlesOfPart = tmpCoordinateTemplate.getNumberOfParticles();
+                tmpCoordinateTemplate.setCoordinates(aFirstParticleCoordinates[i], aLastParticleCoordinates[i], aBondLength, anXCoordinates, aYCoordinates, aZCoordinates, tmpOffset);
+                for (int k = 1; k < this.partRunFrequencies[j]; k++) {
+                    int tmpTargetOffset = tmpOffset + k * tmpNumberOfParticlesOfPart;
+                    System.arraycopy(anXCoordinates, tmpOffset, anXCoordinates, tmpTargetOffset, tmpNumberOfParticlesOfPart);
+                    System.arraycopy(aYCoordinates, tmpOffset, aYCoordinates, tmpTargetOffset, tmpNumberOfParticlesOfPart);
+                    System.arraycopy(aZCoordinates, tmpOffset, aZCoordinates, tmpTargetOffset, tmpNumberOfParticlesOfPart);
+                }
+                tmpOffset += this.partRunFrequencies[j] * tmpNumberOfParticlesOfPart;
+            }
+        }
+    }
+
+    /**
+     * Splits the specified number of replicas into disjoint ranges and
+     * invokes the replica range task for every range with the executor
+     * service. The main chain templates of all parts are determined before.
+     *
+     * @param anExecutorService Executor service
+     * @param aNumberOfReplicas Number of replicas
+     * @param aReplicaRangeTask Task for a range of replicas (first replica
+     * inclusive, last replica exclusive)
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for tasks
+     */
+    private void invokeReplicaTasks(ExecutorService anExecutorService, int aNumberOfReplicas, BiConsumer<Integer, Integer> aReplicaRangeTask) throws InterruptedException {
+        for (int i = 0; i < this.getNumberOfPartRuns(); i++) {
+            this.partRunParts[i].getCoordinateTemplate();
+        }
+        int tmpParallelism;
+        if (anExecutorService instanceof ForkJoinPool) {
+            tmpParallelism = ((ForkJoinPool) anExecutorService).getParallelism();
+        } else {
+            tmpParallelism = Runtime.getRuntime().availableProcessors();
+        }
+        int tmpMinimumTaskSize = PSmilesConstants.DEFAULT_COORDINATES_MINIMUM_PARTICLES_PER_TASK / Math.max(1, this.numberOfTotalParticles) + 1;
+        int tmpTaskSize = Math.max(tmpMinimumTaskSize, aNumberOfReplicas / (4 * tmpParallelism) + 1);
+        if (aNumberOfReplicas <= tmpTaskSize) {
+            aReplicaRangeTask.accept(0, aNumberOfReplicas);
+            return;
+        }
+        ArrayList<Callable<Void>> tmpTasks = new ArrayList<>(aNumberOfReplicas / tmpTaskSize + 1);
+        for (int i = 0; i < aNumberOfReplicas; i += tmpTaskSize) {
+            final int tmpFromReplica = i;
+            final int tmpToReplica = Math.min(i + tmpTaskSize, aNumberOfReplicas);
+            tmpTasks.add(() -> {
+                aReplicaRangeTask.accept(tmpFromReplica, tmpToReplica);
+                return null;
+            });
+        }
+        for (Future<Void> tmpFuture : anExecutorService.invokeAll(tmpTasks)) {
+            try {
+                tmpFuture.get();
+            } catch (ExecutionException anException) {
+                if (anException.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) anException.getCause();
+                }
+                if (anException.getCause() instanceof Error) {
+                    throw (Error) anException.getCause();
+                }
+                throw new IllegalStateException(anException.getCause());
+            }
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Particle type related methods">
+    /**
+     * Returns the particle types of the molecule
+     *
+     * @return Particle types (index is local particle type index)
+     */
+    private String[] getParticleTypes() {
+        String[] tmpResult = new String[this.localParticleTypeIds.length];
+        for (int i = 0; i < tmpResult.length; i++) {
+            tmpResult[i] = this.particleTypeDictionary.getParticle(this.localParticleTypeIds[i]);
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Returns the lexicographic ranks of the particle types of the molecule
+     *
+     * @param aParticleTypes Particle types (index is local particle type
+     * index)
+     * @return Lexicographic ranks (index is local particle type index)
+     */
+    private int[] getParticleTypeRanks(String[] aParticleTypes) {
+        Integer[] tmpLocalIndices = new Integer[aParticleTypes.length];
+        for (int i = 0; i < tmpLocalIndices.length; i++) {
+            tmpLocalIndices[i] = i;
+        }
+        Arrays.sort(tmpLocalIndices, (anIndex1, anIndex2) -> aParticleTypes[anIndex1].compareTo(aParticleTypes[anIndex2]));
+        int[] tmpResult = new int[aParticleTypes.length];
+        for (int i = 0; i < tmpLocalIndices.length; i++) {
+            tmpResult[tmpLocalIndices[i]] = i;
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Returns the local particle type indices of the particles of a part
+     *
+     * @param aPart Part of molecule
+     * @return Local particle type indices (index is particle index of part)
+     */
+    private int[] getLocalParticleTypeIndices(PSmilesInner aPart) {
+        int[] tmpParticleTypeIds = aPart.getParticleTypeIds(this.particleTypeDictionary);
+        int[] tmpResult = new int[tmpParticleTypeIds.length];
+        int tmpLastParticleTypeId = -1;
+        int tmpLastLocalIndex = -1;
+        for (int i = 0; i < tmpParticleTypeIds.length; i++) {
+            if (tmpParticleTypeIds[i] != tmpLastParticleTypeId) {
+                tmpLastParticleTypeId = tmpParticleTypeIds[i];
+                tmpLastLocalIndex = Arrays.binarySearch(this.localParticleTypeIds, tmpLastParticleTypeId);
+            }
+            tmpResult[i] = tmpLastLocalIndex;
+        }
+        return tmpResult;
+    }
+    // </editor-fold>
+    // </editor-fold>
+
+}
@@ -0,0 +1,384 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread-safe cache that is bounded by the total weight of its values. The
+ * cache is divided into segments with their own lock, every segment evicts
+ * its least recently used entries if its share of the maximum weight is
+ * exceeded. Hits, misses and evictions are counted.
+ * NOTE: Cached values are shared and must NOT be changed.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ * @author Achim Zielesny
+ */
+public final class ConcurrentLruCache<K, V> {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Default number of segments (power of 2)
+     */
+    private static final int DEFAULT_NUMBER_OF_SEGMENTS = 16;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Segments
+     */
+    private final Segment<K, V>[] segments;
+
+    /**
+     * Weigher for keys and values
+     */
+    private final ToIntBiFunction<K, V> weigher;
+
+    /**
+     * Number of hits
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * Number of misses
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Number of evictions
+     */
+    private final LongAdder evictionCount = new LongAdder();
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Maximum weight (0: Nothing is cached)
+     */
+    private volatile long maximumWeight;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor with default number of segments
+     *
+     * @param aMaximumWeight Maximum weight (0: Nothing is cached)
+     * @param aWeigher Weigher for values (weight of a value must be
+     * greater zero)
+     * @throws IllegalArgumentException Thrown if an argument is illegal
+     */
+    public ConcurrentLruCache(long aMaximumWeight, ToIntFunction<V> aWeigher) throws IllegalArgumentException {
+        this(aMaximumWeight, DEFAULT_NUMBER_OF_SEGMENTS, aWeigher == null ? null : (aKey, aValue) -> aWeigher.applyAsInt(aValue));
+    }
+
+    /**
+     * Constructor. NOTE: A value that is heavier than the share of a segment
+     * of the maximum weight is not cached, i.e. caches of heavy values should
+     * have few segments.
+     *
+     * @param aMaximumWeight Maximum weight (0: Nothing is cached)
+     * @param aNumberOfSegments Number of segments (power of 2)
+     * @param aWeigher Weigher for keys and values (weight of an entry must
+     * be greater zero)
+     * @throws IllegalArgumentException Thrown if an argument is illegal
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentLruCache(long aMaximumWeight, int aNumberOfSegments, ToIntBiFunction<K, V> aWeigher) throws IllegalArgumentException {
+        if (aMaximumWeight < 0) {
+            throw new IllegalArgumentException("ConcurrentLruCache.Constructor: aMaximumWeight is less than 0.");
+        }
+        if (aNumberOfSegments < 1 || Integer.bitCount(aNumberOfSegments) != 1) {
+            throw new IllegalArgumentException("ConcurrentLruCache.Constructor: aNumberOfSegments is not a power of 2.");
+        }
+        if (aWeigher == null) {
+            throw new IllegalArgumentException("ConcurrentLruCache.Constructor: aWeigher is null.");
+        }
+        this.maximumWeight = aMaximumWeight;
+        this.weigher = aWeigher;
+        this.segments = new Segment[aNumberOfSegments];
+        for (int i = 0; i < aNumberOfSegments; i++) {
+            this.segments[i] = new Segment<>();
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Maximum weight
+     *
+     * @return Maximum weight (0: Nothing is cached)
+     */
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * Sets the maximum weight. Entries are evicted if necessary.
+     *
+     * @param aMaximumWeight Maximum weight (0: Nothing is cached)
+     * @throws IllegalArgumentException Thrown if aMaximumWeight is less than
+     * 0
+     */
+    public void setMaximumWeight(long aMaximumWeight) throws IllegalArgumentException {
+        if (aMaximumWeight < 0) {
+            throw new IllegalArgumentException("ConcurrentLruCache.setMaximumWeight: aMaximumWeight is less than 0.");
+        }
+        this.maximumWeight = aMaximumWeight;
+        long tmpSegmentMaximumWeight = this.getSegmentMaximumWeight();
+        for (Segment<K, V> tmpSegment : this.segments) {
+            synchronized (tmpSegment) {
+                this.evict(tmpSegment, tmpSegmentMaximumWeight);
+            }
+        }
+    }
+
+    /**
+     * Number of hits
+     *
+     * @return Number of hits
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Number of misses
+     *
+     * @return Number of misses
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Number of evictions
+     *
+     * @return Number of evictions
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Number of cached entries
+     *
+     * @return Number of cached entries
+     */
+    public int getSize() {
+        int tmpSize = 0;
+        for (Segment<K, V> tmpSegment : this.segments) {
+            synchronized (tmpSegment) {
+                tmpSize += tmpSegment.map.size();
+            }
+        }
+        return tmpSize;
+    }
+
+    /**
+     * Total weight of cached entries
+     *
+     * @return Total weight of cached entries
+     */
+    public long getWeight() {
+        long tmpWeight = 0;
+        for (Segment<K, V> tmpSegment : this.segments) {
+            synchronized (tmpSegment) {
+                tmpWeight += tmpSegment.weight;
+            }
+        }
+        return tmpWeight;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Returns the cached value of a key (hit or miss is counted)
+     *
+     * @param aKey Key
+     * @return Cached value or null if aKey is not cached
+     */
+    public V get(K aKey) {
+        if (aKey == null) {
+            return null;
+        }
+        Segment<K, V> tmpSegment = this.getSegment(aKey);
+        Entry<V> tmpEntry;
+        synchronized (tmpSegment) {
+            tmpEntry = tmpSegment.map.get(aKey);
+        }
+        if (tmpEntry == null) {
+            this.missCount.increment();
+            return null;
+        }
+        this.hitCount.increment();
+        return tmpEntry.value;
+    }
+
+    /**
+     * Caches a value if aKey is not already cached. A value that is heavier
+     * than the share of a segment of the maximum weight is not cached.
+     *
+     * @param aKey Key
+     * @param aValue Value
+     * @return Value that is cached for aKey (aValue if aKey was not cached
+     * before) or aValue if aValue could not be cached
+     */
+    public V putIfAbsent(K aKey, V aValue) {
+        if (aKey == null || aValue == null) {
+            return aValue;
+        }
+        long tmpSegmentMaximumWeight = this.getSegmentMaximumWeight();
+        int tmpWeight = this.weigher.applyAsInt(aKey, aValue);
+        Segment<K, V> tmpSegment = this.getSegment(aKey);
+        synchronized (tmpSegment) {
+            Entry<V> tmpEntry = tmpSegment.map.get(aKey);
+            if (tmpEntry != null) {
+                return tmpEntry.value;
+            }
+            if (tmpWeight > tmpSegmentMaximumWeight) {
+                return aValue;
+            }
+            tmpSegment.map.put(aKey, new Entry<>(aValue, tmpWeight));
+            tmpSegment.weight += tmpWeight;
+            this.evict(tmpSegment, tmpSegmentMaximumWeight);
+        }
+        return aValue;
+    }
+
+    /**
+     * Removes all entries (counters are not changed)
+     */
+    public void clear() {
+        for (Segment<K, V> tmpSegment : this.segments) {
+            synchronized (tmpSegment) {
+                tmpSegment.map.clear();
+                tmpSegment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Resets hit, miss and eviction counters
+     */
+    public void resetCounters() {
+        this.hitCount.reset();
+        this.missCount.reset();
+        this.evictionCount.reset();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Returns the segment of a key
+     *
+     * @param aKey Key
+     * @return Segment
+     */
+    private Segment<K, V> getSegment(K aKey) {
+        int tmpHash = aKey.hashCode();
+        tmpHash ^= tmpHash >>> 16;
+        return this.segments[tmpHash & (this.segments.length - 1)];
+    }
+
+    /**
+     * Returns the share of a segment of the maximum weight
+     *
+     * @return Maximum weight of a segment
+     */
+    private long getSegmentMaximumWeight() {
+        return (this.maximumWeight + this.segments.length - 1) / this.segments.length;
+    }
+
+    /**
+     * Evicts least recently used entries of a segment until its weight does
+     * not exceed aSegmentMaximumWeight. NOTE: Caller must hold the lock of
+     * aSegment.
+     *
+     * @param aSegment Segment
+     * @param aSegmentMaximumWeight Maximum weight of segment
+     */
+    private void evict(Segment<K, V> aSegment, long aSegmentMaximumWeight) {
+        Iterator<Map.Entry<K, Entry<V>>> tmpIterator = aSegment.map.entrySet().iterator();
+        while (aSegment.weight > aSegmentMaximumWeight && tmpIterator.hasNext()) {
+            aSegment.weight -= tmpIterator.next().getValue().weight;
+            tmpIterator.remove();
+            this.evictionCount.increment();
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static classes">
+    /**
+     * Segment: Entries in access order (least recently used first)
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     */
+    private static final class Segment<K, V> {
+
+        /**
+         * Entries in access order
+         */
+        private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Total weight of entries
+         */
+        private long weight;
+
+    }
+
+    /**
+     * Cached value with its weight
+     *
+     * @param <V> Value type
+     */
+    private static final class Entry<V> {
+
+        /**
+         * Value
+         */
+        private final V value;
+
+        /**
+         * Weight of value
+         */
+        private final int weight;
+
+        /**
+         * Constructor
+         *
+         * @param aValue Value
+         * @param aWeight Weight of value
+         */
+        private Entry(V aValue, int aWeight) {
+            this.value = aValue;
+            this.weight = aWeight;
+        }
+
+    }
+    // </editor-fold>
+
+}
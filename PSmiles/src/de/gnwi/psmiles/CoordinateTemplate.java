@@ -0,0 +1,192 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+/**
+ * Coordinate template of a part: Every particle of the part is assigned to a
+ * position of the main chain (diameter or path from START to END particle).
+ * Main chain particles are placed equidistantly on the line from the first
+ * to the last particle coordinate, all other particles get the coordinates
+ * of the main chain position they are attached to. The template is
+ * determined once per part and applied to every pair of first and last
+ * particle coordinates without intermediate objects.
+ *
+ * @author Achim Zielesny
+ */
+final class CoordinateTemplate {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Main chain positions of the particles (index is particle index)
+     */
+    private final int[] mainChainPositions;
+
+    /**
+     * Number of bonds of the main chain
+     */
+    private final int numberOfMainChainBonds;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     *
+     * @param aMainChainIndices Particle indices of the main chain in the
+     * order of their positions
+     * @param aBondOffsets Bond offsets of the CSR graph of the part
+     * @param aBondTargets Bond targets of the CSR graph of the part
+     */
+    CoordinateTemplate(int[] aMainChainIndices, int[] aBondOffsets, int[] aBondTargets) {
+        int tmpNumberOfParticles = aBondOffsets.length - 1;
+        this.mainChainPositions = new int[tmpNumberOfParticles];
+        this.numberOfMainChainBonds = aMainChainIndices.length - 1;
+        boolean[] tmpHasPosition = new boolean[tmpNumberOfParticles];
+        // <editor-fold defaultstate="collapsed" desc="Main chain particles">
+        for (int i = 0; i < aMainChainIndices.length; i++) {
+            this.mainChainPositions[aMainChainIndices[i]] = i;
+            tmpHasPosition[aMainChainIndices[i]] = true;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Beginning of side chains">
+        int[] tmpSeeds = new int[tmpNumberOfParticles];
+        int tmpNumberOfSeeds = 0;
+        for (int tmpMainChainIndex : aMainChainIndices) {
+            for (int k = aBondOffsets[tmpMainChainIndex]; k < aBondOffsets[tmpMainChainIndex + 1]; k++) {
+                int tmpNeighbor = aBondTargets[k];
+                if (!tmpHasPosition[tmpNeighbor]) {
+                    this.mainChainPositions[tmpNeighbor] = this.mainChainPositions[tmpMainChainIndex];
+                    tmpHasPosition[tmpNeighbor] = true;
+                    tmpSeeds[tmpNumberOfSeeds++] = tmpNeighbor;
+                }
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Side chains (breadth-first from every beginning in turn)">
+        int[] tmpQueue = new int[tmpNumberOfParticles];
+        for (int i = 0; i < tmpNumberOfSeeds; i++) {
+            int tmpPosition = this.mainChainPositions[tmpSeeds[i]];
+            int tmpHead = 0;
+            int tmpTail = 0;
+            tmpQueue[tmpTail++] = tmpSeeds[i];
+            while (tmpHead < tmpTail) {
+                int tmpParticleIndex = tmpQueue[tmpHead++];
+                for (int k = aBondOffsets[tmpParticleIndex]; k < aBondOffsets[tmpParticleIndex + 1]; k++) {
+                    int tmpNeighbor = aBondTargets[k];
+                    if (!tmpHasPosition[tmpNeighbor]) {
+                        this.mainChainPositions[tmpNeighbor] = tmpPosition;
+                        tmpHasPosition[tmpNeighbor] = true;
+                        tmpQueue[tmpTail++] = tmpNeighbor;
+                    }
+                }
+            }
+        }
+
+        // </editor-fold>
+        // NOTE: Particles that are not connected to the main chain (not
+        // possible for a valid part) keep main chain position 0
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Number of particles
+     *
+     * @return Number of particles
+     */
+    int getNumberOfParticles() {
+        return this.mainChainPositions.length;
+    }
+
+    /**
+     * Number of main chain particles
+     *
+     * @return Number of main chain particles
+     */
+    int getNumberOfMainChainParticles() {
+        return this.numberOfMainChainBonds + 1;
+    }
+
+    /**
+     * Main chain positions of the particles. NOTE: Do NOT change the returned
+     * array.
+     *
+     * @return Main chain positions of the particles (index is particle index)
+     */
+    int[] getMainChainPositions() {
+        return this.mainChainPositions;
+    }
+
+    /**
+     * Writes the coordinates of the particles into the specified arrays.
+     * NOTE: No checks are performed due to performance reasons.
+     *
+     * @param aFirstParticleCoordinate Coordinate of the first particle
+     * @param aLastParticleCoordinate Coordinate of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     */
+    void setCoordinates(IPointInSpace aFirstParticleCoordinate, IPointInSpace aLastParticleCoordinate, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset) {
+        double tmpFirstX = aFirstParticleCoordinate.getX();
+        double tmpFirstY = aFirstParticleCoordinate.getY();
+        double tmpFirstZ = aFirstParticleCoordinate.getZ();
+        int tmpNumberOfParticles = this.mainChainPositions.length;
+        if (this.numberOfMainChainBonds == 0) {
+            // Single particle: Coordinate of first particle
+            anXCoordinates[anOffset] = tmpFirstX;
+            aYCoordinates[anOffset] = tmpFirstY;
+            aZCoordinates[anOffset] = tmpFirstZ;
+            return;
+        }
+        double tmpDeltaXOfChain = aLastParticleCoordinate.getX() - tmpFirstX;
+        double tmpDeltaYOfChain = aLastParticleCoordinate.getY() - tmpFirstY;
+        double tmpDeltaZOfChain = aLastParticleCoordinate.getZ() - tmpFirstZ;
+        double tmpDistanceOfMainChain = Math.sqrt(tmpDeltaXOfChain * tmpDeltaXOfChain + tmpDeltaYOfChain * tmpDeltaYOfChain + tmpDeltaZOfChain * tmpDeltaZOfChain);
+        double tmpDeltaXOfBond;
+        double tmpDeltaYOfBond;
+        double tmpDeltaZOfBond;
+        if (tmpDistanceOfMainChain < this.numberOfMainChainBonds * aBondLength) {
+            tmpDeltaXOfBond = tmpDeltaXOfChain / this.numberOfMainChainBonds;
+            tmpDeltaYOfBond = tmpDeltaYOfChain / this.numberOfMainChainBonds;
+            tmpDeltaZOfBond = tmpDeltaZOfChain / this.numberOfMainChainBonds;
+        } else {
+            tmpDeltaXOfBond = tmpDeltaXOfChain * aBondLength / tmpDistanceOfMainChain;
+            tmpDeltaYOfBond = tmpDeltaYOfChain * aBondLength / tmpDistanceOfMainChain;
+            tmpDeltaZOfBond = tmpDeltaZOfChain * aBondLength / tmpDistanceOfMainChain;
+        }
+        // Separate loops over primitive arrays (may be vectorised)
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            anXCoordinates[anOffset + i] = tmpFirstX + this.mainChainPositions[i] * tmpDeltaXOfBond;
+        }
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            aYCoordinates[anOffset + i] = tmpFirstY + this.mainChainPositions[i] * tmpDeltaYOfBond;
+        }
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            aZCoordinates[anOffset + i] = tmpFirstZ + this.mainChainPositions[i] * tmpDeltaZOfBond;
+        }
+    }
+    // </editor-fold>
+
+}
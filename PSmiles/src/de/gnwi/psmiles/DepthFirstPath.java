@@ -19,11 +19,11 @@
  */
 package de.gnwi.psmiles;
 
-import java.util.Stack;
-
 /**
  * Class, which generates a DepthFirstPath object
  * 	Reference: Robert Sedgewick, Kevin Wayne; Algorithms; Addison-Wesley Professional; 4th edition (2011)
+ * 	The depth first search is iterative with an explicit primitive stack, so
+ * 	chains with millions of particles do not depend on the thread stack size.
  * 
  * @author Mirco Daniel, Achim Zielesny
  */
@@ -33,7 +33,6 @@ public class DepthFirstPath {
 	private int[] edgeTo;
 	private int[] distanceToStart;
 	private int[] diameterPath;
-	private int[][] adjacentArray;
 	private int startParticleIndex;
 	private int endParticleIndex;
 	private int numberOfParticles;
@@ -77,7 +76,6 @@ public class DepthFirstPath {
 	 */
 	private void initialize(int[][] aAdjacentArray, int aStartParticleIndex) {
 		if (aAdjacentArray.length == 0) {
-			this.adjacentArray = aAdjacentArray.clone();
 			this.numberOfParticles = 0;
 			this.visited = new boolean[this.numberOfParticles];
 			this.edgeTo = new int[this.numberOfParticles];
@@ -87,29 +85,48 @@ public class DepthFirstPath {
 			this.diameterPath = null;
 			return;
 		}
-		this.adjacentArray = aAdjacentArray.clone();
 		this.numberOfParticles = aAdjacentArray.length;
 		this.visited = new boolean[this.numberOfParticles];
 		this.edgeTo = new int[this.numberOfParticles];
 		this.distanceToStart = new int[this.numberOfParticles];
 		this.startParticleIndex = aStartParticleIndex;
-		this.depthFirstSearch(aStartParticleIndex);
+		this.depthFirstSearch(aAdjacentArray, aStartParticleIndex);
 		this.endParticleIndex = this.getFarthestParticleIndex();
 		this.diameterPath = this.getPathFarthestParticleToStart();
 	}
 
 	/**
-	 * Depth first search algorithm (recursive)
+	 * Depth first search algorithm (iterative with explicit stacks of
+	 * particle indices and neighbor positions, same visiting order as
+	 * recursive search)
 	 * 
-	 * @param aPreviousParticleIndex Index of the previous particle.
+	 * @param aAdjacentArray an adjacent array.
+	 * @param aStartParticleIndex Index of the start particle.
 	 */
-	private void depthFirstSearch(int aPreviousParticleIndex) {
-		this.visited[aPreviousParticleIndex] = true;
-		for (int tmpNextParticleIndex : this.adjacentArray[aPreviousParticleIndex]) {
+	private void depthFirstSearch(int[][] aAdjacentArray, int aStartParticleIndex) {
+		int[] tmpParticleStack = new int[this.numberOfParticles];
+		int[] tmpNeighborPositionStack = new int[this.numberOfParticles];
+		int tmpTop = 0;
+		tmpParticleStack[tmpTop] = aStartParticleIndex;
+		tmpNeighborPositionStack[tmpTop] = 0;
+		this.visited[aStartParticleIndex] = true;
+		while (tmpTop >= 0) {
+			int tmpPreviousParticleIndex = tmpParticleStack[tmpTop];
+			int[] tmpNeighbors = aAdjacentArray[tmpPreviousParticleIndex];
+			int tmpNeighborPosition = tmpNeighborPositionStack[tmpTop];
+			if (tmpNeighborPosition == tmpNeighbors.length) {
+				tmpTop--;
+				continue;
+			}
+			tmpNeighborPositionStack[tmpTop] = tmpNeighborPosition + 1;
+			int tmpNextParticleIndex = tmpNeighbors[tmpNeighborPosition];
 			if (!this.visited[tmpNextParticleIndex]) {
-				this.edgeTo[tmpNextParticleIndex] = aPreviousParticleIndex;
-				this.distanceToStart[tmpNextParticleIndex] = this.distanceToStart[aPreviousParticleIndex] + 1;
-				this.depthFirstSearch(tmpNextParticleIndex);
+				this.visited[tmpNextParticleIndex] = true;
+				this.edgeTo[tmpNextParticleIndex] = tmpPreviousParticleIndex;
+				this.distanceToStart[tmpNextParticleIndex] = this.distanceToStart[tmpPreviousParticleIndex] + 1;
+				tmpTop++;
+				tmpParticleStack[tmpTop] = tmpNextParticleIndex;
+				tmpNeighborPositionStack[tmpTop] = 0;
 			}
 		}
 	}
@@ -138,25 +155,18 @@ public class DepthFirstPath {
 	 * @return Particleindices list from start to farthes particle
 	 */
 	private int[] getPathFarthestParticleToStart() {
-		Stack<Integer> tmpPath = new Stack<>();
 		int tmpParticleIndex;
-		int tmpIndex = 0;
-		boolean tmpFoundStart = false;
 		int[] tmpResult;
 		
+		if (this.endParticleIndex == this.startParticleIndex) {
+			// No particle is connected to start particle
+			return new int[]{this.startParticleIndex};
+		}
+		tmpResult = new int[this.distanceToStart[this.endParticleIndex] + 1];
 		tmpParticleIndex = this.endParticleIndex;
-		while (!tmpFoundStart) {
-			tmpPath.push(tmpParticleIndex);
+		for (int i = tmpResult.length - 1; i >= 0; i--) {
+			tmpResult[i] = tmpParticleIndex;
 			tmpParticleIndex = this.edgeTo[tmpParticleIndex];
-			if (tmpParticleIndex == this.startParticleIndex) {
-				tmpPath.push(tmpParticleIndex);
-				tmpFoundStart = true;
-			}
-		}
-		tmpResult = new int[tmpPath.size()];
-		while (!tmpPath.empty()) {
-			tmpResult[tmpIndex] = tmpPath.pop();
-			tmpIndex++;
 		}
 		return tmpResult;
 	}
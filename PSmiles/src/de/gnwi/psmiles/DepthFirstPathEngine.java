@@ -0,0 +1,279 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+
+/**
+ * Path engine for the compressed sparse row (CSR) graph of a part: Determines
+ * the heuristic diameter (see DepthFirstPath) and the shortest path between
+ * two particles without recursion and without boxing. The scratch arrays of
+ * an engine are reused for all queries of a thread (see getInstance()), so
+ * repeated queries allocate nothing but their result. Parts with more than
+ * MAXIMUM_RETAINED_NUMBER_OF_PARTICLES particles get a transient engine, so
+ * that threads do not retain the scratch arrays of large parts.
+ *
+ * @author Achim Zielesny
+ */
+final class DepthFirstPathEngine {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Engine of the current thread
+     */
+    private static final ThreadLocal<DepthFirstPathEngine> ENGINE = ThreadLocal.withInitial(DepthFirstPathEngine::new);
+
+    /**
+     * Maximum number of particles for which the scratch arrays of the engine
+     * of the current thread are used (and retained)
+     */
+    private static final int MAXIMUM_RETAINED_NUMBER_OF_PARTICLES = 65536;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Visit marks of particles: A particle is visited if its mark equals
+     * visitMark
+     */
+    private int[] visitMarks;
+
+    /**
+     * Current visit mark
+     */
+    private int visitMark;
+
+    /**
+     * Predecessor of particle in search tree
+     */
+    private int[] edgeTo;
+
+    /**
+     * Distance of particle to start particle in search tree
+     */
+    private int[] distanceToStart;
+
+    /**
+     * Particle stack (depth-first search) or queue (breadth-first search)
+     */
+    private int[] particles;
+
+    /**
+     * Next bond index of the particles on the depth-first stack
+     */
+    private int[] bondCursors;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     */
+    private DepthFirstPathEngine() {
+        this.visitMarks = new int[0];
+        this.visitMark = 0;
+        this.edgeTo = new int[0];
+        this.distanceToStart = new int[0];
+        this.particles = new int[0];
+        this.bondCursors = new int[0];
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private static methods">
+    /**
+     * Engine for a part: The engine of the current thread or a transient
+     * engine if aNumberOfParticles exceeds
+     * MAXIMUM_RETAINED_NUMBER_OF_PARTICLES
+     *
+     * @param aNumberOfParticles Number of particles of the part
+     * @return Engine for a part
+     */
+    static DepthFirstPathEngine getInstance(int aNumberOfParticles) {
+        if (aNumberOfParticles > MAXIMUM_RETAINED_NUMBER_OF_PARTICLES) {
+            return new DepthFirstPathEngine();
+        }
+        return ENGINE.get();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Heuristic diameter: A depth-first search from particle 0 determines
+     * the particle v with the largest search tree depth, a second depth-first
+     * search from v determines the particle w with the largest search tree
+     * depth. The result is identical to the diameter path of DepthFirstPath
+     * for the corresponding adjacent array.
+     *
+     * @param aBondOffsets Bond offsets of the CSR graph
+     * @param aBondTargets Bond targets of the CSR graph
+     * @return Particle indices of the path from v to w or null if graph has
+     * no particles
+     */
+    int[] getHeuristicDiameter(int[] aBondOffsets, int[] aBondTargets) {
+        int tmpNumberOfParticles = aBondOffsets.length - 1;
+        if (tmpNumberOfParticles <= 0) {
+            return null;
+        }
+        if (tmpNumberOfParticles == 1) {
+            return new int[]{0};
+        }
+        this.ensureCapacity(tmpNumberOfParticles);
+        int tmpStartParticleIndex = this.getFarthestParticleIndex(aBondOffsets, aBondTargets, 0);
+        int tmpEndParticleIndex = this.getFarthestParticleIndex(aBondOffsets, aBondTargets, tmpStartParticleIndex);
+        return this.getPath(tmpStartParticleIndex, tmpEndParticleIndex, this.distanceToStart[tmpEndParticleIndex] + 1);
+    }
+
+    /**
+     * Shortest path between two particles (breadth-first search, neighbors
+     * in bond order)
+     *
+     * @param aBondOffsets Bond offsets of the CSR graph
+     * @param aBondTargets Bond targets of the CSR graph
+     * @param aStartParticleIndex Start particle index
+     * @param anEndParticleIndex End particle index
+     * @return Particle indices of the path from start to end particle or
+     * null if end particle is not connected to start particle
+     */
+    int[] getShortestPath(int[] aBondOffsets, int[] aBondTargets, int aStartParticleIndex, int anEndParticleIndex) {
+        int tmpNumberOfParticles = aBondOffsets.length - 1;
+        this.ensureCapacity(tmpNumberOfParticles);
+        int tmpVisitMark = this.nextVisitMark();
+        int tmpHead = 0;
+        int tmpTail = 0;
+        this.particles[tmpTail++] = aStartParticleIndex;
+        this.visitMarks[aStartParticleIndex] = tmpVisitMark;
+        this.distanceToStart[aStartParticleIndex] = 0;
+        while (tmpHead < tmpTail) {
+            int tmpParticleIndex = this.particles[tmpHead++];
+            if (tmpParticleIndex == anEndParticleIndex) {
+                return this.getPath(aStartParticleIndex, anEndParticleIndex, this.distanceToStart[anEndParticleIndex] + 1);
+            }
+            for (int k = aBondOffsets[tmpParticleIndex]; k < aBondOffsets[tmpParticleIndex + 1]; k++) {
+                int tmpNeighbor = aBondTargets[k];
+                if (this.visitMarks[tmpNeighbor] != tmpVisitMark) {
+                    this.visitMarks[tmpNeighbor] = tmpVisitMark;
+                    this.edgeTo[tmpNeighbor] = tmpParticleIndex;
+                    this.distanceToStart[tmpNeighbor] = this.distanceToStart[tmpParticleIndex] + 1;
+                    this.particles[tmpTail++] = tmpNeighbor;
+                }
+            }
+        }
+        return null;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Depth-first search from start particle (same visiting order as the
+     * recursive search of DepthFirstPath)
+     *
+     * @param aBondOffsets Bond offsets of the CSR graph
+     * @param aBondTargets Bond targets of the CSR graph
+     * @param aStartParticleIndex Start particle index
+     * @return Index of the first particle with the largest search tree depth
+     */
+    private int getFarthestParticleIndex(int[] aBondOffsets, int[] aBondTargets, int aStartParticleIndex) {
+        int tmpVisitMark = this.nextVisitMark();
+        int tmpFarthestParticleIndex = aStartParticleIndex;
+        int tmpTop = 0;
+        this.particles[tmpTop] = aStartParticleIndex;
+        this.bondCursors[tmpTop] = aBondOffsets[aStartParticleIndex];
+        this.visitMarks[aStartParticleIndex] = tmpVisitMark;
+        this.distanceToStart[aStartParticleIndex] = 0;
+        while (tmpTop >= 0) {
+            int tmpParticleIndex = this.particles[tmpTop];
+            int tmpBondIndex = this.bondCursors[tmpTop];
+            if (tmpBondIndex == aBondOffsets[tmpParticleIndex + 1]) {
+                tmpTop--;
+                continue;
+            }
+            this.bondCursors[tmpTop] = tmpBondIndex + 1;
+            int tmpNeighbor = aBondTargets[tmpBondIndex];
+            if (this.visitMarks[tmpNeighbor] != tmpVisitMark) {
+                this.visitMarks[tmpNeighbor] = tmpVisitMark;
+                this.edgeTo[tmpNeighbor] = tmpParticleIndex;
+                this.distanceToStart[tmpNeighbor] = this.distanceToStart[tmpParticleIndex] + 1;
+                tmpTop++;
+                this.particles[tmpTop] = tmpNeighbor;
+                this.bondCursors[tmpTop] = aBondOffsets[tmpNeighbor];
+            }
+        }
+        // First particle with largest depth in ascending index order
+        int tmpNumberOfParticles = aBondOffsets.length - 1;
+        int tmpMaximumDistance = 0;
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            if (this.visitMarks[i] == tmpVisitMark && this.distanceToStart[i] > tmpMaximumDistance) {
+                tmpMaximumDistance = this.distanceToStart[i];
+                tmpFarthestParticleIndex = i;
+            }
+        }
+        return tmpFarthestParticleIndex;
+    }
+
+    /**
+     * Path from start to end particle along the search tree
+     *
+     * @param aStartParticleIndex Start particle index
+     * @param anEndParticleIndex End particle index
+     * @param aLength Number of particles of the path
+     * @return Particle indices of the path from start to end particle
+     */
+    private int[] getPath(int aStartParticleIndex, int anEndParticleIndex, int aLength) {
+        int[] tmpResult = new int[aLength];
+        int tmpParticleIndex = anEndParticleIndex;
+        for (int i = aLength - 1; i > 0; i--) {
+            tmpResult[i] = tmpParticleIndex;
+            tmpParticleIndex = this.edgeTo[tmpParticleIndex];
+        }
+        tmpResult[0] = aStartParticleIndex;
+        return tmpResult;
+    }
+
+    /**
+     * Next visit mark: Visit marks are reset if the mark overflows
+     *
+     * @return Next visit mark
+     */
+    private int nextVisitMark() {
+        if (this.visitMark == Integer.MAX_VALUE) {
+            Arrays.fill(this.visitMarks, 0);
+            this.visitMark = 0;
+        }
+        return ++this.visitMark;
+    }
+
+    /**
+     * Enlarges scratch arrays if necessary (growth beyond
+     * MAXIMUM_RETAINED_NUMBER_OF_PARTICLES only to aNumberOfParticles)
+     *
+     * @param aNumberOfParticles Number of particles
+     */
+    private void ensureCapacity(int aNumberOfParticles) {
+        if (this.visitMarks.length < aNumberOfParticles) {
+            int tmpCapacity = Math.max(aNumberOfParticles, Math.min(2 * this.visitMarks.length, MAXIMUM_RETAINED_NUMBER_OF_PARTICLES));
+            this.visitMarks = new int[tmpCapacity];
+            this.visitMark = 0;
+            this.edgeTo = new int[tmpCapacity];
+            this.distanceToStart = new int[tmpCapacity];
+            this.particles = new int[tmpCapacity];
+            this.bondCursors = new int[tmpCapacity];
+        }
+    }
+    // </editor-fold>
+
+}
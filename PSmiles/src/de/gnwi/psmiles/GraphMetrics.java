@@ -0,0 +1,1022 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+
+/**
+ * Exact distance metrics of the (connected) graph of a part: Diameter with
+ * diameter path, eccentricities of all particles, radius and center.
+ * <p>
+ * The diameter is determined with the iFUB algorithm (iterative fringe upper
+ * bound, Crescenzi et al. 2013) that starts at the middle of a 4-sweep path.
+ * Eccentricities are determined with bounding BFS (Takes and Kosters 2011):
+ * Every BFS tightens lower and upper bounds of all particles and particles
+ * with equal bounds are resolved without BFS of their own. Eccentricities of
+ * the iFUB fringe levels and remaining unresolved particles are determined
+ * with a bit-parallel BFS that processes 64 sources at once. Both algorithms
+ * usually need a small number of BFS instead of one BFS per particle (as an
+ * all-pairs approach).
+ * <p>
+ * For rings the bounds of iFUB and bounding BFS never prune, i.e. both
+ * algorithms would need one BFS per particle. Therefore graphs with ring
+ * closures are decomposed into blocks (biconnected components): Bridges and
+ * simple rings are evaluated in linear time (a ring with a sliding window
+ * maximum), other blocks (e.g. fused rings) with one BFS per particle of the
+ * block. Eccentricities are then combined along the block-cut tree with two
+ * passes, the diameter path follows from the eccentricities. If other blocks
+ * are too large (see MAXIMUM_BLOCK_WORK) iFUB and bounding BFS are used.
+ * <p>
+ * All results are determined once (lazily) and may be determined
+ * concurrently more than once, but all of them are equal. NOTE: Do NOT
+ * change returned arrays.
+ *
+ * @author Achim Zielesny
+ */
+public final class GraphMetrics {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Number of sources of a bit-parallel BFS
+     */
+    private static final int NUMBER_OF_BIT_PARALLEL_SOURCES = Long.SIZE;
+
+    /**
+     * Maximum work (sum of number of particles times number of bonds of
+     * blocks that are neither bridge nor simple ring) for the evaluation
+     * with blocks
+     */
+    private static final long MAXIMUM_BLOCK_WORK = 10000000L;
+
+    /**
+     * Block kind: Bridge (two particles)
+     */
+    private static final int BRIDGE_BLOCK = 0;
+
+    /**
+     * Block kind: Simple ring
+     */
+    private static final int RING_BLOCK = 1;
+
+    /**
+     * Block kind: Other biconnected block
+     */
+    private static final int OTHER_BLOCK = 2;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Bond offsets of the CSR graph
+     */
+    private final int[] bondOffsets;
+
+    /**
+     * Bond targets of the CSR graph
+     */
+    private final int[] bondTargets;
+
+    /**
+     * Number of particles
+     */
+    private final int numberOfParticles;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Diameter path (lazily determined)
+     */
+    private volatile int[] diameterPath;
+
+    /**
+     * Eccentricities (lazily determined)
+     */
+    private volatile int[] eccentricities;
+
+    /**
+     * Center (lazily determined)
+     */
+    private volatile int[] center;
+
+    /**
+     * True: Eccentricities are determined with blocks (lazily determined,
+     * null: Not yet determined)
+     */
+    private volatile Boolean isBlockEvaluation;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor
+     *
+     * @param aPart Part
+     * @throws IllegalArgumentException Thrown if aPart is null, invalid or
+     * not connected
+     */
+    public GraphMetrics(PSmilesInner aPart) throws IllegalArgumentException {
+        this(aPart == null ? null : aPart.getBondOffsets(), aPart == null ? null : aPart.getBondTargets());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param aBondOffsets Bond offsets of the CSR graph (see
+     * PSmilesInner.getBondOffsets())
+     * @param aBondTargets Bond targets of the CSR graph (see
+     * PSmilesInner.getBondTargets())
+     * @throws IllegalArgumentException Thrown if an argument is null, the
+     * graph has no particles or is not connected
+     */
+    public GraphMetrics(int[] aBondOffsets, int[] aBondTargets) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aBondOffsets == null || aBondOffsets.length < 2) {
+            throw new IllegalArgumentException("GraphMetrics.Constructor: aBondOffsets is null or graph has no particles.");
+        }
+        if (aBondTargets == null) {
+            throw new IllegalArgumentException("GraphMetrics.Constructor: aBondTargets is null.");
+        }
+
+        // </editor-fold>
+        this.bondOffsets = aBondOffsets;
+        this.bondTargets = aBondTargets;
+        this.numberOfParticles = aBondOffsets.length - 1;
+        int[] tmpDistances = new int[this.numberOfParticles];
+        int[] tmpQueue = new int[this.numberOfParticles];
+        if (this.breadthFirstSearch(0, tmpDistances, tmpQueue) < 0) {
+            throw new IllegalArgumentException("GraphMetrics.Constructor: Graph is not connected.");
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Number of particles
+     *
+     * @return Number of particles
+     */
+    public int getNumberOfParticles() {
+        return this.numberOfParticles;
+    }
+
+    /**
+     * Exact diameter (largest distance of two particles in bonds)
+     *
+     * @return Diameter
+     */
+    public int getDiameter() {
+        return this.getDiameterPath().length - 1;
+    }
+
+    /**
+     * Shortest path between two particles with largest distance. NOTE: Do
+     * NOT change the returned array.
+     *
+     * @return Particle indices of the diameter path
+     */
+    public int[] getDiameterPath() {
+        int[] tmpDiameterPath = this.diameterPath;
+        if (tmpDiameterPath == null) {
+            tmpDiameterPath = this.determineDiameterPath();
+            this.diameterPath = tmpDiameterPath;
+        }
+        return tmpDiameterPath;
+    }
+
+    /**
+     * Eccentricities (largest distance to any other particle) of all
+     * particles. NOTE: Do NOT change the returned array.
+     *
+     * @return Eccentricities (index is particle index)
+     */
+    public int[] getEccentricities() {
+        int[] tmpEccentricities = this.eccentricities;
+        if (tmpEccentricities == null) {
+            tmpEccentricities = this.determineEccentricities();
+            this.eccentricities = tmpEccentricities;
+        }
+        return tmpEccentricities;
+    }
+
+    /**
+     * Eccentricity of particle
+     *
+     * @param aParticleIndex Particle index
+     * @return Eccentricity of particle
+     * @throws IllegalArgumentException Thrown if aParticleIndex is out of
+     * range
+     */
+    public int getEccentricity(int aParticleIndex) throws IllegalArgumentException {
+        if (aParticleIndex < 0 || aParticleIndex >= this.numberOfParticles) {
+            throw new IllegalArgumentException("GraphMetrics.getEccentricity: aParticleIndex is out of range.");
+        }
+        return this.getEccentricities()[aParticleIndex];
+    }
+
+    /**
+     * Radius (smallest eccentricity)
+     *
+     * @return Radius
+     */
+    public int getRadius() {
+        return this.getEccentricities()[this.getCenter()[0]];
+    }
+
+    /**
+     * Center (particles with smallest eccentricity). NOTE: Do NOT change the
+     * returned array.
+     *
+     * @return Particle indices of center in ascending order
+     */
+    public int[] getCenter() {
+        int[] tmpCenter = this.center;
+        if (tmpCenter == null) {
+            int[] tmpEccentricities = this.getEccentricities();
+            int tmpRadius = Integer.MAX_VALUE;
+            int tmpSize = 0;
+            for (int tmpEccentricity : tmpEccentricities) {
+                if (tmpEccentricity < tmpRadius) {
+                    tmpRadius = tmpEccentricity;
+                    tmpSize = 1;
+                } else if (tmpEccentricity == tmpRadius) {
+                    tmpSize++;
+                }
+            }
+            tmpCenter = new int[tmpSize];
+            tmpSize = 0;
+            for (int i = 0; i < this.numberOfParticles; i++) {
+                if (tmpEccentricities[i] == tmpRadius) {
+                    tmpCenter[tmpSize++] = i;
+                }
+            }
+            this.center = tmpCenter;
+        }
+        return tmpCenter;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    // <editor-fold defaultstate="collapsed" desc="- Diameter related methods">
+    /**
+     * Determines the diameter path with iFUB
+     *
+     * @return Particle indices of the diameter path
+     */
+    private int[] determineDiameterPath() {
+        if (this.numberOfParticles == 1) {
+            return new int[]{0};
+        }
+        int[] tmpDistances = new int[this.numberOfParticles];
+        int[] tmpQueue = new int[this.numberOfParticles];
+        // <editor-fold defaultstate="collapsed" desc="Diameter path from eccentricities of blocks">
+        if (this.isBlockEvaluation()) {
+            int[] tmpEccentricities = this.getEccentricities();
+            int tmpFirstParticleIndex = 0;
+            for (int i = 1; i < this.numberOfParticles; i++) {
+                if (tmpEccentricities[i] > tmpEccentricities[tmpFirstParticleIndex]) {
+                    tmpFirstParticleIndex = i;
+                }
+            }
+            this.breadthFirstSearch(tmpFirstParticleIndex, tmpDistances, tmpQueue);
+            return DepthFirstPathEngine.getInstance(this.bondOffsets.length - 1).getShortestPath(this.bondOffsets, this.bondTargets, tmpFirstParticleIndex,
+                    tmpQueue[this.numberOfParticles - 1]);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="4-sweep: Lower bound and start particle">
+        // tmpPair: Particles with largest distance found so far, tmpPair[2]: Their distance
+        int[] tmpPair = new int[3];
+        int tmpMiddle = this.sweep(0, tmpDistances, tmpQueue, tmpPair);
+        tmpMiddle = this.sweep(tmpMiddle, tmpDistances, tmpQueue, tmpPair);
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Fringe levels of start particle">
+        int tmpEccentricityOfMiddle = this.breadthFirstSearch(tmpMiddle, tmpDistances, tmpQueue);
+        if (tmpEccentricityOfMiddle > tmpPair[2]) {
+            tmpPair[0] = tmpMiddle;
+            tmpPair[1] = tmpQueue[this.numberOfParticles - 1];
+            tmpPair[2] = tmpEccentricityOfMiddle;
+        }
+        int[] tmpSources = new int[NUMBER_OF_BIT_PARALLEL_SOURCES];
+        int[] tmpEccentricities = new int[NUMBER_OF_BIT_PARALLEL_SOURCES];
+        int[] tmpFarthestParticles = new int[NUMBER_OF_BIT_PARALLEL_SOURCES];
+        int tmpLevelEnd = this.numberOfParticles;
+        int tmpLevel = tmpEccentricityOfMiddle;
+        // Upper bound of diameter is 2 * tmpLevel
+        while (tmpPair[2] < 2 * tmpLevel) {
+            // Particles of level are in tmpQueue[tmpLevelStart, tmpLevelEnd)
+            int tmpLevelStart = tmpLevelEnd;
+            while (tmpLevelStart > 0 && tmpDistances[tmpQueue[tmpLevelStart - 1]] == tmpLevel) {
+                tmpLevelStart--;
+            }
+            for (int i = tmpLevelStart; i < tmpLevelEnd; i += NUMBER_OF_BIT_PARALLEL_SOURCES) {
+                int tmpNumberOfSources = Math.min(NUMBER_OF_BIT_PARALLEL_SOURCES, tmpLevelEnd - i);
+                System.arraycopy(tmpQueue, i, tmpSources, 0, tmpNumberOfSources);
+                this.bitParallelBreadthFirstSearch(tmpSources, tmpNumberOfSources, tmpEccentricities, tmpFarthestParticles);
+                for (int j = 0; j < tmpNumberOfSources; j++) {
+                    if (tmpEccentricities[j] > tmpPair[2]) {
+                        tmpPair[0] = tmpSources[j];
+                        tmpPair[1] = tmpFarthestParticles[j];
+                        tmpPair[2] = tmpEccentricities[j];
+                    }
+                }
+            }
+            // All particles with larger distance to middle particle are processed:
+            // A larger diameter requires a particle of a lower level at each end
+            if (tmpPair[2] > 2 * (tmpLevel - 1)) {
+                break;
+            }
+            tmpLevelEnd = tmpLevelStart;
+            tmpLevel--;
+        }
+
+        // </editor-fold>
+        return DepthFirstPathEngine.getInstance(this.bondOffsets.length - 1).getShortestPath(this.bondOffsets, this.bondTargets, tmpPair[0], tmpPair[1]);
+    }
+
+    /**
+     * Double sweep: BFS from start particle a to its farthest particle b and
+     * BFS from b to its farthest particle c. Updates the particle pair with
+     * the largest distance.
+     *
+     * @param aStartParticleIndex Start particle index
+     * @param aDistances Distances (scratch)
+     * @param aQueue Queue (scratch)
+     * @param aPair Particle pair with largest distance (index 2: distance,
+     * updated)
+     * @return Particle in the middle of the path from b to c
+     */
+    private int sweep(int aStartParticleIndex, int[] aDistances, int[] aQueue, int[] aPair) {
+        this.breadthFirstSearch(aStartParticleIndex, aDistances, aQueue);
+        int tmpFirstParticleIndex = aQueue[this.numberOfParticles - 1];
+        int tmpEccentricity = this.breadthFirstSearch(tmpFirstParticleIndex, aDistances, aQueue);
+        int tmpSecondParticleIndex = aQueue[this.numberOfParticles - 1];
+        if (tmpEccentricity > aPair[2]) {
+            aPair[0] = tmpFirstParticleIndex;
+            aPair[1] = tmpSecondParticleIndex;
+            aPair[2] = tmpEccentricity;
+        }
+        // Walk back half of the path from second particle on shortest path
+        int tmpParticleIndex = tmpSecondParticleIndex;
+        for (int i = tmpEccentricity; i > tmpEccentricity / 2; i--) {
+            for (int k = this.bondOffsets[tmpParticleIndex]; k < this.bondOffsets[tmpParticleIndex + 1]; k++) {
+                if (aDistances[this.bondTargets[k]] == i - 1) {
+                    tmpParticleIndex = this.bondTargets[k];
+                    break;
+                }
+            }
+        }
+        return tmpParticleIndex;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Eccentricity related methods">
+    /**
+     * Determines the eccentricities of all particles with bounding BFS. The
+     * first sources are the ends and the middle particles of the diameter
+     * path: For a tree their bounds already resolve all particles.
+     *
+     * @return Eccentricities
+     */
+    private int[] determineEccentricities() {
+        if (this.isBlockEvaluation()) {
+            return this.determineBlockEccentricities();
+        }
+        int[] tmpResult = new int[this.numberOfParticles];
+        if (this.numberOfParticles == 1) {
+            return tmpResult;
+        }
+        int[] tmpLowerBounds = new int[this.numberOfParticles];
+        int[] tmpUpperBounds = new int[this.numberOfParticles];
+        Arrays.fill(tmpUpperBounds, Integer.MAX_VALUE);
+        // Unresolved particles
+        int[] tmpCandidates = new int[this.numberOfParticles];
+        boolean[] tmpIsCandidate = new boolean[this.numberOfParticles];
+        for (int i = 0; i < this.numberOfParticles; i++) {
+            tmpCandidates[i] = i;
+            tmpIsCandidate[i] = true;
+        }
+        int tmpNumberOfCandidates = this.numberOfParticles;
+        int[] tmpDistances = new int[this.numberOfParticles];
+        int[] tmpQueue = new int[this.numberOfParticles];
+        // <editor-fold defaultstate="collapsed" desc="Ends and middle particles of diameter path">
+        int[] tmpDiameterPath = this.getDiameterPath();
+        int[] tmpSeeds = new int[]{
+            tmpDiameterPath[0],
+            tmpDiameterPath[tmpDiameterPath.length - 1],
+            tmpDiameterPath[(tmpDiameterPath.length - 1) / 2],
+            tmpDiameterPath[tmpDiameterPath.length / 2]
+        };
+        for (int tmpSource : tmpSeeds) {
+            if (tmpIsCandidate[tmpSource] && tmpNumberOfCandidates > NUMBER_OF_BIT_PARALLEL_SOURCES) {
+                tmpNumberOfCandidates = this.updateBounds(tmpSource, tmpCandidates, tmpNumberOfCandidates, tmpIsCandidate, tmpLowerBounds, tmpUpperBounds, tmpResult,
+                        tmpDistances, tmpQueue);
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Alternately smallest lower and largest upper bound">
+        boolean tmpIsLargestUpperBound = false;
+        while (tmpNumberOfCandidates > NUMBER_OF_BIT_PARALLEL_SOURCES) {
+            int tmpSource = tmpCandidates[0];
+            for (int i = 1; i < tmpNumberOfCandidates; i++) {
+                int tmpCandidate = tmpCandidates[i];
+                if (tmpIsLargestUpperBound) {
+                    if (tmpUpperBounds[tmpCandidate] > tmpUpperBounds[tmpSource]
+                            || tmpUpperBounds[tmpCandidate] == tmpUpperBounds[tmpSource] && this.getDegree(tmpCandidate) > this.getDegree(tmpSource)) {
+                        tmpSource = tmpCandidate;
+                    }
+                } else {
+                    if (tmpLowerBounds[tmpCandidate] < tmpLowerBounds[tmpSource]
+                            || tmpLowerBounds[tmpCandidate] == tmpLowerBounds[tmpSource] && this.getDegree(tmpCandidate) > this.getDegree(tmpSource)) {
+                        tmpSource = tmpCandidate;
+                    }
+                }
+            }
+            tmpIsLargestUpperBound = !tmpIsLargestUpperBound;
+            tmpNumberOfCandidates = this.updateBounds(tmpSource, tmpCandidates, tmpNumberOfCandidates, tmpIsCandidate, tmpLowerBounds, tmpUpperBounds, tmpResult,
+                    tmpDistances, tmpQueue);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Remaining candidates with bit-parallel BFS">
+        if (tmpNumberOfCandidates > 0) {
+            int[] tmpEccentricities = new int[NUMBER_OF_BIT_PARALLEL_SOURCES];
+            this.bitParallelBreadthFirstSearch(tmpCandidates, tmpNumberOfCandidates, tmpEccentricities, new int[NUMBER_OF_BIT_PARALLEL_SOURCES]);
+            for (int i = 0; i < tmpNumberOfCandidates; i++) {
+                tmpResult[tmpCandidates[i]] = tmpEccentricities[i];
+            }
+        }
+
+        // </editor-fold>
+        return tmpResult;
+    }
+
+    /**
+     * BFS from source particle: Updates the eccentricity bounds of all
+     * candidates and removes resolved candidates
+     *
+     * @param aSource Source particle index (a candidate)
+     * @param aCandidates Candidates (updated)
+     * @param aNumberOfCandidates Number of candidates
+     * @param anIsCandidateFlags Candidate flags (updated)
+     * @param aLowerBounds Lower bounds (updated)
+     * @param anUpperBounds Upper bounds (updated)
+     * @param anEccentricities Eccentricities (resolved candidates are set)
+     * @param aDistances Distances (scratch)
+     * @param aQueue Queue (scratch)
+     * @return New number of candidates
+     */
+    private int updateBounds(int aSource, int[] aCandidates, int aNumberOfCandidates, boolean[] anIsCandidateFlags, int[] aLowerBounds, int[] anUpperBounds,
+            int[] anEccentricities, int[] aDistances, int[] aQueue) {
+        int tmpEccentricity = this.breadthFirstSearch(aSource, aDistances, aQueue);
+        anEccentricities[aSource] = tmpEccentricity;
+        anIsCandidateFlags[aSource] = false;
+        int tmpNumberOfCandidates = 0;
+        for (int i = 0; i < aNumberOfCandidates; i++) {
+            int tmpCandidate = aCandidates[i];
+            if (tmpCandidate == aSource) {
+                continue;
+            }
+            int tmpDistance = aDistances[tmpCandidate];
+            aLowerBounds[tmpCandidate] = Math.max(aLowerBounds[tmpCandidate], Math.max(tmpEccentricity - tmpDistance, tmpDistance));
+            anUpperBounds[tmpCandidate] = Math.min(anUpperBounds[tmpCandidate], tmpEccentricity + tmpDistance);
+            if (aLowerBounds[tmpCandidate] == anUpperBounds[tmpCandidate]) {
+                anEccentricities[tmpCandidate] = aLowerBounds[tmpCandidate];
+                anIsCandidateFlags[tmpCandidate] = false;
+            } else {
+                aCandidates[tmpNumberOfCandidates++] = tmpCandidate;
+            }
+        }
+        return tmpNumberOfCandidates;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Block related methods">
+    /**
+     * True: Eccentricities are determined with blocks, i.e. the graph has
+     * ring closures and the work for other blocks (see OTHER_BLOCK) does not
+     * exceed MAXIMUM_BLOCK_WORK. Trees are evaluated with bounding BFS that
+     * resolves them after a few BFS.
+     *
+     * @return True: Eccentricities are determined with blocks
+     */
+    private boolean isBlockEvaluation() {
+        Boolean tmpIsBlockEvaluation = this.isBlockEvaluation;
+        if (tmpIsBlockEvaluation == null) {
+            int tmpNumberOfBonds = 0;
+            for (int i = 0; i < this.numberOfParticles; i++) {
+                for (int k = this.bondOffsets[i]; k < this.bondOffsets[i + 1]; k++) {
+                    if (this.bondTargets[k] != i) {
+                        tmpNumberOfBonds++;
+                    }
+                }
+            }
+            if (tmpNumberOfBonds / 2 == this.numberOfParticles - 1) {
+                tmpIsBlockEvaluation = false;
+            } else {
+                int[][] tmpBlocks = this.getBlocks();
+                tmpIsBlockEvaluation = this.getOtherBlockWork(tmpBlocks[0], tmpBlocks[1], tmpBlocks[2]) <= MAXIMUM_BLOCK_WORK;
+            }
+            this.isBlockEvaluation = tmpIsBlockEvaluation;
+        }
+        return tmpIsBlockEvaluation;
+    }
+
+    /**
+     * Determines the blocks (biconnected components) with an iterative
+     * depth-first search (Hopcroft and Tarjan) from particle 0. Blocks are
+     * returned in post-order, i.e. a block is preceded by all blocks below
+     * it in the block-cut tree rooted at particle 0. The first particle of a
+     * block is its top particle (the particle closest to particle 0), the
+     * particles of a simple ring are in ring order.
+     *
+     * @return Block offsets (index 0), block particles (index 1, particles
+     * of block b are at block offsets b to b + 1) and block kinds (index 2)
+     */
+    private int[][] getBlocks() {
+        int[] tmpDiscoveries = new int[this.numberOfParticles];
+        Arrays.fill(tmpDiscoveries, -1);
+        int[] tmpLows = new int[this.numberOfParticles];
+        int[] tmpParents = new int[this.numberOfParticles];
+        int[] tmpNextBonds = Arrays.copyOf(this.bondOffsets, this.numberOfParticles);
+        int[] tmpDepthFirstStack = new int[this.numberOfParticles];
+        int[] tmpParticleStack = new int[this.numberOfParticles];
+        // A particle is in 1 + (number of blocks below it) blocks
+        int[] tmpBlockOffsets = new int[this.numberOfParticles + 1];
+        int[] tmpBlockParticles = new int[2 * this.numberOfParticles];
+        int tmpNumberOfBlocks = 0;
+        int tmpDepthFirstStackSize = 0;
+        int tmpParticleStackSize = 0;
+        int tmpTime = 0;
+        tmpDiscoveries[0] = tmpTime++;
+        tmpParents[0] = -1;
+        tmpDepthFirstStack[tmpDepthFirstStackSize++] = 0;
+        tmpParticleStack[tmpParticleStackSize++] = 0;
+        while (tmpDepthFirstStackSize > 0) {
+            int tmpParticleIndex = tmpDepthFirstStack[tmpDepthFirstStackSize - 1];
+            if (tmpNextBonds[tmpParticleIndex] < this.bondOffsets[tmpParticleIndex + 1]) {
+                int tmpNeighbor = this.bondTargets[tmpNextBonds[tmpParticleIndex]++];
+                if (tmpNeighbor == tmpParticleIndex) {
+                    continue;
+                }
+                if (tmpDiscoveries[tmpNeighbor] < 0) {
+                    tmpParents[tmpNeighbor] = tmpParticleIndex;
+                    tmpDiscoveries[tmpNeighbor] = tmpTime;
+                    tmpLows[tmpNeighbor] = tmpTime++;
+                    tmpDepthFirstStack[tmpDepthFirstStackSize++] = tmpNeighbor;
+                    tmpParticleStack[tmpParticleStackSize++] = tmpNeighbor;
+                } else if (tmpNeighbor != tmpParents[tmpParticleIndex]) {
+                    tmpLows[tmpParticleIndex] = Math.min(tmpLows[tmpParticleIndex], tmpDiscoveries[tmpNeighbor]);
+                }
+                continue;
+            }
+            tmpDepthFirstStackSize--;
+            int tmpParent = tmpParents[tmpParticleIndex];
+            if (tmpParent < 0) {
+                continue;
+            }
+            tmpLows[tmpParent] = Math.min(tmpLows[tmpParent], tmpLows[tmpParticleIndex]);
+            if (tmpLows[tmpParticleIndex] >= tmpDiscoveries[tmpParent]) {
+                // New block: Parent is top particle, particles below are on particle stack
+                int tmpOffset = tmpBlockOffsets[tmpNumberOfBlocks];
+                tmpBlockParticles[tmpOffset++] = tmpParent;
+                int tmpBlockParticle;
+                do {
+                    tmpBlockParticle = tmpParticleStack[--tmpParticleStackSize];
+                    tmpBlockParticles[tmpOffset++] = tmpBlockParticle;
+                } while (tmpBlockParticle != tmpParticleIndex);
+                tmpBlockOffsets[++tmpNumberOfBlocks] = tmpOffset;
+            }
+        }
+        tmpBlockOffsets = Arrays.copyOf(tmpBlockOffsets, tmpNumberOfBlocks + 1);
+        int[] tmpBlockKinds = new int[tmpNumberOfBlocks];
+        // <editor-fold defaultstate="collapsed" desc="Block kinds and ring order">
+        int[] tmpMarks = new int[this.numberOfParticles];
+        int[] tmpRing = new int[this.numberOfParticles];
+        for (int b = 0; b < tmpNumberOfBlocks; b++) {
+            int tmpStart = tmpBlockOffsets[b];
+            int tmpEnd = tmpBlockOffsets[b + 1];
+            if (tmpEnd - tmpStart == 2) {
+                tmpBlockKinds[b] = BRIDGE_BLOCK;
+                continue;
+            }
+            for (int i = tmpStart; i < tmpEnd; i++) {
+                tmpMarks[tmpBlockParticles[i]] = b + 1;
+            }
+            boolean tmpIsRing = true;
+            for (int i = tmpStart; i < tmpEnd && tmpIsRing; i++) {
+                tmpIsRing = this.getNumberOfBlockNeighbors(tmpBlockParticles[i], tmpMarks, b + 1) == 2;
+            }
+            if (!tmpIsRing) {
+                tmpBlockKinds[b] = OTHER_BLOCK;
+                continue;
+            }
+            tmpBlockKinds[b] = RING_BLOCK;
+            // Ring order starting with top particle
+            int tmpPrevious = -1;
+            int tmpCurrent = tmpBlockParticles[tmpStart];
+            for (int i = 0; i < tmpEnd - tmpStart; i++) {
+                tmpRing[i] = tmpCurrent;
+                for (int k = this.bondOffsets[tmpCurrent]; k < this.bondOffsets[tmpCurrent + 1]; k++) {
+                    int tmpNeighbor = this.bondTargets[k];
+                    if (tmpNeighbor != tmpCurrent && tmpNeighbor != tmpPrevious && tmpMarks[tmpNeighbor] == b + 1) {
+                        tmpPrevious = tmpCurrent;
+                        tmpCurrent = tmpNeighbor;
+                        break;
+                    }
+                }
+            }
+            System.arraycopy(tmpRing, 0, tmpBlockParticles, tmpStart, tmpEnd - tmpStart);
+        }
+
+        // </editor-fold>
+        return new int[][]{tmpBlockOffsets, tmpBlockParticles, tmpBlockKinds};
+    }
+
+    /**
+     * Work for blocks of kind OTHER_BLOCK (sum of number of particles times
+     * number of bonds of particles)
+     *
+     * @param aBlockOffsets Block offsets
+     * @param aBlockParticles Block particles
+     * @param aBlockKinds Block kinds
+     * @return Work
+     */
+    private long getOtherBlockWork(int[] aBlockOffsets, int[] aBlockParticles, int[] aBlockKinds) {
+        long tmpWork = 0L;
+        for (int b = 0; b < aBlockKinds.length; b++) {
+            if (aBlockKinds[b] == OTHER_BLOCK) {
+                long tmpNumberOfBonds = 0L;
+                for (int i = aBlockOffsets[b]; i < aBlockOffsets[b + 1]; i++) {
+                    tmpNumberOfBonds += this.getDegree(aBlockParticles[i]);
+                }
+                tmpWork += (aBlockOffsets[b + 1] - aBlockOffsets[b]) * tmpNumberOfBonds;
+            }
+        }
+        return tmpWork;
+    }
+
+    /**
+     * Number of neighbors of particle in block
+     *
+     * @param aParticleIndex Particle index
+     * @param aMarks Block marks of particles
+     * @param aMark Mark of block
+     * @return Number of neighbors of particle in block
+     */
+    private int getNumberOfBlockNeighbors(int aParticleIndex, int[] aMarks, int aMark) {
+        int tmpNumberOfNeighbors = 0;
+        for (int k = this.bondOffsets[aParticleIndex]; k < this.bondOffsets[aParticleIndex + 1]; k++) {
+            int tmpNeighbor = this.bondTargets[k];
+            if (tmpNeighbor != aParticleIndex && aMarks[tmpNeighbor] == aMark) {
+                tmpNumberOfNeighbors++;
+            }
+        }
+        return tmpNumberOfNeighbors;
+    }
+
+    /**
+     * Determines the eccentricities with blocks: A bottom-up pass determines
+     * the largest distance from the top particle of every block into the
+     * block and all blocks below it, a top-down pass determines the largest
+     * distance of every particle through its block (including the part of
+     * the graph above the block). For a block every particle y has a weight
+     * (largest distance from y away from the block) and the block determines
+     * max(distance(x, y) + weight(y)) of its particles x.
+     *
+     * @return Eccentricities
+     */
+    private int[] determineBlockEccentricities() {
+        int[][] tmpBlocks = this.getBlocks();
+        int[] tmpBlockOffsets = tmpBlocks[0];
+        int[] tmpBlockParticles = tmpBlocks[1];
+        int[] tmpBlockKinds = tmpBlocks[2];
+        int tmpNumberOfBlocks = tmpBlockKinds.length;
+        // Largest and second largest distance below particles (into blocks with particle as top) and block of largest distance
+        int[] tmpFirstDown = new int[this.numberOfParticles];
+        int[] tmpSecondDown = new int[this.numberOfParticles];
+        int[] tmpFirstDownBlocks = new int[this.numberOfParticles];
+        int[] tmpDownOfBlocks = new int[tmpNumberOfBlocks];
+        int[] tmpUp = new int[this.numberOfParticles];
+        int[] tmpResult = new int[this.numberOfParticles];
+        // Scratch
+        int[] tmpMarks = new int[this.numberOfParticles];
+        int[] tmpWeights = new int[this.numberOfParticles];
+        int[] tmpValues = new int[this.numberOfParticles];
+        int[] tmpDistances = new int[this.numberOfParticles];
+        Arrays.fill(tmpDistances, -1);
+        int[] tmpQueue = new int[this.numberOfParticles];
+        int[] tmpDeque = new int[2 * this.numberOfParticles];
+        // <editor-fold defaultstate="collapsed" desc="Bottom-up pass">
+        for (int b = 0; b < tmpNumberOfBlocks; b++) {
+            int tmpStart = tmpBlockOffsets[b];
+            int tmpSize = tmpBlockOffsets[b + 1] - tmpStart;
+            int tmpTop = tmpBlockParticles[tmpStart];
+            int tmpDown = 0;
+            switch (tmpBlockKinds[b]) {
+                case BRIDGE_BLOCK:
+                    tmpDown = 1 + tmpFirstDown[tmpBlockParticles[tmpStart + 1]];
+                    break;
+                case RING_BLOCK:
+                    for (int i = 1; i < tmpSize; i++) {
+                        tmpDown = Math.max(tmpDown, Math.min(i, tmpSize - i) + tmpFirstDown[tmpBlockParticles[tmpStart + i]]);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < tmpSize; i++) {
+                        tmpMarks[tmpBlockParticles[tmpStart + i]] = b + 1;
+                    }
+                    int tmpNumberOfReached = this.blockBreadthFirstSearch(tmpTop, tmpMarks, b + 1, tmpDistances, tmpQueue);
+                    for (int i = 1; i < tmpNumberOfReached; i++) {
+                        tmpDown = Math.max(tmpDown, tmpDistances[tmpQueue[i]] + tmpFirstDown[tmpQueue[i]]);
+                    }
+                    this.resetDistances(tmpDistances, tmpQueue, tmpNumberOfReached);
+                    break;
+            }
+            tmpDownOfBlocks[b] = tmpDown;
+            // NOTE: tmpDown is at least 1
+            if (tmpDown > tmpFirstDown[tmpTop]) {
+                tmpSecondDown[tmpTop] = tmpFirstDown[tmpTop];
+                tmpFirstDown[tmpTop] = tmpDown;
+                tmpFirstDownBlocks[tmpTop] = b;
+            } else if (tmpDown > tmpSecondDown[tmpTop]) {
+                tmpSecondDown[tmpTop] = tmpDown;
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Top-down pass">
+        tmpResult[0] = tmpFirstDown[0];
+        for (int b = tmpNumberOfBlocks - 1; b >= 0; b--) {
+            int tmpStart = tmpBlockOffsets[b];
+            int tmpSize = tmpBlockOffsets[b + 1] - tmpStart;
+            int tmpTop = tmpBlockParticles[tmpStart];
+            // Weight of top particle: Largest distance without this block
+            int tmpTopWeight = Math.max(tmpUp[tmpTop], tmpFirstDownBlocks[tmpTop] == b ? tmpSecondDown[tmpTop] : tmpFirstDown[tmpTop]);
+            switch (tmpBlockKinds[b]) {
+                case BRIDGE_BLOCK:
+                    tmpValues[1] = 1 + tmpTopWeight;
+                    break;
+                case RING_BLOCK:
+                    tmpWeights[0] = tmpTopWeight;
+                    for (int i = 1; i < tmpSize; i++) {
+                        tmpWeights[i] = tmpFirstDown[tmpBlockParticles[tmpStart + i]];
+                    }
+                    this.determineRingValues(tmpWeights, tmpSize, tmpValues, tmpDeque);
+                    break;
+                default:
+                    for (int i = 0; i < tmpSize; i++) {
+                        tmpMarks[tmpBlockParticles[tmpStart + i]] = b + 1;
+                    }
+                    for (int i = 1; i < tmpSize; i++) {
+                        int tmpSource = tmpBlockParticles[tmpStart + i];
+                        int tmpNumberOfReached = this.blockBreadthFirstSearch(tmpSource, tmpMarks, b + 1, tmpDistances, tmpQueue);
+                        int tmpValue = 0;
+                        for (int j = 1; j < tmpNumberOfReached; j++) {
+                            int tmpParticleIndex = tmpQueue[j];
+                            tmpValue = Math.max(tmpValue, tmpDistances[tmpParticleIndex]
+                                    + (tmpParticleIndex == tmpTop ? tmpTopWeight : tmpFirstDown[tmpParticleIndex]));
+                        }
+                        tmpValues[i] = tmpValue;
+                        this.resetDistances(tmpDistances, tmpQueue, tmpNumberOfReached);
+                    }
+                    break;
+            }
+            for (int i = 1; i < tmpSize; i++) {
+                int tmpParticleIndex = tmpBlockParticles[tmpStart + i];
+                tmpUp[tmpParticleIndex] = tmpValues[i];
+                tmpResult[tmpParticleIndex] = Math.max(tmpValues[i], tmpFirstDown[tmpParticleIndex]);
+            }
+        }
+
+        // </editor-fold>
+        return tmpResult;
+    }
+
+    /**
+     * Determines max(distance(i, j) + weight(j)) over all j != i for all
+     * particles i of a simple ring with sliding window maxima (O(ring size)):
+     * Particle j is at distance k in forward direction for k &lt;=
+     * size / 2 and otherwise in backward direction.
+     *
+     * @param aWeights Weights of ring particles in ring order
+     * @param aSize Ring size
+     * @param aValues Values (output, ring order)
+     * @param aDeque Deque (scratch, at least 2 * aSize)
+     */
+    private void determineRingValues(int[] aWeights, int aSize, int[] aValues, int[] aDeque) {
+        int tmpForward = aSize / 2;
+        int tmpBackward = (aSize - 1) / 2;
+        // Forward: max(weight(j) + j) - i for j in [i + 1, i + tmpForward] (indices of doubled ring)
+        int tmpHead = 0;
+        int tmpTail = 0;
+        int tmpNext = 1;
+        for (int i = 0; i < aSize; i++) {
+            for (; tmpNext <= i + tmpForward; tmpNext++) {
+                int tmpValue = aWeights[tmpNext % aSize] + tmpNext;
+                while (tmpTail > tmpHead && aWeights[aDeque[tmpTail - 1] % aSize] + aDeque[tmpTail - 1] <= tmpValue) {
+                    tmpTail--;
+                }
+                aDeque[tmpTail++] = tmpNext;
+            }
+            while (aDeque[tmpHead] <= i) {
+                tmpHead++;
+            }
+            aValues[i] = aWeights[aDeque[tmpHead] % aSize] + aDeque[tmpHead] - i;
+        }
+        // Backward: max(weight(j) - j) + i for j in [i - tmpBackward, i - 1] with i in [aSize, 2 * aSize)
+        tmpHead = 0;
+        tmpTail = 0;
+        tmpNext = aSize - tmpBackward;
+        for (int i = aSize; i < 2 * aSize; i++) {
+            for (; tmpNext <= i - 1; tmpNext++) {
+                int tmpValue = aWeights[tmpNext % aSize] - tmpNext;
+                while (tmpTail > tmpHead && aWeights[aDeque[tmpTail - 1] % aSize] - aDeque[tmpTail - 1] <= tmpValue) {
+                    tmpTail--;
+                }
+                aDeque[tmpTail++] = tmpNext;
+            }
+            while (aDeque[tmpHead] < i - tmpBackward) {
+                tmpHead++;
+            }
+            aValues[i - aSize] = Math.max(aValues[i - aSize], aWeights[aDeque[tmpHead] % aSize] - aDeque[tmpHead] + i);
+        }
+    }
+
+    /**
+     * Breadth-first search from source particle restricted to the particles
+     * of a block
+     *
+     * @param aSource Source particle index
+     * @param aMarks Block marks of particles
+     * @param aMark Mark of block
+     * @param aDistances Distances to source particle (output, must be -1 for
+     * particles of block)
+     * @param aQueue Reached particles in order of ascending distance (output)
+     * @return Number of reached particles
+     */
+    private int blockBreadthFirstSearch(int aSource, int[] aMarks, int aMark, int[] aDistances, int[] aQueue) {
+        int tmpHead = 0;
+        int tmpTail = 0;
+        aQueue[tmpTail++] = aSource;
+        aDistances[aSource] = 0;
+        while (tmpHead < tmpTail) {
+            int tmpParticleIndex = aQueue[tmpHead++];
+            int tmpNextDistance = aDistances[tmpParticleIndex] + 1;
+            for (int k = this.bondOffsets[tmpParticleIndex]; k < this.bondOffsets[tmpParticleIndex + 1]; k++) {
+                int tmpNeighbor = this.bondTargets[k];
+                if (aMarks[tmpNeighbor] == aMark && aDistances[tmpNeighbor] < 0) {
+                    aDistances[tmpNeighbor] = tmpNextDistance;
+                    aQueue[tmpTail++] = tmpNeighbor;
+                }
+            }
+        }
+        return tmpTail;
+    }
+
+    /**
+     * Resets the distances of reached particles to -1
+     *
+     * @param aDistances Distances
+     * @param aQueue Reached particles
+     * @param aNumberOfReached Number of reached particles
+     */
+    private void resetDistances(int[] aDistances, int[] aQueue, int aNumberOfReached) {
+        for (int i = 0; i < aNumberOfReached; i++) {
+            aDistances[aQueue[i]] = -1;
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- BFS related methods">
+    /**
+     * Breadth-first search from source particle
+     *
+     * @param aSource Source particle index
+     * @param aDistances Distances to source particle (output)
+     * @param aQueue Particles in order of ascending distance (output)
+     * @return Eccentricity of source particle or -1 if not all particles are
+     * reached
+     */
+    private int breadthFirstSearch(int aSource, int[] aDistances, int[] aQueue) {
+        Arrays.fill(aDistances, -1);
+        int tmpHead = 0;
+        int tmpTail = 0;
+        aQueue[tmpTail++] = aSource;
+        aDistances[aSource] = 0;
+        while (tmpHead < tmpTail) {
+            int tmpParticleIndex = aQueue[tmpHead++];
+            int tmpNextDistance = aDistances[tmpParticleIndex] + 1;
+            for (int k = this.bondOffsets[tmpParticleIndex]; k < this.bondOffsets[tmpParticleIndex + 1]; k++) {
+                int tmpNeighbor = this.bondTargets[k];
+                if (aDistances[tmpNeighbor] < 0) {
+                    aDistances[tmpNeighbor] = tmpNextDistance;
+                    aQueue[tmpTail++] = tmpNeighbor;
+                }
+            }
+        }
+        if (tmpTail < this.numberOfParticles) {
+            return -1;
+        }
+        return aDistances[aQueue[tmpTail - 1]];
+    }
+
+    /**
+     * Bit-parallel breadth-first search: Up to 64 sources are processed at
+     * once with one bit per source. Every particle is expanded at most once
+     * per level for all sources that reach it at this level.
+     *
+     * @param aSources Source particle indices
+     * @param aNumberOfSources Number of sources (at most 64)
+     * @param anEccentricities Eccentricities of sources (output, same index
+     * as source)
+     * @param aFarthestParticles A farthest particle of every source (output,
+     * same index as source)
+     */
+    private void bitParallelBreadthFirstSearch(int[] aSources, int aNumberOfSources, int[] anEccentricities, int[] aFarthestParticles) {
+        long[] tmpVisited = new long[this.numberOfParticles];
+        long[] tmpFrontier = new long[this.numberOfParticles];
+        long[] tmpNextFrontier = new long[this.numberOfParticles];
+        int[] tmpFrontierParticles = new int[this.numberOfParticles];
+        int[] tmpNextFrontierParticles = new int[this.numberOfParticles];
+        int tmpNumberOfFrontierParticles = 0;
+        for (int i = 0; i < aNumberOfSources; i++) {
+            int tmpSource = aSources[i];
+            if (tmpFrontier[tmpSource] == 0L) {
+                tmpFrontierParticles[tmpNumberOfFrontierParticles++] = tmpSource;
+            }
+            tmpVisited[tmpSource] |= 1L << i;
+            tmpFrontier[tmpSource] |= 1L << i;
+            anEccentricities[i] = 0;
+            aFarthestParticles[i] = tmpSource;
+        }
+        int tmpLevel = 0;
+        while (tmpNumberOfFrontierParticles > 0) {
+            tmpLevel++;
+            int tmpNumberOfNextFrontierParticles = 0;
+            for (int i = 0; i < tmpNumberOfFrontierParticles; i++) {
+                int tmpParticleIndex = tmpFrontierParticles[i];
+                long tmpBits = tmpFrontier[tmpParticleIndex];
+                tmpFrontier[tmpParticleIndex] = 0L;
+                for (int k = this.bondOffsets[tmpParticleIndex]; k < this.bondOffsets[tmpParticleIndex + 1]; k++) {
+                    int tmpNeighbor = this.bondTargets[k];
+                    long tmpNewBits = tmpBits & ~tmpVisited[tmpNeighbor];
+                    if (tmpNewBits != 0L) {
+                        if (tmpNextFrontier[tmpNeighbor] == 0L) {
+                            tmpNextFrontierParticles[tmpNumberOfNextFrontierParticles++] = tmpNeighbor;
+                        }
+                        tmpNextFrontier[tmpNeighbor] |= tmpNewBits;
+                    }
+                }
+            }
+            for (int i = 0; i < tmpNumberOfNextFrontierParticles; i++) {
+                int tmpParticleIndex = tmpNextFrontierParticles[i];
+                long tmpNewBits = tmpNextFrontier[tmpParticleIndex];
+                tmpVisited[tmpParticleIndex] |= tmpNewBits;
+                while (tmpNewBits != 0L) {
+                    int tmpSourceIndex = Long.numberOfTrailingZeros(tmpNewBits);
+                    anEccentricities[tmpSourceIndex] = tmpLevel;
+                    aFarthestParticles[tmpSourceIndex] = tmpParticleIndex;
+                    tmpNewBits &= tmpNewBits - 1L;
+                }
+            }
+            // Swap frontiers: Next frontier becomes frontier (all bits of old frontier are cleared)
+            long[] tmpBitsSwap = tmpFrontier;
+            tmpFrontier = tmpNextFrontier;
+            tmpNextFrontier = tmpBitsSwap;
+            int[] tmpParticlesSwap = tmpFrontierParticles;
+            tmpFrontierParticles = tmpNextFrontierParticles;
+            tmpNextFrontierParticles = tmpParticlesSwap;
+            tmpNumberOfFrontierParticles = tmpNumberOfNextFrontierParticles;
+        }
+    }
+
+    /**
+     * Degree of particle
+     *
+     * @param aParticleIndex Particle index
+     * @return Number of bonds of particle
+     */
+    private int getDegree(int aParticleIndex) {
+        return this.bondOffsets[aParticleIndex + 1] - this.bondOffsets[aParticleIndex];
+    }
+    // </editor-fold>
+    // </editor-fold>
+
+}
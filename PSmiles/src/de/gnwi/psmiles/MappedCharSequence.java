@@ -0,0 +1,158 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only character sequence view on single-byte (ASCII/ISO-8859-1)
+ * encoded bytes, e.g. a memory-mapped input file with a huge PSmiles input
+ * structure. Characters are decoded on access, i.e. the file is not read
+ * into a string before it is passed to PSmilesValidator.validate(),
+ * PSmilesParser.parse() or CompiledPSmiles. PSmilesValidator creates no
+ * copy of the input structure, whereas PSmilesParser and CompiledPSmiles
+ * hold the input structure without white spaces as a string (see
+ * PSmilesParser.parse()).
+ * NOTE: The underlying bytes must NOT be changed while the sequence is used.
+ *
+ * @author Achim Zielesny
+ */
+public final class MappedCharSequence implements CharSequence {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Bytes (position 0 corresponds to index 0 of sequence)
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Length of sequence
+     */
+    private final int length;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor that maps the complete file read-only into memory
+     *
+     * @param aFilePath File path
+     * @throws IllegalArgumentException Thrown if aFilePath is null or file is
+     * larger than Integer.MAX_VALUE bytes
+     * @throws IOException Thrown if file can not be mapped
+     */
+    public MappedCharSequence(Path aFilePath) throws IllegalArgumentException, IOException {
+        if (aFilePath == null) {
+            throw new IllegalArgumentException("MappedCharSequence.Constructor: aFilePath is null.");
+        }
+        try (FileChannel tmpFileChannel = FileChannel.open(aFilePath, StandardOpenOption.READ)) {
+            long tmpSize = tmpFileChannel.size();
+            if (tmpSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("MappedCharSequence.Constructor: File is too large.");
+            }
+            // NOTE: Mapping remains valid after channel is closed
+            MappedByteBuffer tmpMappedByteBuffer = tmpFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, tmpSize);
+            this.bytes = tmpMappedByteBuffer;
+            this.length = (int) tmpSize;
+        }
+    }
+
+    /**
+     * Constructor for remaining bytes of byte buffer (position and limit of
+     * aByteBuffer are not changed)
+     *
+     * @param aByteBuffer Byte buffer
+     * @throws IllegalArgumentException Thrown if aByteBuffer is null
+     */
+    public MappedCharSequence(ByteBuffer aByteBuffer) throws IllegalArgumentException {
+        if (aByteBuffer == null) {
+            throw new IllegalArgumentException("MappedCharSequence.Constructor: aByteBuffer is null.");
+        }
+        this.bytes = aByteBuffer.slice();
+        this.length = this.bytes.remaining();
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Returns the length of this sequence
+     *
+     * @return Length of this sequence
+     */
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns the character at specified index
+     *
+     * @param anIndex Index
+     * @return Character at specified index
+     * @throws IndexOutOfBoundsException Thrown if anIndex is out of bounds
+     */
+    @Override
+    public char charAt(int anIndex) throws IndexOutOfBoundsException {
+        if (anIndex < 0 || anIndex >= this.length) {
+            throw new IndexOutOfBoundsException("MappedCharSequence.charAt: anIndex is out of bounds.");
+        }
+        return (char) (this.bytes.get(anIndex) & 0xFF);
+    }
+
+    /**
+     * Returns a view on the specified subsequence (no bytes are copied)
+     *
+     * @param aStart Start index (inclusive)
+     * @param anEnd End index (exclusive)
+     * @return View on the specified subsequence
+     * @throws IndexOutOfBoundsException Thrown if indices are out of bounds
+     */
+    @Override
+    public CharSequence subSequence(int aStart, int anEnd) throws IndexOutOfBoundsException {
+        if (aStart < 0 || anEnd > this.length || aStart > anEnd) {
+            throw new IndexOutOfBoundsException("MappedCharSequence.subSequence: Indices are out of bounds.");
+        }
+        ByteBuffer tmpByteBuffer = this.bytes.duplicate();
+        tmpByteBuffer.position(aStart);
+        tmpByteBuffer.limit(anEnd);
+        return new MappedCharSequence(tmpByteBuffer);
+    }
+
+    /**
+     * Returns the sequence as a string
+     * NOTE: The complete sequence is copied.
+     *
+     * @return Sequence as a string
+     */
+    @Override
+    public String toString() {
+        byte[] tmpBytes = new byte[this.length];
+        this.bytes.duplicate().get(tmpBytes);
+        return new String(tmpBytes, StandardCharsets.ISO_8859_1);
+    }
+    // </editor-fold>
+
+}
@@ -19,15 +19,10 @@
  */
 package de.gnwi.psmiles;
 
-import java.util.ArrayDeque;
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
 
 /**
  * PSmiles
@@ -36,28 +31,12 @@ import java.util.stream.Collectors;
  */
 public class PSmiles {
 
-    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
-    /**
-     * Instance of PSmilesUtility class
-     */
-    private final PSmilesUtility pSmilesUtility = new PSmilesUtility();
-    // </editor-fold>
-    //
     // <editor-fold defaultstate="collapsed" desc="Private class variables">
     /**
-     * Error message
+     * Compiled input structure (immutable and possibly shared with other
+     * PSmiles objects)
      */
-    private String errorMessage;
-
-    /**
-     * Monomer names
-     */
-    private String[] monomers;
-
-    /**
-     * Sub input structures.
-     */
-    private String[] parts;
+    private CompiledPSmiles compiledPSmiles;
 
     /**
      * This matrix is structured as follows: 1. column: Particle number
@@ -70,82 +49,46 @@ public class PSmiles {
     private String[][] particlePositionsAndConnections;
 
     /**
-     * Maximum number of connections (bonds) of a single particle
+     * Typed particle matrix (determined on demand)
      */
-    private int maximumNumberOfConnectionsOfSingleParticle;
+    private ParticleMatrix particleMatrix;
 
     /**
-     * Number of disconnected structures.
-     */
-    private int numberOfParts;
-    
-    /**
-     * Outer particle index (zero-based position of particles in this.structureTokens)
-     */
-    private int[] outerParticleIndices;
-    
-    /**
-     * Outer backbone index (zero-based position of particles: value corresponds to index number in input string)
+     * Typed particle matrix of previous coordinates whose topology columns
+     * are re-used by the particle matrix of the current coordinates (may be
+     * null)
      */
-    private int[] outerBackboneIndices;
-    
-    /**
-     * Maximum outer backbone index
-     */
-    private int maxOuterBackboneIndex;
-    
-    /**
-     * Valence numbers of a particle
-     */
-    private int[] numberOfConnects;
+    private ParticleMatrix previousParticleMatrix;
 
     /**
-     * True: The input structure is valid, false: Otherwise
+     * First particle number in the PSmiles matrix
      */
-    private boolean isValid;
+    private int startIndex;
 
     /**
-     * True: The input structure is a monomer, false: Otherwise. False is
-     * default value.
+     * Cartesian coordinates of first particles of the PSmiles matrix
      */
-    private boolean isMonomer;
+    private PointInSpace[] firstParticles;
 
     /**
-     * Where there is backbone particles
+     * Cartesian coordinates of last particles of the PSmiles matrix
      */
-    private boolean hasBackboneAttribute;
-    
+    private PointInSpace[] lastParticles;
+
     /**
-     * Whether there is disconnected structure in input structure
+     * Bond length of the PSmiles matrix
      */
-    private boolean hasParts;
+    private double bondLength;
 
     /**
      * HashMap that maps particles of molecule to their frequencies
      */
     private HashMap<String, ParticleFrequency> particleToFrequencyMap;
-    // </editor-fold>
-    //
-    // <editor-fold defaultstate="collapsed" desc="Protected class variables">
-    /**
-     * Input structure
-     */
-    protected String inputStructure;
 
     /**
-     * Part of pSmiles
+     * Parser engine for input structures
      */
-    protected PSmilesInner[] partOfPSmiles;
-
-    /**
-     * Number of total particles
-     */
-    protected int numberOfTotalParticles;
-
-    /**
-     * Structure tokens
-     */
-    protected String[] outerStructureTokens;
+    private PSmilesConstants.ParserEngine parserEngine = PSmilesConstants.DEFAULT_PARSER_ENGINE;
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Constructors">
@@ -170,6 +113,18 @@ public class PSmiles {
         this.initialize(anInputStructure, false, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, anAvailableParticles);
     }
 
+    /**
+     * * Sets all properties of a PSmiles object.
+     *
+     * @param anInputStructure An input structure (NOT allowed to be a monomer
+     * or to contain monomer shortcuts)
+     * @param aParserEngine Parser engine for input structure
+     */
+    public PSmiles(String anInputStructure, PSmilesConstants.ParserEngine aParserEngine) {
+        this.setParserEngine(aParserEngine);
+        this.initialize(anInputStructure, false, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY));
+    }
+
     /**
      * * Sets all properties of a PSmiles object.
      *
@@ -191,6 +146,19 @@ public class PSmiles {
         this.initialize(anInputStructure, anIsMonomer, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, anAvailableParticles);
     }
 
+    /**
+     * * Sets all properties of a PSmiles object.
+     *
+     * @param anInputStructure An input structure (may be a monomer)
+     * @param anAvailableParticles Hashmap of available particles
+     * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
+     * @param aParserEngine Parser engine for input structure
+     */
+    public PSmiles(String anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer, PSmilesConstants.ParserEngine aParserEngine) {
+        this.setParserEngine(aParserEngine);
+        this.initialize(anInputStructure, anIsMonomer, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, anAvailableParticles);
+    }
+
     /**
      * * Sets all properties of a PSmiles object.
      *
@@ -307,18 +275,70 @@ public class PSmiles {
         this.initialize(anInputStructure, anIsMonomer, aStartIndex, aFirstParticle, aLastParticle, aBondLength, anAvailableParticles);
     }
 
+    /**
+     * * Sets all properties of a PSmiles object that is a view on a compiled
+     * input structure (no re-parse).
+     *
+     * @param aCompiledPSmiles Compiled input structure (may be shared)
+     * @param aStartIndex First particle number in the PSmiles matrix (default:
+     * 1)
+     * @throws IllegalArgumentException Thrown if aCompiledPSmiles is null
+     */
+    public PSmiles(CompiledPSmiles aCompiledPSmiles, int aStartIndex) throws IllegalArgumentException {
+        if (aCompiledPSmiles == null) {
+            throw new IllegalArgumentException("PSmiles.Constructor: aCompiledPSmiles is null.");
+        }
+        this.parserEngine = aCompiledPSmiles.getParserEngine();
+        this.initializeView(aCompiledPSmiles, aStartIndex, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0);
+    }
+
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Destructors">
     /**
-     * Destructor method for pSmilesMatrix
+     * Destructor method for pSmilesMatrix (the matrix is determined again on
+     * demand)
      */
     public void destroyPSmilesMatrix() {
         this.particlePositionsAndConnections = null;
+        this.particleMatrix = null;
+        this.previousParticleMatrix = null;
     }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Returns the parser engine for input structures
+     *
+     * @return Parser engine
+     */
+    public PSmilesConstants.ParserEngine getParserEngine() {
+        return this.parserEngine;
+    }
+
+    /**
+     * Sets the parser engine for input structures. The engine is used by
+     * subsequent calls of setInputStructure() and setCoordinates().
+     *
+     * @param aParserEngine Parser engine
+     */
+    public void setParserEngine(PSmilesConstants.ParserEngine aParserEngine) {
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("PSmiles.setParserEngine: aParserEngine is null.");
+        }
+        this.parserEngine = aParserEngine;
+    }
+
+    /**
+     * Returns the compiled input structure that may be shared with other
+     * threads and PSmiles objects
+     *
+     * @return Compiled input structure
+     */
+    public CompiledPSmiles getCompiledPSmiles() {
+        return this.compiledPSmiles;
+    }
+
     /**
      * Sets the input structure and reinitializes all properties
      *
@@ -326,7 +346,6 @@ public class PSmiles {
      * or to contain monomer shortcuts)
      */
     public void setInputStructure(String anInputStructure) {
-        this.resetProperty();
         this.initialize(anInputStructure, false, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY));
     }
 
@@ -337,7 +356,6 @@ public class PSmiles {
      * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
      */
     public void setInputStructure(String anInputStructure, boolean anIsMonomer) {
-        this.resetProperty();
         this.initialize(anInputStructure, anIsMonomer, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY));
     }
 
@@ -349,12 +367,36 @@ public class PSmiles {
      * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
      */
     public void setInputStructure(String anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer) {
-        this.resetProperty();
         this.initialize(anInputStructure, anIsMonomer, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0, anAvailableParticles);
     }
 
     /**
-     * Sets the coordinates of a fSmile object
+     * Sets the input structure incrementally (e.g. after an interactive edit)
+     * and reinitializes all properties: Unchanged parts of the previous input
+     * structure are re-used (see CompiledPSmiles) and the difference between
+     * the particles and bonds of the previous and the new input structure is
+     * returned.
+     *
+     * @param anInputStructure An input structure (NOT allowed to be a monomer
+     * or to contain monomer shortcuts)
+     * @return Difference between previous and new input structure
+     */
+    public PSmilesDiff setInputStructureIncrementally(String anInputStructure) {
+        CompiledPSmiles tmpPreviousCompiledPSmiles = this.compiledPSmiles;
+        CompiledPSmiles tmpCompiledPSmiles;
+        if (anInputStructure == null) {
+            tmpCompiledPSmiles = new CompiledPSmiles(null, this.parserEngine);
+        } else {
+            tmpCompiledPSmiles = PSmilesUtility.getCompiledPSmiles(anInputStructure, this.parserEngine, tmpPreviousCompiledPSmiles);
+        }
+        this.initializeView(tmpCompiledPSmiles, 1, new PointInSpace[]{null}, new PointInSpace[]{null}, 0.0);
+        return new PSmilesDiff(tmpPreviousCompiledPSmiles, this.compiledPSmiles);
+    }
+
+    /**
+     * Sets the coordinates of a fSmile object. NOTE: The compiled input
+     * structure is re-used (i.e. NOT parsed again) and only particle numbers
+     * and coordinates of the particle matrix are determined again.
      * 
      * @param aStartIndex Start index
      * @param aFirstParticle First particle
@@ -362,10 +404,12 @@ public class PSmiles {
      * @param aBondLength Bond length
      */
     public void setCoordinates(int aStartIndex, PointInSpace[] aFirstParticle, PointInSpace[] aLastParticle, double aBondLength) {
-        if (this.inputStructure == null || this.inputStructure.isEmpty()) {
+        if (this.getInputStructure() == null || this.getInputStructure().isEmpty()) {
             return;
         }
-        this.initialize(this.inputStructure, false, aStartIndex, aFirstParticle, aLastParticle, aBondLength, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY));
+        ParticleMatrix tmpPreviousParticleMatrix = this.particleMatrix != null ? this.particleMatrix : this.previousParticleMatrix;
+        this.initializeView(this.compiledPSmiles, aStartIndex, aFirstParticle, aLastParticle, aBondLength);
+        this.previousParticleMatrix = tmpPreviousParticleMatrix;
     }
     
     /**
@@ -374,7 +418,7 @@ public class PSmiles {
      * @return Input structure
      */
     public String getInputStructure() {
-        return this.inputStructure;
+        return this.compiledPSmiles.getInputStructure();
     }
 
     /**
@@ -383,7 +427,7 @@ public class PSmiles {
      * @return Structure tokens
      */
     public String[] getStructureTokens() {
-        return this.outerStructureTokens;
+        return this.compiledPSmiles.getStructureTokens();
     }
 
     /**
@@ -392,7 +436,26 @@ public class PSmiles {
      * @return Error message
      */
     public String getErrorMessage() {
-        return this.errorMessage;
+        return this.compiledPSmiles.getErrorMessage();
+    }
+
+    /**
+     * Returns canonical PSMILES (see CompiledPSmiles.getCanonicalPSmiles())
+     *
+     * @return Canonical PSMILES (may be null)
+     */
+    public String getCanonicalPSmiles() {
+        return this.compiledPSmiles.getCanonicalPSmiles();
+    }
+
+    /**
+     * Returns 128-bit structural hash (see
+     * CompiledPSmiles.getStructuralHash())
+     *
+     * @return Structural hash as two 64-bit values (may be null)
+     */
+    public long[] getStructuralHash() {
+        return this.compiledPSmiles.getStructuralHash();
     }
 
     /**
@@ -401,7 +464,7 @@ public class PSmiles {
      * @return Particle indices
      */
     public int[] getParticleIndices() {
-        return this.outerParticleIndices;
+        return this.compiledPSmiles.getParticleIndices();
     }
 
     /**
@@ -410,7 +473,7 @@ public class PSmiles {
      * @return Backbone indices (may be null)
      */
     public int[] getBackboneIndices() {
-        return this.outerBackboneIndices;
+        return this.compiledPSmiles.getBackboneIndices();
     }
 
     /**
@@ -419,17 +482,7 @@ public class PSmiles {
      * @return Maximum backbone index or -1 if no backbone attribute is defined
      */
     public int getMaxBackboneIndex() {
-        if (this.maxOuterBackboneIndex == -1) {
-            if (this.outerBackboneIndices != null && this.outerBackboneIndices.length > 0) {
-                this.maxOuterBackboneIndex = this.outerBackboneIndices[0];
-                for (int i = 1; i < this.outerBackboneIndices.length; i++) {
-                    if (this.outerBackboneIndices[i] > this.maxOuterBackboneIndex) {
-                        this.maxOuterBackboneIndex = this.outerBackboneIndices[i];
-                    }
-                }
-            }
-        }
-        return this.maxOuterBackboneIndex;
+        return this.compiledPSmiles.getMaxBackboneIndex();
     }
     
     /**
@@ -438,7 +491,7 @@ public class PSmiles {
      * @return Monomers
      */
     public String[] getMonomers() {
-        return this.monomers;
+        return this.compiledPSmiles.getMonomers();
     }
 
     /**
@@ -460,26 +513,65 @@ public class PSmiles {
      * @return PSmiles particle positions and connections
      */
     public String[][] getParticlePositionsAndConnections() {
+        if (this.particlePositionsAndConnections == null && this.compiledPSmiles.isValid()) {
+            this.particlePositionsAndConnections = this.getParticleMatrix().toStringMatrix();
+        }
         return this.particlePositionsAndConnections;
     }
 
+    /**
+     * Returns the typed particle matrix with primitive columns (see
+     * getParticlePositionsAndConnections() for its string form). The matrix
+     * is determined on first call.
+     *
+     * @return Typed particle matrix or null if input structure is invalid
+     */
+    public ParticleMatrix getParticleMatrix() {
+        if (this.particleMatrix == null && this.compiledPSmiles.isValid()) {
+            this.particleMatrix = this.compiledPSmiles.getParticleMatrix(this.previousParticleMatrix, this.startIndex, this.firstParticles, this.lastParticles,
+                    this.bondLength);
+            this.previousParticleMatrix = null;
+        }
+        return this.particleMatrix;
+    }
+
+    /**
+     * Typed particle matrices for several sets of coordinates in a single
+     * call (see CompiledPSmiles.getParticleMatrices()). NOTE: The coordinates
+     * of this object are NOT changed.
+     *
+     * @param aStartIndices First particle numbers of the matrices
+     * @param aFirstParticles Coordinates of the first particles of the
+     * matrices
+     * @param aLastParticles Coordinates of the last particles of the matrices
+     * @param aBondLength Bond length
+     * @return Typed particle matrices or null if input structure is invalid
+     * @throws IllegalArgumentException Thrown if an argument is null or
+     * lengths of arguments differ
+     */
+    public ParticleMatrix[] getParticleMatrices(int[] aStartIndices, PointInSpace[][] aFirstParticles, PointInSpace[][] aLastParticles, double aBondLength)
+            throws IllegalArgumentException {
+        return this.compiledPSmiles.getParticleMatrices(aStartIndices, aFirstParticles, aLastParticles, aBondLength);
+    }
+
     /**
      * Maximum number of connections (bonds) of a single particle
      *
      * @return Maximum number of connections (bonds) of a single particle
      */
     public int getMaximumNumberOfConnectionsOfSingleParticle() {
-        return this.maximumNumberOfConnectionsOfSingleParticle;
+        return this.compiledPSmiles.getMaximumNumberOfConnectionsOfSingleParticle();
     }
 
     /**
-     * Parts of PSmiles
+     * Parts of PSmiles. NOTE: Parts are shared by the compiled input
+     * structure and must NOT be changed.
      *
      * @return If the structure consists of multiple parts a FSmile of each part
      * is returned, otherwise null is returned.
      */
     public PSmilesInner[] getPartsOfPSmiles() {
-        return this.partOfPSmiles;
+        return this.compiledPSmiles.getPartsOfPSmiles();
     }
 
     /**
@@ -502,7 +594,7 @@ public class PSmiles {
      * @return Number of different particles
      */
     public int getNumberOfDifferentParticles() {
-        return this.getParticleToFrequencyMap().size();
+        return this.compiledPSmiles.getNumberOfDifferentParticles();
     }
 
     /**
@@ -512,12 +604,7 @@ public class PSmiles {
      * @return Frequency of specified particle in molecule
      */
     public int getFrequencyOfSpecifiedParticle(String aParticle) {
-        // <editor-fold defaultstate="collapsed" desc="Checks">
-        if (aParticle == null || !this.getParticleToFrequencyMap().containsKey(aParticle)) {
-            return 0;
-        }
-        // </editor-fold>
-        return this.getParticleToFrequencyMap().get(aParticle).getFrequency();
+        return this.compiledPSmiles.getFrequencyOfSpecifiedParticle(aParticle);
     }
 
     /**
@@ -546,7 +633,7 @@ public class PSmiles {
      * @return True: yes, false: no
      */
     public boolean hasBackboneParticle() {
-        return this.hasBackboneAttribute;
+        return this.compiledPSmiles.hasBackboneParticle();
     }
     
     /**
@@ -556,12 +643,7 @@ public class PSmiles {
      * @return True: Molecule contains particle, false: Otherwise
      */
     public boolean hasParticle(String aParticle) {
-        // <editor-fold defaultstate="collapsed" desc="Checks">
-        if (aParticle == null) {
-            return false;
-        }
-        // </editor-fold>
-        return this.getParticleToFrequencyMap().containsKey(aParticle);
+        return this.compiledPSmiles.hasParticle(aParticle);
     }
 
     /**
@@ -571,7 +653,7 @@ public class PSmiles {
      * 1.
      */
     public boolean hasMultipleParts() {
-        return (this.parts.length > 1);
+        return this.compiledPSmiles.hasMultipleParts();
     }
     
     /**
@@ -580,7 +662,7 @@ public class PSmiles {
      * @return Array with particles of molecule
      */
     public String[] getParticles() {
-        return this.getParticleToFrequencyMap().keySet().toArray(new String[0]);
+        return this.compiledPSmiles.getParticles();
     }
 
     /**
@@ -589,7 +671,7 @@ public class PSmiles {
      * @return Total number of particles of molecule
      */
     public int getTotalNumberOfParticles() {
-        return this.numberOfTotalParticles;
+        return this.compiledPSmiles.getTotalNumberOfParticles();
     }
     // </editor-fold>
     //
@@ -606,52 +688,24 @@ public class PSmiles {
      * up to index (aSegmentLength - 1)
      */
     public String[][] getNextNeighbors(int aSegmentLength, boolean aHasDoublet) {
-        // <editor-fold defaultstate="collapsed" desc="Checks">
-        if (this.outerStructureTokens == null || aSegmentLength < 1) {
-            return null;
-        }
+        return this.compiledPSmiles.getNextNeighbors(aSegmentLength, aHasDoublet);
+    }
 
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Initialisation">
-        String[][] resultString = new String[aSegmentLength][];
-        ArrayDeque<String> tmpInterimResult = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        final ArrayDeque<int[]> tmpArray = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int tmpPartsLength;
-        int tmpSegmentLength = aSegmentLength;
-        boolean tmpHasNeighbors = false;
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Determine neighbor">
-        tmpPartsLength = this.numberOfParts;
-        final LinkedList<int[]>[] tmpLinkList = new LinkedList[tmpPartsLength];
-        for (int i = 0; i < tmpPartsLength; i++) {
-            tmpLinkList[i] = this.partOfPSmiles[i].getNextNeighborIndex(tmpSegmentLength, this.partOfPSmiles[i]);
-        }
-        for (int i = 0; i < tmpSegmentLength; i++) {
-            for (int j = 0; j < tmpPartsLength; j++) {
-                if (!tmpHasNeighbors && tmpLinkList[j].size() > 0) {
-                    tmpHasNeighbors = true;
-                }
-                final int tmpAllowedLinkLength = i + 1;
-                tmpArray.addAll(tmpLinkList[j].stream()
-                        .filter(currentLink -> currentLink.length == tmpAllowedLinkLength)
-                        .collect(Collectors.toList()));
-                if (!tmpArray.isEmpty()) {
-                    tmpInterimResult.addAll((Arrays.asList(this.getParticleList(tmpArray, j, aHasDoublet))));
-                    tmpArray.clear();
-                }
-            }
-            if (tmpInterimResult.isEmpty()) {
-                resultString[i] = null;
-            } else {
-                resultString[i] = tmpInterimResult.toArray(new String[0]);
-            }
-            tmpInterimResult.clear();
-        }
-        if (!tmpHasNeighbors) {
-            return null;
-        }
-        return resultString;
-        // </editor-fold>
+    /**
+     * Determines the frequencies of all next-neighbor segments of the
+     * molecule (see CompiledPSmiles.getNextNeighborFrequencies())
+     *
+     * @param aSegmentLength Length of segment (2: dimer, 3: trimer etc.)
+     * @param aHasDoublet True: Both directions of a segment are counted
+     * separately (e.g. "A-F" and "F-A"), false: Every segment is counted once
+     * in its lexicographically smaller direction
+     * @return Frequencies of segments with all segment lengths until
+     * aSegmentLength: Index 0: Particles, Index 1: Dimers, Index 2: Trimers
+     * etc. up to index (aSegmentLength - 1) or null if molecule has no
+     * particles
+     */
+    public ParticleFrequency[][] getNextNeighborFrequencies(int aSegmentLength, boolean aHasDoublet) {
+        return this.compiledPSmiles.getNextNeighborFrequencies(aSegmentLength, aHasDoublet);
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="- Particle coordinates related methods">
@@ -668,8 +722,7 @@ public class PSmiles {
      * aLastParticleCoordinate null is returned.
      */
     public PointInSpace[][] getParticleCoordinates(PointInSpace aFirstParticleCoordinate, PointInSpace aLastParticleCoordinate, double aBondLength) {
-        return this.getParticleCoordinates(new PointInSpace[]{aFirstParticleCoordinate},
-                                            new PointInSpace[]{aLastParticleCoordinate}, aBondLength);
+        return this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinate, aLastParticleCoordinate, aBondLength);
     }
     
     /**
@@ -684,43 +737,86 @@ public class PSmiles {
      */
     public PointInSpace[][] getParticleCoordinates(PointInSpace[] aFirstParticleCoordinates,
             PointInSpace[] aLastParticleCoordinates, double aBondLength) {
-        // <editor-fold defaultstate="collapsed" desc="Checks">
-        if (this.getInputStructure() == null || this.getInputStructure().isEmpty()) {
-            return null;
-        }
+        return this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength);
+    }
 
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Initialize variables">
-        int tmpPartsCount;
-        int tmpPartLength;
-        int tmpTargetIndexPosition = 0;
-        PointInSpace[][] resultCoordinates = new PointInSpace[aFirstParticleCoordinates.length][];
-        tmpPartsCount = this.partOfPSmiles.length;
-        for (int i = 0; i < aFirstParticleCoordinates.length; i++) {
-            resultCoordinates[i] = new PointInSpace[this.numberOfTotalParticles];
-        }
+    /**
+     * Returns coordinates of particles: Pairs of first and last particle
+     * coordinates are placed in parallel with identical result (see
+     * CompiledPSmiles.getParticleCoordinates())
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength BondLength
+     * @param anExecutorService Executor service for placement tasks
+     * @return Coordinates of the particles (first index is index of molecular
+     * structure, second index is index of particle)
+     * @throws IllegalArgumentException Thrown if anExecutorService is null
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for placement tasks
+     */
+    public PointInSpace[][] getParticleCoordinates(PointInSpace[] aFirstParticleCoordinates,
+            PointInSpace[] aLastParticleCoordinates, double aBondLength, ExecutorService anExecutorService) throws IllegalArgumentException, InterruptedException {
+        return this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, anExecutorService);
+    }
 
-        // </editor-fold>
-        if (this.numberOfTotalParticles == 1) {
-            // <editor-fold defaultstate="collapsed" desc="1 particle only in molecular structure">
-            for (int i = 0; i < aFirstParticleCoordinates.length; i++) {
-                resultCoordinates[i] = new PointInSpace[]{aFirstParticleCoordinates[i]};
-            }
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates into the specified arrays without intermediate
+     * objects (see CompiledPSmiles.getParticleCoordinates())
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @throws IllegalArgumentException Thrown if an argument is invalid
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset) throws IllegalArgumentException {
+        this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, anXCoordinates, aYCoordinates, aZCoordinates, anOffset);
+    }
 
-            // </editor-fold>
-        } else {
-            // <editor-fold defaultstate="collapsed" desc="Several particles in molecular structure">
-            for (int i = 0; i < tmpPartsCount; i++) {
-                tmpPartLength = this.partOfPSmiles[i].getInnerParticles().length;
-                for (int j = 0; j < aFirstParticleCoordinates.length; j++) {
-                    PointInSpace[] tmpInterimResult = this.getCoordinatesOfTokens(this, i, aFirstParticleCoordinates[j], aLastParticleCoordinates[j], aBondLength);
-                    System.arraycopy(tmpInterimResult, 0, resultCoordinates[j], tmpTargetIndexPosition, tmpInterimResult.length);
-                }
-                tmpTargetIndexPosition += tmpPartLength;
-            }
-            // </editor-fold>
-        }
-        return resultCoordinates;
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates in parallel into disjoint slices of the specified
+     * arrays (see CompiledPSmiles.getParticleCoordinates())
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param anXCoordinates X coordinates (output)
+     * @param aYCoordinates Y coordinates (output)
+     * @param aZCoordinates Z coordinates (output)
+     * @param anOffset Index of the first particle in the coordinate arrays
+     * @param anExecutorService Executor service for placement tasks
+     * @throws IllegalArgumentException Thrown if an argument is invalid
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for placement tasks
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            double[] anXCoordinates, double[] aYCoordinates, double[] aZCoordinates, int anOffset, ExecutorService anExecutorService)
+            throws IllegalArgumentException, InterruptedException {
+        this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, anXCoordinates, aYCoordinates, aZCoordinates, anOffset,
+                anExecutorService);
+    }
+
+    /**
+     * Writes the coordinates of the particles of all pairs of first and last
+     * particle coordinates as consecutive x, y, z triples into the specified
+     * buffer (see CompiledPSmiles.getParticleCoordinates())
+     *
+     * @param aFirstParticleCoordinates Coordinates of the first particle
+     * @param aLastParticleCoordinates Coordinates of the last particle
+     * @param aBondLength Bond length
+     * @param aCoordinateBuffer Coordinate buffer (output)
+     * @throws IllegalArgumentException Thrown if an argument is invalid
+     */
+    public void getParticleCoordinates(IPointInSpace[] aFirstParticleCoordinates, IPointInSpace[] aLastParticleCoordinates, double aBondLength,
+            DoubleBuffer aCoordinateBuffer) throws IllegalArgumentException {
+        this.compiledPSmiles.getParticleCoordinates(aFirstParticleCoordinates, aLastParticleCoordinates, aBondLength, aCoordinateBuffer);
     }
 
     /**
@@ -729,17 +825,7 @@ public class PSmiles {
      * @return Monomer names of structure or null if none were found
      */
     public String[] getMonomerList() {
-        HashMap<String, String> tmpMonomersHashMap = new HashMap<>();
-        for (String tmpSingleToken : this.outerStructureTokens) {
-            if (pSmilesUtility.isMonomer(tmpSingleToken) && !tmpMonomersHashMap.containsKey(tmpSingleToken)) {
-                tmpMonomersHashMap.put(tmpSingleToken, tmpSingleToken);
-            }
-        }
-        if (tmpMonomersHashMap.isEmpty()) {
-            return null;
-        } else {
-            return tmpMonomersHashMap.keySet().toArray(new String[0]);
-        }
+        return this.compiledPSmiles.getMonomerList();
     }
 
     // </editor-fold>
@@ -750,7 +836,7 @@ public class PSmiles {
      * @return True: Input structure is valid, false: Otherwise
      */
     public boolean isValid() {
-        return this.isValid;
+        return this.compiledPSmiles.isValid();
     }
 
     /**
@@ -759,7 +845,7 @@ public class PSmiles {
      * @return True: Input structure is a monomer, false: Otherwise
      */
     public boolean isMonomer() {
-        return this.isMonomer;
+        return this.compiledPSmiles.isMonomer();
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="- Miscellaneous methods">
@@ -769,19 +855,7 @@ public class PSmiles {
      * @return Number of particles for display
      */
     public int getNumberOfDisplayParticles() {
-        // <editor-fold defaultstate="collapsed" desc="Checks">
-        if (this.outerStructureTokens == null) {
-            return 0;
-        }
-
-        // </editor-fold>
-        int tmpCounter = 0;
-        for (String tmpSingleStructureToken : this.outerStructureTokens) {
-            if (pSmilesUtility.isParticle(tmpSingleStructureToken)) {
-                tmpCounter++;
-            }
-        }
-        return tmpCounter;
+        return this.compiledPSmiles.getNumberOfDisplayParticles();
     }
     // </editor-fold>
     // </editor-fold>
@@ -804,124 +878,20 @@ public class PSmiles {
             IPointInSpace aFirstParticleCoordinate, 
             IPointInSpace aLastParticleCoordinate,
             double aBondLength) {
-        // <editor-fold defaultstate="collapsed" desc="Local variables">
-        double tmpBondLength = aBondLength;
-        double tmpDistanceOfMainChain;
-        double tmpDeltaXOfChain;
-        double tmpDeltaYOfChain;
-        double tmpDeltaZOfChain;
-        double tmpDeltaXOfBond;
-        double tmpDeltaYOfBond;
-        double tmpDeltaZOfBond;
-        int[] tmpParticleIndices = aPSmilesBase.partOfPSmiles[aPartIndex].getInnerParticleIndices();
-        int[] tmpMainChainIndices = null;
-        int tmpNumberOfParticles = tmpParticleIndices.length;
-        boolean[] tmpHasCalculatedArray = new boolean[tmpNumberOfParticles];
-        PointInSpace[] tmpParticleCoordinates = new PointInSpace[tmpNumberOfParticles];
-        ArrayDeque<Integer> tmpSeedParticleList = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        
-        if (aPSmilesBase.partOfPSmiles[aPartIndex].getStartParticleIndex() == -1) {
-            tmpMainChainIndices = aPSmilesBase.partOfPSmiles[aPartIndex].getHeuristicDiameter();
-        } else {
-            tmpMainChainIndices = aPSmilesBase.partOfPSmiles[aPartIndex].getPathStartToEnd();
-        }
-        int tmpMainChainSize = tmpMainChainIndices.length;
-
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Calculate distance of first particle to last particle">
-        Arrays.fill(tmpHasCalculatedArray, false);
-        tmpDeltaXOfChain = aLastParticleCoordinate.getX() - aFirstParticleCoordinate.getX();
-        tmpDeltaYOfChain = aLastParticleCoordinate.getY() - aFirstParticleCoordinate.getY();
-        tmpDeltaZOfChain = aLastParticleCoordinate.getZ() - aFirstParticleCoordinate.getZ();
-        tmpDistanceOfMainChain = Math.sqrt(tmpDeltaXOfChain * tmpDeltaXOfChain + tmpDeltaYOfChain * tmpDeltaYOfChain + tmpDeltaZOfChain * tmpDeltaZOfChain);
-        int tmpMainChainBondSize = tmpMainChainSize - 1;
-        if (tmpDistanceOfMainChain < tmpMainChainBondSize * tmpBondLength) {
-            tmpDeltaXOfBond = tmpDeltaXOfChain / tmpMainChainBondSize;
-            tmpDeltaYOfBond = tmpDeltaYOfChain / tmpMainChainBondSize;
-            tmpDeltaZOfBond = tmpDeltaZOfChain / tmpMainChainBondSize;
-        } else {
-            tmpDeltaXOfBond = tmpDeltaXOfChain * aBondLength / tmpDistanceOfMainChain;
-            tmpDeltaYOfBond = tmpDeltaYOfChain * aBondLength / tmpDistanceOfMainChain;
-            tmpDeltaZOfBond = tmpDeltaZOfChain * aBondLength / tmpDistanceOfMainChain;
-        }
-
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Determine coordinates of main chain particles">
-        if (aPSmilesBase.partOfPSmiles[aPartIndex].getStartParticleIndex() == -1 && tmpMainChainIndices[0] > tmpMainChainIndices[tmpMainChainSize - 1]) {
-                pSmilesUtility.reverseIntegerArray(tmpMainChainIndices);
-        }
-        // <editor-fold defaultstate="collapsed" desc="- aFirstParticleCoordinate is an instance of PointInSpace">
-        for (int i = 0; i < tmpMainChainSize; i++) {
-            tmpParticleCoordinates[tmpMainChainIndices[i]] = new PointInSpace(
-                    aFirstParticleCoordinate.getX() + (i) * tmpDeltaXOfBond,
-                    aFirstParticleCoordinate.getY() + (i) * tmpDeltaYOfBond, 
-                    aFirstParticleCoordinate.getZ() + (i) * tmpDeltaZOfBond);
-            tmpHasCalculatedArray[tmpMainChainIndices[i]] = true;
-        }
-        // </editor-fold>
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Determine beginning of side chain">
-        for (int i = 0; i < tmpMainChainSize; i++) {
-            for (int tmpItem : aPSmilesBase.partOfPSmiles[aPartIndex].getAdjacentArray()[tmpMainChainIndices[i]]) {
-                if (tmpMainChainIndices[i] == tmpMainChainIndices[i] && !tmpHasCalculatedArray[tmpItem]) {
-                    tmpSeedParticleList.add(tmpItem);
-                    tmpParticleCoordinates[tmpItem] = tmpParticleCoordinates[tmpMainChainIndices[i]];
-                    tmpHasCalculatedArray[tmpItem] = true;
-                }
-            }
-        }
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Determine coordinates of side chain">
-        ArrayDeque<Integer> tmpIndicesOfSideChainParticles = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        for (int tmpSideParticleItem : tmpSeedParticleList) {
-            this.setIndicesOfSideChainParticles(tmpSideParticleItem, tmpIndicesOfSideChainParticles, tmpHasCalculatedArray, aPartIndex);
-            for (int tmpIndexOfNeighborParticlesItem : tmpIndicesOfSideChainParticles) {
-                tmpParticleCoordinates[tmpIndexOfNeighborParticlesItem] = tmpParticleCoordinates[tmpSideParticleItem];
-                tmpHasCalculatedArray[tmpIndexOfNeighborParticlesItem] = true;
-            }
-            tmpIndicesOfSideChainParticles.clear();
-        }
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Determine coordinates of leftover particles">
-        Queue<Integer> tmpHasNotCalculatedList = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int tmpActualParticleIndex ;
-        boolean tmpHasFound;
-        for (int i = 0; i < tmpHasCalculatedArray.length; i++) {
-            if (!tmpHasCalculatedArray[i]) {
-                tmpHasNotCalculatedList.add(i);
-            }
-        }
-        while (!tmpHasNotCalculatedList.isEmpty()) {
-            tmpActualParticleIndex = tmpHasNotCalculatedList.remove();
-            tmpHasFound = false;
-            for (int tmpItem : aPSmilesBase.partOfPSmiles[aPartIndex].getAdjacentArray()[tmpActualParticleIndex]) {
-                if (tmpHasCalculatedArray[tmpItem]) {
-                    tmpParticleCoordinates[tmpActualParticleIndex] = tmpParticleCoordinates[tmpItem];
-                    tmpHasCalculatedArray[tmpActualParticleIndex] = true;
-                    tmpHasFound = true;
-                    break;
-                }
-            }
-            if (!tmpHasFound) {
-                tmpHasNotCalculatedList.add(tmpActualParticleIndex);
-            }
-        }
-        // </editor-fold>
-        return tmpParticleCoordinates;
+        return aPSmilesBase.compiledPSmiles.getCoordinatesOfTokens(aPartIndex, aFirstParticleCoordinate, aLastParticleCoordinate, aBondLength);
     }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Private methods">
-    // <editor-fold defaultstate="collapsed" desc="- Initialize and reset methods">
+    // <editor-fold defaultstate="collapsed" desc="- Initialize methods">
     /**
      * Initialize method
      *
      * @param anInputStructure An input structure
-     * @param aParticleToDescriptionMap Descriptions for the particles
      * @param anIsMonomer True: anInputStructure is a monomer, false: Otherwise
      * (default: false)
      * @param aStartIndex First particle number in the PSmiles matrix (default:
- 1)
+     * 1)
      * @param aFirstParticles Cartesian coordinates of first particles
      * @param aLastParticles Cartesian coordinates of last particles
      * @param aBondLength User defined bond length for all connections between
@@ -930,520 +900,40 @@ public class PSmiles {
      */
     private void initialize(String anInputStructure, boolean anIsMonomer, int aStartIndex, PointInSpace[] aFirstParticles, PointInSpace[] aLastParticles,
             double aBondLength, HashMap<String, String> anAvailableParticles) {
-        // <editor-fold defaultstate="collapsed" desc="Initialisation">
-        String tmpCheckMessage;
-        HashMap<String, PSmilesInner> tmpPartsHashMap = new HashMap<>(PSmilesConstants.DEFAULT_NUMBER_OF_PARTICLES);
-        ArrayDeque<String> tmpStructureTokens = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int tmpTotalParticlesCount = 0;
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Check outer parts">
-        tmpCheckMessage = this.preCheckInputStructure(anInputStructure);
-        if (!tmpCheckMessage.isEmpty()) {
-            this.isValid = false;
-            this.errorMessage = tmpCheckMessage;
-            return;
-        }
-        this.inputStructure = this.pSmilesUtility.eliminateWhiteSpaces(anInputStructure);
-        this.isMonomer = anIsMonomer;
-        tmpCheckMessage = this.checkOuterParts(this.inputStructure);
-        if (!tmpCheckMessage.isEmpty()) {
-            this.isValid = false;
-            this.errorMessage = tmpCheckMessage;
-            return;
-        }
-        this.outerStructureTokens = pSmilesUtility.getStructureTokens(anInputStructure);
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Check inner parts">
-        this.parts = this.partStructures(this.inputStructure);
-        this.partOfPSmiles = new PSmilesInner[this.numberOfParts];
-        for (int i = 0; i < this.numberOfParts; i++) {
-            if (!tmpPartsHashMap.containsKey(this.parts[i])) {
-                this.partOfPSmiles[i] = new PSmilesInner(this.parts[i], anAvailableParticles, anIsMonomer, aStartIndex,
-                        aFirstParticles, aLastParticles, aBondLength);
-            } else {
-                this.partOfPSmiles[i] = tmpPartsHashMap.get(this.parts[i]);
-            }
-            if (this.partOfPSmiles[i].getErrorMessage() != null) {
-                this.isValid = false;
-                this.errorMessage = this.partOfPSmiles[i].getErrorMessage();
-                return;
-            }
-            tmpPartsHashMap.put(this.parts[i], this.partOfPSmiles[i]);
-            tmpTotalParticlesCount += this.partOfPSmiles[i].getInnerParticles().length;
-        }
-        if (this.parts.length == 1) {
-            this.outerStructureTokens = this.partOfPSmiles[0].getInnerStructureTokens();
-        } else {
-            for (int i = 0; i < parts.length; i++) {
-                tmpStructureTokens.addAll(Arrays.asList(this.partOfPSmiles[i].getInnerStructureTokens()));
-            }
-            this.outerStructureTokens = tmpStructureTokens.toArray(new String[0]);
-        }
-        this.isValid = true;
-        this.errorMessage = null;
-        // </editor-fold>
-        this.numberOfTotalParticles = tmpTotalParticlesCount;
-        this.outerParticleIndices = new int[tmpTotalParticlesCount];
-        this.outerBackboneIndices = new int[tmpTotalParticlesCount];
-        this.maxOuterBackboneIndex = -1;
-        this.monomers = this.getMonomerList();
-        this.hasBackboneAttribute = false;
-        this.initializePartsOfPSmilesBase(aStartIndex, aFirstParticles, aLastParticles, aBondLength);
-        int tmpMaxConnectionNumber = this.partOfPSmiles[0].getMaximumNumberOfConnectionsOfSingleParticle();
-        for (int i = 1; i < this.partOfPSmiles.length; i++) {
-            if (tmpMaxConnectionNumber < this.partOfPSmiles[i].getMaximumNumberOfConnectionsOfSingleParticle()) {
-                tmpMaxConnectionNumber = this.partOfPSmiles[i].getMaximumNumberOfConnectionsOfSingleParticle();
-            }
-        }
-        this.maximumNumberOfConnectionsOfSingleParticle = tmpMaxConnectionNumber;
-    }
-
-    /**
-     * Initialize method for structures with sub structures
-     */
-    private void initializePartsOfPSmilesBase(int aStartIndex, 
-            PointInSpace[] aFirstParticles, PointInSpace[] aLastParticles, double aBondLength) {
-        // <editor-fold defaultstate="collapsed" desc="Initialisation">
-        int tmpPartsCount = this.parts.length;
-        int tmpSourceIndex = 0;
-        int tmpTargetIndex = 0;
-        int tmpMatrixDimension = 0;
-        int tmpIndex = 0;
-        int tmpFirstParticlesPosition;
-        String[][][] tmpParticlePositionsAndConnections = new String[tmpPartsCount][][];
-
-        // </editor-fold>
-        if (aFirstParticles == null) {
-            for (int i = 0; i < tmpPartsCount; i++) {
-                tmpParticlePositionsAndConnections[i] = this.getParticlePositionsAndConnections(i, aStartIndex);
-            }
-        } else{
-            for (int i = 0; i < tmpPartsCount; i++) {
-                tmpParticlePositionsAndConnections[i] = this.getParticlePositionsAndConnections(i, aStartIndex, aFirstParticles, aLastParticles, aBondLength);
-            }
-        }
-        tmpFirstParticlesPosition =  tmpParticlePositionsAndConnections[0].length / this.partOfPSmiles[0].getInnerParticles().length;
-        this.numberOfConnects = new int[this.numberOfTotalParticles];
-        for (int i = 0; i < tmpPartsCount; i++) {
-            System.arraycopy(this.partOfPSmiles[i].getNumberOfConnects(), 0, this.numberOfConnects, tmpTargetIndex, this.partOfPSmiles[i].getNumberOfConnects().length);
-            tmpTargetIndex += this.partOfPSmiles[i].getInnerParticles().length;
-        }
-        for (int i = 0; i < tmpPartsCount; i++) {
-            if (this.partOfPSmiles[i].hasBackboneAttribute()) {
-                this.hasBackboneAttribute = true;
-                break;
-            }
-        }
-        tmpTargetIndex = 0;
-        int tmpTotalParticlePositions = this.numberOfTotalParticles * tmpFirstParticlesPosition;
-        this.particlePositionsAndConnections = new String[tmpTotalParticlePositions][];
-        for (int i = 0; i < tmpFirstParticlesPosition; i++) {
-            for (int j = 0; j < this.numberOfTotalParticles; j++) {
-                tmpMatrixDimension = this.numberOfConnects[j] + 6;
-                this.particlePositionsAndConnections[tmpIndex] = new String[tmpMatrixDimension];
-                tmpIndex++;
-            }
-        }
-        for (int i = 0; i < tmpPartsCount; i++) {
-            System.arraycopy(this.partOfPSmiles[i].getInnerParticleIndices(), 0, this.outerParticleIndices, tmpTargetIndex, this.partOfPSmiles[i].getInnerParticleIndices().length);
-            System.arraycopy(this.partOfPSmiles[i].getInnerBackboneIndices(), 0, this.outerBackboneIndices, tmpTargetIndex, this.partOfPSmiles[i].getInnerBackboneIndices().length);
-            tmpTargetIndex += this.partOfPSmiles[i].getInnerParticles().length;
-        }
-        this.maxOuterBackboneIndex = -1;
-        tmpTargetIndex = 0;
-        for (int i = 0; i < tmpFirstParticlesPosition; i++) {
-            for (int j = 0; j < tmpPartsCount; j++) {
-                for (int k = 0; k < this.partOfPSmiles[j].getInnerParticles().length; k++) {
-                    tmpSourceIndex = i * this.partOfPSmiles[j].getInnerParticles().length + k;
-                    System.arraycopy(tmpParticlePositionsAndConnections[j][tmpSourceIndex], 0, this.particlePositionsAndConnections[tmpTargetIndex], 0,
-                            tmpParticlePositionsAndConnections[j][tmpSourceIndex].length);
-                    tmpTargetIndex++;
-                }
-            }
-        }
-
-        // Reset number of particles in pSmilesMatrix
-        int tmpParticleIndex = 0;
-        for (int i = 0; i < tmpFirstParticlesPosition; i++) {
-            for (int j = 0; j < this.numberOfTotalParticles; j++) {
-                this.particlePositionsAndConnections[tmpParticleIndex][0] = Integer.toString(tmpParticleIndex + aStartIndex);
-                tmpParticleIndex++;
-            }
-        }
-    }
-
-    /**
-     * Reset property method
-     */
-    private void resetProperty() {
-        this.errorMessage = null;
-        this.inputStructure = null;
-        this.particleToFrequencyMap = null;
-        this.outerStructureTokens = null;
-        this.outerParticleIndices = null;
-        this.monomers = null;
-        this.particlePositionsAndConnections = null;
-        this.isValid = false;
-        this.isMonomer = false;
-        this.maximumNumberOfConnectionsOfSingleParticle = 0;
-        this.numberOfParts = 0;
-        this.numberOfTotalParticles = 0;
-        this.hasParts = false;
-        this.partOfPSmiles = null;
-    }
-
-    // </editor-fold>
-    //
-    // <editor-fold defaultstate="collapsed" desc="- Structure check related methods">
-    
-    /**
-     * precheck methode for inputStructure
-     * @param aStructure Molecular structure
-     * @return Error message or ""
-     */
-    private String preCheckInputStructure (String aStructure) {
-        if (aStructure == null || aStructure.isEmpty()) {
-            return "";
-        }
-        if (aStructure.length() < 3) {
-            return "";
-        }
-        char[] tmpStructureCharArray = aStructure.toCharArray();
-        for (int i = 1; i < tmpStructureCharArray.length - 1; i++) {
-            if (Character.isWhitespace(tmpStructureCharArray[i])) {
-                if (Character.isLetterOrDigit(tmpStructureCharArray[i - 1]) && Character.isLetterOrDigit(tmpStructureCharArray[i + 1])) {
-                    return MessagePSmiles.getString("StructureCheck.InvalidWhiteSpace");
-                }
-            }
-        }
-        return "";
-    }
-    
-    /**
-     * Checks the outer parts of the input structure
-     *
-     * @return Error message or null
-     */
-    private String checkOuterParts(String aInputStructure) {
-        // <editor-fold defaultstate="collapsed" desc="Simple check">
-        if (aInputStructure == null || aInputStructure.isEmpty()) {
-            return MessagePSmiles.getString("StructureCheck.NoTokens");
-        }
-
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Initial settings">
-        int tmpNumberOfOpeningAngleBrackets = pSmilesUtility.getFrequencyOfCharacterInString(this.inputStructure, "<");
-        int tmpNumberOfClosingAngleBrackets = pSmilesUtility.getFrequencyOfCharacterInString(this.inputStructure, ">");
-        int tmpIndexOfOpeningAngleBracket = 0;
-        int tmpIndexOfClosingAngleBracket = -1;
-        int tmpIndexOfLastClosingAnbleBracket;
-        boolean tmpIsOddNumbersOfDelimiter;
-        boolean tmpHasAngleBracket = tmpNumberOfOpeningAngleBrackets + tmpNumberOfClosingAngleBrackets > 0;
-        char[] tmpInputStructure = aInputStructure.toCharArray();
-
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="Checks number of angle brackets">
-        if (tmpHasAngleBracket) {
-            tmpIsOddNumbersOfDelimiter = false;
-            for (int i = 0; i < tmpInputStructure.length; i++) {
-                if (tmpInputStructure[i] == '<') {
-                    if (tmpIsOddNumbersOfDelimiter) {
-                        return MessagePSmiles.getString("StructureCheck.MissingClosingAngleBracket");
-                    } else {
-                        tmpIsOddNumbersOfDelimiter = true;
-                    }
-                } else if (tmpInputStructure[i] == '>') {
-                    if (tmpIsOddNumbersOfDelimiter) {
-                        tmpIsOddNumbersOfDelimiter = false;
-                    } else {
-                        return MessagePSmiles.getString("StructureCheck.MissingOpeningAngleBracket");
-                    }
-                }
-            }
-            if (tmpIsOddNumbersOfDelimiter) {
-                return MessagePSmiles.getString("StructureCheck.MissingClosingAngleBracket");
-            }
-            // Checks whether an empty angle bracket exists
-            if (this.inputStructure.contains("<>")) {
-                return MessagePSmiles.getString("StructureCheck.EmptyAngleBrackets");
-            }
-            // Checks whether an character, except numbers and whitespaces, outside bracket exists
-            for (int i = 0; i < tmpInputStructure.length; i++) {
-                tmpIndexOfOpeningAngleBracket = this.inputStructure.indexOf("<", tmpIndexOfClosingAngleBracket + 1);
-                if (tmpIndexOfOpeningAngleBracket == -1) {
-                    break;
-                }
-                if (tmpIndexOfOpeningAngleBracket > tmpIndexOfClosingAngleBracket + 1) {
-                    for (int j = tmpIndexOfClosingAngleBracket + 1; j < tmpIndexOfOpeningAngleBracket; j++) {
-                        if (!Character.isDigit(tmpInputStructure[j])) {
-                            return MessagePSmiles.getString("StructureCheck.InvalidCharacterPriorAngularBracket");
-                        }
-                    }
-                }
-                tmpIndexOfClosingAngleBracket = this.inputStructure.indexOf(">", tmpIndexOfOpeningAngleBracket + 1);
-            }
-            tmpIndexOfLastClosingAnbleBracket = this.inputStructure.lastIndexOf(">");
-            if (tmpIndexOfLastClosingAnbleBracket + 1 < tmpInputStructure.length) {
-                return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterAngleClosingBracket");
-            }
-        }
-        // </editor-fold>
-
-        return "";
-    }
-
-    /**
-     * Checks whether there is disconnected structure in the input structure,
-     * set hasDisconnectedStructure flag and find the disconnectedstrucutres
-     *
-     * @param aSubStrucutre Molecular substrucuture
-     * @return Disconnected Substructure
-     */
-    private String[] partStructures(String aStructure) {
-        if (aStructure == null || aStructure.isEmpty()) {
-            return null;
-        }
-
-        int tmpStructureLength = aStructure.length();
-        int tmpStartPosition = 0;
-        int tmpEndPosition = -1;
-        int tmpPartFrequency = 0;
-        ArrayDeque<String> tmpPartStructure = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        String tmpSubstring;
-        //String[] tmpResultString;
-
-        if (pSmilesUtility.hasPart(aStructure)) {
-            this.hasParts = true;
-            for (int i = 0; i < tmpStructureLength; i++) {
-                tmpStartPosition = aStructure.indexOf("<", tmpStartPosition);
-                if (tmpStartPosition - tmpEndPosition > 1) {
-                    tmpPartFrequency = Integer.parseInt(aStructure.substring(tmpEndPosition + 1, tmpStartPosition));
-                } else {
-                    tmpPartFrequency = 1;
-                }
-                tmpEndPosition = aStructure.indexOf(">", tmpStartPosition);
-                tmpSubstring = aStructure.substring(tmpStartPosition + 1, tmpEndPosition);
-                for (int j = 0; j < tmpPartFrequency; j++) {
-                    tmpPartStructure.add(tmpSubstring);
-                }
-                tmpStartPosition = tmpEndPosition + 1;
-                i = tmpStartPosition;
-            }
+        CompiledPSmiles tmpCompiledPSmiles;
+        if (anInputStructure != null && !anIsMonomer && anAvailableParticles != null && anAvailableParticles.isEmpty()) {
+            // Compiled input structure is shared with other PSmiles objects (see PSmilesUtility.getCompiledPSmiles())
+            tmpCompiledPSmiles = PSmilesUtility.getCompiledPSmiles(anInputStructure, this.parserEngine, null);
         } else {
-            this.hasParts = false;
-            this.numberOfParts = 1;
-            return new String[] {aStructure};
+            tmpCompiledPSmiles = new CompiledPSmiles(anInputStructure, anAvailableParticles, anIsMonomer, this.parserEngine);
         }
-        this.numberOfParts = tmpPartStructure.size();
-        return tmpPartStructure.toArray(new String[0]);
+        this.initializeView(tmpCompiledPSmiles, aStartIndex, aFirstParticles, aLastParticles, aBondLength);
     }
 
-    // </editor-fold>
-    //
-    // <editor-fold defaultstate="collapsed" desc="- Token related methods">
     /**
-     * Determine the particle list and delete all duplicate
+     * Initializes this PSmiles object as a view on a compiled input structure
      *
-     * @param aChain List of chains (a chain is built out of particles and
-     * links)
-     * @param aPartIndex Partindexnumber
-     * @param aHasDoublet Whether doublet should be considered or not (e.g. if
-     * true "A-F" and "F-A" will be returned instead one of both)
-     * @return list of particle list without duplicates
-     */
-    private String[] getParticleList(ArrayDeque<int[]> aChain, int aPartIndex, boolean aHasDoublet) {
-        if (aChain == null || aChain.isEmpty()) {
-            return null;
-        }
-        int tmpChainSize = aChain.size();
-        int tmpNumberOfParticles = aChain.getFirst().length;
-        int[] tmpHelpingArray = new int[tmpChainSize];
-        int[][] tmpParticleArray = aChain.toArray(new int[0][]);
-        HashSet<String> tmpOutputParticleHashSet = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-        String tmpCandidate;
-
-        for (int i = 0; i < tmpChainSize; i++) {
-            tmpCandidate = "";
-            tmpHelpingArray = tmpParticleArray[i].clone();
-            // reverse the array if first Token is lexically bigger then the
-            // last Token and delete all duplicates
-            if (!aHasDoublet) {
-                if (this.hasParts) {
-                    if (this.partOfPSmiles[aPartIndex].getInnerStructureTokens()[this.partOfPSmiles[aPartIndex].getInnerParticleIndices()[tmpHelpingArray[0]]]
-                            .compareTo(this.outerStructureTokens[this.outerParticleIndices[tmpHelpingArray[tmpNumberOfParticles - 1]]]) > 0) {
-                        pSmilesUtility.reverseIntegerArray(tmpHelpingArray);
-                    }
-                } else {
-                    if (this.outerStructureTokens[this.outerParticleIndices[tmpHelpingArray[0]]]
-                            .compareTo(this.outerStructureTokens[this.outerParticleIndices[tmpHelpingArray[tmpNumberOfParticles - 1]]]) > 0) {
-                        pSmilesUtility.reverseIntegerArray(tmpHelpingArray);
-                    }
-                }
-            }
-            for (int j = 0; j < tmpNumberOfParticles; j++) {
-                if (this.hasParts) {
-                    if (j < tmpNumberOfParticles - 1) {
-                        tmpCandidate += this.partOfPSmiles[aPartIndex].getInnerStructureTokens()[this.partOfPSmiles[aPartIndex].getInnerParticleIndices()[tmpHelpingArray[j]]] + PSmilesConstants.PARTICLE_SEPARATOR;
-                    } else {
-                        tmpCandidate += this.partOfPSmiles[aPartIndex].getInnerStructureTokens()[this.partOfPSmiles[aPartIndex].getInnerParticleIndices()[tmpHelpingArray[j]]];
-                    }
-                } else {
-                    if (j < tmpNumberOfParticles - 1) {
-                        tmpCandidate += this.outerStructureTokens[this.outerParticleIndices[tmpHelpingArray[j]]] + PSmilesConstants.PARTICLE_SEPARATOR;
-                    } else {
-                        tmpCandidate += this.outerStructureTokens[this.outerParticleIndices[tmpHelpingArray[j]]];
-                    }
-                }
-            }
-            if (!(tmpOutputParticleHashSet.contains(tmpCandidate))) {
-                tmpOutputParticleHashSet.add(tmpCandidate);
-            }
-        }
-        return tmpOutputParticleHashSet.toArray(new String[0]);
-    }
-
-    // </editor-fold>
-    //
-    // <editor-fold defaultstate="collapsed" desc="- getParticleCoordinates">
-    /**
-     * Determine all indices of side chain particles
-     * 
-     * @param anActualParticleIndex The particle index of observed particle
-     * @param aHasCalculatedArray Flag information of whether a particle has
-     * been calculated or not
-     * @param aPartIndex  Part index (-1 if the particle has only one part)
-     * @return Indices of side chain particles as hashset
-     */    
-    private void setIndicesOfSideChainParticles(int anActualParticleIndex, ArrayDeque<Integer> anIndicesOfSideChainParticles, boolean[] aHasCalculatedArray, int aPartIndex) {
-        ArrayDeque<Integer> tmpIndicesOfSideChainParticles = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        Queue<Integer> tmpIndexOfParticlesInQueue = new ArrayDeque<>();
-        boolean tmpNoParticles = false;
-        do {
-            for (int tmpItem : this.partOfPSmiles[aPartIndex].getAdjacentArray()[anActualParticleIndex]) {
-                if (!aHasCalculatedArray[tmpItem]) {
-                    tmpIndicesOfSideChainParticles.add(tmpItem);
-                    aHasCalculatedArray[tmpItem] = true;
-                }
-            }
-            if (!tmpIndicesOfSideChainParticles.isEmpty()) {
-                tmpIndexOfParticlesInQueue.addAll(tmpIndicesOfSideChainParticles);
-                tmpIndicesOfSideChainParticles.clear();
-            }
-            if (!tmpIndexOfParticlesInQueue.isEmpty()) {
-                anActualParticleIndex = tmpIndexOfParticlesInQueue.remove();
-                anIndicesOfSideChainParticles.add(anActualParticleIndex);
-            } else {
-                tmpNoParticles = true;
-            }
-                
-        } while (!tmpIndexOfParticlesInQueue.isEmpty() || !tmpNoParticles);
-    }
-   
-    /**
-     * Generate a matrix with coordinates and connection information of the
+     * @param aCompiledPSmiles Compiled input structure
+     * @param aStartIndex First particle number in the PSmiles matrix
+     * @param aFirstParticles Cartesian coordinates of first particles
+     * @param aLastParticles Cartesian coordinates of last particles
+     * @param aBondLength User defined bond length for all connections between
      * particles
-     *
-     * @param aPart: A part of FSmile
-     * @param aStartIndex The index number of the first particle
-     * @return Matrix with connection information of the particles
      */
-    private String[][] getParticlePositionsAndConnections(int aPartIndex, int aStartIndex) {
-        return this.getParticlePositionsAndConnections(aPartIndex, aStartIndex, new PointInSpace[]{null}, new PointInSpace[]{null}, 1);
+    private void initializeView(CompiledPSmiles aCompiledPSmiles, int aStartIndex, PointInSpace[] aFirstParticles, PointInSpace[] aLastParticles,
+            double aBondLength) {
+        this.compiledPSmiles = aCompiledPSmiles;
+        this.particleToFrequencyMap = null;
+        // Particle matrix is determined on demand
+        this.particlePositionsAndConnections = null;
+        this.particleMatrix = null;
+        this.previousParticleMatrix = null;
+        this.startIndex = aStartIndex;
+        this.firstParticles = aFirstParticles == null ? null : aFirstParticles.clone();
+        this.lastParticles = aLastParticles == null ? null : aLastParticles.clone();
+        this.bondLength = aBondLength;
     }
 
-    /**
-     * Generate a matrix with coordinates and connection information of the
-     * particles
-     *
-     * @param aPart: A part of FSmile
-     * @param aStartIndex The index number of the first particle
-     * @param aFirstParticleCoordinates Coordinates of the first particle
-     * @param aLastParticleCoordinates Coordinates of the last particle
-     * @param aBondLength BondLength
-     * @return Matrix with connection and coordination information of the
-     * particles
-     */
-    private String[][] getParticlePositionsAndConnections(int aPartIndex, int aStartIndex, PointInSpace[] aFirstParticleCoordinates, PointInSpace[] aLastParticleCoordinates, double aBondLength) {
-        // <editor-fold defaultstate="collapsed" desc="Local variables">
-        int tmpNumberOfParticles = this.partOfPSmiles[aPartIndex].getInnerParticleIndices().length;
-        int tmpParticleCoordinateSize = aFirstParticleCoordinates.length;
-        int tmpCurrentStructureTokenIndex = 0;
-        IPointInSpace[] tmpParticleCoordinates;
-        LinkedList<Integer> tmpLinkTargetList = new LinkedList<>();
-        String[][] tmpResultStrings = new String[tmpNumberOfParticles * tmpParticleCoordinateSize][];
-
-        // </editor-fold>
-        int[] tmpNeighborParticleSizes = this.partOfPSmiles[aPartIndex].getNumberOfConnects();
-        // Initialize aPart.maximumNumberOfConnectionsOfSingleParticle
-        this.partOfPSmiles[aPartIndex].setMaximumNumberOfConnectionsOfSingleParticle(0);
-        int tmpRow = 0;
-        int k;
-        // New format with relative connections:
-        // int tmpRows = 0;
-        for (int i = 0; i < tmpParticleCoordinateSize; i++) {
-            if (aFirstParticleCoordinates[0] != null) {
-                if (tmpNumberOfParticles == 1) {
-
-                    // <editor-fold defaultstate="collapsed" desc="1 particle only in molecular structure">
-                    tmpParticleCoordinates = new PointInSpace[]{aFirstParticleCoordinates[i]};
-
-                    // </editor-fold>
-                } else {
-
-                    // <editor-fold defaultstate="collapsed" desc="Several particles in molecular structure">
-                    tmpParticleCoordinates = this.getCoordinatesOfTokens(this, aPartIndex, aFirstParticleCoordinates[i], aLastParticleCoordinates[i], aBondLength);
-
-                    // </editor-fold>
-                }
-            } else {
-                tmpParticleCoordinates = null;
-            }
-            for (int j = 0; j < tmpNumberOfParticles; j++) {
-                tmpResultStrings[tmpRow] = new String[6 + tmpNeighborParticleSizes[j]];
-                // 1. column: Number of the particle (1-based)
-                tmpResultStrings[tmpRow][0] = Integer.toString(aStartIndex + tmpRow);
-                // 2. column: Name of the particle
-                tmpCurrentStructureTokenIndex = this.partOfPSmiles[aPartIndex].getInnerParticleIndices()[j];
-                tmpResultStrings[tmpRow][1] = this.partOfPSmiles[aPartIndex].getInnerStructureTokens()[tmpCurrentStructureTokenIndex];
-                // 3. column: Backbone index
-                tmpResultStrings[tmpRow][2] = Integer.toString(this.partOfPSmiles[aPartIndex].getBackboneIndices()[j]);
-                // 4-6. columns: xyz-Coordinate of the particle (if not
-                // specified it will empty)
-                tmpResultStrings[tmpRow][3] = "";
-                tmpResultStrings[tmpRow][4] = "";
-                tmpResultStrings[tmpRow][5] = "";
-                if (aFirstParticleCoordinates[0] != null) {
-                    tmpResultStrings[tmpRow][3] += tmpParticleCoordinates[j].getX();
-                    tmpResultStrings[tmpRow][4] += tmpParticleCoordinates[j].getY();
-                    tmpResultStrings[tmpRow][5] += tmpParticleCoordinates[j].getZ();
-                }
-                // >5.column: Particle number(s) which connected with aPart
-                // particle
-                if (this.partOfPSmiles[aPartIndex].getAdjacentArray() != null) {
-                    for (int tmpItem : this.partOfPSmiles[aPartIndex].getAdjacentArray()[j]) {
-                        tmpLinkTargetList.add(tmpItem);
-                    }
-                }
-                // Set aPart.maximumNumberOfConnectionsOfSingleParticle
-                if (tmpLinkTargetList.size() > this.partOfPSmiles[aPartIndex].getMaximumNumberOfConnectionsOfSingleParticle()) {
-                    this.partOfPSmiles[aPartIndex].setMaximumNumberOfConnectionsOfSingleParticle(tmpLinkTargetList.size());
-                }
-                Collections.sort(tmpLinkTargetList);
-                Iterator<Integer> tmpIterator = tmpLinkTargetList.iterator();
-                k = 6;
-                while (tmpIterator.hasNext()) {
-                    // New format with relative connections:
-                    tmpResultStrings[tmpRow][k] = Integer.toString(tmpIterator.next() - j);
-                    tmpIterator.remove();
-                    k++;
-                }
-                tmpRow++;
-            }
-            // New format with relative connections:
-            // tmpRows = tmpRow;
-        }
-        return tmpResultStrings;
-    }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="- Particle frequency related methods">
@@ -1454,14 +944,8 @@ public class PSmiles {
      */
     private void determineParticleFequenciesOfMolecularStructure() {
         HashMap<String, ParticleFrequency> tmpParticleToFrequencyMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-        for (PSmilesInner partOfFSmile : this.partOfPSmiles) {
-            for (String innerParticle : partOfFSmile.getInnerParticles()) {
-                if (tmpParticleToFrequencyMap.containsKey(innerParticle)) {
-                    tmpParticleToFrequencyMap.get(innerParticle).addFrequency(1);
-                } else {
-                    tmpParticleToFrequencyMap.put(innerParticle, new ParticleFrequency(innerParticle, 1));
-                }
-            }
+        for (String tmpParticle : this.compiledPSmiles.getParticles()) {
+            tmpParticleToFrequencyMap.put(tmpParticle, new ParticleFrequency(tmpParticle, this.compiledPSmiles.getFrequencyOfSpecifiedParticle(tmpParticle)));
         }
         this.particleToFrequencyMap = tmpParticleToFrequencyMap;
     }
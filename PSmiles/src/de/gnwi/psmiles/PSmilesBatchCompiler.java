@@ -0,0 +1,247 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many input structures in parallel. Results are returned in input
+ * order. Repeated input structures are compiled only once: Distinct
+ * structures of a batch are determined first and compiled structures are
+ * shared through the process-wide cache of PSmilesUtility.
+ *
+ * @author Achim Zielesny
+ */
+public final class PSmilesBatchCompiler {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Executor service for compilation tasks
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * Parser engine
+     */
+    private final PSmilesConstants.ParserEngine parserEngine;
+
+    /**
+     * Number of threads that compile concurrently
+     */
+    private final int parallelism;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor with common ForkJoinPool and default parser engine
+     */
+    public PSmilesBatchCompiler() {
+        this(ForkJoinPool.commonPool(), PSmilesConstants.DEFAULT_PARSER_ENGINE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param anExecutorService Executor service for compilation tasks (e.g. a
+     * ForkJoinPool or an executor with virtual threads)
+     * @param aParserEngine Parser engine
+     * @throws IllegalArgumentException Thrown if an argument is null
+     */
+    public PSmilesBatchCompiler(ExecutorService anExecutorService, PSmilesConstants.ParserEngine aParserEngine) throws IllegalArgumentException {
+        if (anExecutorService == null) {
+            throw new IllegalArgumentException("PSmilesBatchCompiler.Constructor: anExecutorService is null.");
+        }
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("PSmilesBatchCompiler.Constructor: aParserEngine is null.");
+        }
+        this.executorService = anExecutorService;
+        this.parserEngine = aParserEngine;
+        if (anExecutorService instanceof ForkJoinPool) {
+            this.parallelism = ((ForkJoinPool) anExecutorService).getParallelism();
+        } else {
+            this.parallelism = Runtime.getRuntime().availableProcessors();
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Parser engine
+     *
+     * @return Parser engine
+     */
+    public PSmilesConstants.ParserEngine getParserEngine() {
+        return this.parserEngine;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Compiles a single input structure or returns the cached compiled
+     * structure
+     *
+     * @param anInputStructure Input structure
+     * @return Compiled input structure (may be invalid)
+     */
+    public CompiledPSmiles compile(String anInputStructure) {
+        if (anInputStructure == null) {
+            return new CompiledPSmiles(null, this.parserEngine);
+        }
+        return PSmilesUtility.getCompiledPSmiles(anInputStructure, this.parserEngine, null);
+    }
+
+    /**
+     * Compiles input structures in parallel
+     *
+     * @param anInputStructures Input structures
+     * @return Compiled input structures in order of anInputStructures
+     * @throws IllegalArgumentException Thrown if anInputStructures is null
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for compilation tasks
+     */
+    public CompiledPSmiles[] compile(List<String> anInputStructures) throws IllegalArgumentException, InterruptedException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (anInputStructures == null) {
+            throw new IllegalArgumentException("PSmilesBatchCompiler.compile: anInputStructures is null.");
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Determine distinct input structures">
+        HashMap<String, Integer> tmpInputStructureToIndexMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        ArrayList<String> tmpDistinctInputStructures = new ArrayList<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        int[] tmpDistinctIndices = new int[anInputStructures.size()];
+        int tmpIndex = 0;
+        for (String tmpInputStructure : anInputStructures) {
+            Integer tmpDistinctIndex = tmpInputStructureToIndexMap.get(tmpInputStructure);
+            if (tmpDistinctIndex == null) {
+                tmpDistinctIndex = tmpDistinctInputStructures.size();
+                tmpInputStructureToIndexMap.put(tmpInputStructure, tmpDistinctIndex);
+                tmpDistinctInputStructures.add(tmpInputStructure);
+            }
+            tmpDistinctIndices[tmpIndex++] = tmpDistinctIndex;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Compile distinct input structures">
+        CompiledPSmiles[] tmpDistinctResults = new CompiledPSmiles[tmpDistinctInputStructures.size()];
+        int tmpTaskSize = Math.max(PSmilesConstants.DEFAULT_BATCH_MINIMUM_TASK_SIZE, tmpDistinctResults.length / (4 * this.parallelism) + 1);
+        if (tmpDistinctResults.length <= tmpTaskSize) {
+            this.compile(tmpDistinctInputStructures, tmpDistinctResults, 0, tmpDistinctResults.length);
+        } else {
+            ArrayList<Callable<Void>> tmpTasks = new ArrayList<>(tmpDistinctResults.length / tmpTaskSize + 1);
+            for (int i = 0; i < tmpDistinctResults.length; i += tmpTaskSize) {
+                final int tmpFromIndex = i;
+                final int tmpToIndex = Math.min(i + tmpTaskSize, tmpDistinctResults.length);
+                tmpTasks.add(() -> {
+                    this.compile(tmpDistinctInputStructures, tmpDistinctResults, tmpFromIndex, tmpToIndex);
+                    return null;
+                });
+            }
+            for (Future<Void> tmpFuture : this.executorService.invokeAll(tmpTasks)) {
+                try {
+                    tmpFuture.get();
+                } catch (ExecutionException anException) {
+                    if (anException.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) anException.getCause();
+                    }
+                    if (anException.getCause() instanceof Error) {
+                        throw (Error) anException.getCause();
+                    }
+                    throw new IllegalStateException(anException.getCause());
+                }
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Results in input order">
+        CompiledPSmiles[] tmpResults = new CompiledPSmiles[tmpDistinctIndices.length];
+        for (int i = 0; i < tmpDistinctIndices.length; i++) {
+            tmpResults[i] = tmpDistinctResults[tmpDistinctIndices[i]];
+        }
+        return tmpResults;
+        // </editor-fold>
+    }
+
+    /**
+     * Compiles input structures in parallel
+     *
+     * @param anInputStructures Input structures
+     * @return Compiled input structures in order of anInputStructures
+     * @throws IllegalArgumentException Thrown if anInputStructures is null
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for compilation tasks
+     */
+    public CompiledPSmiles[] compile(Stream<String> anInputStructures) throws IllegalArgumentException, InterruptedException {
+        if (anInputStructures == null) {
+            throw new IllegalArgumentException("PSmilesBatchCompiler.compile: anInputStructures is null.");
+        }
+        return this.compile(anInputStructures.collect(Collectors.toList()));
+    }
+
+    /**
+     * Compiles the input structures of a text file (one input structure per
+     * line, UTF-8) in parallel
+     *
+     * @param aFilePath File path
+     * @return Compiled input structures in order of lines
+     * @throws IllegalArgumentException Thrown if aFilePath is null
+     * @throws IOException Thrown if file can not be read
+     * @throws InterruptedException Thrown if the current thread was
+     * interrupted while waiting for compilation tasks
+     */
+    public CompiledPSmiles[] compile(Path aFilePath) throws IllegalArgumentException, IOException, InterruptedException {
+        if (aFilePath == null) {
+            throw new IllegalArgumentException("PSmilesBatchCompiler.compile: aFilePath is null.");
+        }
+        return this.compile(Files.readAllLines(aFilePath, StandardCharsets.UTF_8));
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Compiles a range of input structures
+     *
+     * @param anInputStructures Input structures
+     * @param aResults Results (compiled input structure is set at index of
+     * input structure)
+     * @param aFromIndex First index (inclusive)
+     * @param aToIndex Last index (exclusive)
+     */
+    private void compile(List<String> anInputStructures, CompiledPSmiles[] aResults, int aFromIndex, int aToIndex) {
+        for (int i = aFromIndex; i < aToIndex; i++) {
+            aResults[i] = this.compile(anInputStructures.get(i));
+        }
+    }
+    // </editor-fold>
+
+}
@@ -19,6 +19,7 @@
  */
 package de.gnwi.psmiles;
 
+import java.util.HashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -28,6 +29,453 @@ import java.util.regex.Pattern;
  */
 public final class PSmilesConstants {
 
+    /**
+     * Parser engines for input structures
+     */
+    public enum ParserEngine {
+
+        /**
+         * Token pipeline: Check, tokenization, compilation and bond
+         * detection of parts in successive passes (see PSmilesInner)
+         */
+        TOKEN_PIPELINE,
+        /**
+         * Single left-to-right pass over the input structure (see
+         * PSmilesParser)
+         */
+        SINGLE_PASS
+
+    }
+
+    /**
+     * Error codes of input structure checks (see PSmilesParser). The message
+     * of an error code is not resolved before getMessage() is called.
+     */
+    public enum ErrorCode {
+
+        /**
+         * Backbone index in monomer found.
+         */
+        BACKBONE_INDEX_IN_MONOMER("StructureCheck.BackboneIndexInMonomer"),
+        /**
+         * Forbidden empty part "&lt;&gt;".
+         */
+        EMPTY_ANGLE_BRACKETS("StructureCheck.EmptyAngleBrackets"),
+        /**
+         * Forbidden empty monomer "{}".
+         */
+        EMPTY_CURLY_BRACKETS("StructureCheck.EmptyCurlyBrackets"),
+        /**
+         * Forbidden empty branch "()".
+         */
+        EMPTY_NORMAL_BRACKETS("StructureCheck.EmptyNormalBrackets"),
+        /**
+         * Forbidden [END] attribute in monomer.
+         */
+        END_ATTRIBUTE_IN_MONOMER("StructureCheck.EndAttributeInMonomer"),
+        /**
+         * Forbidden backbone index format.
+         */
+        ILLEGAL_BACKBONE_INDEX_FORMAT("StructureCheck.IllegalBackboneIndexFormat"),
+        /**
+         * Forbidden frequency of particle.
+         */
+        ILLEGAL_FREQUENCY("StructureCheck.IllegalFrequency"),
+        /**
+         * [HEAD] or [TAIL] attribute used outside of monomer brackets.
+         */
+        ILLEGAL_USING_OF_HEAD_OR_TAIL("StructureCheck.IllegalUsingOfHeadOrTail"),
+        /**
+         * Forbidden sequence of branch-open brackets '('.
+         */
+        IN_SERIES_OF_NORMAL_OPENING_BRACKETS("StructureCheck.InSeriesOfNormalOpeningBrackets"),
+        /**
+         * Structure contains invalid character.
+         */
+        INVALID_CHARACTER("StructureCheck.InvalidCharacter"),
+        /**
+         * Invalid character between ring-closure brackets "[]".
+         */
+        INVALID_CHARACTER_BETWEEN_ANGULAR_BRACKETS("StructureCheck.InvalidCharacterBetweenAngularBrackets"),
+        /**
+         * Invalid character prior to part.
+         */
+        INVALID_CHARACTER_PRIOR_ANGULAR_BRACKET("StructureCheck.InvalidCharacterPriorAngularBracket"),
+        /**
+         * Monomer begins with invalid character.
+         */
+        INVALID_FIRST_CHARACTER_OF_MONOMER("StructureCheck.InvalidFirstCharacterOfMonomer"),
+        /**
+         * Structure or part begins with invalid character.
+         */
+        INVALID_FIRST_CHARACTER_OF_STRUCTURE("StructureCheck.InvalidFirstCharacterOfStructure"),
+        /**
+         * Invalid last character.
+         */
+        INVALID_LAST_CHARACTER("StructureCheck.InvalidLastCharacter"),
+        /**
+         * Monomer ends with an invalid character.
+         */
+        INVALID_LAST_CHARACTER_OF_MONOMER("StructureCheck.InvalidLastCharacterOfMonomer"),
+        /**
+         * Structure ends with an invalid character.
+         */
+        INVALID_LAST_CHARACTER_OF_STRUCTURE("StructureCheck.InvalidLastCharacterOfStructure"),
+        /**
+         * Invalid particle after part-closing bracket '&gt;'.
+         */
+        INVALID_PARTICLE_AFTER_ANGLE_CLOSING_BRACKET("StructureCheck.InvalidParticleAfterAngleClosingBracket"),
+        /**
+         * Invalid particle after bond '-'.
+         */
+        INVALID_PARTICLE_AFTER_CONNECTION("StructureCheck.InvalidParticleAfterConnection"),
+        /**
+         * Invalid particle after monomer-end bracket '}'.
+         */
+        INVALID_PARTICLE_AFTER_CURLY_CLOSING_BRACKET("StructureCheck.InvalidParticleAfterCurlyClosingBracket"),
+        /**
+         * Invalid particle after monomer-start bracket '{'.
+         */
+        INVALID_PARTICLE_AFTER_CURLY_OPENING_BRACKET("StructureCheck.InvalidParticleAfterCurlyOpeningBracket"),
+        /**
+         * Invalid particle after [HEAD] or [TAIL].
+         */
+        INVALID_PARTICLE_AFTER_HEAD_TAIL("StructureCheck.InvalidParticleAfterHeadTail"),
+        /**
+         * Invalid particle after monomer.
+         */
+        INVALID_PARTICLE_AFTER_MONOMER("StructureCheck.InvalidParticleAfterMonomer"),
+        /**
+         * Invalid particle after a branch-close bracket ')'.
+         */
+        INVALID_PARTICLE_AFTER_NORMAL_CLOSING_BRACKET("StructureCheck.InvalidParticleAfterNormalClosingBracket"),
+        /**
+         * Invalid particle after a branch-open bracket '('.
+         */
+        INVALID_PARTICLE_AFTER_NORMAL_OPENING_BRACKET("StructureCheck.InvalidParticleAfterNormalOpeningBracket"),
+        /**
+         * Invalid particle after particle.
+         */
+        INVALID_PARTICLE_AFTER_PARTICLE("StructureCheck.InvalidParticleAfterParticle"),
+        /**
+         * Invalid particle after ring closure.
+         */
+        INVALID_PARTICLE_AFTER_RING_CLOSURE("StructureCheck.InvalidParticleAfterRingClosure"),
+        /**
+         * Invalid particle after [START] or [END].
+         */
+        INVALID_PARTICLE_AFTER_START_END("StructureCheck.InvalidParticleAfterStartEnd"),
+        /**
+         * Invalid particle prior branch-open bracket '('.
+         */
+        INVALID_PARTICLE_PRIOR_NORMAL_BRACKET("StructureCheck.InvalidParticlePriorNormalBracket"),
+        /**
+         * Structure contains invalid particle.
+         */
+        INVALID_PARTICLENAME("StructureCheck.InvalidParticlename"),
+        /**
+         * Backbone index at invalid position.
+         */
+        INVALID_POSITION_OF_BACKBONE_INDEX("StructureCheck.InvalidPositionOfBackboneIndex"),
+        /**
+         * Invalid whitespace character.
+         */
+        INVALID_WHITE_SPACE("StructureCheck.InvalidWhiteSpace"),
+        /**
+         * Missing connection after a backbone index.
+         */
+        MISSING_ACONNECTION_AFTER_BACKBONE_INDEX("StructureCheck.MissingAConnectionAfterBackboneIndex"),
+        /**
+         * Missing connection after a [HEAD] or [TAIL] attribute.
+         */
+        MISSING_ACONNECTION_AFTER_HEAD_OR_TAIL("StructureCheck.MissingAConnectionAfterHeadOrTail"),
+        /**
+         * Missing connection after a branch-close bracket ')'.
+         */
+        MISSING_ACONNECTION_AFTER_NORMAL_CLOSING_BRACKET("StructureCheck.MissingAConnectionAfterNormalClosingBracket"),
+        /**
+         * Missing connection prior to a monomer-start bracket '{'.
+         */
+        MISSING_ACONNECTION_PRIOR_CURLY_OPENING_BRACKET("StructureCheck.MissingAConnectionPriorCurlyOpeningBracket"),
+        /**
+         * Missing particle prior to bond '-'.
+         */
+        MISSING_APARTICLE_PRIOR_CONNECTION("StructureCheck.MissingAParticlePriorConnection"),
+        /**
+         * Missing particle prior to a [HEAD] or [TAIL].
+         */
+        MISSING_APARTICLE_PRIOR_HEAD_OR_TAIL("StructureCheck.MissingAParticlePriorHeadOrTail"),
+        /**
+         * Missing particle prior to a branch-close bracket ')'.
+         */
+        MISSING_APARTICLE_PRIOR_NORMAL_CLOSING_BRACKET("StructureCheck.MissingAParticlePriorNormalClosingBracket"),
+        /**
+         * Missing particle prior to ring closure.
+         */
+        MISSING_APARTICLE_PRIOR_RING_CLOSURE("StructureCheck.MissingAParticlePriorRingClosure"),
+        /**
+         * Missing backbone index.
+         */
+        MISSING_BACKBONE_INDEX("StructureCheck.MissingBackboneIndex"),
+        /**
+         * Missing part-close bracket '&gt;'.
+         */
+        MISSING_CLOSING_ANGLE_BRACKET("StructureCheck.MissingClosingAngleBracket"),
+        /**
+         * Missing ring-closure-close bracket ']'.
+         */
+        MISSING_CLOSING_ANGULAR_BRACKET("StructureCheck.MissingClosingAngularBracket"),
+        /**
+         * Missing monomer-end bracket '}'.
+         */
+        MISSING_CLOSING_CURLY_BRACKET("StructureCheck.MissingClosingCurlyBracket"),
+        /**
+         * Missing branch-close bracket ')'.
+         */
+        MISSING_CLOSING_NORMAL_BRACKET("StructureCheck.MissingClosingNormalBracket"),
+        /**
+         * Missing connection between parts.
+         */
+        MISSING_CONNECTION("StructureCheck.MissingConnection"),
+        /**
+         * Missing [END] attribute.
+         */
+        MISSING_END_ATTRIBUTE("StructureCheck.MissingEndAttribute"),
+        /**
+         * Missing [HEAD] attribute inside monomer definition.
+         */
+        MISSING_HEAD_ATTRIBUTE("StructureCheck.MissingHeadAttribute"),
+        /**
+         * Missing [HEAD] or [TAIL] attribute inside monomer definition.
+         */
+        MISSING_HEAD_OR_TAIL_ATTRIBUTE("StructureCheck.MissingHeadOrTailAttribute"),
+        /**
+         * Missing part-start bracket '&lt;'.
+         */
+        MISSING_OPENING_ANGLE_BRACKET("StructureCheck.MissingOpeningAngleBracket"),
+        /**
+         * Missing ring-closure-open bracket '['.
+         */
+        MISSING_OPENING_ANGULAR_BRACKET("StructureCheck.MissingOpeningAngularBracket"),
+        /**
+         * Missing monomer-start bracket '{'.
+         */
+        MISSING_OPENING_CURLY_BRACKET("StructureCheck.MissingOpeningCurlyBracket"),
+        /**
+         * Missing branch-open bracket '('.
+         */
+        MISSING_OPENING_NORMAL_BRACKET("StructureCheck.MissingOpeningNormalBracket"),
+        /**
+         * Missing particle after frequency number.
+         */
+        MISSING_PARTICLE_AFTER_NUMBER("StructureCheck.MissingParticleAfterNumber"),
+        /**
+         * Missing particle between bond '-' and [HEAD] or [TAIL].
+         */
+        MISSING_PARTICLE_BETWEEN_CONNECTION_AND_HEAD_OR_TAIL("StructureCheck.MissingParticleBetweenConnectionAndHeadOrTail"),
+        /**
+         * Missing particle between bond '-' and branch-close bracket ')'.
+         */
+        MISSING_PARTICLE_BETWEEN_CONNECTION_AND_NORMAL_CLOSING_BRACKET("StructureCheck.MissingParticleBetweenConnectionAndNormalClosingBracket"),
+        /**
+         * Missing particle between bond '-' and branch-open bracket '('.
+         */
+        MISSING_PARTICLE_BETWEEN_CONNECTION_AND_NORMAL_OPENING_BRACKET("StructureCheck.MissingParticleBetweenConnectionAndNormalOpeningBracket"),
+        /**
+         * Missing particle between bond '-' and ring closure.
+         */
+        MISSING_PARTICLE_BETWEEN_CONNECTION_AND_RING_CLOSURE("StructureCheck.MissingParticleBetweenConnectionAndRingClosure"),
+        /**
+         * Missing particle between two bonds '-'.
+         */
+        MISSING_PARTICLE_BETWEEN_TWO_CONNECTIONS("StructureCheck.MissingParticleBetweenTwoConnections"),
+        /**
+         * A particle prior to bond '-' is missing.
+         */
+        MISSING_PARTICLE_PRIOR_CONNECTION("StructureCheck.MissingParticlePriorConnection"),
+        /**
+         * Missing ring closure element.
+         */
+        MISSING_RING_CLOSURE("StructureCheck.MissingRingClosure"),
+        /**
+         * Missing [START] attribute.
+         */
+        MISSING_START_ATTRIBUTE("StructureCheck.MissingStartAttribute"),
+        /**
+         * Missing [TAIL] attribute inside monomer definition.
+         */
+        MISSING_TAIL_ATTRIBUTE("StructureCheck.MissingTailAttribute"),
+        /**
+         * Forbidden monomer label after [HEAD] or [TAIL] attribute.
+         */
+        MONOMER_AFTER_HEAD_OR_TAIL("StructureCheck.MonomerAfterHeadOrTail"),
+        /**
+         * Forbidden monomer label after another monomer label.
+         */
+        MONOMER_AFTER_MONOMER("StructureCheck.MonomerAfterMonomer"),
+        /**
+         * Forbidden nested monomers.
+         */
+        MONOMER_IN_MONOMER("StructureCheck.MonomerInMonomer"),
+        /**
+         * A monomer is defined inside a monomer definition.
+         */
+        MONOMER_INSIDE_OF_CURLY_BRACKET("StructureCheck.MonomerInsideOfCurlyBracket"),
+        /**
+         * Monomer begins with '{' and ends with '}'.
+         */
+        NO_MONOMER("StructureCheck.NoMonomer"),
+        /**
+         * No structure definition.
+         */
+        NO_TOKENS("StructureCheck.NoTokens"),
+        /**
+         * Forbidden multiple use of backbone index.
+         */
+        REDUNDANCY_OF_BACKBONE_INDICES("StructureCheck.RedundancyOfBackboneIndices"),
+        /**
+         * Forbidden [START] attribute in monomer.
+         */
+        START_ATTRIBUTE_IN_MONOMER("StructureCheck.StartAttributeInMonomer"),
+        /**
+         * The structure is contains more then one part: Use angular brackets for different parts.
+         */
+        STRUCTURE_NOT_ONE_PART("StructureCheck.StructureNotOnePart"),
+        /**
+         * Missing backbone index.
+         */
+        TOO_LESS_BACKBONEINDEX("StructureCheck.TooLessBackboneindex"),
+        /**
+         * Too many [END] attributes.
+         */
+        TOO_MANY_END_TAG("StructureCheck.TooManyEndTag"),
+        /**
+         * Too many [HEAD] attributes.
+         */
+        TOO_MANY_HEAD("StructureCheck.TooManyHead"),
+        /**
+         * More then two ring closures with same index.
+         */
+        TOO_MANY_RING_CLOSURES("StructureCheck.TooManyRingClosures"),
+        /**
+         * Too many [START] attributes.
+         */
+        TOO_MANY_START_TAG("StructureCheck.TooManyStartTag"),
+        /**
+         * Too many [TAIL] attributes.
+         */
+        TOO_MANY_TAIL("StructureCheck.TooManyTail"),
+        /**
+         * Forbidden backbone index zero (minimum index is 1).
+         */
+        ZERO_IN_BACKBONEINDEX("StructureCheck.ZeroInBackboneindex");
+
+        /**
+         * Error codes for message keys
+         */
+        private static final HashMap<String, ErrorCode> ERROR_CODES = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+
+        static {
+            for (ErrorCode tmpErrorCode : ErrorCode.values()) {
+                ERROR_CODES.put(tmpErrorCode.messageKey, tmpErrorCode);
+            }
+        }
+
+        /**
+         * Message key (see MessagePSmiles)
+         */
+        private final String messageKey;
+
+        /**
+         * Constructor
+         *
+         * @param aMessageKey Message key
+         */
+        ErrorCode(String aMessageKey) {
+            this.messageKey = aMessageKey;
+        }
+
+        /**
+         * Message key (see MessagePSmiles)
+         *
+         * @return Message key
+         */
+        public String getMessageKey() {
+            return this.messageKey;
+        }
+
+        /**
+         * Message of error code
+         *
+         * @return Message of error code
+         */
+        public String getMessage() {
+            return MessagePSmiles.getString(this.messageKey);
+        }
+
+        /**
+         * Returns the error code of a message key
+         *
+         * @param aMessageKey Message key
+         * @return Error code or null if there is no error code for
+         * aMessageKey
+         */
+        public static ErrorCode getErrorCode(String aMessageKey) {
+            return ERROR_CODES.get(aMessageKey);
+        }
+
+    }
+
+    /**
+     * Default maximum weight of the process-wide cache of canonical tokens
+     * (number of tokens)
+     */
+    public static final long DEFAULT_TOKEN_CACHE_MAXIMUM_WEIGHT = 100000L;
+
+    /**
+     * Default maximum weight of the process-wide cache of structure tokens
+     * (total number of tokens)
+     */
+    public static final long DEFAULT_STRUCTURE_TOKENS_CACHE_MAXIMUM_WEIGHT = 4000000L;
+
+    /**
+     * Default maximum weight of the process-wide cache of compiled tokens of
+     * parts (total number of tokens)
+     */
+    public static final long DEFAULT_COMPILED_TOKENS_CACHE_MAXIMUM_WEIGHT = 4000000L;
+
+    /**
+     * Default maximum weight of the process-wide cache of adjacent arrays of
+     * parts (total number of array elements)
+     */
+    public static final long DEFAULT_ADJACENT_ARRAY_CACHE_MAXIMUM_WEIGHT = 4000000L;
+
+    /**
+     * Default maximum weight of the process-wide cache of compiled input
+     * structures of a parser engine (total length of input structures plus total number of
+     * particles)
+     */
+    public static final long DEFAULT_COMPILED_PSMILES_CACHE_MAXIMUM_WEIGHT = 4000000L;
+
+    /**
+     * Number of segments of the process-wide cache of compiled input
+     * structures: A single segment, so that a structure may weigh up to the
+     * maximum weight
+     */
+    public static final int COMPILED_PSMILES_CACHE_NUMBER_OF_SEGMENTS = 1;
+
+    /**
+     * Default minimum number of input structures that are compiled by a
+     * single task of PSmilesBatchCompiler
+     */
+    public static final int DEFAULT_BATCH_MINIMUM_TASK_SIZE = 64;
+
+    /**
+     * Default minimum number of particles whose coordinates are determined by
+     * a single task of parallel replica placement
+     */
+    public static final int DEFAULT_COORDINATES_MINIMUM_PARTICLES_PER_TASK = 16384;
+
     /**
      * Default Arraydeque capacity
      */
@@ -43,6 +491,11 @@ public final class PSmilesConstants {
      */
     public static final int DEFAULT_NUMBER_OF_PARTICLES = 100;
 
+    /**
+     * Default parser engine
+     */
+    public static final ParserEngine DEFAULT_PARSER_ENGINE = ParserEngine.TOKEN_PIPELINE;
+
     /**
      * Separator string for particles
      */
@@ -62,5 +515,96 @@ public final class PSmilesConstants {
      * Pattern for input structure to match
      */
     public static final Pattern INPUTSTRUCTURE_PATTERN = Pattern.compile("[0-9a-zA-Z\\{\\}\\#\\(\\)\\[\\]\\<\\>\\-\\'\\s]+");
+
+    /**
+     * Token kind: Other (invalid) token (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_OTHER = 0;
+
+    /**
+     * Token kind: Particle, e.g. "A" or "H2O" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_PARTICLE = 1;
+
+    /**
+     * Token kind: Monomer, e.g. "#Lys" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_MONOMER = 2;
+
+    /**
+     * Token kind: Number (frequency), e.g. "3" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_NUMBER = 3;
+
+    /**
+     * Token kind: Ring closure, e.g. "[1]" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_RING_CLOSURE = 4;
+
+    /**
+     * Token kind: Backbone index, e.g. "'1'" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_BACKBONE_INDEX = 5;
+
+    /**
+     * Token kind: Connection "-" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_CONNECTION = 6;
+
+    /**
+     * Token kind: Normal opening bracket "(" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_NORMAL_BRACKET_OPEN = 7;
+
+    /**
+     * Token kind: Normal closing bracket ")" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_NORMAL_BRACKET_CLOSE = 8;
+
+    /**
+     * Token kind: Curly opening bracket "{" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_CURLY_BRACKET_OPEN = 9;
+
+    /**
+     * Token kind: Curly closing bracket "}" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_CURLY_BRACKET_CLOSE = 10;
+
+    /**
+     * Token kind: Angle opening bracket "<" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_ANGLE_BRACKET_OPEN = 11;
+
+    /**
+     * Token kind: Angle closing bracket ">" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_ANGLE_BRACKET_CLOSE = 12;
+
+    /**
+     * Token kind: "[HEAD]" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_HEAD = 13;
+
+    /**
+     * Token kind: "[TAIL]" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_TAIL = 14;
+
+    /**
+     * Token kind: "[START]" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_START = 15;
+
+    /**
+     * Token kind: "[END]" (see PSmilesUtility.getTokenKind())
+     */
+    public static final byte TOKEN_KIND_END = 16;
+
+    /**
+     * Token kind: Particle that is not available (only determined by
+     * PSmilesParser which knows the available particles)
+     */
+    public static final byte TOKEN_KIND_UNAVAILABLE_PARTICLE = 17;
     
 }
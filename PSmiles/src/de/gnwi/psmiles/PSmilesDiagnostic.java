@@ -0,0 +1,120 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+/**
+ * Diagnostic of an input structure check, i.e. an error code with the
+ * offset of the violation (see PSmilesParser.diagnose()). The message is
+ * not resolved before getMessage() is called.
+ *
+ * @author Achim Zielesny
+ */
+public final class PSmilesDiagnostic {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Error code
+     */
+    private final PSmilesConstants.ErrorCode errorCode;
+
+    /**
+     * Offset in input structure without white spaces
+     */
+    private final int offset;
+
+    /**
+     * Offset in original input structure (with white spaces)
+     */
+    private final int sourceOffset;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     *
+     * @param anErrorCode Error code
+     * @param anOffset Offset in input structure without white spaces
+     * @param aSourceOffset Offset in original input structure (with white
+     * spaces)
+     * @throws IllegalArgumentException Thrown if anErrorCode is null
+     */
+    public PSmilesDiagnostic(PSmilesConstants.ErrorCode anErrorCode, int anOffset, int aSourceOffset) throws IllegalArgumentException {
+        if (anErrorCode == null) {
+            throw new IllegalArgumentException("PSmilesDiagnostic.Constructor: anErrorCode is null.");
+        }
+        this.errorCode = anErrorCode;
+        this.offset = anOffset;
+        this.sourceOffset = aSourceOffset;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Error code
+     *
+     * @return Error code
+     */
+    public PSmilesConstants.ErrorCode getErrorCode() {
+        return this.errorCode;
+    }
+
+    /**
+     * Offset of violation
+     *
+     * @return Zero-based index in input structure without white spaces (see
+     * PSmilesParser.getErrorOffset())
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Offset of violation in original input structure
+     *
+     * @return Zero-based index in original input structure (with white
+     * spaces)
+     */
+    public int getSourceOffset() {
+        return this.sourceOffset;
+    }
+
+    /**
+     * Message of violation
+     *
+     * @return Message of violation
+     */
+    public String getMessage() {
+        return this.errorCode.getMessage();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * String representation
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        return this.sourceOffset + ": " + this.errorCode.name();
+    }
+    // </editor-fold>
+
+}
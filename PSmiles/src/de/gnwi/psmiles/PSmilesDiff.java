@@ -0,0 +1,313 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+
+/**
+ * Difference between the particles and bonds of two compiled input
+ * structures, e.g. before and after an interactive edit of the input
+ * structure. Particles are numbered consecutively over all parts (see
+ * CompiledPSmiles.getBondOffsets()).
+ * <p>
+ * Particles of the common prefix and the common suffix of the particle type
+ * sequences of both structures are mapped onto each other, all other
+ * particles are removed from the old or added to the new structure. Bonds
+ * are compared with this particle mapping. Mapped particles with a changed
+ * backbone index are reported as changed particles.
+ * NOTE: Do NOT change returned arrays.
+ *
+ * @author Achim Zielesny
+ */
+public final class PSmilesDiff {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Index of the new particle for each old particle (-1: Particle is
+     * removed)
+     */
+    private final int[] oldToNewParticleIndices;
+
+    /**
+     * Index of the old particle for each new particle (-1: Particle is added)
+     */
+    private final int[] newToOldParticleIndices;
+
+    /**
+     * Indices of removed (old) particles in ascending order
+     */
+    private final int[] removedParticleIndices;
+
+    /**
+     * Indices of added (new) particles in ascending order
+     */
+    private final int[] addedParticleIndices;
+
+    /**
+     * Indices of mapped (new) particles with changed backbone index in
+     * ascending order
+     */
+    private final int[] changedParticleIndices;
+
+    /**
+     * Removed bonds as pairs of old particle indices (lower index first)
+     */
+    private final int[] removedBonds;
+
+    /**
+     * Added bonds as pairs of new particle indices (lower index first)
+     */
+    private final int[] addedBonds;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor. NOTE: An invalid compiled input structure has no particles.
+     *
+     * @param anOldCompiledPSmiles Old compiled input structure
+     * @param aNewCompiledPSmiles New compiled input structure
+     * @throws IllegalArgumentException Thrown if an argument is null
+     */
+    public PSmilesDiff(CompiledPSmiles anOldCompiledPSmiles, CompiledPSmiles aNewCompiledPSmiles) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (anOldCompiledPSmiles == null) {
+            throw new IllegalArgumentException("PSmilesDiff.Constructor: anOldCompiledPSmiles is null.");
+        }
+        if (aNewCompiledPSmiles == null) {
+            throw new IllegalArgumentException("PSmilesDiff.Constructor: aNewCompiledPSmiles is null.");
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Particle mapping">
+        int tmpNumberOfOldParticles = anOldCompiledPSmiles.isValid() ? anOldCompiledPSmiles.getTotalNumberOfParticles() : 0;
+        int tmpNumberOfNewParticles = aNewCompiledPSmiles.isValid() ? aNewCompiledPSmiles.getTotalNumberOfParticles() : 0;
+        int[] tmpOldParticleTypeIds = tmpNumberOfOldParticles > 0 ? anOldCompiledPSmiles.getParticleTypeIds() : new int[0];
+        int[] tmpNewParticleTypeIds = tmpNumberOfNewParticles > 0 ? aNewCompiledPSmiles.getParticleTypeIds() : new int[0];
+        if (tmpNumberOfOldParticles > 0 && anOldCompiledPSmiles.getParticleTypeDictionary() != aNewCompiledPSmiles.getParticleTypeDictionary()) {
+            // Structures were compiled with different dictionaries (see PSmilesUtility.clearCaches()): Old IDs are translated
+            ParticleTypeDictionary tmpOldParticleTypeDictionary = anOldCompiledPSmiles.getParticleTypeDictionary();
+            ParticleTypeDictionary tmpNewParticleTypeDictionary = aNewCompiledPSmiles.getParticleTypeDictionary();
+            int[] tmpTranslatedParticleTypeIds = new int[tmpNumberOfOldParticles];
+            for (int i = 0; i < tmpNumberOfOldParticles; i++) {
+                tmpTranslatedParticleTypeIds[i] = tmpNewParticleTypeDictionary.getKnownParticleTypeId(tmpOldParticleTypeDictionary.getParticle(tmpOldParticleTypeIds[i]));
+            }
+            tmpOldParticleTypeIds = tmpTranslatedParticleTypeIds;
+        }
+        int tmpPrefixLength = 0;
+        int tmpMaxLength = Math.min(tmpNumberOfOldParticles, tmpNumberOfNewParticles);
+        while (tmpPrefixLength < tmpMaxLength && tmpOldParticleTypeIds[tmpPrefixLength] == tmpNewParticleTypeIds[tmpPrefixLength]) {
+            tmpPrefixLength++;
+        }
+        int tmpSuffixLength = 0;
+        tmpMaxLength -= tmpPrefixLength;
+        while (tmpSuffixLength < tmpMaxLength
+                && tmpOldParticleTypeIds[tmpNumberOfOldParticles - 1 - tmpSuffixLength] == tmpNewParticleTypeIds[tmpNumberOfNewParticles - 1 - tmpSuffixLength]) {
+            tmpSuffixLength++;
+        }
+        int tmpShift = tmpNumberOfNewParticles - tmpNumberOfOldParticles;
+        this.oldToNewParticleIndices = new int[tmpNumberOfOldParticles];
+        this.newToOldParticleIndices = new int[tmpNumberOfNewParticles];
+        Arrays.fill(this.oldToNewParticleIndices, -1);
+        Arrays.fill(this.newToOldParticleIndices, -1);
+        for (int i = 0; i < tmpPrefixLength; i++) {
+            this.oldToNewParticleIndices[i] = i;
+            this.newToOldParticleIndices[i] = i;
+        }
+        for (int i = tmpNumberOfOldParticles - tmpSuffixLength; i < tmpNumberOfOldParticles; i++) {
+            this.oldToNewParticleIndices[i] = i + tmpShift;
+            this.newToOldParticleIndices[i + tmpShift] = i;
+        }
+        this.removedParticleIndices = new int[tmpNumberOfOldParticles - tmpPrefixLength - tmpSuffixLength];
+        for (int i = 0; i < this.removedParticleIndices.length; i++) {
+            this.removedParticleIndices[i] = tmpPrefixLength + i;
+        }
+        this.addedParticleIndices = new int[tmpNumberOfNewParticles - tmpPrefixLength - tmpSuffixLength];
+        for (int i = 0; i < this.addedParticleIndices.length; i++) {
+            this.addedParticleIndices[i] = tmpPrefixLength + i;
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Changed particles">
+        int[] tmpChangedParticleIndices = new int[tmpNumberOfNewParticles];
+        int tmpNumberOfChangedParticles = 0;
+        if (tmpPrefixLength + tmpSuffixLength > 0) {
+            int[] tmpOldBackboneIndices = anOldCompiledPSmiles.getBackboneIndices();
+            int[] tmpNewBackboneIndices = aNewCompiledPSmiles.getBackboneIndices();
+            for (int i = 0; i < tmpNumberOfNewParticles; i++) {
+                int tmpOldIndex = this.newToOldParticleIndices[i];
+                if (tmpOldIndex > -1 && tmpOldBackboneIndices[tmpOldIndex] != tmpNewBackboneIndices[i]) {
+                    tmpChangedParticleIndices[tmpNumberOfChangedParticles++] = i;
+                }
+            }
+        }
+        this.changedParticleIndices = Arrays.copyOf(tmpChangedParticleIndices, tmpNumberOfChangedParticles);
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Bonds">
+        this.removedBonds = this.getUnmappedBonds(anOldCompiledPSmiles, tmpNumberOfOldParticles, this.oldToNewParticleIndices, aNewCompiledPSmiles);
+        this.addedBonds = this.getUnmappedBonds(aNewCompiledPSmiles, tmpNumberOfNewParticles, this.newToOldParticleIndices, anOldCompiledPSmiles);
+
+        // </editor-fold>
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Index of the new particle for each old particle
+     *
+     * @return Index of the new particle for each old particle (-1: Particle is
+     * removed)
+     */
+    public int[] getOldToNewParticleIndices() {
+        return this.oldToNewParticleIndices;
+    }
+
+    /**
+     * Index of the old particle for each new particle
+     *
+     * @return Index of the old particle for each new particle (-1: Particle is
+     * added)
+     */
+    public int[] getNewToOldParticleIndices() {
+        return this.newToOldParticleIndices;
+    }
+
+    /**
+     * Indices of removed (old) particles
+     *
+     * @return Indices of removed particles in ascending order
+     */
+    public int[] getRemovedParticleIndices() {
+        return this.removedParticleIndices;
+    }
+
+    /**
+     * Indices of added (new) particles
+     *
+     * @return Indices of added particles in ascending order
+     */
+    public int[] getAddedParticleIndices() {
+        return this.addedParticleIndices;
+    }
+
+    /**
+     * Indices of mapped (new) particles with changed backbone index
+     *
+     * @return Indices of changed particles in ascending order
+     */
+    public int[] getChangedParticleIndices() {
+        return this.changedParticleIndices;
+    }
+
+    /**
+     * Removed bonds
+     *
+     * @return Removed bonds as pairs of old particle indices (lower index
+     * first)
+     */
+    public int[] getRemovedBonds() {
+        return this.removedBonds;
+    }
+
+    /**
+     * Added bonds
+     *
+     * @return Added bonds as pairs of new particle indices (lower index first)
+     */
+    public int[] getAddedBonds() {
+        return this.addedBonds;
+    }
+
+    /**
+     * Returns if the particles and bonds of both structures are equal
+     *
+     * @return True: No particle or bond is removed, added or changed, false:
+     * Otherwise
+     */
+    public boolean isEmpty() {
+        return this.removedParticleIndices.length == 0
+                && this.addedParticleIndices.length == 0
+                && this.changedParticleIndices.length == 0
+                && this.removedBonds.length == 0
+                && this.addedBonds.length == 0;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Returns the bonds of a structure that have no counterpart in the other
+     * structure
+     *
+     * @param aCompiledPSmiles Compiled input structure
+     * @param aNumberOfParticles Number of particles of aCompiledPSmiles
+     * @param aParticleMapping Index of the particle in the other structure for
+     * each particle of aCompiledPSmiles (-1: No counterpart)
+     * @param anOtherCompiledPSmiles Other compiled input structure
+     * @return Unmapped bonds as pairs of particle indices (lower index first)
+     */
+    private int[] getUnmappedBonds(CompiledPSmiles aCompiledPSmiles, int aNumberOfParticles, int[] aParticleMapping,
+            CompiledPSmiles anOtherCompiledPSmiles) {
+        if (aNumberOfParticles == 0) {
+            return new int[0];
+        }
+        int[] tmpBondOffsets = aCompiledPSmiles.getBondOffsets();
+        int[] tmpBondTargets = aCompiledPSmiles.getBondTargets();
+        int[] tmpOtherBondOffsets = anOtherCompiledPSmiles.isValid() ? anOtherCompiledPSmiles.getBondOffsets() : null;
+        int[] tmpOtherBondTargets = anOtherCompiledPSmiles.isValid() ? anOtherCompiledPSmiles.getBondTargets() : null;
+        int[] tmpBonds = new int[16];
+        int tmpLength = 0;
+        for (int i = 0; i < aNumberOfParticles; i++) {
+            for (int k = tmpBondOffsets[i]; k < tmpBondOffsets[i + 1]; k++) {
+                int tmpTarget = tmpBondTargets[k];
+                if (tmpTarget > i && !this.hasBond(tmpOtherBondOffsets, tmpOtherBondTargets, aParticleMapping[i], aParticleMapping[tmpTarget])) {
+                    if (tmpLength + 2 > tmpBonds.length) {
+                        tmpBonds = Arrays.copyOf(tmpBonds, 2 * tmpBonds.length);
+                    }
+                    tmpBonds[tmpLength++] = i;
+                    tmpBonds[tmpLength++] = tmpTarget;
+                }
+            }
+        }
+        return Arrays.copyOf(tmpBonds, tmpLength);
+    }
+
+    /**
+     * Returns if a CSR graph contains a bond
+     *
+     * @param aBondOffsets Bond offsets of the CSR graph (may be null)
+     * @param aBondTargets Bond targets of the CSR graph (may be null)
+     * @param aParticleIndex1 Index of first particle (may be -1)
+     * @param aParticleIndex2 Index of second particle (may be -1)
+     * @return True: Bond exists, false: Otherwise
+     */
+    private boolean hasBond(int[] aBondOffsets, int[] aBondTargets, int aParticleIndex1, int aParticleIndex2) {
+        if (aBondOffsets == null || aParticleIndex1 < 0 || aParticleIndex2 < 0) {
+            return false;
+        }
+        for (int k = aBondOffsets[aParticleIndex1]; k < aBondOffsets[aParticleIndex1 + 1]; k++) {
+            if (aBondTargets[k] == aParticleIndex2) {
+                return true;
+            }
+        }
+        return false;
+    }
+    // </editor-fold>
+
+}
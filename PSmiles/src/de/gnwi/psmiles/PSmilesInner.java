@@ -26,7 +26,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Queue;
 
 /**
  * Inner PSmiles
@@ -58,6 +57,17 @@ public class PSmilesInner {
      */
     private String[] innerStructureTokens;
 
+    /**
+     * Kinds of inner structure tokens (see PSmilesUtility.getTokenKinds())
+     */
+    private byte[] innerTokenKinds;
+
+    /**
+     * Integer values of inner structure tokens (see
+     * PSmilesUtility.getTokenValues())
+     */
+    private int[] innerTokenValues;
+
     /**
      * State information whether this structure has START/END attribute
      */
@@ -79,6 +89,12 @@ public class PSmilesInner {
      */
     private int[] innerParticleIndices;
 
+    /**
+     * Inverse of innerParticleIndices: Index of the last particle at or
+     * before a token position (-1: None)
+     */
+    private int[] innerTokenToParticle;
+
     /**
      * Backbone index (zero-based position of particles with backbone index flag)
      */
@@ -95,9 +111,40 @@ public class PSmilesInner {
     private String[] monomers;
 
     /**
-     * Adjacent array (connection between two particles)
+     * Adjacent array (connection between two particles, lazily determined)
+     */
+    private volatile int[][] adjacentArray;
+
+    /**
+     * Coordinate template (lazily determined)
+     */
+    private CoordinateTemplate coordinateTemplate;
+
+    /**
+     * Heuristic diameter (lazily determined)
+     */
+    private volatile int[] heuristicDiameter;
+
+    /**
+     * Path from START to END particle (lazily determined)
+     */
+    private volatile int[] pathStartToEnd;
+
+    /**
+     * Exact graph metrics (lazily determined)
+     */
+    private volatile GraphMetrics graphMetrics;
+
+    /**
+     * Canonical labeling (lazily determined)
      */
-    private int[][] adjacentArray;
+    private volatile CanonicalLabeling canonicalLabeling;
+
+    /**
+     * Parser engine that created this part (adjacent arrays of both engines
+     * may differ for some structures, see PSmilesParser)
+     */
+    private PSmilesConstants.ParserEngine parserEngine = PSmilesConstants.ParserEngine.TOKEN_PIPELINE;
 
     /**
      * Numbers of terminal particles
@@ -124,9 +171,16 @@ public class PSmilesInner {
     private int[] numberOfConnects;
 
     /**
-     * Connected particles (zero-based number of two connected particles)
+     * Bond offsets of the compressed sparse row (CSR) graph of connected
+     * particles (length: number of particles + 1)
+     */
+    private int[] bondOffsets;
+
+    /**
+     * Bond targets of the compressed sparse row (CSR) graph of connected
+     * particles (zero-based particle indices, every bond twice)
      */
-    private LinkedList<int[]> connectedParticlesList;
+    private int[] bondTargets;
 
     /**
      * Maximum number of connections (bonds) of a single particle
@@ -142,6 +196,17 @@ public class PSmilesInner {
      * Particles
      */
     private String[] innerParticles;
+
+    /**
+     * Dictionary of particleTypeIds (null: Not yet determined)
+     */
+    private ParticleTypeDictionary particleTypeDictionary;
+
+    /**
+     * Particle type IDs of particles (see particleTypeDictionary, lazily
+     * determined)
+     */
+    private int[] particleTypeIds;
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Constructors">
@@ -171,6 +236,41 @@ public class PSmilesInner {
         this.initialize(anInputStructure, anIsMonomer, anAvailableParticles);
     }
 
+    /**
+     * Sets all properties of a valid part that was already checked and
+     * compiled by PSmilesParser
+     *
+     * @param aPartStructure Structure of part
+     * @param aCompiledTokens Compiled tokens
+     * @param aParticleIndices Particle indices (zero-based position of
+     * particles in aCompiledTokens)
+     * @param aBackboneIndices Backbone indices of particles
+     * @param aBonds Bonds as consecutive pairs of particle indices
+     * @param aNumberOfBonds Number of bonds
+     * @param aStartParticleIndex Index of START particle (-1: None)
+     * @param anEndParticleIndex Index of END particle (-1: None)
+     * @param aHasBackboneAttribute True: Part has backbone indices, false:
+     * Otherwise
+     */
+    PSmilesInner(String aPartStructure, String[] aCompiledTokens, int[] aParticleIndices, int[] aBackboneIndices, int[] aBonds,
+            int aNumberOfBonds, int aStartParticleIndex, int anEndParticleIndex, boolean aHasBackboneAttribute) {
+        this.parserEngine = PSmilesConstants.ParserEngine.SINGLE_PASS;
+        this.inputStructure = aPartStructure;
+        this.setInnerStructureTokens(aCompiledTokens);
+        this.innerParticleIndices = aParticleIndices;
+        this.setInnerParticles();
+        this.hasStartEndAttribute = aStartParticleIndex >= 0;
+        this.hasBackboneAttribute = aHasBackboneAttribute;
+        this.innerBackboneIndices = aBackboneIndices;
+        this.monomers = this.getMonomerList();
+        this.setBonds(aBonds, aNumberOfBonds);
+        this.numberOfConnects = this.getFrequencyOfNeighborParticles();
+        this.terminalParticleFlag = this.isTerminalParticle();
+        this.startParticleIndex = aStartParticleIndex;
+        this.endParticleIndex = anEndParticleIndex;
+        this.particleToFrequencyMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+    }
+
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Public properties">
@@ -201,6 +301,27 @@ public class PSmilesInner {
         return this.innerParticles;
     }
 
+    /**
+     * Returns particle type IDs of inner particles. IDs are only assigned on
+     * request so that parts of invalid input structures do not add particle
+     * types to the dictionary.
+     * NOTE: Returned array is NOT allowed to be changed.
+     *
+     * @param aParticleTypeDictionary Particle type dictionary
+     * @return Particle type IDs of inner particles (null if there are no
+     * inner particles)
+     */
+    public synchronized int[] getParticleTypeIds(ParticleTypeDictionary aParticleTypeDictionary) {
+        if (this.innerParticles == null) {
+            return null;
+        }
+        if (this.particleTypeDictionary != aParticleTypeDictionary) {
+            this.particleTypeIds = aParticleTypeDictionary.getParticleTypeIds(this.innerParticles);
+            this.particleTypeDictionary = aParticleTypeDictionary;
+        }
+        return this.particleTypeIds;
+    }
+
     /**
      * Particle index
      *
@@ -236,7 +357,35 @@ public class PSmilesInner {
      * @return Adjacent array
      */
     public int[][] getAdjacentArray() {
-        return this.adjacentArray;
+        int[][] tmpAdjacentArray = this.adjacentArray;
+        if (tmpAdjacentArray == null) {
+            tmpAdjacentArray = pSmilesUtility.getAdjacentArray(this.parserEngine, this.inputStructure, this.bondOffsets, this.bondTargets, this.innerParticleIndices.length);
+            this.adjacentArray = tmpAdjacentArray;
+        }
+        return tmpAdjacentArray;
+    }
+
+    /**
+     * Bond offsets of the compressed sparse row (CSR) graph of connected
+     * particles: The neighbors of particle i are getBondTargets()[k] with
+     * getBondOffsets()[i] &lt;= k &lt; getBondOffsets()[i + 1]. NOTE: Do
+     * NOT change the returned array.
+     *
+     * @return Bond offsets (length: number of particles + 1)
+     */
+    public int[] getBondOffsets() {
+        return this.bondOffsets;
+    }
+
+    /**
+     * Bond targets of the compressed sparse row (CSR) graph of connected
+     * particles (see getBondOffsets()). NOTE: Do NOT change the returned
+     * array.
+     *
+     * @return Bond targets (zero-based particle indices, every bond twice)
+     */
+    public int[] getBondTargets() {
+        return this.bondTargets;
     }
     
     /**
@@ -256,15 +405,6 @@ public class PSmilesInner {
     public int getMaximumNumberOfConnectionsOfSingleParticle() {
         return this.maximumNumberOfConnectionsOfSingleParticle;
     }
-
-    /**
-     * Maximum number of connections (bonds) of a single particle
-     * 
-     * @param aValue Value
-     */
-    public void setMaximumNumberOfConnectionsOfSingleParticle(int aValue) {
-        this.maximumNumberOfConnectionsOfSingleParticle = aValue;
-    }
     
     /**
      * Valence number of a particle
@@ -308,11 +448,10 @@ public class PSmilesInner {
 
         // <editor-fold defaultstate="collapsed" desc="Local variable">
         LinkedList<int[]> tmpResultChainList = new LinkedList<>();
-        int[][] tmpConnectedParticleArray = aPart.connectedParticlesList.toArray(new int[0][]);
 
         // </editor-fold>
         // <editor-fold defaultstate="collapsed" desc="Simple check">
-        if (aPart.getInnerStructureTokens() == null || aPart.getInnerStructureTokens().length == 0 || aPart.connectedParticlesList == null) {
+        if (aPart.getInnerStructureTokens() == null || aPart.getInnerStructureTokens().length == 0 || aPart.bondOffsets == null) {
             return null;
         }
 
@@ -328,15 +467,19 @@ public class PSmilesInner {
         // </editor-fold>
         // <editor-fold defaultstate="collapsed" desc="Extend neighbor searching">
         int tmpExtendParticleCandidate;
-        int tmpNumberOfLink = tmpConnectedParticleArray.length;
-        tmpResultChainList.addAll(aPart.connectedParticlesList);
+        LinkedList<int[]> tmpMultiChainList = new LinkedList<>();
+        for (int i = 0; i < aPart.innerParticleIndices.length; i++) {
+            for (int j = aPart.bondOffsets[i]; j < aPart.bondOffsets[i + 1]; j++) {
+                tmpMultiChainList.add(new int[]{i, aPart.bondTargets[j]});
+            }
+        }
+        tmpResultChainList.addAll(tmpMultiChainList);
 
         if (aSegmentLength == 2) {
             return tmpResultChainList;
         } else {
             int tmpCompareParticleIndex = 1;
             int tmpCompareParticle = 0;
-            LinkedList<int[]> tmpMultiChainList = new LinkedList<>(aPart.connectedParticlesList);
             ArrayDeque<int[]> tmpHelpingChainList = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
             int tmpMultiChainParticleSize = 3;
             for (int i = 0; i < aSegmentLength - 2; i++) {
@@ -351,21 +494,20 @@ public class PSmilesInner {
                 for (int[] tmpMultiChainListItem : tmpMultiChainList) {
                     tmpCompareParticle = tmpMultiChainListItem[tmpCompareParticleIndex];
                     int[] tmpExtendedLinks = Arrays.copyOf(tmpMultiChainListItem, tmpMultiChainParticleSize);
-                    for (int j = 0; j < tmpNumberOfLink; j++) {
-                        if (tmpCompareParticle == tmpConnectedParticleArray[j][0]) {
-                            tmpExtendParticleCandidate = tmpConnectedParticleArray[j][1];
-                            boolean tmpIsCandidatePositive = true;
-                            for (int k = tmpMultiChainParticleSize - 3; k >= 0; k--) {
-                                if (tmpExtendedLinks[k] == tmpExtendParticleCandidate) {
-                                    tmpIsCandidatePositive = false;
-                                    break;
-                                }
-                            }
-                            if (tmpIsCandidatePositive) {
-                                tmpExtendedLinks[tmpMultiChainParticleSize - 1] = tmpExtendParticleCandidate;
-                                tmpHelpingChainList.add(tmpExtendedLinks.clone());
+                    // Only the CSR row of the compare particle has to be scanned
+                    for (int j = aPart.bondOffsets[tmpCompareParticle]; j < aPart.bondOffsets[tmpCompareParticle + 1]; j++) {
+                        tmpExtendParticleCandidate = aPart.bondTargets[j];
+                        boolean tmpIsCandidatePositive = true;
+                        for (int k = tmpMultiChainParticleSize - 3; k >= 0; k--) {
+                            if (tmpExtendedLinks[k] == tmpExtendParticleCandidate) {
+                                tmpIsCandidatePositive = false;
+                                break;
                             }
                         }
+                        if (tmpIsCandidatePositive) {
+                            tmpExtendedLinks[tmpMultiChainParticleSize - 1] = tmpExtendParticleCandidate;
+                            tmpHelpingChainList.add(tmpExtendedLinks.clone());
+                        }
                     }
                 }
                 tmpCompareParticleIndex++;
@@ -388,53 +530,109 @@ public class PSmilesInner {
      * get the correct diameter, if the structure is not cyclic. To find the
      * real diameter all possible shortest path between terminal particles
      * have to determined. The longest of them is the diameter. This will
-     * take too much computing time by structures with many particles.
+     * take too much computing time by structures with many particles. The
+     * diameter is determined once per part.
      *
      * @return Array of particles from v-particle to w-particle.
      */
     public int[] getHeuristicDiameter() {
-        return this.getHeuristicDiameter(this);
+        int[] tmpHeuristicDiameter = this.getMemoisedHeuristicDiameter();
+        return tmpHeuristicDiameter == null ? null : tmpHeuristicDiameter.clone();
+    }
+
+    /**
+     * Exact graph metrics of this part (exact diameter, eccentricities,
+     * radius and center, see GraphMetrics). In contrast to
+     * getHeuristicDiameter() the diameter is also exact for parts with ring
+     * closures. The metrics are determined once per part.
+     *
+     * @return Graph metrics or null if part is not connected
+     */
+    public GraphMetrics getGraphMetrics() {
+        GraphMetrics tmpGraphMetrics = this.graphMetrics;
+        if (tmpGraphMetrics == null) {
+            try {
+                tmpGraphMetrics = new GraphMetrics(this.bondOffsets, this.bondTargets);
+            } catch (IllegalArgumentException anException) {
+                return null;
+            }
+            this.graphMetrics = tmpGraphMetrics;
+        }
+        return tmpGraphMetrics;
+    }
+
+    /**
+     * Canonical labeling of this part (canonical particle order and
+     * canonical PSMILES, see CanonicalLabeling). The labeling is determined
+     * once per part.
+     *
+     * @return Canonical labeling
+     */
+    public CanonicalLabeling getCanonicalLabeling() {
+        CanonicalLabeling tmpCanonicalLabeling = this.canonicalLabeling;
+        if (tmpCanonicalLabeling == null) {
+            tmpCanonicalLabeling = new CanonicalLabeling(this);
+            this.canonicalLabeling = tmpCanonicalLabeling;
+        }
+        return tmpCanonicalLabeling;
     }
 
     /**
      * Determines the path from START particle to END particle. The path is
-     * not necessarely the longest possible.
+     * not necessarely the longest possible. The path is determined once per
+     * part.
      *
      * @return Array of particles from START-particle to END-particle.
      */
     public int[] getPathStartToEnd() {
         if(this.hasStartEndAttribute) {
-            return this.getPathStartToEnd(this);
+            int[] tmpPathStartToEnd = this.getMemoisedPathStartToEnd();
+            return tmpPathStartToEnd == null ? null : tmpPathStartToEnd.clone();
         } else {
             return null;
         }
     }
     
     /**
-     * Determine the particle position of backbone particles
+     * Backbone indices of particles (determined once at compile time, see
+     * getInnerBackboneIndices() for the shared array)
      *
-     * @return 0-based index number of particle with backbone-tag
+     * @return Backbone index of every particle (0: Particle has no backbone
+     * index)
      */
     public int[] getBackboneIndices() {
-        String tmpTestToken = "";
-        int tmpBackboneParticleIndex = 0;
-        int[] tmpResult = new int[this.innerParticleIndices.length];
-        Arrays.fill(tmpResult, 0);
-        if (this.hasBackboneAttribute) {
-            for (int i = 0; i < this.getInnerStructureTokens().length; i++) {
-                tmpTestToken = this.getInnerStructureTokens()[i];
-                if (pSmilesUtility.isBackboneIndex(tmpTestToken)) {
-                    tmpBackboneParticleIndex = Integer.parseInt(tmpTestToken.substring(1, tmpTestToken.length() - 1));
-                    for (int j = this.innerParticleIndices.length - 1; j >= 0; j--) {
-                        if (i > this.innerParticleIndices[j]) {
-                            tmpResult[j] = tmpBackboneParticleIndex;
-                            break;
-                        }
-                    }
+        return this.innerBackboneIndices.clone();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Coordinate template of this part: Main chain is the path from START to
+     * END particle or the heuristic diameter (in ascending direction of its
+     * end particles). NOTE: A template may be determined concurrently more
+     * than once but all of them are equal.
+     *
+     * @return Coordinate template
+     */
+    CoordinateTemplate getCoordinateTemplate() {
+        CoordinateTemplate tmpCoordinateTemplate = this.coordinateTemplate;
+        if (tmpCoordinateTemplate == null) {
+            int[] tmpMainChainIndices;
+            if (this.innerParticleIndices.length == 1) {
+                tmpMainChainIndices = new int[]{0};
+            } else if (this.getStartParticleIndex() == -1) {
+                tmpMainChainIndices = this.getMemoisedHeuristicDiameter();
+                if (tmpMainChainIndices[0] > tmpMainChainIndices[tmpMainChainIndices.length - 1]) {
+                    tmpMainChainIndices = tmpMainChainIndices.clone();
+                    pSmilesUtility.reverseIntegerArray(tmpMainChainIndices);
                 }
+            } else {
+                tmpMainChainIndices = this.getMemoisedPathStartToEnd();
             }
+            tmpCoordinateTemplate = new CoordinateTemplate(tmpMainChainIndices, this.bondOffsets, this.bondTargets);
+            this.coordinateTemplate = tmpCoordinateTemplate;
         }
-        return tmpResult;
+        return tmpCoordinateTemplate;
     }
     // </editor-fold>
     //
@@ -452,12 +650,16 @@ public class PSmilesInner {
     private void initialize(String aPartStructure, boolean anIsMonomer, HashMap<String, String> anAvailableParticles) {
 
         this.inputStructure = aPartStructure;
-        this.innerStructureTokens = pSmilesUtility.getStructureTokens(aPartStructure);
+        this.setInnerStructureTokens(pSmilesUtility.getStructureTokens(aPartStructure));
         this.errorMessage = this.checkInputStructure(aPartStructure, anIsMonomer, anAvailableParticles);
         if (this.errorMessage != null) {
             return;
         }
-        this.innerStructureTokens = this.getPSmilesCompilerTokenList();
+        String[] tmpCompiledTokens = PSmilesUtility.getCompiledTokensCache().get(aPartStructure);
+        if (tmpCompiledTokens == null) {
+            tmpCompiledTokens = PSmilesUtility.getCompiledTokensCache().putIfAbsent(aPartStructure, this.getPSmilesCompilerTokenList());
+        }
+        this.setInnerStructureTokens(tmpCompiledTokens);
         this.innerParticleIndices = this.determineInnerParticleIndices();
         this.setInnerParticles();
         if (pSmilesUtility.hasStartTag(this.inputStructure)) {
@@ -466,16 +668,48 @@ public class PSmilesInner {
         if (pSmilesUtility.hasBackboneTag(this.inputStructure)) {
             this.hasBackboneAttribute = true;
         }
-        this.innerBackboneIndices = this.getBackboneIndices();
+        this.innerBackboneIndices = this.determineBackboneIndices();
         this.monomers = this.getMonomerList();
-        this.connectedParticlesList = this.getNeighborParticles(true);
-        this.adjacentArray = pSmilesUtility.getAdjacentArray(this.inputStructure, this.connectedParticlesList, this.innerParticleIndices.length);
+        this.setNeighborParticles();
         this.numberOfConnects = this.getFrequencyOfNeighborParticles();
         this.terminalParticleFlag = this.isTerminalParticle();
         this.startParticleIndex = this.getStartTagParticleIndex();
         this.endParticleIndex = this.getEndTagParticleIndex();
         this.particleToFrequencyMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
     }
+
+    /**
+     * Sets the inner structure tokens together with their kinds and integer
+     * values (see PSmilesUtility.getTokenKinds() and getTokenValues())
+     *
+     * @param aTokens Inner structure tokens
+     */
+    private void setInnerStructureTokens(String[] aTokens) {
+        this.innerStructureTokens = aTokens;
+        this.innerTokenKinds = pSmilesUtility.getTokenKinds(aTokens);
+        this.innerTokenValues = pSmilesUtility.getTokenValues(aTokens, this.innerTokenKinds);
+    }
+
+    /**
+     * Determines the backbone indices of particles in a single pass over the
+     * token kinds and values
+     *
+     * @return Backbone index of every particle (0: Particle has no backbone
+     * index)
+     */
+    private int[] determineBackboneIndices() {
+        int[] tmpResult = new int[this.innerParticleIndices.length];
+        if (this.hasBackboneAttribute) {
+            for (int i = 0; i < this.innerTokenKinds.length; i++) {
+                // A backbone index token is not a particle token, i.e. its
+                // particle is the last particle prior to it
+                if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX && this.innerTokenToParticle[i] >= 0) {
+                    tmpResult[this.innerTokenToParticle[i]] = this.innerTokenValues[i];
+                }
+            }
+        }
+        return tmpResult;
+    }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="- Structure check related methods">
@@ -616,6 +850,8 @@ public class PSmilesInner {
         ArrayDeque<String> tmpNumberOfRingClosure = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
         HashSet<Integer> tmpNumberOfBackboneIndex = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
         String[] tmpTokenOfSubstructure = pSmilesUtility.getStructureTokens(aSubtructure);
+        byte[] tmpKindOfSubstructure = pSmilesUtility.getTokenKinds(tmpTokenOfSubstructure);
+        int[] tmpValueOfSubstructure = pSmilesUtility.getTokenValues(tmpTokenOfSubstructure, tmpKindOfSubstructure);
         int tmpNumberOfTokens = tmpTokenOfSubstructure.length;
         char[] tmpCharsOfSubStructure = aSubtructure.toCharArray();
 
@@ -829,16 +1065,18 @@ public class PSmilesInner {
         // <editor-fold defaultstate="collapsed" desc="Checks tokens">
         String tmpCurrentToken;
         String tmpNextToken;
+        byte tmpCurrentKind;
+        byte tmpNextKind;
         Boolean tmpIsRepeatParticle = false;
         if (tmpTokenOfSubstructure.length == 1) {
-            if (pSmilesUtility.isIntegerNumber(tmpTokenOfSubstructure[0])) {
+            if (tmpKindOfSubstructure[0] == PSmilesConstants.TOKEN_KIND_NUMBER) {
                 return MessagePSmiles.getString("StructureCheck.InvalidParticlename");
-            } else if (pSmilesUtility.isMonomer(tmpTokenOfSubstructure[0])) {
+            } else if (tmpKindOfSubstructure[0] == PSmilesConstants.TOKEN_KIND_MONOMER) {
                 return null;
-            } else if (pSmilesUtility.isParticle(tmpTokenOfSubstructure[0])) {
+            } else if (tmpKindOfSubstructure[0] == PSmilesConstants.TOKEN_KIND_PARTICLE) {
                 return null;
             } else if (!(pSmilesUtility.isAvailableParticle(tmpTokenOfSubstructure[0], anAvailableParticles)
-                && pSmilesUtility.isParticle(tmpTokenOfSubstructure[0]))) {
+                && tmpKindOfSubstructure[0] == PSmilesConstants.TOKEN_KIND_PARTICLE)) {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticlename");
             } else {
                 return MessagePSmiles.getString("StructureCheck.InvalidParticlename");
@@ -847,337 +1085,339 @@ public class PSmilesInner {
         for (int i = 0; i < tmpNumberOfTokens - 1; i++) {
             tmpCurrentToken = tmpTokenOfSubstructure[i];
             tmpNextToken = tmpTokenOfSubstructure[i + 1];
+            tmpCurrentKind = tmpKindOfSubstructure[i];
+            tmpNextKind = tmpKindOfSubstructure[i + 1];
 
             // <editor-fold defaultstate="collapsed" desc="Particle">
-            if (pSmilesUtility.isParticle(tmpCurrentToken) && pSmilesUtility.isAvailableParticle(tmpCurrentToken, anAvailableParticles)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_PARTICLE && pSmilesUtility.isAvailableParticle(tmpCurrentToken, anAvailableParticles)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionPriorCurlyOpeningBracket");
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHead(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isTail(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isStart(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_START) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isEnd(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_END) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // this number always belong to the prior Particle
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterParticle");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="Number">
-            else if (pSmilesUtility.isIntegerNumber(tmpCurrentToken)) {
-                if (Integer.parseInt(tmpCurrentToken) == 0) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
+                if (this.getTokenValue(tmpCurrentToken, tmpValueOfSubstructure[i]) == 0) {
                     return MessagePSmiles.getString("StructureCheck.IllegalFrequency");
                 }
-                if (pSmilesUtility.isParticle(tmpNextToken) && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_PARTICLE && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticlePriorNormalBracket");
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorNormalClosingBracket");
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleAfterNumber");
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleAfterNumber");
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticlePriorConnection");
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleAfterNumber");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     return MessagePSmiles.getString("StructureCheck.InvalidPositionOfBackboneIndex");
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticlename");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="NormalBracketOpen">
-            else if (pSmilesUtility.isNormalBracketOpen(tmpCurrentToken)) {
-                if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     return MessagePSmiles.getString("StructureCheck.InSeriesOfNormalOpeningBrackets");
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     return MessagePSmiles.getString("StructureCheck.EmptyNormalBrackets");
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorRingClosure");
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // already checked
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorConnection");
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorHeadOrTail");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     return MessagePSmiles.getString("StructureCheck.InvalidPositionOfBackboneIndex");
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterNormalOpeningBracket");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="NormalBracketClose">
-            else if (pSmilesUtility.isNormalBracketClose(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorRingClosure");
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterNormalClosingBracket");
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // already checked
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorHeadOrTail");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterNormalClosingBracket");
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
-                    if (!pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[0])
-                            && !(pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[0])
-                            && pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[1]))) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
+                    if (this.innerTokenKinds[0] != PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN
+                            && !(this.innerTokenKinds[0] == PSmilesConstants.TOKEN_KIND_NUMBER
+                            && this.innerTokenKinds[1] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN)) {
                         return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterNormalClosingBracket");
                     }
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression        
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterNormalClosingBracket");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="RingClosure">
-            else if (pSmilesUtility.isRingClosure(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isStart(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_START) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isEnd(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_END) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression        
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterRingClosure");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="CurlyBracketOpen">
-            else if (pSmilesUtility.isCurlyBracketOpen(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // already checked - Structure or monomer begins
                 } // with an invalid character exception will be
                 // thrown
-                else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // already checked - Structure or monomer begins
                 } // with an invalid character exception will be
                 // thrown
-                else if (pSmilesUtility.isParticle(tmpNextToken) && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
+                else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_PARTICLE && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // already checked - A closing curly bracket is
                 } // missing exception will be thrown
-                else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression - it's a monomer.
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorConnection");
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     continue; // already checked - Structure or monomer begins
                 } // with an invalid character exception will be
                 // thrown
-                else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     return MessagePSmiles.getString("StructureCheck.MonomerInsideOfCurlyBracket");
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // legal expression
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterCurlyOpeningBracket");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="CurlyBracketClose">
-            else if (pSmilesUtility.isCurlyBracketClose(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     return MessagePSmiles.getString("StructureCheck.MissingAParticlePriorRingClosure");
-                } else if (pSmilesUtility.isParticle(tmpNextToken) && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_PARTICLE && pSmilesUtility.isAvailableParticle(tmpNextToken, anAvailableParticles)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // already checked - A closing curly bracket is
                 } // missing exception will be thrown
-                else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression - it's a monomer.
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     continue; // already checked - Structure or monomer begins
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     return MessagePSmiles.getString("StructureCheck.InvalidPositionOfBackboneIndex");
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterCurlyClosingBracket");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="Connection">
-            else if (pSmilesUtility.isConnection(tmpCurrentToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                 if (tmpIsRepeatParticle) {
                     tmpIsRepeatParticle = false;
                 }
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleBetweenConnectionAndNormalOpeningBracket");
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleBetweenConnectionAndNormalClosingBracket");
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleBetweenConnectionAndRingClosure");
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     return MessagePSmiles.getString("StructureCheck.InvalidLastCharacter");
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleBetweenTwoConnections");
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     return MessagePSmiles.getString("StructureCheck.MissingParticleBetweenConnectionAndHeadOrTail");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     return MessagePSmiles.getString("StructureCheck.InvalidPositionOfBackboneIndex");
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterConnection");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="Head or Tail">
-            else if (pSmilesUtility.isHeadTail(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if ((tmpCurrentKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpCurrentKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // already checked
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     return MessagePSmiles.getString("StructureCheck.MonomerAfterHeadOrTail");
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterHeadOrTail");
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterHeadTail");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="START or END">
-            else if (pSmilesUtility.isStartEnd(tmpCurrentToken)) {
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+            else if ((tmpCurrentKind == PSmilesConstants.TOKEN_KIND_START || tmpCurrentKind == PSmilesConstants.TOKEN_KIND_END)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // already checked
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isStartEnd(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_START || tmpNextKind == PSmilesConstants.TOKEN_KIND_END)) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression    
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterStartEnd");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="Monomer">
-            else if (pSmilesUtility.isMonomer(tmpCurrentToken)) {
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                 if (anIsMonomer) {
                     return MessagePSmiles.getString("StructureCheck.MonomerInMonomer");
                 }
-                if (pSmilesUtility.isNormalBracketOpen(tmpNextToken)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isNormalBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isRingClosure(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isCurlyBracketOpen(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     continue; // already checked
-                } else if (pSmilesUtility.isCurlyBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isConnection(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isHeadTail(tmpNextToken)) {
+                } else if ((tmpNextKind == PSmilesConstants.TOKEN_KIND_HEAD || tmpNextKind == PSmilesConstants.TOKEN_KIND_TAIL)) {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterMonomer");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     return MessagePSmiles.getString("StructureCheck.MonomerAfterMonomer");
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     continue; // belongs to monomer
-                } else if (pSmilesUtility.isAngleBracketClose(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE) {
                     continue; // legal expression
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     continue; // legal expression
                 } else {
                     return MessagePSmiles.getString("StructureCheck.InvalidParticleAfterMonomer");
                 }
             } // </editor-fold>
             // <editor-fold defaultstate="collapsed" desc="Backbone index">
-            else if (pSmilesUtility.isBackboneIndex(tmpCurrentToken)) {
-                tmpNumberOfBackboneIndexCandidat = Integer.parseInt(tmpCurrentToken.substring(1, tmpCurrentToken.length() - 1));
+            else if (tmpCurrentKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
+                tmpNumberOfBackboneIndexCandidat = this.getTokenValue(tmpCurrentToken, tmpValueOfSubstructure[i]);
                 if (tmpNumberOfBackboneIndexCandidat == 0) {
                     return MessagePSmiles.getString("StructureCheck.ZeroInBackboneindex");
                 }
@@ -1186,13 +1426,13 @@ public class PSmilesInner {
                 } else {
                     return MessagePSmiles.getString("StructureCheck.RedundancyOfBackboneIndices");
                 }
-                if (pSmilesUtility.isParticle(tmpNextToken)) {
+                if (tmpNextKind == PSmilesConstants.TOKEN_KIND_PARTICLE) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterBackboneIndex");
-                } else if (pSmilesUtility.isMonomer(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_MONOMER) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterBackboneIndex");
-                } else if (pSmilesUtility.isIntegerNumber(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
                     return MessagePSmiles.getString("StructureCheck.MissingAConnectionAfterBackboneIndex");
-                } else if (pSmilesUtility.isBackboneIndex(tmpNextToken)) {
+                } else if (tmpNextKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
                     MessagePSmiles.getString("StructureCheck.MultipleBackboneIndices");
                 }
             } // </editor-fold> 
@@ -1201,15 +1441,14 @@ public class PSmilesInner {
             }
         }
         // checks last token
-        if (pSmilesUtility.isIntegerNumber(tmpTokenOfSubstructure[tmpNumberOfTokens - 1])) {
+        if (tmpKindOfSubstructure[tmpNumberOfTokens - 1] == PSmilesConstants.TOKEN_KIND_NUMBER) {
             return MessagePSmiles.getString("StructureCheck.MissingParticleAfterNumber");
         }
-        if (pSmilesUtility.isMonomer(tmpTokenOfSubstructure[tmpNumberOfTokens - 1]) && anIsMonomer) {
+        if (tmpKindOfSubstructure[tmpNumberOfTokens - 1] == PSmilesConstants.TOKEN_KIND_MONOMER && anIsMonomer) {
             return MessagePSmiles.getString("StructureCheck.MonomerInMonomer");
         }
-        if (pSmilesUtility.isBackboneIndex(tmpTokenOfSubstructure[tmpNumberOfTokens - 1])) {
-            tmpNumberOfBackboneIndexCandidat = Integer.parseInt(tmpTokenOfSubstructure[tmpNumberOfTokens - 1].
-                substring(1, tmpTokenOfSubstructure[tmpNumberOfTokens - 1].length() - 1));
+        if (tmpKindOfSubstructure[tmpNumberOfTokens - 1] == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
+            tmpNumberOfBackboneIndexCandidat = this.getTokenValue(tmpTokenOfSubstructure[tmpNumberOfTokens - 1], tmpValueOfSubstructure[tmpNumberOfTokens - 1]);
             if (!tmpNumberOfBackboneIndex.contains(tmpNumberOfBackboneIndexCandidat)) {
                 tmpNumberOfBackboneIndex.add(tmpNumberOfBackboneIndexCandidat);
             } else {
@@ -1226,13 +1465,13 @@ public class PSmilesInner {
         int tmpNumberOfRegions = 1;
         if (aSubtructure.startsWith("(")) {
             for (int i = 1; i < this.getInnerStructureTokens().length; i++) {
-                if (pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[i])) {
+                if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     if (tmpDepthLevel == 0) {
                         tmpNumberOfRegions++;
                     }
                     tmpDepthLevel++;
                     continue;
-                } else if (pSmilesUtility.isNormalBracketClose(this.getInnerStructureTokens()[i])) {
+                } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     tmpDepthLevel--;
                 }
             }
@@ -1242,13 +1481,13 @@ public class PSmilesInner {
             tmpDepthLevel = 0;
             int tmpActualPart = 0;
             for (int i = 0; i < tmpNumberOfTokens; i++) {
-                if (pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[i])) {
+                if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                     if (tmpDepthLevel == 0) {
                         tmpStartPosition = i + 1;
                     }
                     tmpDepthLevel++;
                     continue;
-                } else if (pSmilesUtility.isNormalBracketClose(this.getInnerStructureTokens()[i])) {
+                } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                     tmpDepthLevel--;
                     if (tmpDepthLevel == 0) {
                         tmpEndPosition = i - 1;
@@ -1300,31 +1539,47 @@ public class PSmilesInner {
         // </editor-fold>
         return null;
     }
+
+    /**
+     * Returns the integer value of a number or backbone index token (see
+     * PSmilesUtility.getTokenValues())
+     *
+     * @param aToken Number or backbone index token
+     * @param aTokenValue Integer value of aToken
+     * @return Integer value of aToken
+     * @throws NumberFormatException Thrown if the value of aToken is not in
+     * the range of an integer
+     */
+    private int getTokenValue(String aToken, int aTokenValue) throws NumberFormatException {
+        if (aTokenValue < 0) {
+            throw new NumberFormatException("PSmilesInner.getTokenValue: Value of token " + aToken + " is out of integer range.");
+        }
+        return aTokenValue;
+    }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="- Particle neighbor related methods">
     /**
      * Determines all neighbor particles in a chemical structure represented
-     * by aTokens that are connected by a bond
-     *
-     * @param anIsReverseSequenceIncluded True: Return list of sequences
-     * also contains reverse sequences, i.e. if sequence {A, B} is in return
-     * list the sequence {B, A} will also be added, false: Otherwise (no
-     * redundant information)
-     * @return List of sequences. A sequence is an integer array of length 2
-     * and consists of indices of particles that are connected by a bond in
-     * the chemical structure that aTokens represents. For instance the
-     * structure "A-B-C" has two connections, namely "A-B" and "B-C" or
-     * expressed as particle index (don't mixed up with token index) "0-1"
-     * and "1-2". The result of this example is 0, 1 and 1, 2.
-     */
-    private LinkedList<int[]> getNeighborParticles(boolean anIsReverseSequenceIncluded) {
+     * by aTokens that are connected by a bond and sets the bonds (see
+     * setBonds()). A bond consists of indices of particles that are
+     * connected in the chemical structure that aTokens represents. For
+     * instance the structure "A-B-C" has two connections, namely "A-B" and
+     * "B-C" or expressed as particle index (don't mixed up with token index)
+     * "0-1" and "1-2".
+     */
+    private void setNeighborParticles() {
 
         // <editor-fold defaultstate="collapsed" desc="Initialisation">
-        LinkedList<int[]> tmpSequenceList = new LinkedList<>();
+        int[] tmpBonds = new int[2 * this.innerParticleIndices.length + 2];
+        int tmpNumberOfBonds = 0;
         int[] tmpSequence = new int[2];
-        int[] tmpHeadParticleIndices = null;
-        int[] tmpTailParticleIndices = null;
+        int[] tmpFirstHeadParticleIndices = null;
+        int[] tmpFirstTailParticleIndices = null;
+        if (pSmilesUtility.hasCurlyBracket(this.inputStructure)) {
+            tmpFirstHeadParticleIndices = this.getFirstTagParticleIndices(PSmilesConstants.TOKEN_KIND_HEAD);
+            tmpFirstTailParticleIndices = this.getFirstTagParticleIndices(PSmilesConstants.TOKEN_KIND_TAIL);
+        }
         boolean tmpHasRingClosure = false;
 
         // </editor-fold>
@@ -1337,70 +1592,63 @@ public class PSmilesInner {
         boolean tmpHasLeftParticle = false;
         boolean[] tmpIsParticleFlags = this.isInnerParticleList;
         String[] tmpInnerStructureTokens =  this.getInnerStructureTokens();
+        byte[] tmpInnerTokenKinds = this.innerTokenKinds;
 
         // Determine first particle of a link
         for (int i = 0; i < tmpInnerStructureTokens.length; i++) {
             // <editor-fold defaultstate="collapsed" desc="Token">
 
-            if (!tmpHasLeftParticle && (tmpIsParticleFlags[i] || pSmilesUtility.isMonomer(tmpInnerStructureTokens[i]))) {
-                while (this.innerParticleIndices[tmpLeftParticleIndex] < i) {
-                    tmpLeftParticleIndex++;
-                }
+            if (!tmpHasLeftParticle && (tmpIsParticleFlags[i] || tmpInnerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_MONOMER)) {
+                tmpLeftParticleIndex = this.innerTokenToParticle[i];
                 tmpHasLeftParticle = true;
-            } else if (pSmilesUtility.isCurlyBracketOpen(tmpInnerStructureTokens[i])) {
-                tmpHeadParticleIndices = getIndexOfParticles("[HEAD]", i);
-                tmpTailParticleIndices = getIndexOfParticles("[TAIL]", i);
+            } else if (tmpInnerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                 if (!tmpHasLeftParticle) {
-                    tmpSequence[0] = tmpTailParticleIndices[0];
+                    tmpSequence[0] = tmpFirstTailParticleIndices[i];
                     // search for next Particle which is connected with last
                     // TAIL particle
-                    int tmpParticleToTailIndex = this.getNextParticleConnectWithTailIndex(i);
+                    int tmpParticleToTailIndex = this.getNextParticleConnectWithTailIndex(i, tmpFirstHeadParticleIndices);
                     if (tmpParticleToTailIndex != -1) {
                         tmpSequence[1] = tmpParticleToTailIndex;
-                        tmpSequenceList.add(tmpSequence.clone());
+                        tmpBonds = this.addBond(tmpBonds, tmpNumberOfBonds++, tmpSequence);
                     }
                 }
-            } else if (!tmpHasLeftParticle && pSmilesUtility.isNormalBracketClose(tmpInnerStructureTokens[i])) {
+            } else if (!tmpHasLeftParticle && tmpInnerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                 tmpLeftBranchLevel--;
-            } else if (!tmpHasLeftParticle && pSmilesUtility.isNormalBracketOpen(tmpInnerStructureTokens[i])) {
+            } else if (!tmpHasLeftParticle && tmpInnerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                 tmpLeftBranchLevel++;
-            } else if (!tmpHasRingClosure && pSmilesUtility.isRingClosure(tmpInnerStructureTokens[i])) {
+            } else if (!tmpHasRingClosure && tmpInnerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_RING_CLOSURE) {
                 tmpHasRingClosure = true;
             } else if (tmpHasLeftParticle) {
                 // Determine the right particle of a link
                 tmpRightBranchLevel = tmpLeftBranchLevel;
                 for (int j = i; j < tmpInnerStructureTokens.length; j++) {
-                    if (pSmilesUtility.isConnection(tmpInnerStructureTokens[j])) {
+                    if (tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_CONNECTION) {
                         // legal expression
-                    } else if (pSmilesUtility.isCurlyBracketOpen(tmpInnerStructureTokens[j])) {
-                        tmpHeadParticleIndices = getIndexOfParticles("[HEAD]", j);
-                        tmpTailParticleIndices = getIndexOfParticles("[TAIL]", j);
+                    } else if (tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                         tmpSequence[0] = tmpLeftParticleIndex;
-                        tmpSequence[1] = tmpHeadParticleIndices[0];
-                        tmpSequenceList.add(tmpSequence.clone());
+                        tmpSequence[1] = tmpFirstHeadParticleIndices[j];
+                        tmpBonds = this.addBond(tmpBonds, tmpNumberOfBonds++, tmpSequence);
                         break;
-                    } else if (pSmilesUtility.isCurlyBracketClose(tmpInnerStructureTokens[j])) {
+                    } else if (tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                         break;
-                    } else if (pSmilesUtility.isNormalBracketOpen(tmpInnerStructureTokens[j])) {
+                    } else if (tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                         tmpRightBranchLevel++;
-                    } else if (pSmilesUtility.isNormalBracketClose(tmpInnerStructureTokens[j])) {
+                    } else if (tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                         tmpRightBranchLevel--;
                         if (tmpRightBranchLevel < tmpLeftBranchLevel) {
                             tmpLeftBranchLevel--;
                             break;
                         }
-                    } else if (tmpIsParticleFlags[j] || pSmilesUtility.isMonomer(tmpInnerStructureTokens[j])) {
+                    } else if (tmpIsParticleFlags[j] || tmpInnerTokenKinds[j] == PSmilesConstants.TOKEN_KIND_MONOMER) {
                         if (tmpLeftBranchLevel == tmpRightBranchLevel || (tmpLeftBranchLevel == tmpRightBranchLevel - 1 && isTokenAfterNormalBracketOpen(j))) {
-                            while (this.innerParticleIndices[tmpRightParticleIndex] < j) {
-                                tmpRightParticleIndex++;
-                            }
+                            tmpRightParticleIndex = this.innerTokenToParticle[j];
                             int tmpLeftRepeat = tmpTokenRepeatsNotInSeries[this.innerParticleIndices[tmpLeftParticleIndex]];
                             int tmpRightRepeat = tmpTokenRepeatsNotInSeries[this.innerParticleIndices[tmpRightParticleIndex]] / tmpLeftRepeat;
                             for (int ii = 0; ii < tmpLeftRepeat; ii++) {
                                 tmpSequence[0] = tmpLeftParticleIndex + ii;
                                 for (int jj = 0; jj < tmpRightRepeat; jj++) {
                                     tmpSequence[1] = tmpRightParticleIndex + ii * (tmpRightRepeat) + jj;
-                                    tmpSequenceList.add(tmpSequence.clone());
+                                    tmpBonds = this.addBond(tmpBonds, tmpNumberOfBonds++, tmpSequence);
                                 }
                             }
                             if (tmpLeftBranchLevel == tmpRightBranchLevel) {
@@ -1417,33 +1665,73 @@ public class PSmilesInner {
         }
 
         // <editor-fold defaultstate="collapsed" desc="- Ring closure">
-        int[][] tmpRingClosureParticleIndex = this.getRingClosureParticleIndices();
         if (tmpHasRingClosure) {
-            for (int i = 0; i < tmpRingClosureParticleIndex.length; i += 2) {
-                tmpSequence[0] = tmpRingClosureParticleIndex[i][1];
-                tmpSequence[1] = tmpRingClosureParticleIndex[i + 1][1];
-                if (!tmpSequenceList.stream().anyMatch(a -> Arrays.equals(a, tmpSequence))) {
-                    tmpSequenceList.add(tmpSequence.clone());
-                }
+            int[] tmpRingClosureBonds = this.getRingClosureBonds(tmpBonds, tmpNumberOfBonds);
+            for (int i = 0; i < tmpRingClosureBonds.length; i += 2) {
+                tmpSequence[0] = tmpRingClosureBonds[i];
+                tmpSequence[1] = tmpRingClosureBonds[i + 1];
+                tmpBonds = this.addBond(tmpBonds, tmpNumberOfBonds++, tmpSequence);
             }
         }
 
-        // </editor-fold>
-        // <editor-fold defaultstate="collapsed" desc="- Sort sequence list">
-
-        if (anIsReverseSequenceIncluded) {
-            int[][] tmpSequenceArray = tmpSequenceList.toArray(new int[0][]);
-            int tmpLinkSize = tmpSequenceList.size();
-            for (int i = 0; i < tmpLinkSize; i++) {
-                tmpSequence[0] = tmpSequenceArray[i][1];
-                tmpSequence[1] = tmpSequenceArray[i][0];
-                tmpSequenceList.add(tmpSequence.clone());
-            }
-        }
-        tmpSequenceList.sort(new ComparatorFirstIndex());
         // </editor-fold>
         // </editor-fold>
-        return tmpSequenceList;
+        this.setBonds(tmpBonds, tmpNumberOfBonds);
+    }
+
+    /**
+     * Adds a bond to bonds (array is enlarged if necessary)
+     *
+     * @param aBonds Bonds as consecutive pairs of particle indices
+     * @param aNumberOfBonds Number of bonds in aBonds
+     * @param aSequence Bond to be added
+     * @return Bonds (new array if aBonds was enlarged)
+     */
+    private int[] addBond(int[] aBonds, int aNumberOfBonds, int[] aSequence) {
+        if (2 * aNumberOfBonds + 1 >= aBonds.length) {
+            aBonds = Arrays.copyOf(aBonds, 2 * aBonds.length + 2);
+        }
+        aBonds[2 * aNumberOfBonds] = aSequence[0];
+        aBonds[2 * aNumberOfBonds + 1] = aSequence[1];
+        return aBonds;
+    }
+
+    /**
+     * Sets the bonds as compressed sparse row (CSR) graph: The neighbors of
+     * particle i are bondTargets[bondOffsets[i]] to
+     * bondTargets[bondOffsets[i + 1] - 1]. The rows are filled by counting
+     * sort (first all bonds in given order, then all reverse bonds in given
+     * order) so that no comparator sort is necessary.
+     *
+     * @param aBonds Bonds as consecutive pairs of particle indices
+     * @param aNumberOfBonds Number of bonds
+     */
+    private void setBonds(int[] aBonds, int aNumberOfBonds) {
+        int tmpParticleLength = this.innerParticleIndices.length;
+        int[] tmpOffsets = new int[tmpParticleLength + 1];
+        int[] tmpTargets = new int[2 * aNumberOfBonds];
+        for (int i = 0; i < 2 * aNumberOfBonds; i++) {
+            tmpOffsets[aBonds[i] + 1]++;
+        }
+        for (int i = 0; i < tmpParticleLength; i++) {
+            tmpOffsets[i + 1] += tmpOffsets[i];
+        }
+        // Fill cursor per particle
+        int[] tmpCursors = Arrays.copyOf(tmpOffsets, tmpParticleLength);
+        for (int i = 0; i < aNumberOfBonds; i++) {
+            tmpTargets[tmpCursors[aBonds[2 * i]]++] = aBonds[2 * i + 1];
+        }
+        for (int i = 0; i < aNumberOfBonds; i++) {
+            tmpTargets[tmpCursors[aBonds[2 * i + 1]]++] = aBonds[2 * i];
+        }
+        this.bondOffsets = tmpOffsets;
+        this.bondTargets = tmpTargets;
+        this.adjacentArray = null;
+        this.coordinateTemplate = null;
+        this.heuristicDiameter = null;
+        this.pathStartToEnd = null;
+        this.graphMetrics = null;
+        this.canonicalLabeling = null;
     }
     // </editor-fold>
     //
@@ -1467,13 +1755,13 @@ public class PSmilesInner {
         if (this.getInnerStructureTokens().length == 1) {
             return this.getInnerStructureTokens();
         }
-        if (pSmilesUtility.isMonomer(this.getInnerStructureTokens()[0])) {
+        if (this.innerTokenKinds[0] == PSmilesConstants.TOKEN_KIND_MONOMER) {
             tmpTokenList1.add(this.getInnerStructureTokens()[0]);
         }
         for (int i = 1; i < this.getInnerStructureTokens().length; i++) {
-            if (pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[i - 1])) {
-                if (pSmilesUtility.isParticle(this.getInnerStructureTokens()[i])) {
-                    tmpFrequencyNumber = Integer.parseInt(this.getInnerStructureTokens()[i - 1]);
+            if (this.innerTokenKinds[i - 1] == PSmilesConstants.TOKEN_KIND_NUMBER) {
+                if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_PARTICLE) {
+                    tmpFrequencyNumber = this.innerTokenValues[i - 1];
                     for (int j = 0; j < tmpFrequencyNumber; j++) {
                         tmpTokenList1.add("1");
                         tmpTokenList1.add(this.getInnerStructureTokens()[i]);
@@ -1485,7 +1773,7 @@ public class PSmilesInner {
                     tmpTokenList1.add(this.getInnerStructureTokens()[i - 1]);
                     tmpTokenList1.add(this.getInnerStructureTokens()[i]);
                 }
-            } else if (pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[i])) {
+            } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NUMBER) {
                 if (i == 1) {
                     tmpTokenList1.add(this.getInnerStructureTokens()[0]);
                 }
@@ -1498,10 +1786,12 @@ public class PSmilesInner {
         // <editor-fold defaultstate="collapsed" desc="- Numbers prior curly bracket">
         String[] tmpTokenArray1 = tmpTokenList1.toArray(new String[0]);
         if (pSmilesUtility.hasCurlyBracket(this.inputStructure)) {
+            byte[] tmpTokenKinds1 = pSmilesUtility.getTokenKinds(tmpTokenArray1);
+            int[] tmpTokenValues1 = pSmilesUtility.getTokenValues(tmpTokenArray1, tmpTokenKinds1);
             while (tmpIndex < tmpTokenArray1.length - 1) {
-                if (pSmilesUtility.isIntegerNumber(tmpTokenArray1[tmpIndex])
-                        && pSmilesUtility.isCurlyBracketOpen(tmpTokenArray1[tmpIndex + 1])) {
-                    tmpFrequencyNumber = Integer.parseInt(tmpTokenArray1[tmpIndex]);
+                if (tmpTokenKinds1[tmpIndex] == PSmilesConstants.TOKEN_KIND_NUMBER
+                        && tmpTokenKinds1[tmpIndex + 1] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
+                    tmpFrequencyNumber = tmpTokenValues1[tmpIndex];
                     tmpIsAfterNumber = true;
                 } else {
                     if (tmpIsAfterNumber) {
@@ -1513,6 +1803,7 @@ public class PSmilesInner {
                             tmpTokenList2.addAll(tmpHelperList);
                             tmpTokenList2.add("}");
                         }
+                        tmpHelperList.clear();
                         tmpIsAfterNumber = false;
                     } else {
                         tmpTokenList2.add(tmpTokenArray1[tmpIndex]);
@@ -1616,10 +1907,10 @@ public class PSmilesInner {
         Arrays.fill(tmpIsNumberFlags, false);
 
         for (int i = 0; i < tmpNumberOfTokens; i++) {
-            if (pSmilesUtility.isParticle(this.getInnerStructureTokens()[i]) || pSmilesUtility.isMonomer(this.getInnerStructureTokens()[i])) {
+            if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_PARTICLE || this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_MONOMER) {
                 tmpNumberOfTokenRepetitions[i] = 1;
             }
-            if (pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[i])) {
+            if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NUMBER) {
                 tmpIsNumberFlags[i] = true;
             }
         }
@@ -1635,9 +1926,9 @@ public class PSmilesInner {
                         tmpNumberOfTokenRepetitions[i] = tmpNumberOfCurrentRepetitions;
                         continue;
                     }
-                } else if (pSmilesUtility.isCurlyBracketOpen(this.getInnerStructureTokens()[i])) {
+                } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
                     int j = i + 1;
-                    while (!pSmilesUtility.isCurlyBracketClose(this.getInnerStructureTokens()[j])) {
+                    while (this.innerTokenKinds[j] != PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
                         if (j >= tmpNumberOfTokens) {
                             break;
                         }
@@ -1663,6 +1954,14 @@ public class PSmilesInner {
                 this.innerParticles[i] = this.getInnerStructureTokens()[this.innerParticleIndices[i]];
                 this.isInnerParticleList[this.innerParticleIndices[i]] = true;
             }
+            this.innerTokenToParticle = new int[this.getInnerStructureTokens().length];
+            int tmpParticleIndex = -1;
+            for (int i = 0; i < this.innerTokenToParticle.length; i++) {
+                while (tmpParticleIndex + 1 < totalNumberOfParticles && this.innerParticleIndices[tmpParticleIndex + 1] <= i) {
+                    tmpParticleIndex++;
+                }
+                this.innerTokenToParticle[i] = tmpParticleIndex;
+            }
         }
     }
 
@@ -1672,7 +1971,7 @@ public class PSmilesInner {
      * @return 0-based index number of particle with "START"-tag
      */
     private int getStartTagParticleIndex() {
-        return this.getStartEndParticleIndex("[START]");
+        return this.getStartEndParticleIndex(PSmilesConstants.TOKEN_KIND_START);
     }
     
     /**
@@ -1681,34 +1980,29 @@ public class PSmilesInner {
      * @return 0-based index number of particle with "END"-tag
      */
     private int getEndTagParticleIndex() {
-        return this.getStartEndParticleIndex("[END]");
+        return this.getStartEndParticleIndex(PSmilesConstants.TOKEN_KIND_END);
     }
 
     /**
      * Determine the particle position with "START"- or "END"-tag
-     * @param aTokenName
-     * @return 
+     * @param aTagKind PSmilesConstants.TOKEN_KIND_START or
+     * PSmilesConstants.TOKEN_KIND_END
+     * @return 0-based index number of particle with tag
      */
-    private int getStartEndParticleIndex(String aTokenName) {
-        int indexOfResult = 0;
+    private int getStartEndParticleIndex(byte aTagKind) {
         int indexOfEndToken = 0;
         if (!this.hasStartEndAttribute) {
             return -1;
         } else {
-            for (int i = 0; i < this.getInnerStructureTokens().length; i++) {
-                if (this.getInnerStructureTokens()[i].equals(aTokenName)) {
+            for (int i = 0; i < this.innerTokenKinds.length; i++) {
+                if (this.innerTokenKinds[i] == aTagKind) {
                     indexOfEndToken = i;
                     break;
                 }
             }
-            for (int i = this.innerParticleIndices.length - 1; i >= 0; i--) {
-                if (indexOfEndToken > this.innerParticleIndices[i]) {
-                    indexOfResult = i;
-                    break;
-                }
-            }
+            // Last particle prior to the tag token (0: None)
+            return Math.max(this.innerTokenToParticle[indexOfEndToken], 0);
         }
-        return indexOfResult;
     }
 
     /**
@@ -1718,9 +2012,9 @@ public class PSmilesInner {
      */
     private String[] getMonomerList() {
         HashSet<String> tmpMonomersHashSet = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-        for (String tmpSingleToken : this.getInnerStructureTokens()) {
-            if (!tmpMonomersHashSet.contains(tmpSingleToken) && pSmilesUtility.isMonomer(tmpSingleToken)) {
-                tmpMonomersHashSet.add(tmpSingleToken);
+        for (int i = 0; i < this.innerTokenKinds.length; i++) {
+            if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_MONOMER) {
+                tmpMonomersHashSet.add(this.getInnerStructureTokens()[i]);
             }
         }
         if (tmpMonomersHashSet.isEmpty()) {
@@ -1731,153 +2025,92 @@ public class PSmilesInner {
     }
 
     /**
-     * Counts the number of neighbor particles of a particle
+     * Counts the number of neighbor particles of a particle and sets the
+     * maximum number of connections of a single particle
      *
-     * @param aLink All links of a Structure
-     * @param aParticleLength Number of all particles of a structure
      * @return Number of neighbor particles
      */
     private int[] getFrequencyOfNeighborParticles() {
         int tmpPartLength = this.innerParticles.length;
-        int tmpTargetIndexPosition = 0;
         int[] tmpResults = new int[tmpPartLength];
-        int[] tmpInterimResults = new int[tmpPartLength];
-
-        for (int[] tmpConnectedParticlesListItem : this.connectedParticlesList) {
-            tmpInterimResults[tmpConnectedParticlesListItem[0]]++;
+        this.maximumNumberOfConnectionsOfSingleParticle = 0;
+        for (int i = 0; i < tmpPartLength; i++) {
+            tmpResults[i] = this.bondOffsets[i + 1] - this.bondOffsets[i];
+            if (tmpResults[i] > this.maximumNumberOfConnectionsOfSingleParticle) {
+                this.maximumNumberOfConnectionsOfSingleParticle = tmpResults[i];
+            }
         }
-        System.arraycopy(tmpInterimResults, 0, tmpResults, tmpTargetIndexPosition, tmpInterimResults.length);
-        tmpTargetIndexPosition += tmpPartLength;
-
         return tmpResults;
     }
 
     /**
-     * Determine the index position of a particle with related pattern
+     * Determines for every token position the particle of the first HEAD or
+     * TAIL tag at or after this position in a single backward pass over the
+     * tokens: The particle of a tag is the last particle prior to it (with
+     * the repetitions of this particle).
      *
-     * @param aPattern A Pattern
-     * @param aStartIndex Start index of token list
-     * @return Index positions of all particles with related pattern
+     * @param aTagKind PSmilesConstants.TOKEN_KIND_HEAD or
+     * PSmilesConstants.TOKEN_KIND_TAIL
+     * @return Array with the index of the particle of the first tag at or
+     * after token position i at index i (-1: None)
      */
-    private int[] getIndexOfParticles(String aPattern, int aStartIndex) {
-
-        // <editor-fold defaultstate="collapsed" desc="Simple checks">
-        if (aPattern == null || aPattern.isEmpty()) {
-            return null;
-        }
-        if (aStartIndex < 0 || aStartIndex > this.getInnerStructureTokens().length - 1) {
-            return null;
-        }
-
-        // </editor-fold>
-        ArrayDeque<Integer> tmpParticleIndex = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int tmpSearchIndex = 0;
-        int tmpRepeat = 1;
-        for (int i = aStartIndex; i < this.getInnerStructureTokens().length; i++) {
-            if (this.isInnerParticleList[i]) {
-                if (i > 0 && pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[i - 1])) {
-                    tmpRepeat = Integer.parseInt(this.getInnerStructureTokens()[i - 1]);
-                } else {
-                    tmpRepeat = 1;
-                }
-                tmpSearchIndex = i;
-            }
-            if (this.getInnerStructureTokens()[i].equals(aPattern)) {
-                for (int j = 0; j < this.innerParticleIndices.length; j++) {
-                    if (this.innerParticleIndices[j] == tmpSearchIndex) {
-                        tmpParticleIndex.add(j + tmpRepeat - 1);
-                        j += tmpRepeat - 1;
+    private int[] getFirstTagParticleIndices(byte aTagKind) {
+        int tmpNumberOfTokens = this.getInnerStructureTokens().length;
+        int[] tmpResults = new int[tmpNumberOfTokens + 1];
+        tmpResults[tmpNumberOfTokens] = -1;
+        // Particle of the first tag after the current position
+        int tmpTagParticleIndex = -1;
+        for (int i = tmpNumberOfTokens - 1; i >= 0; i--) {
+            if (this.innerTokenKinds[i] == aTagKind) {
+                // No particle between position i and tag: The first particle
+                // is used if it is the first token
+                tmpResults[i] = this.isInnerParticleList[0] ? 0 : tmpResults[i + 1];
+                tmpTagParticleIndex = this.innerTokenToParticle[i];
+                if (tmpTagParticleIndex >= 0) {
+                    int tmpTagParticleTokenIndex = this.innerParticleIndices[tmpTagParticleIndex];
+                    if (tmpTagParticleTokenIndex > 0 && this.innerTokenKinds[tmpTagParticleTokenIndex - 1] == PSmilesConstants.TOKEN_KIND_NUMBER) {
+                        tmpTagParticleIndex += this.innerTokenValues[tmpTagParticleTokenIndex - 1] - 1;
                     }
                 }
+            } else if (this.isInnerParticleList[i]) {
+                tmpResults[i] = tmpTagParticleIndex;
+            } else {
+                tmpResults[i] = tmpResults[i + 1];
             }
         }
-        int[] tmpResults = tmpParticleIndex.stream()
-                .mapToInt(Integer::intValue)
-                .toArray();
         return tmpResults;
     }
 
     /**
-     * Overloaded method. Determines the path from START particle to END
-     * particle. The path is not necessarely the longest possible.
+     * Memoised path from START particle to END particle (breadth-first
+     * search with the path engine of the current thread). NOTE: Do NOT
+     * change the returned array.
      *
-     * @ param aPart: A part of PSmiles
      * @return Array of particles from START-particle to END-particle.
      */
-    private int[] getPathStartToEnd(PSmilesInner aPart) {
-        ArrayDeque<Integer> tmpPath = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        ArrayDeque<Integer> tmpResultPath = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int[] tmpNextVertice = new int[aPart.innerParticleIndices.length];
-        int[] tmpResult;
-        int tmpActualVertice = 0;
-        int tmpParticleLength = aPart.innerParticleIndices.length;
-        boolean[] tmpVisitedParticleFlag = new boolean[tmpParticleLength];
-        boolean tmpPointerAtEnd;
-
-        // Traverse the graph from [START] to [END] and fit the vertices
-        // together to the path.
-        // Simple breadth-first search algorithm is used.
-        Arrays.fill(tmpVisitedParticleFlag, false);
-        Queue<Integer> tmpQueue = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        tmpQueue.add(aPart.startParticleIndex);
-        tmpNextVertice[0] = 0;
-        tmpVisitedParticleFlag[aPart.startParticleIndex] = true;
-        while (!tmpQueue.isEmpty()) {
-            tmpActualVertice = tmpQueue.remove();
-            if (tmpActualVertice == aPart.endParticleIndex) {
-                tmpQueue.remove(tmpActualVertice);
-                tmpVisitedParticleFlag[tmpActualVertice] = true;
-                break;
-            }
-            for (int tmpNextParticleItem : aPart.adjacentArray[tmpActualVertice]) {
-                if (!tmpVisitedParticleFlag[tmpNextParticleItem]) {
-                    tmpNextVertice[tmpNextParticleItem] = tmpActualVertice;
-                    tmpVisitedParticleFlag[tmpNextParticleItem] = true;
-                    tmpQueue.add(tmpNextParticleItem);
-                }
-            }
+    private int[] getMemoisedPathStartToEnd() {
+        int[] tmpPathStartToEnd = this.pathStartToEnd;
+        if (tmpPathStartToEnd == null) {
+            tmpPathStartToEnd = DepthFirstPathEngine.getInstance(this.bondOffsets.length - 1).getShortestPath(this.bondOffsets, this.bondTargets, this.startParticleIndex, this.endParticleIndex);
+            this.pathStartToEnd = tmpPathStartToEnd;
         }
-        tmpPointerAtEnd = false;
-        tmpActualVertice = aPart.endParticleIndex;
-        tmpPath.add(tmpActualVertice);
-        while (!tmpPointerAtEnd) {
-            tmpActualVertice = tmpNextVertice[tmpActualVertice];
-            tmpPath.add(tmpActualVertice);
-            if (tmpActualVertice == aPart.startParticleIndex) {
-                tmpPointerAtEnd = true;
-            }
-        }
-        Iterator tmpIterator = tmpPath.descendingIterator();
-        while(tmpIterator.hasNext())
-            {
-                tmpResultPath.add((Integer)tmpIterator.next());
-            }
-        tmpResult = tmpResultPath.stream()
-                .mapToInt(Integer::intValue)
-                .toArray();
-        return tmpResult;
+        return tmpPathStartToEnd;
     }
 
     /**
-     * Overloaded method. Determines a heuristic diameter. This algorithm
-     * choose an arbitrary start particle s. The particle (v) at the
-     * farthest from s is then traced. Depth First Search Algorithm (DFS) is
-     * used. Again, from v DFS is used to find the particle (w) at the
-     * farthest of v. This algorithm get the correct diameter, if the
-     * structure is not cyclic. To find the real diameter all possible
-     * shortest path between terminal particles have to determined. The
-     * longest of them is the diameter. This will take too much computing
-     * time by structures with many particles.
+     * Memoised heuristic diameter (see getHeuristicDiameter(), determined
+     * with the path engine of the current thread). NOTE: Do NOT change the
+     * returned array.
      *
-     * @param aPart: A part of PSmiles
+     * @return Array of particles from v-particle to w-particle.
      */
-    private int[] getHeuristicDiameter(PSmilesInner aPart) {
-        int tmpStartParticleIndex = 0;
-
-        DepthFirstPath dfs = new DepthFirstPath(aPart.adjacentArray, tmpStartParticleIndex);
-        tmpStartParticleIndex = dfs.getEndParticleIndex();
-        dfs = new DepthFirstPath(aPart.adjacentArray, tmpStartParticleIndex);
-        return dfs.getDiameterPath();
+    private int[] getMemoisedHeuristicDiameter() {
+        int[] tmpHeuristicDiameter = this.heuristicDiameter;
+        if (tmpHeuristicDiameter == null) {
+            tmpHeuristicDiameter = DepthFirstPathEngine.getInstance(this.bondOffsets.length - 1).getHeuristicDiameter(this.bondOffsets, this.bondTargets);
+            this.heuristicDiameter = tmpHeuristicDiameter;
+        }
+        return tmpHeuristicDiameter;
     }
 
     /**
@@ -1885,29 +2118,29 @@ public class PSmilesInner {
      * particle
      *
      * @param aStartIndex The token start index position
+     * @param aFirstHeadParticleIndices Particles of the first HEAD tag at or
+     * after token positions (see getFirstTagParticleIndices())
      * @return The particle index position which is connected with tail
      * particle If nothing is found -1 will be return.
      */
-    private int getNextParticleConnectWithTailIndex(int aStartIndex) {
+    private int getNextParticleConnectWithTailIndex(int aStartIndex, int[] aFirstHeadParticleIndices) {
 
         int tmpCursorIndex = aStartIndex;
         int tmpBranchLevel = 0;
-        while (!pSmilesUtility.isCurlyBracketClose(this.getInnerStructureTokens()[tmpCursorIndex])) {
+        while (this.innerTokenKinds[tmpCursorIndex] != PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE) {
             tmpCursorIndex++;
         }
         for (int i = tmpCursorIndex; i < this.getInnerStructureTokens().length; i++) {
-            if (pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[i])) {
+            if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
                 tmpBranchLevel++;
-            } else if (pSmilesUtility.isNormalBracketClose(this.getInnerStructureTokens()[i])) {
+            } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
                 tmpBranchLevel--;
-            } else if (tmpBranchLevel == 0 && (this.isInnerParticleList[i] || pSmilesUtility.isMonomer(this.getInnerStructureTokens()[i]))) {
-                for (int j = 0; j < this.innerParticleIndices.length; j++) {
-                    if (this.innerParticleIndices[j] == i) {
-                        return j;
-                    }
+            } else if (tmpBranchLevel == 0 && (this.isInnerParticleList[i] || this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_MONOMER)) {
+                if (this.isInnerParticleList[i]) {
+                    return this.innerTokenToParticle[i];
                 }
-            } else if (pSmilesUtility.isCurlyBracketOpen(this.getInnerStructureTokens()[i])) {
-                return getIndexOfParticles("[HEAD]", i)[0];
+            } else if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN) {
+                return aFirstHeadParticleIndices[i];
             }
         }
         return -1;
@@ -1925,10 +2158,10 @@ public class PSmilesInner {
             return false;
         }
         for (int i = aPosition - 1; i >= 0; i--) {
-            if (pSmilesUtility.isIntegerNumber(this.getInnerStructureTokens()[i])) {
+            if (this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NUMBER) {
                 continue;
             }
-            return pSmilesUtility.isNormalBracketOpen(this.getInnerStructureTokens()[i]);
+            return this.innerTokenKinds[i] == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN;
         }
         return false;
     }
@@ -1990,73 +2223,30 @@ public class PSmilesInner {
     }
 
     /**
-     * Determine particle index positions of particles with ringclosure tags
-     * @param aInputStructure
-     * @return particle indices of particles with ringclosure tags
-    */
-    private int[][] getRingClosureParticleIndices() {
-        int[][] tmpResult;
-        int[] tmpRingIndex = new int[2];
-        int tmpIndexOfLeftLimit = 0;
-        int tmpIndexOfRightLimit = 0;
-        int tmpNumberOfOpeningAngularBrackets = pSmilesUtility.getFrequencyOfCharacterInString(this.inputStructure, "[");
-        int tmpNumberOfRingClosures = 0;
-        String tmpStringBetweenAngularBrackets;
+     * Determines the bonds of ring closures in a single pass over the
+     * tokens: The first two occurrences of a ring closure label are paired
+     * (see RingClosureMatcher), a ring closure belongs to the particle prior
+     * to it.
+     *
+     * @param aBonds Existing bonds as consecutive pairs of particle indices
+     * @param aNumberOfBonds Number of existing bonds
+     * @return Bonds of ring closures in ascending order of their labels
+     * (without existing bonds) as consecutive pairs of particle indices
+     */
+    private int[] getRingClosureBonds(int[] aBonds, int aNumberOfBonds) {
         String[] tmpTokens = this.getInnerStructureTokens();
-        ArrayDeque<Integer> tmpRingClosureNumbersList = new ArrayDeque<>(PSmilesConstants.DEFAULT_ARRAYDEQUE_INITIAL_CAPACITY);
-        int[] tmpRingClosureNumbersArray;
-
-        // checks existence of ringclosure particle
-        if (tmpNumberOfOpeningAngularBrackets == 0) {
-            return new int[0][];
-        }
-        for (int i = 0; i < tmpNumberOfOpeningAngularBrackets; i++) {
-            tmpIndexOfLeftLimit = this.inputStructure.indexOf('[', tmpIndexOfLeftLimit);
-            tmpIndexOfRightLimit = this.inputStructure.indexOf(']', tmpIndexOfRightLimit);
-            tmpStringBetweenAngularBrackets = this.inputStructure.substring(tmpIndexOfLeftLimit + 1, tmpIndexOfRightLimit);
-            if (pSmilesUtility.isIntegerNumber(tmpStringBetweenAngularBrackets)) {
-                tmpNumberOfRingClosures++;
-                tmpRingClosureNumbersList.add(Integer.parseInt(tmpStringBetweenAngularBrackets));
-            }
-            tmpIndexOfLeftLimit = tmpIndexOfRightLimit + 1;
-            tmpIndexOfRightLimit = tmpIndexOfLeftLimit;
-        }
-        if (tmpNumberOfRingClosures == 0) {
-            return new int[0][];
-        }
-        tmpRingClosureNumbersArray = tmpRingClosureNumbersList.stream()
-               .mapToInt(Integer::intValue)
-               .sorted()
-               .toArray();
-        LinkedList<int[]>tmpHelpingList = new LinkedList<>();
-        int tmpMatchNumber = 0;
-        String tmpMatchString;
-        for (int i = 0; i < tmpRingClosureNumbersArray.length; i += 2) {
-            tmpMatchString = "[" + tmpRingClosureNumbersArray[i] + "]";
-            for (int j = 0; j < tmpTokens.length; j++) {
-                if (tmpMatchString.equals(tmpTokens[j])) {
-                    tmpRingIndex[0] = tmpRingClosureNumbersArray[i]; 
-                    tmpRingIndex[1] = j;
-                    tmpHelpingList.add(tmpRingIndex.clone());
-                    tmpMatchNumber++;
-                    if (tmpMatchNumber == 2) {
-                        tmpMatchNumber = 0;
-                        break;
-                    }
-                }
+        RingClosureMatcher tmpMatcher = new RingClosureMatcher(false);
+        int tmpParticleIndex = -1;
+        for (int i = 0; i < tmpTokens.length; i++) {
+            while (tmpParticleIndex + 1 < this.innerParticleIndices.length && this.innerParticleIndices[tmpParticleIndex + 1] < i) {
+                tmpParticleIndex++;
             }
-        }
-        tmpHelpingList.sort(new ComparatorFirstIndex());
-        tmpResult = tmpHelpingList.toArray(new int[0][]);
-        for (int[] tmpResultItem : tmpResult) {
-            for (int j = innerParticleIndices.length - 1; j >= 0; j--) {
-                if (tmpResultItem[1] > this.innerParticleIndices[j]) {
-                    tmpResultItem[1] = j;
-                    break;
-                }
+            int tmpLabel = pSmilesUtility.getRingClosureLabel(tmpTokens[i]);
+            if (tmpLabel >= 0 && tmpParticleIndex >= 0) {
+                tmpMatcher.addRingClosure(0, tmpLabel, tmpParticleIndex);
             }
         }
-        return tmpResult;
+        return tmpMatcher.getBonds(aBonds, aNumberOfBonds);
     }
     // </editor-fold>
     // </editor-fold>
@@ -0,0 +1,3085 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Single-pass parser for PSmiles input structures. The input structure is
+ * checked, tokenized, compiled (expansion of repetitions) and the bonds of
+ * all parts are determined in one left-to-right scan over its characters
+ * with an explicit branch stack, i.e. parse time is linear in the length of
+ * the input structure. Error messages, compiled tokens, particle indices
+ * and bonds correspond to those of the token pipeline of PSmilesInner.
+ *
+ * @author Achim Zielesny
+ */
+public class PSmilesParser {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    // <editor-fold defaultstate="collapsed" desc="- Error levels and categories">
+    /**
+     * Error level: Invalid white space
+     */
+    private static final int LEVEL_WHITE_SPACE = 0;
+
+    /**
+     * Error level: Outer parts (angle brackets)
+     */
+    private static final int LEVEL_OUTER = 1;
+
+    /**
+     * Error level: Part
+     */
+    private static final int LEVEL_PART = 2;
+
+    /**
+     * Outer category: No tokens
+     */
+    private static final int OUTER_NO_TOKENS = 0;
+
+    /**
+     * Outer category: Sequence of angle brackets
+     */
+    private static final int OUTER_SEQUENCE = 1;
+
+    /**
+     * Outer category: Empty angle brackets
+     */
+    private static final int OUTER_EMPTY = 2;
+
+    /**
+     * Outer category: Invalid character prior angle bracket
+     */
+    private static final int OUTER_PRIOR = 3;
+
+    /**
+     * Outer category: Invalid character after last angle bracket
+     */
+    private static final int OUTER_AFTER = 4;
+
+    /**
+     * Outer category: No part at all
+     */
+    private static final int OUTER_NO_PART = 5;
+
+    /**
+     * Part category: No monomer
+     */
+    private static final int PART_NO_MONOMER = 0;
+
+    /**
+     * Part category: Invalid character
+     */
+    private static final int PART_INVALID_CHARACTER = 1;
+
+    /**
+     * Part category: Sequence of curly brackets
+     */
+    private static final int PART_CURLY_SEQUENCE = 2;
+
+    /**
+     * Part category: Empty curly brackets
+     */
+    private static final int PART_EMPTY_CURLY = 3;
+
+    /**
+     * Context category: First character
+     */
+    private static final int CONTEXT_FIRST_CHARACTER = 0;
+
+    /**
+     * Context category: Last character
+     */
+    private static final int CONTEXT_LAST_CHARACTER = 1;
+
+    /**
+     * Context category: Particle after normal closing bracket, e.g. (A-B)A
+     */
+    private static final int CONTEXT_PARTICLE_AFTER_BRANCH = 2;
+
+    /**
+     * Context category: Backbone index in monomer
+     */
+    private static final int CONTEXT_BACKBONE_IN_MONOMER = 3;
+
+    /**
+     * Context category: Sequence of angular brackets
+     */
+    private static final int CONTEXT_ANGULAR_SEQUENCE = 4;
+
+    /**
+     * Context category: Content of angular brackets
+     */
+    private static final int CONTEXT_ANGULAR_CONTENT = 5;
+
+    /**
+     * Context category: Number of attributes in angular brackets
+     */
+    private static final int CONTEXT_ANGULAR_COUNT = 6;
+
+    /**
+     * Context category: Ring closures
+     */
+    private static final int CONTEXT_RING_CLOSURE = 7;
+
+    /**
+     * Context category: Normal brackets
+     */
+    private static final int CONTEXT_NORMAL_BRACKET = 8;
+
+    /**
+     * Context category: Backbone indices
+     */
+    private static final int CONTEXT_BACKBONE = 9;
+
+    /**
+     * Context category: Sequence of tokens
+     */
+    private static final int CONTEXT_TOKEN = 10;
+
+    /**
+     * Context category: Structure out of one part
+     */
+    private static final int CONTEXT_ONE_PART = 11;
+
+    /**
+     * No error
+     */
+    private static final int NO_ERROR = Integer.MAX_VALUE;
+    // </editor-fold>
+    //
+    /**
+     * Initial capacity of token, particle and bond arrays
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Body context of a part
+     */
+    private final StructureContext bodyContext = new StructureContext(false);
+
+    /**
+     * Context of the current monomer (content of curly brackets) of a part
+     */
+    private final StructureContext monomerContext = new StructureContext(true);
+
+    /**
+     * Canonical particle and token strings
+     */
+    private final HashMap<String, String> tokenStrings = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    // <editor-fold defaultstate="collapsed" desc="- Parse settings and results">
+    /**
+     * Available particles
+     */
+    private HashMap<String, String> availableParticles;
+
+    /**
+     * True: Input structure is a monomer, false: Otherwise
+     */
+    private boolean isMonomer;
+
+    /**
+     * True: Input structure is only validated (no parts are created),
+     * false: Otherwise
+     */
+    private boolean isValidationOnly;
+
+    /**
+     * True: All violations are collected as diagnostics, false: Only the
+     * first error is determined
+     */
+    private boolean isCollectingDiagnostics;
+
+    /**
+     * Input structure as passed to scan() (null: Validation only)
+     */
+    private CharSequence sourceStructure;
+
+    /**
+     * Input structure without white spaces (compact Latin-1 storage for
+     * ASCII input structures, only created from the first white space on:
+     * null means the characters read so far correspond to those of
+     * this.sourceStructure)
+     */
+    private StringBuilder structure;
+
+    /**
+     * Length of input structure without white spaces
+     */
+    private int structureLength;
+
+    /**
+     * Input structure without white spaces (null if input structure has an
+     * invalid white space)
+     */
+    private String inputStructure;
+
+    /**
+     * Error level (NO_ERROR: No error)
+     */
+    private int errorLevel;
+
+    /**
+     * Error rank within error level
+     */
+    private int errorRank;
+
+    /**
+     * Error message key
+     */
+    private String errorKey;
+
+    /**
+     * Error offset (zero-based index in input structure without white
+     * spaces)
+     */
+    private int errorOffset;
+
+    /**
+     * Diagnostics (offset in upper and ordinal of error code in lower 32
+     * bits)
+     */
+    private long[] diagnostics;
+
+    /**
+     * Number of diagnostics
+     */
+    private int numberOfDiagnostics;
+
+    /**
+     * Diagnostics of current part (see this.diagnostics) that are added to
+     * the diagnostics when the part ends
+     */
+    private long[] partDiagnostics;
+
+    /**
+     * Number of diagnostics of current part
+     */
+    private int numberOfPartDiagnostics;
+
+    /**
+     * Parts (with repetitions)
+     */
+    private ArrayList<String> parts;
+
+    /**
+     * Parts of PSmiles (with repetitions)
+     */
+    private ArrayList<PSmilesInner> partsOfPSmiles;
+
+    /**
+     * Distinct parts of PSmiles
+     */
+    private HashMap<String, PSmilesInner> partMap;
+
+    /**
+     * Number of valid parts (with repetitions)
+     */
+    private long numberOfValidParts;
+
+    /**
+     * Total number of particles of valid parts (with repetitions,
+     * Long.MAX_VALUE if too large)
+     */
+    private long numberOfValidParticles;
+
+    /**
+     * True: Input structure has angle brackets, false: Otherwise
+     */
+    private boolean hasAngleBrackets;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Outer parts">
+    /**
+     * True: Scan is inside angle brackets, false: Otherwise
+     */
+    private boolean isInPart;
+
+    /**
+     * Number of characters outside angle brackets since last angle bracket
+     */
+    private int gapLength;
+
+    /**
+     * Offset of first character outside angle brackets since last angle
+     * bracket
+     */
+    private int gapOffset;
+
+    /**
+     * Offset of first non-digit character outside angle brackets since last
+     * angle bracket (-1: None)
+     */
+    private int gapInvalidOffset;
+
+    /**
+     * Frequency value of digits outside angle brackets since last angle
+     * bracket
+     */
+    private int gapValue;
+
+    /**
+     * Number of parts that were checked
+     */
+    private int numberOfCheckedParts;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Part">
+    /**
+     * Offset of first character of current part
+     */
+    private int partOffset;
+
+    /**
+     * Number of characters of current part
+     */
+    private int partLength;
+
+    /**
+     * Frequency of current part
+     */
+    private int partFrequency;
+
+    /**
+     * Number of particles of current part counted in validation-only mode
+     * (Long.MAX_VALUE if too large)
+     */
+    private long numberOfCountedParticles;
+
+    /**
+     * First character of current part
+     */
+    private char partFirstCharacter;
+
+    /**
+     * Last character of current part
+     */
+    private char partLastCharacter;
+
+    /**
+     * Part error category
+     */
+    private int partErrorCategory;
+
+    /**
+     * Part error message key
+     */
+    private String partErrorKey;
+
+    /**
+     * Part error offset
+     */
+    private int partErrorOffset;
+
+    /**
+     * Message key of first monomer error of current part
+     */
+    private String monomerErrorKey;
+
+    /**
+     * Offset of first monomer error of current part
+     */
+    private int monomerErrorOffset;
+
+    /**
+     * True: Scan is inside curly brackets, false: Otherwise
+     */
+    private boolean isInCurlyBrackets;
+
+    /**
+     * Number of raw tokens of current part
+     */
+    private int numberOfPartTokens;
+
+    /**
+     * Kind of first raw token of current part
+     */
+    private byte firstPartTokenKind;
+
+    /**
+     * True: Current part starts with a normal opening bracket (optionally
+     * after a number), false: Otherwise
+     */
+    private boolean isPartStartingWithBranch;
+
+    /**
+     * True: Current part has backbone indices, false: Otherwise
+     */
+    private boolean hasBackboneAttribute;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Tokenizer">
+    /**
+     * Characters of current raw token
+     */
+    private char[] tokenCharacters;
+
+    /**
+     * Number of characters of current raw token
+     */
+    private int tokenLength;
+
+    /**
+     * Offset of current raw token
+     */
+    private int tokenOffset;
+
+    /**
+     * Offset of last invalid character of current part (-1: None)
+     */
+    private int invalidCharacterOffset;
+
+    /**
+     * True: Last character belongs to a particle, false: Otherwise
+     */
+    private boolean isParticleCharacter;
+
+    /**
+     * True: Scan is between square brackets, false: Otherwise
+     */
+    private boolean isBetweenSquareBrackets;
+
+    /**
+     * True: Last character belongs to a frequency, false: Otherwise
+     */
+    private boolean isAfterFrequency;
+
+    /**
+     * True: Last character belongs to a monomer, false: Otherwise
+     */
+    private boolean isMonomerCharacter;
+
+    /**
+     * True: Scan is between backbone quotes, false: Otherwise
+     */
+    private boolean isBackboneCharacter;
+
+    /**
+     * Value of this.isParticleCharacter in body prior current monomer
+     */
+    private boolean isBodyParticleCharacter;
+
+    /**
+     * Value of this.isBetweenSquareBrackets in body prior current monomer
+     */
+    private boolean isBodyBetweenSquareBrackets;
+
+    /**
+     * Value of this.isAfterFrequency in body prior current monomer
+     */
+    private boolean isBodyAfterFrequency;
+
+    /**
+     * Value of this.isMonomerCharacter in body prior current monomer
+     */
+    private boolean isBodyMonomerCharacter;
+
+    /**
+     * Value of this.isBackboneCharacter in body prior current monomer
+     */
+    private boolean isBodyBackboneCharacter;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Compiled tokens, particles and bonds">
+    /**
+     * Compiled tokens
+     */
+    private String[] compiledTokens;
+
+    /**
+     * Number of compiled tokens
+     */
+    private int numberOfCompiledTokens;
+
+    /**
+     * Particle indices (zero-based position of particles in
+     * this.compiledTokens)
+     */
+    private int[] particleIndices;
+
+    /**
+     * Backbone indices of particles
+     */
+    private int[] backboneIndices;
+
+    /**
+     * Number of particles
+     */
+    private int numberOfParticles;
+
+    /**
+     * Bonds as consecutive pairs of particle indices (-1: Not yet known)
+     */
+    private int[] bonds;
+
+    /**
+     * Number of bonds
+     */
+    private int numberOfBonds;
+
+    /**
+     * Ring closure labels
+     */
+    private int[] ringLabels;
+
+    /**
+     * Particles of ring closures
+     */
+    private int[] ringParticles;
+
+    /**
+     * Scopes of ring closures (0: Body, otherwise copy of a monomer)
+     */
+    private int[] ringScopes;
+
+    /**
+     * Number of ring closures
+     */
+    private int numberOfRingClosures;
+
+    /**
+     * Number of scopes
+     */
+    private int numberOfScopes;
+
+    /**
+     * Branch stack with the attachment particles prior normal opening
+     * brackets
+     */
+    private int[] branchStack;
+
+    /**
+     * Branch depth
+     */
+    private int branchDepth;
+
+    /**
+     * Particle the next particle is bonded to (-1: None)
+     */
+    private int attachmentParticle;
+
+    /**
+     * Last particle (-1: None)
+     */
+    private int lastParticle;
+
+    /**
+     * True: A number token is pending, false: Otherwise
+     */
+    private boolean hasPendingNumber;
+
+    /**
+     * Value of pending number token
+     */
+    private int pendingNumberValue;
+
+    /**
+     * Pending number token
+     */
+    private String pendingNumberToken;
+
+    /**
+     * Bond slot of a TAIL particle that waits for its successor (-1: None)
+     */
+    private int pendingTailSlot;
+
+    /**
+     * Branch depth of this.pendingTailSlot
+     */
+    private int pendingTailDepth;
+
+    /**
+     * START particle (-1: None)
+     */
+    private int startParticle;
+
+    /**
+     * END particle (-1: None)
+     */
+    private int endParticle;
+
+    /**
+     * True: Part has a [START] attribute, false: Otherwise
+     */
+    private boolean hasStartAttribute;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Monomer block">
+    /**
+     * Index of the curly opening bracket of the current block in
+     * this.compiledTokens
+     */
+    private int blockTokenStart;
+
+    /**
+     * First particle of current block
+     */
+    private int blockParticleStart;
+
+    /**
+     * First bond of current block
+     */
+    private int blockBondStart;
+
+    /**
+     * First ring closure of current block
+     */
+    private int blockRingStart;
+
+    /**
+     * Bond slot of HEAD particle of current block (-1: None)
+     */
+    private int blockHeadSlot;
+
+    /**
+     * Bond slot of TAIL particle of current block
+     */
+    private int blockTailSlot;
+
+    /**
+     * HEAD particle of current block (-1: None)
+     */
+    private int blockHeadParticle;
+
+    /**
+     * TAIL particle of current block (-1: None)
+     */
+    private int blockTailParticle;
+
+    /**
+     * Repetition of current block
+     */
+    private int blockRepetition;
+
+    /**
+     * Branch depth of current block
+     */
+    private int blockDepth;
+
+    /**
+     * Scope of current block
+     */
+    private int blockScope;
+    // </editor-fold>
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     */
+    public PSmilesParser() {
+        this.tokenCharacters = new char[INITIAL_CAPACITY];
+        this.compiledTokens = new String[INITIAL_CAPACITY];
+        this.particleIndices = new int[INITIAL_CAPACITY];
+        this.backboneIndices = new int[INITIAL_CAPACITY];
+        this.bonds = new int[2 * INITIAL_CAPACITY];
+        this.ringLabels = new int[INITIAL_CAPACITY];
+        this.ringParticles = new int[INITIAL_CAPACITY];
+        this.ringScopes = new int[INITIAL_CAPACITY];
+        this.branchStack = new int[INITIAL_CAPACITY];
+        this.diagnostics = new long[INITIAL_CAPACITY];
+        this.partDiagnostics = new long[INITIAL_CAPACITY];
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Returns the input structure without white spaces
+     *
+     * @return Input structure without white spaces or null if the input
+     * structure is null or has an invalid white space
+     */
+    public String getInputStructure() {
+        return this.inputStructure;
+    }
+
+    /**
+     * Returns the error message of the last parse
+     *
+     * @return Error message or null
+     */
+    public String getErrorMessage() {
+        if (this.errorKey == null) {
+            return null;
+        }
+        return MessagePSmiles.getString(this.errorKey);
+    }
+
+    /**
+     * Returns the error code of the last parse
+     *
+     * @return Error code or null
+     */
+    public PSmilesConstants.ErrorCode getErrorCode() {
+        if (this.errorKey == null) {
+            return null;
+        }
+        return PSmilesConstants.ErrorCode.getErrorCode(this.errorKey);
+    }
+
+    /**
+     * Returns the offset of the error of the last parse
+     *
+     * @return Zero-based index of the error in the input structure without
+     * white spaces or -1 if there is no error
+     */
+    public int getErrorOffset() {
+        if (this.errorKey == null) {
+            return -1;
+        }
+        return this.errorOffset;
+    }
+
+    /**
+     * Returns the number of parts (with repetitions) of the last valid parse
+     * or validation
+     *
+     * @return Number of parts or 0 if the input structure is invalid
+     */
+    public long getNumberOfParts() {
+        if (this.errorKey != null) {
+            return 0;
+        }
+        return this.numberOfValidParts;
+    }
+
+    /**
+     * Returns the total number of particles (with repetitions) of the last
+     * valid parse or validation
+     *
+     * @return Total number of particles (Long.MAX_VALUE if too large) or 0
+     * if the input structure is invalid
+     */
+    public long getNumberOfParticles() {
+        if (this.errorKey != null) {
+            return 0;
+        }
+        return this.numberOfValidParticles;
+    }
+
+    /**
+     * Returns the parts (with repetitions) of the last valid parse
+     *
+     * @return Parts or null
+     */
+    public String[] getParts() {
+        if (this.errorKey != null || this.parts == null) {
+            return null;
+        }
+        return this.parts.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the parts of PSmiles (with repetitions) of the last valid
+     * parse
+     *
+     * @return Parts of PSmiles or null
+     */
+    public PSmilesInner[] getPartsOfPSmiles() {
+        if (this.errorKey != null || this.partsOfPSmiles == null) {
+            return null;
+        }
+        return this.partsOfPSmiles.toArray(new PSmilesInner[0]);
+    }
+
+    /**
+     * True: Input structure of last parse has parts (angle brackets),
+     * false: Otherwise
+     *
+     * @return True: Input structure of last parse has parts, false:
+     * Otherwise
+     */
+    public boolean hasParts() {
+        return this.hasAngleBrackets;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Parses an input structure. The characters of the input structure are
+     * read sequentially so that any character sequence (e.g. a
+     * MappedCharSequence of a huge input file) may be parsed without prior
+     * conversion to a string. NOTE: The input structure without white spaces
+     * (see getInputStructure()) is a string copy of the complete input
+     * structure (no copy for a string without white spaces). Characters are
+     * buffered only after the first white space, i.e. an input structure
+     * with white spaces is transiently held twice.
+     *
+     * @param anInputStructure Input structure
+     * @param anAvailableParticles Available particles (an empty map means
+     * all particles are available)
+     * @param anIsMonomer True: anInputStructure is a monomer, false:
+     * Otherwise
+     * @return True: Input structure is valid, false: Otherwise
+     */
+    public boolean parse(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer) {
+        if (anAvailableParticles == null) {
+            throw new IllegalArgumentException("PSmilesParser.parse: anAvailableParticles is null.");
+        }
+        return this.scan(anInputStructure, anAvailableParticles, anIsMonomer, false, false);
+    }
+
+    /**
+     * Validates an input structure with the same checks (and error
+     * messages) as parse() but without creation of parts: Repetitions are
+     * counted instead of expanded, i.e. the scan runs in constant memory
+     * (apart from the check of ring closure labels and regions) and
+     * getNumberOfParts() and getNumberOfParticles() are available
+     * afterwards. NOTE: getInputStructure(), getParts() and
+     * getPartsOfPSmiles() return null after a validation.
+     *
+     * @param anInputStructure Input structure
+     * @param anAvailableParticles Available particles (an empty map means
+     * all particles are available)
+     * @param anIsMonomer True: anInputStructure is a monomer, false:
+     * Otherwise
+     * @return True: Input structure is valid, false: Otherwise
+     */
+    public boolean validate(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer) {
+        if (anAvailableParticles == null) {
+            throw new IllegalArgumentException("PSmilesParser.validate: anAvailableParticles is null.");
+        }
+        return this.scan(anInputStructure, anAvailableParticles, anIsMonomer, true, false);
+    }
+
+    /**
+     * Validates an input structure (see validate()) but does not stop at
+     * the first error: All violations of the input structure are collected
+     * in a single pass. Every token is diagnosed at most once, i.e.
+     * consequential errors of a token with an invalid character or of a
+     * token that is part of a diagnosed token transition are omitted. NOTE:
+     * Other violations that follow a violation may still be consequential
+     * errors. getErrorMessage(), getErrorCode() and
+     * getErrorOffset() return the same first error as after validate().
+     *
+     * @param anInputStructure Input structure
+     * @param anAvailableParticles Available particles (an empty map means
+     * all particles are available)
+     * @param anIsMonomer True: anInputStructure is a monomer, false:
+     * Otherwise
+     * @return Diagnostics in ascending order of their offsets (empty array
+     * if the input structure is valid)
+     */
+    public PSmilesDiagnostic[] diagnose(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer) {
+        if (anAvailableParticles == null) {
+            throw new IllegalArgumentException("PSmilesParser.diagnose: anAvailableParticles is null.");
+        }
+        this.scan(anInputStructure, anAvailableParticles, anIsMonomer, true, true);
+        return this.getDiagnostics(anInputStructure);
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    // <editor-fold defaultstate="collapsed" desc="- Scan method">
+    /**
+     * Scans an input structure (see parse() and validate())
+     *
+     * @param anInputStructure Input structure
+     * @param anAvailableParticles Available particles
+     * @param anIsMonomer True: anInputStructure is a monomer, false:
+     * Otherwise
+     * @param anIsValidationOnly True: Input structure is only validated,
+     * false: Parts are created
+     * @param anIsCollectingDiagnostics True: All violations are collected,
+     * false: Otherwise
+     * @return True: Input structure is valid, false: Otherwise
+     */
+    private boolean scan(CharSequence anInputStructure, HashMap<String, String> anAvailableParticles, boolean anIsMonomer,
+            boolean anIsValidationOnly, boolean anIsCollectingDiagnostics) {
+        this.availableParticles = anAvailableParticles;
+        this.isMonomer = anIsMonomer;
+        this.isValidationOnly = anIsValidationOnly;
+        this.isCollectingDiagnostics = anIsCollectingDiagnostics;
+        this.initializeParse();
+        if (anInputStructure == null) {
+            this.setError(LEVEL_OUTER, OUTER_NO_TOKENS, "StructureCheck.NoTokens", 0);
+            return false;
+        }
+        int tmpLength = anInputStructure.length();
+        if (!this.isValidationOnly) {
+            this.sourceStructure = anInputStructure;
+        }
+        char tmpPreviousCharacter = 0;
+        char tmpPrePreviousCharacter = 0;
+        for (int i = 0; i < tmpLength; i++) {
+            char tmpCharacter = anInputStructure.charAt(i);
+            if (i > 1 && Character.isWhitespace(tmpPreviousCharacter) && Character.isLetterOrDigit(tmpPrePreviousCharacter)
+                    && Character.isLetterOrDigit(tmpCharacter)) {
+                this.setError(LEVEL_WHITE_SPACE, 0, "StructureCheck.InvalidWhiteSpace", this.structureLength);
+                if (!this.isCollectingDiagnostics) {
+                    this.sourceStructure = null;
+                    this.structure = null;
+                    return false;
+                }
+            }
+            tmpPrePreviousCharacter = tmpPreviousCharacter;
+            tmpPreviousCharacter = tmpCharacter;
+            if (Character.isWhitespace(tmpCharacter)) {
+                if (this.sourceStructure != null && this.structure == null) {
+                    // Characters are buffered from the first white space on
+                    this.structure = new StringBuilder(tmpLength);
+                    this.structure.append(anInputStructure, 0, i);
+                }
+                continue;
+            }
+            if (this.structure != null) {
+                this.structure.append(tmpCharacter);
+            }
+            this.addCharacter(tmpCharacter, this.structureLength);
+            this.structureLength++;
+        }
+        if (this.structure != null) {
+            this.inputStructure = this.structure.toString();
+        } else if (this.sourceStructure != null) {
+            this.inputStructure = anInputStructure.toString();
+        }
+        this.finishStructure();
+        // Release input structure and structure buffer
+        this.sourceStructure = null;
+        this.structure = null;
+        return this.errorKey == null;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Initialize and error methods">
+    /**
+     * Initializes all parse related variables
+     */
+    private void initializeParse() {
+        this.sourceStructure = null;
+        this.structure = null;
+        this.structureLength = 0;
+        this.inputStructure = null;
+        this.errorLevel = NO_ERROR;
+        this.errorRank = NO_ERROR;
+        this.errorKey = null;
+        this.errorOffset = -1;
+        if (this.isValidationOnly) {
+            this.parts = null;
+            this.partsOfPSmiles = null;
+            this.partMap = null;
+        } else {
+            this.parts = new ArrayList<>();
+            this.partsOfPSmiles = new ArrayList<>();
+            this.partMap = new HashMap<>(PSmilesConstants.DEFAULT_NUMBER_OF_PARTICLES);
+        }
+        this.numberOfValidParts = 0;
+        this.numberOfValidParticles = 0;
+        this.numberOfDiagnostics = 0;
+        this.numberOfPartDiagnostics = 0;
+        this.hasAngleBrackets = false;
+        this.isInPart = false;
+        this.gapLength = 0;
+        this.gapOffset = 0;
+        this.gapInvalidOffset = -1;
+        this.gapValue = 0;
+        this.numberOfCheckedParts = 0;
+        this.tokenStrings.clear();
+        this.beginPart(0, 1);
+    }
+
+    /**
+     * Sets the error if it precedes the current error
+     *
+     * @param aLevel Error level
+     * @param aRank Rank within error level
+     * @param aKey Message key
+     * @param anOffset Offset
+     */
+    private void setError(int aLevel, int aRank, String aKey, int anOffset) {
+        if (this.isCollectingDiagnostics && aLevel != LEVEL_PART) {
+            // Part errors are collected by setPartError() and setContextError()
+            this.addDiagnostic(false, aKey, anOffset);
+        }
+        if (aLevel < this.errorLevel || (aLevel == this.errorLevel && aRank < this.errorRank)) {
+            this.errorLevel = aLevel;
+            this.errorRank = aRank;
+            this.errorKey = aKey;
+            this.errorOffset = anOffset;
+        }
+    }
+
+    /**
+     * Sets the part error if it precedes the current part error
+     *
+     * @param aCategory Part category
+     * @param aKey Message key
+     * @param anOffset Offset
+     */
+    private void setPartError(int aCategory, String aKey, int anOffset) {
+        if (this.isCollectingDiagnostics) {
+            this.addDiagnostic(true, aKey, anOffset);
+        }
+        if (aCategory < this.partErrorCategory) {
+            this.partErrorCategory = aCategory;
+            this.partErrorKey = aKey;
+            this.partErrorOffset = anOffset;
+        }
+    }
+
+    /**
+     * Sets the context error if it precedes the current context error
+     *
+     * @param aContext Context
+     * @param aCategory Context category
+     * @param aKey Message key
+     * @param anOffset Offset
+     */
+    private void setContextError(StructureContext aContext, int aCategory, String aKey, int anOffset) {
+        this.setContextError(aContext, aCategory, aKey, anOffset, true);
+    }
+
+    /**
+     * Sets the context error if it precedes the current context error
+     *
+     * @param aContext Context
+     * @param aCategory Context category
+     * @param aKey Message key
+     * @param anOffset Offset
+     * @param anIsDiagnostic True: Error is collected as diagnostic, false:
+     * Error is a consequential error of an already diagnosed token
+     */
+    private void setContextError(StructureContext aContext, int aCategory, String aKey, int anOffset, boolean anIsDiagnostic) {
+        if (this.isCollectingDiagnostics && anIsDiagnostic) {
+            this.addDiagnostic(true, aKey, anOffset);
+        }
+        if (aCategory < aContext.errorCategory) {
+            aContext.errorCategory = aCategory;
+            aContext.errorKey = aKey;
+            aContext.errorOffset = anOffset;
+        }
+    }
+
+    /**
+     * Adds a diagnostic
+     *
+     * @param anIsPartDiagnostic True: Diagnostic of current part, false:
+     * Otherwise
+     * @param aKey Message key
+     * @param anOffset Offset
+     */
+    private void addDiagnostic(boolean anIsPartDiagnostic, String aKey, int anOffset) {
+        long tmpDiagnostic = ((long) anOffset << 32) | PSmilesConstants.ErrorCode.getErrorCode(aKey).ordinal();
+        if (anIsPartDiagnostic) {
+            if (this.numberOfPartDiagnostics == this.partDiagnostics.length) {
+                this.partDiagnostics = Arrays.copyOf(this.partDiagnostics, 2 * this.numberOfPartDiagnostics);
+            }
+            this.partDiagnostics[this.numberOfPartDiagnostics++] = tmpDiagnostic;
+        } else {
+            if (this.numberOfDiagnostics == this.diagnostics.length) {
+                this.diagnostics = Arrays.copyOf(this.diagnostics, 2 * this.numberOfDiagnostics);
+            }
+            this.diagnostics[this.numberOfDiagnostics++] = tmpDiagnostic;
+        }
+    }
+
+    /**
+     * Returns the collected diagnostics in ascending order of their offsets
+     * (without duplicates)
+     *
+     * @param anInputStructure Input structure (for source offsets)
+     * @return Diagnostics
+     */
+    private PSmilesDiagnostic[] getDiagnostics(CharSequence anInputStructure) {
+        Arrays.sort(this.diagnostics, 0, this.numberOfDiagnostics);
+        int tmpNumberOfDiagnostics = 0;
+        for (int i = 0; i < this.numberOfDiagnostics; i++) {
+            if (i == 0 || this.diagnostics[i] != this.diagnostics[i - 1]) {
+                this.diagnostics[tmpNumberOfDiagnostics++] = this.diagnostics[i];
+            }
+        }
+        PSmilesConstants.ErrorCode[] tmpErrorCodes = PSmilesConstants.ErrorCode.values();
+        PSmilesDiagnostic[] tmpDiagnostics = new PSmilesDiagnostic[tmpNumberOfDiagnostics];
+        // Source offsets: Offsets in input structure with white spaces
+        int tmpLength = anInputStructure == null ? 0 : anInputStructure.length();
+        int tmpSourceOffset = 0;
+        int tmpCharacterCount = 0;
+        for (int i = 0; i < tmpNumberOfDiagnostics; i++) {
+            int tmpOffset = (int) (this.diagnostics[i] >>> 32);
+            while (tmpSourceOffset < tmpLength
+                    && (tmpCharacterCount < tmpOffset || Character.isWhitespace(anInputStructure.charAt(tmpSourceOffset)))) {
+                if (!Character.isWhitespace(anInputStructure.charAt(tmpSourceOffset))) {
+                    tmpCharacterCount++;
+                }
+                tmpSourceOffset++;
+            }
+            tmpDiagnostics[i] = new PSmilesDiagnostic(tmpErrorCodes[(int) this.diagnostics[i]], tmpOffset,
+                    anInputStructure == null ? tmpOffset : tmpSourceOffset);
+        }
+        return tmpDiagnostics;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Outer part methods">
+    /**
+     * Adds a character of the input structure (without white spaces)
+     *
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void addCharacter(char aCharacter, int anOffset) {
+        if (aCharacter == '<') {
+            if (!this.hasAngleBrackets) {
+                this.hasAngleBrackets = true;
+            }
+            if (this.isInPart) {
+                this.setError(LEVEL_OUTER, OUTER_SEQUENCE, "StructureCheck.MissingClosingAngleBracket", anOffset);
+            } else if (this.gapInvalidOffset >= 0) {
+                this.setError(LEVEL_OUTER, OUTER_PRIOR, "StructureCheck.InvalidCharacterPriorAngularBracket", this.gapInvalidOffset);
+            }
+            this.beginPart(anOffset + 1, this.gapLength > 0 ? this.gapValue : 1);
+            this.isInPart = true;
+        } else if (aCharacter == '>') {
+            if (!this.isInPart) {
+                this.hasAngleBrackets = true;
+                this.setError(LEVEL_OUTER, OUTER_SEQUENCE, "StructureCheck.MissingOpeningAngleBracket", anOffset);
+            } else if (this.partLength == 0) {
+                this.setError(LEVEL_OUTER, OUTER_EMPTY, "StructureCheck.EmptyAngleBrackets", anOffset - 1);
+            } else {
+                this.endPart(anOffset);
+            }
+            this.isInPart = false;
+            this.gapLength = 0;
+            this.gapOffset = anOffset + 1;
+            this.gapInvalidOffset = -1;
+            this.gapValue = 0;
+        } else {
+            if (!this.isInPart) {
+                if (this.gapLength == 0) {
+                    this.gapOffset = anOffset;
+                }
+                this.gapLength++;
+                if (!Character.isDigit(aCharacter)) {
+                    if (this.gapInvalidOffset < 0) {
+                        this.gapInvalidOffset = anOffset;
+                    }
+                } else if (this.gapValue >= 0) {
+                    this.gapValue = this.gapValue > (Integer.MAX_VALUE - 9) / 10 ? -1 : 10 * this.gapValue + Character.digit(aCharacter, 10);
+                }
+            }
+            if (this.isInPart || !this.hasAngleBrackets) {
+                this.addPartCharacter(aCharacter, anOffset);
+            }
+        }
+    }
+
+    /**
+     * Finishes the scan of the input structure
+     */
+    private void finishStructure() {
+        if (!this.hasAngleBrackets) {
+            if (this.structureLength == 0) {
+                this.setError(LEVEL_OUTER, OUTER_NO_TOKENS, "StructureCheck.NoTokens", 0);
+            } else {
+                this.endPart(this.structureLength);
+            }
+        } else {
+            if (this.isInPart) {
+                this.setError(LEVEL_OUTER, OUTER_SEQUENCE, "StructureCheck.MissingClosingAngleBracket", this.structureLength);
+            } else if (this.gapLength > 0) {
+                this.setError(LEVEL_OUTER, OUTER_AFTER, "StructureCheck.InvalidParticleAfterAngleClosingBracket", this.gapOffset);
+            }
+        }
+        if (this.errorKey == null && this.numberOfValidParts == 0) {
+            this.setError(LEVEL_OUTER, OUTER_NO_PART, "StructureCheck.IllegalFrequency", 0);
+        }
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Part methods">
+    /**
+     * Begins a new part
+     *
+     * @param anOffset Offset of first character of part
+     * @param aFrequency Frequency of part (-1: Too large)
+     */
+    private void beginPart(int anOffset, int aFrequency) {
+        this.partOffset = anOffset;
+        this.partLength = 0;
+        this.partFrequency = aFrequency;
+        this.numberOfCountedParticles = 0;
+        this.numberOfPartDiagnostics = 0;
+        this.partFirstCharacter = 0;
+        this.partLastCharacter = 0;
+        this.partErrorCategory = NO_ERROR;
+        this.partErrorKey = null;
+        this.partErrorOffset = -1;
+        this.monomerErrorKey = null;
+        this.monomerErrorOffset = -1;
+        this.isInCurlyBrackets = false;
+        this.numberOfPartTokens = 0;
+        this.firstPartTokenKind = PSmilesConstants.TOKEN_KIND_OTHER;
+        this.isPartStartingWithBranch = false;
+        this.hasBackboneAttribute = false;
+        this.bodyContext.reset();
+        // Tokenizer
+        this.tokenLength = 0;
+        this.tokenOffset = anOffset;
+        this.invalidCharacterOffset = -1;
+        this.isParticleCharacter = false;
+        this.isBetweenSquareBrackets = false;
+        this.isAfterFrequency = false;
+        this.isMonomerCharacter = false;
+        this.isBackboneCharacter = false;
+        // Compilation
+        this.numberOfCompiledTokens = 0;
+        this.numberOfParticles = 0;
+        this.numberOfBonds = 0;
+        this.numberOfRingClosures = 0;
+        this.numberOfScopes = 0;
+        this.branchDepth = 0;
+        this.attachmentParticle = -1;
+        this.lastParticle = -1;
+        this.hasPendingNumber = false;
+        this.pendingTailSlot = -1;
+        this.pendingTailDepth = 0;
+        this.startParticle = -1;
+        this.endParticle = -1;
+        this.hasStartAttribute = false;
+        this.blockHeadSlot = -1;
+        this.blockTailSlot = -1;
+        this.blockHeadParticle = -1;
+        this.blockTailParticle = -1;
+    }
+
+    /**
+     * Adds a character of the current part
+     *
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void addPartCharacter(char aCharacter, int anOffset) {
+        if (this.partLength == 0) {
+            this.partFirstCharacter = aCharacter;
+        }
+        if (!this.isAllowedCharacter(aCharacter)) {
+            this.setPartError(PART_INVALID_CHARACTER, "StructureCheck.InvalidCharacter", anOffset);
+            this.invalidCharacterOffset = anOffset;
+        }
+        StructureContext tmpContext;
+        if (aCharacter == '{') {
+            if (this.isInCurlyBrackets) {
+                this.setPartError(PART_CURLY_SEQUENCE, "StructureCheck.MissingClosingCurlyBracket", anOffset);
+                tmpContext = this.monomerContext;
+            } else {
+                tmpContext = this.bodyContext;
+            }
+        } else if (aCharacter == '}') {
+            if (!this.isInCurlyBrackets) {
+                this.setPartError(PART_CURLY_SEQUENCE, "StructureCheck.MissingOpeningCurlyBracket", anOffset);
+            } else if (this.partLastCharacter == '{') {
+                this.setPartError(PART_EMPTY_CURLY, "StructureCheck.EmptyCurlyBrackets", anOffset - 1);
+            }
+            tmpContext = this.bodyContext;
+        } else if (this.isInCurlyBrackets) {
+            tmpContext = this.monomerContext;
+        } else {
+            tmpContext = this.bodyContext;
+        }
+        this.addContextCharacter(tmpContext, aCharacter, anOffset);
+        if (aCharacter == '\'') {
+            this.hasBackboneAttribute = true;
+        }
+        // Monomers are tokenized independently of the body
+        boolean tmpIsInCurlyBrackets = this.isInCurlyBrackets;
+        if (aCharacter == '}' && tmpIsInCurlyBrackets) {
+            this.isParticleCharacter = this.isBodyParticleCharacter;
+            this.isBetweenSquareBrackets = this.isBodyBetweenSquareBrackets;
+            this.isAfterFrequency = this.isBodyAfterFrequency;
+            this.isMonomerCharacter = this.isBodyMonomerCharacter;
+            this.isBackboneCharacter = this.isBodyBackboneCharacter;
+        }
+        this.tokenizeCharacter(aCharacter, anOffset);
+        if (aCharacter == '{' && !tmpIsInCurlyBrackets) {
+            this.isBodyParticleCharacter = this.isParticleCharacter;
+            this.isBodyBetweenSquareBrackets = this.isBetweenSquareBrackets;
+            this.isBodyAfterFrequency = this.isAfterFrequency;
+            this.isBodyMonomerCharacter = this.isMonomerCharacter;
+            this.isBodyBackboneCharacter = this.isBackboneCharacter;
+            this.isParticleCharacter = false;
+            this.isBetweenSquareBrackets = false;
+            this.isAfterFrequency = false;
+            this.isMonomerCharacter = false;
+            this.isBackboneCharacter = false;
+        }
+        this.partLastCharacter = aCharacter;
+        this.partLength++;
+    }
+
+    /**
+     * Ends the current part
+     *
+     * @param anOffset Offset after the last character of the part
+     */
+    private void endPart(int anOffset) {
+        this.completeToken();
+        if (this.isInCurlyBrackets) {
+            this.setPartError(PART_CURLY_SEQUENCE, "StructureCheck.MissingClosingCurlyBracket", anOffset);
+        }
+        if (this.isMonomer && !(this.partFirstCharacter == '{' && this.partLastCharacter == '}')) {
+            this.setPartError(PART_NO_MONOMER, "StructureCheck.NoMonomer", this.partOffset);
+        }
+        this.finishContext(this.bodyContext);
+        String tmpErrorKey;
+        int tmpErrorOffset;
+        if (this.partErrorKey != null) {
+            tmpErrorKey = this.partErrorKey;
+            tmpErrorOffset = this.partErrorOffset;
+        } else if (this.monomerErrorKey != null) {
+            tmpErrorKey = this.monomerErrorKey;
+            tmpErrorOffset = this.monomerErrorOffset;
+        } else {
+            tmpErrorKey = this.bodyContext.errorKey;
+            tmpErrorOffset = this.bodyContext.errorOffset;
+        }
+        if (this.partFrequency == 0) {
+            // Parts with frequency 0 are omitted
+            return;
+        }
+        if (this.partFrequency < 0) {
+            tmpErrorKey = "StructureCheck.IllegalFrequency";
+            tmpErrorOffset = this.partOffset;
+            if (this.isCollectingDiagnostics) {
+                this.addDiagnostic(false, tmpErrorKey, tmpErrorOffset);
+            }
+        }
+        // Diagnostics of a part are only kept if its frequency is not 0
+        for (int i = 0; i < this.numberOfPartDiagnostics; i++) {
+            if (this.numberOfDiagnostics == this.diagnostics.length) {
+                this.diagnostics = Arrays.copyOf(this.diagnostics, 2 * this.numberOfDiagnostics);
+            }
+            this.diagnostics[this.numberOfDiagnostics++] = this.partDiagnostics[i];
+        }
+        this.numberOfPartDiagnostics = 0;
+        this.numberOfCheckedParts++;
+        if (tmpErrorKey != null) {
+            this.setError(LEVEL_PART, this.numberOfCheckedParts, tmpErrorKey, tmpErrorOffset);
+            return;
+        }
+        if (this.errorKey != null) {
+            // Invalid input structure: No part is created
+            return;
+        }
+        this.numberOfValidParts += this.partFrequency;
+        long tmpNumberOfParticles = this.isValidationOnly ? this.numberOfCountedParticles : this.numberOfParticles;
+        this.numberOfValidParticles = getSaturatedSum(this.numberOfValidParticles, getSaturatedProduct(this.partFrequency, tmpNumberOfParticles));
+        if (this.isValidationOnly) {
+            return;
+        }
+        String tmpPart;
+        if (this.partOffset == 0 && this.partLength == this.structureLength && this.inputStructure != null) {
+            // Part is the complete input structure: Avoid a further copy
+            tmpPart = this.inputStructure;
+        } else if (this.structure != null) {
+            tmpPart = this.structure.substring(this.partOffset, this.partOffset + this.partLength);
+        } else {
+            // No white space so far: Offsets are those of the input structure
+            tmpPart = this.sourceStructure.subSequence(this.partOffset, this.partOffset + this.partLength).toString();
+        }
+        PSmilesInner tmpPartOfPSmiles = this.partMap.get(tmpPart);
+        if (tmpPartOfPSmiles == null) {
+            tmpPartOfPSmiles = this.createPartOfPSmiles(tmpPart);
+            this.partMap.put(tmpPart, tmpPartOfPSmiles);
+        }
+        for (int i = 0; i < this.partFrequency; i++) {
+            this.parts.add(tmpPart);
+            this.partsOfPSmiles.add(tmpPartOfPSmiles);
+        }
+    }
+
+    /**
+     * Creates the part of PSmiles from the compiled tokens, particles and
+     * bonds of the current part
+     *
+     * @param aPart Part structure
+     * @return Part of PSmiles
+     */
+    private PSmilesInner createPartOfPSmiles(String aPart) {
+        // Remove bond slots without successor
+        int tmpNumberOfBonds = 0;
+        for (int i = 0; i < this.numberOfBonds; i++) {
+            if (this.bonds[2 * i] >= 0 && this.bonds[2 * i + 1] >= 0) {
+                this.bonds[2 * tmpNumberOfBonds] = this.bonds[2 * i];
+                this.bonds[2 * tmpNumberOfBonds + 1] = this.bonds[2 * i + 1];
+                tmpNumberOfBonds++;
+            }
+        }
+        this.numberOfBonds = tmpNumberOfBonds;
+        this.addRingClosureBonds();
+        int tmpStartParticle = -1;
+        int tmpEndParticle = -1;
+        if (this.hasStartAttribute) {
+            tmpStartParticle = this.startParticle;
+            tmpEndParticle = this.endParticle < 0 ? 0 : this.endParticle;
+        }
+        return new PSmilesInner(aPart,
+                Arrays.copyOf(this.compiledTokens, this.numberOfCompiledTokens),
+                Arrays.copyOf(this.particleIndices, this.numberOfParticles),
+                Arrays.copyOf(this.backboneIndices, this.numberOfParticles),
+                Arrays.copyOf(this.bonds, 2 * this.numberOfBonds),
+                this.numberOfBonds,
+                tmpStartParticle,
+                tmpEndParticle,
+                this.hasBackboneAttribute);
+    }
+
+    /**
+     * Checks whether a character is allowed in an input structure
+     *
+     * @param aCharacter Character
+     * @return True: Character is allowed, false: Otherwise
+     */
+    private boolean isAllowedCharacter(char aCharacter) {
+        if ((aCharacter >= '0' && aCharacter <= '9') || (aCharacter >= 'a' && aCharacter <= 'z') || (aCharacter >= 'A' && aCharacter <= 'Z')) {
+            return true;
+        }
+        switch (aCharacter) {
+            case '{':
+            case '}':
+            case '#':
+            case '(':
+            case ')':
+            case '[':
+            case ']':
+            case '-':
+            case '\'':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Tokenizer methods">
+    /**
+     * Tokenizes a character of the current part (see
+     * PSmilesUtility.prepareTokenizedStructure())
+     *
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void tokenizeCharacter(char aCharacter, int anOffset) {
+        if (aCharacter == '[') {
+            this.isParticleCharacter = false;
+            this.isBetweenSquareBrackets = true;
+            this.separateCharacter(aCharacter, anOffset);
+        } else if (aCharacter == ']') {
+            this.isBetweenSquareBrackets = false;
+            this.separateCharacter(aCharacter, anOffset);
+        } else if (aCharacter == '#') {
+            this.isMonomerCharacter = true;
+            this.separateCharacter(aCharacter, anOffset);
+        } else if (aCharacter == '\'') {
+            if (this.isBackboneCharacter) {
+                this.isBackboneCharacter = false;
+                this.separateCharacter(aCharacter, anOffset);
+                this.completeToken();
+            } else {
+                this.isBackboneCharacter = true;
+                this.completeToken();
+                this.separateCharacter(aCharacter, anOffset);
+            }
+        } else if (this.isBetweenSquareBrackets || this.isBackboneCharacter) {
+            this.separateCharacter(aCharacter, anOffset);
+        } else if (!this.isParticleCharacter && Character.isDigit(aCharacter)) {
+            this.isAfterFrequency = true;
+            this.separateCharacter(aCharacter, anOffset);
+        } else if (!this.isMonomerCharacter && !this.isParticleCharacter && Character.isUpperCase(aCharacter)) {
+            if (!this.isAfterFrequency) {
+                this.separateCharacter('1', anOffset);
+            }
+            this.completeToken();
+            this.separateCharacter(aCharacter, anOffset);
+            this.isParticleCharacter = true;
+            this.isAfterFrequency = false;
+            this.isMonomerCharacter = false;
+        } else if ((this.isParticleCharacter || this.isMonomerCharacter) && Character.isLetterOrDigit(aCharacter)) {
+            this.isAfterFrequency = false;
+            this.separateCharacter(aCharacter, anOffset);
+        } else {
+            this.isParticleCharacter = false;
+            this.isAfterFrequency = false;
+            this.isMonomerCharacter = false;
+            this.separateCharacter(aCharacter, anOffset);
+        }
+    }
+
+    /**
+     * Adds a character to the current raw token with token separation
+     * around brackets, connections and monomers
+     *
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void separateCharacter(char aCharacter, int anOffset) {
+        switch (aCharacter) {
+            case '{':
+            case '}':
+            case '(':
+            case ')':
+            case '-':
+                this.completeToken();
+                this.appendTokenCharacter(aCharacter, anOffset);
+                this.completeToken();
+                break;
+            case '[':
+            case '#':
+                this.completeToken();
+                this.appendTokenCharacter(aCharacter, anOffset);
+                break;
+            case ']':
+                this.appendTokenCharacter(aCharacter, anOffset);
+                this.completeToken();
+                break;
+            default:
+                this.appendTokenCharacter(aCharacter, anOffset);
+                break;
+        }
+    }
+
+    /**
+     * Appends a character to the current raw token
+     *
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void appendTokenCharacter(char aCharacter, int anOffset) {
+        if (this.tokenLength == 0) {
+            this.tokenOffset = anOffset;
+        } else if (this.tokenLength == this.tokenCharacters.length) {
+            this.tokenCharacters = Arrays.copyOf(this.tokenCharacters, 2 * this.tokenLength);
+        }
+        this.tokenCharacters[this.tokenLength++] = aCharacter;
+    }
+
+    /**
+     * Completes the current raw token (if any)
+     */
+    private void completeToken() {
+        if (this.tokenLength == 0) {
+            return;
+        }
+        byte tmpKind = this.getTokenKind();
+        int tmpValue = 0;
+        switch (tmpKind) {
+            case PSmilesConstants.TOKEN_KIND_NUMBER:
+                tmpValue = this.getTokenValue(0, this.tokenLength);
+                break;
+            case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+            case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                tmpValue = this.getTokenValue(1, this.tokenLength - 1);
+                break;
+            default:
+                break;
+        }
+        int tmpOffset = this.tokenOffset;
+        this.numberOfPartTokens++;
+        if (this.numberOfPartTokens == 1) {
+            this.firstPartTokenKind = tmpKind;
+            this.isPartStartingWithBranch = tmpKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN;
+        } else if (this.numberOfPartTokens == 2 && this.firstPartTokenKind == PSmilesConstants.TOKEN_KIND_NUMBER && tmpKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
+            this.isPartStartingWithBranch = true;
+        }
+        StructureContext tmpContext;
+        if (tmpKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN || tmpKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE || !this.isInCurlyBrackets) {
+            tmpContext = this.bodyContext;
+        } else {
+            tmpContext = this.monomerContext;
+        }
+        // A raw token with an invalid character is already diagnosed
+        this.addContextToken(tmpContext, tmpKind, tmpValue, tmpOffset, this.invalidCharacterOffset >= tmpOffset);
+        if (this.partFirstCharacter == '(') {
+            this.addRegionToken(this.bodyContext, tmpKind, tmpValue, tmpOffset);
+        }
+        if (tmpContext.isMonomer && tmpContext.firstCharacter == '(') {
+            this.addRegionToken(tmpContext, tmpKind, tmpValue, tmpOffset);
+        }
+        // Invalid parts are not compiled (frequencies may be arbitrarily large)
+        if (this.errorKey == null && this.partErrorKey == null && this.monomerErrorKey == null && this.bodyContext.errorKey == null
+                && !(this.isInCurlyBrackets && this.monomerContext.errorKey != null)) {
+            this.compileToken(tmpKind, tmpValue);
+        }
+        if (tmpKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN && !this.isInCurlyBrackets) {
+            this.isInCurlyBrackets = true;
+            this.monomerContext.reset();
+        } else if (tmpKind == PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE && this.isInCurlyBrackets) {
+            this.isInCurlyBrackets = false;
+            this.finishContext(this.monomerContext);
+            if (this.monomerContext.errorKey != null && this.monomerErrorKey == null) {
+                this.monomerErrorKey = this.monomerContext.errorKey;
+                this.monomerErrorOffset = this.monomerContext.errorOffset;
+            }
+        }
+        this.tokenLength = 0;
+    }
+
+    /**
+     * Returns the kind of the current raw token
+     *
+     * @return Token kind
+     */
+    private byte getTokenKind() {
+        char[] tmpToken = this.tokenCharacters;
+        int tmpLength = this.tokenLength;
+        char tmpFirst = tmpToken[0];
+        char tmpLast = tmpToken[tmpLength - 1];
+        if (tmpLength == 1) {
+            switch (tmpFirst) {
+                case '(':
+                    return PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN;
+                case ')':
+                    return PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE;
+                case '{':
+                    return PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN;
+                case '}':
+                    return PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE;
+                case '-':
+                    return PSmilesConstants.TOKEN_KIND_CONNECTION;
+                default:
+                    break;
+            }
+        }
+        if (this.isDigitSequence(0, tmpLength)) {
+            return PSmilesConstants.TOKEN_KIND_NUMBER;
+        }
+        if (tmpFirst == '[' && tmpLast == ']' && tmpLength > 1) {
+            if (this.isDigitSequence(1, tmpLength - 1)) {
+                return PSmilesConstants.TOKEN_KIND_RING_CLOSURE;
+            } else if (this.isToken("[HEAD]")) {
+                return PSmilesConstants.TOKEN_KIND_HEAD;
+            } else if (this.isToken("[TAIL]")) {
+                return PSmilesConstants.TOKEN_KIND_TAIL;
+            } else if (this.isToken("[START]")) {
+                return PSmilesConstants.TOKEN_KIND_START;
+            } else if (this.isToken("[END]")) {
+                return PSmilesConstants.TOKEN_KIND_END;
+            }
+            return PSmilesConstants.TOKEN_KIND_OTHER;
+        }
+        if (tmpFirst == '\'' && tmpLast == '\'' && this.isDigitSequence(1, tmpLength - 1)) {
+            return PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX;
+        }
+        if (tmpFirst == '#') {
+            if (tmpLength > 1 && Character.isUpperCase(tmpToken[1])) {
+                return PSmilesConstants.TOKEN_KIND_MONOMER;
+            }
+            return PSmilesConstants.TOKEN_KIND_OTHER;
+        }
+        if (tmpLength <= 10 && Character.isUpperCase(tmpFirst)) {
+            for (int i = 1; i < tmpLength; i++) {
+                char tmpCharacter = tmpToken[i];
+                if (!(tmpCharacter >= 'a' && tmpCharacter <= 'z') && !(tmpCharacter >= 'A' && tmpCharacter <= 'Z') && !Character.isDigit(tmpCharacter)) {
+                    return PSmilesConstants.TOKEN_KIND_OTHER;
+                }
+            }
+            if (this.availableParticles.isEmpty() || this.availableParticles.containsKey(this.getTokenString())) {
+                return PSmilesConstants.TOKEN_KIND_PARTICLE;
+            }
+            return PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE;
+        }
+        return PSmilesConstants.TOKEN_KIND_OTHER;
+    }
+
+    /**
+     * Checks whether the characters of the current raw token in the
+     * specified range are digits
+     *
+     * @param aStart Start index (inclusive)
+     * @param anEnd End index (exclusive)
+     * @return True: All characters in range are digits, false: Otherwise
+     */
+    private boolean isDigitSequence(int aStart, int anEnd) {
+        for (int i = aStart; i < anEnd; i++) {
+            if (!Character.isDigit(this.tokenCharacters[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the current raw token equals a token
+     *
+     * @param aToken Token
+     * @return True: Current raw token equals aToken, false: Otherwise
+     */
+    private boolean isToken(String aToken) {
+        if (aToken.length() != this.tokenLength) {
+            return false;
+        }
+        for (int i = 0; i < this.tokenLength; i++) {
+            if (aToken.charAt(i) != this.tokenCharacters[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the integer value of the digits of the current raw token in
+     * the specified range
+     *
+     * @param aStart Start index (inclusive)
+     * @param anEnd End index (exclusive)
+     * @return Integer value or -1 if value is too large or range is empty
+     */
+    private int getTokenValue(int aStart, int anEnd) {
+        if (aStart >= anEnd) {
+            return -1;
+        }
+        int tmpValue = 0;
+        for (int i = aStart; i < anEnd; i++) {
+            if (tmpValue > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            tmpValue = 10 * tmpValue + Character.digit(this.tokenCharacters[i], 10);
+        }
+        return tmpValue;
+    }
+
+    /**
+     * Returns the canonical string of the current raw token
+     *
+     * @return Canonical string of current raw token
+     */
+    private String getTokenString() {
+        String tmpToken = new String(this.tokenCharacters, 0, this.tokenLength);
+        String tmpCanonicalToken = this.tokenStrings.putIfAbsent(tmpToken, tmpToken);
+        return tmpCanonicalToken == null ? tmpToken : tmpCanonicalToken;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Context check methods">
+    /**
+     * Adds a character to a context (see PSmilesInner.checkSubStructure())
+     *
+     * @param aContext Context
+     * @param aCharacter Character
+     * @param anOffset Offset of character
+     */
+    private void addContextCharacter(StructureContext aContext, char aCharacter, int anOffset) {
+        if (aContext.numberOfCharacters == 0) {
+            aContext.firstCharacter = aCharacter;
+            aContext.firstCharacterOffset = anOffset;
+        }
+        // Trailing sequence of particle, connection or angular bracket characters
+        if ((aCharacter >= 'a' && aCharacter <= 'z') || (aCharacter >= 'A' && aCharacter <= 'Z') || aCharacter == '-' || aCharacter == '['
+                || aCharacter == ']') {
+            aContext.suffixLength++;
+        } else {
+            aContext.suffixLength = 0;
+            aContext.characterPriorSuffix = aCharacter;
+            aContext.indexOfCharacterPriorSuffix = aContext.numberOfCharacters;
+        }
+        // Backbone indices
+        if (aCharacter == '\'') {
+            if (aContext.numberOfCharacters > 0 && aContext.lastCharacter == '\'' && aContext.emptyQuotesOffset < 0) {
+                aContext.emptyQuotesOffset = anOffset - 1;
+            }
+            aContext.numberOfQuotes++;
+            aContext.isInQuotes = !aContext.isInQuotes;
+        } else if (aContext.isInQuotes && !Character.isDigit(aCharacter) && aContext.illegalQuoteOffset < 0) {
+            aContext.illegalQuoteOffset = anOffset;
+        }
+        // Normal brackets
+        if (aCharacter == '(') {
+            aContext.numberOfOpeningBrackets++;
+            aContext.bracketDepth++;
+        } else if (aCharacter == ')') {
+            aContext.numberOfClosingBrackets++;
+            aContext.bracketDepth--;
+            if (aContext.bracketDepth < 0 && aContext.negativeBracketDepthOffset < 0) {
+                aContext.negativeBracketDepthOffset = anOffset;
+            }
+        }
+        // Angular brackets
+        if (aCharacter == '[') {
+            aContext.hasAngularBracket = true;
+            if (aContext.isInAngularBrackets) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_SEQUENCE, "StructureCheck.MissingClosingAngularBracket", anOffset);
+            }
+            aContext.isInAngularBrackets = true;
+            aContext.angularContent.setLength(0);
+            aContext.angularContentOffset = anOffset;
+        } else if (aCharacter == ']') {
+            aContext.hasAngularBracket = true;
+            if (!aContext.isInAngularBrackets) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_SEQUENCE, "StructureCheck.MissingOpeningAngularBracket", anOffset);
+            } else {
+                aContext.isInAngularBrackets = false;
+                this.addAngularContent(aContext);
+            }
+        } else if (aContext.isInAngularBrackets) {
+            aContext.angularContent.append(aCharacter);
+        }
+        aContext.lastCharacter = aCharacter;
+        aContext.lastCharacterOffset = anOffset;
+        aContext.numberOfCharacters++;
+    }
+
+    /**
+     * Adds the content of angular brackets to a context
+     *
+     * @param aContext Context
+     */
+    private void addAngularContent(StructureContext aContext) {
+        StringBuilder tmpContent = aContext.angularContent;
+        int tmpOffset = aContext.angularContentOffset;
+        boolean tmpIsRingClosure = tmpContent.length() > 0;
+        for (int i = 0; i < tmpContent.length(); i++) {
+            if (!Character.isDigit(tmpContent.charAt(i))) {
+                tmpIsRingClosure = false;
+                break;
+            }
+        }
+        if (aContext.isMonomer) {
+            if ("HEAD".contentEquals(tmpContent)) {
+                aContext.numberOfHeads++;
+            } else if ("TAIL".contentEquals(tmpContent)) {
+                aContext.numberOfTails++;
+            } else if (tmpIsRingClosure) {
+                aContext.ringClosureLabels.add(tmpContent.toString());
+            } else if ("START".contentEquals(tmpContent)) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_CONTENT, "StructureCheck.StartAttributeInMonomer", tmpOffset);
+            } else if ("END".contentEquals(tmpContent)) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_CONTENT, "StructureCheck.EndAttributeInMonomer", tmpOffset);
+            } else {
+                this.setContextError(aContext, CONTEXT_ANGULAR_CONTENT, "StructureCheck.InvalidCharacterBetweenAngularBrackets", tmpOffset);
+            }
+        } else {
+            if ("HEAD".contentEquals(tmpContent) || "TAIL".contentEquals(tmpContent)) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_CONTENT, "StructureCheck.IllegalUsingOfHeadOrTail", tmpOffset);
+            } else if (tmpIsRingClosure) {
+                aContext.ringClosureLabels.add(tmpContent.toString());
+            } else if ("START".contentEquals(tmpContent)) {
+                aContext.numberOfStartTags++;
+            } else if ("END".contentEquals(tmpContent)) {
+                aContext.numberOfEndTags++;
+            } else {
+                this.setContextError(aContext, CONTEXT_ANGULAR_CONTENT, "StructureCheck.InvalidCharacterBetweenAngularBrackets", tmpOffset);
+            }
+        }
+    }
+
+    /**
+     * Adds a raw token to a context and checks the transition from the
+     * previous token
+     *
+     * @param aContext Context
+     * @param aKind Token kind
+     * @param aValue Token value (numbers, ring closures and backbone
+     * indices)
+     * @param anOffset Offset of token
+     * @param anIsDiagnosed True: Token is already diagnosed (e.g. it
+     * contains an invalid character), false: Otherwise
+     */
+    private void addContextToken(StructureContext aContext, byte aKind, int aValue, int anOffset, boolean anIsDiagnosed) {
+        boolean tmpIsDiagnosed = anIsDiagnosed;
+        if (aContext.numberOfTokens == 0) {
+            aContext.firstTokenKind = aKind;
+        } else if (aContext.errorCategory > CONTEXT_TOKEN || this.isCollectingDiagnostics) {
+            String tmpKey = this.checkTokenTransition(aContext, aContext.previousTokenKind, aContext.previousTokenValue, aKind);
+            if (tmpKey != null) {
+                // A transition error is diagnosed once for both tokens
+                this.setContextError(aContext, CONTEXT_TOKEN, tmpKey, aContext.previousTokenOffset, !aContext.isPreviousTokenDiagnosed && !tmpIsDiagnosed);
+                tmpIsDiagnosed = true;
+            }
+        }
+        aContext.numberOfTokens++;
+        aContext.previousTokenKind = aKind;
+        aContext.previousTokenValue = aValue;
+        aContext.previousTokenOffset = anOffset;
+        aContext.isPreviousTokenDiagnosed = tmpIsDiagnosed;
+    }
+
+    /**
+     * Adds a raw token to the regions of a structure like (A[1]-B)(B-A[1])
+     * (see PSmilesInner.checkSubStructure())
+     *
+     * @param aContext Context
+     * @param aKind Token kind
+     * @param aValue Token value
+     * @param anOffset Offset of token
+     */
+    private void addRegionToken(StructureContext aContext, byte aKind, int aValue, int anOffset) {
+        StructureContext tmpContext = aContext;
+        if (aKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN) {
+            if (tmpContext.regionDepth == 0) {
+                tmpContext.regionMarkers.clear();
+            }
+            tmpContext.regionDepth++;
+        } else if (aKind == PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE) {
+            tmpContext.regionDepth--;
+            if (tmpContext.regionDepth == 0) {
+                if (tmpContext.regionMarkers.isEmpty()) {
+                    this.setContextError(tmpContext, CONTEXT_ONE_PART, "StructureCheck.MissingConnection", anOffset);
+                }
+                int[] tmpMarkers = new int[tmpContext.regionMarkers.size()];
+                int tmpIndex = 0;
+                for (Integer tmpMarker : tmpContext.regionMarkers) {
+                    tmpMarkers[tmpIndex++] = tmpMarker;
+                }
+                tmpContext.regions.add(tmpMarkers);
+            }
+        } else if (tmpContext.regionDepth > 0 && this.tokenCharacters[0] == '[') {
+            tmpContext.regionMarkers.add(aKind == PSmilesConstants.TOKEN_KIND_RING_CLOSURE && aValue > 0 ? aValue : 0);
+        }
+    }
+
+    /**
+     * Checks the transition from a token to the next token (see
+     * PSmilesInner.checkSubStructure())
+     *
+     * @param aContext Context
+     * @param aKind Token kind
+     * @param aValue Token value
+     * @param aNextKind Kind of next token
+     * @return Message key or null
+     */
+    private String checkTokenTransition(StructureContext aContext, byte aKind, int aValue, byte aNextKind) {
+        switch (aKind) {
+            case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                        return "StructureCheck.MissingAConnectionPriorCurlyOpeningBracket";
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_OTHER:
+                        return "StructureCheck.InvalidParticleAfterParticle";
+                    default:
+                        return null;
+                }
+            case PSmilesConstants.TOKEN_KIND_NUMBER:
+                if (aValue <= 0) {
+                    return "StructureCheck.IllegalFrequency";
+                }
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                        return "StructureCheck.InvalidParticlePriorNormalBracket";
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                        return "StructureCheck.MissingAParticlePriorNormalClosingBracket";
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                        return "StructureCheck.MissingParticleAfterNumber";
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                        return "StructureCheck.MissingParticlePriorConnection";
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return "StructureCheck.InvalidPositionOfBackboneIndex";
+                    default:
+                        return "StructureCheck.InvalidParticlename";
+                }
+            case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                        return "StructureCheck.InSeriesOfNormalOpeningBrackets";
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                        return "StructureCheck.EmptyNormalBrackets";
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                        return "StructureCheck.MissingAParticlePriorRingClosure";
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                        return "StructureCheck.MissingAParticlePriorConnection";
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                        return "StructureCheck.MissingAParticlePriorHeadOrTail";
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return "StructureCheck.InvalidPositionOfBackboneIndex";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterNormalOpeningBracket";
+                }
+            case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                        return "StructureCheck.MissingAParticlePriorRingClosure";
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return "StructureCheck.MissingAConnectionAfterNormalClosingBracket";
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                        return "StructureCheck.MissingAParticlePriorHeadOrTail";
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        if (this.isPartStartingWithBranch) {
+                            return null;
+                        }
+                        return "StructureCheck.MissingAConnectionAfterNormalClosingBracket";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterNormalClosingBracket";
+                }
+            case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_OTHER:
+                        return "StructureCheck.InvalidParticleAfterRingClosure";
+                    default:
+                        return null;
+                }
+            case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                        return "StructureCheck.MissingAParticlePriorConnection";
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return "StructureCheck.MonomerInsideOfCurlyBracket";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterCurlyOpeningBracket";
+                }
+            case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                        return "StructureCheck.MissingAParticlePriorRingClosure";
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return "StructureCheck.InvalidPositionOfBackboneIndex";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterCurlyClosingBracket";
+                }
+            case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                        return "StructureCheck.MissingParticleBetweenConnectionAndNormalOpeningBracket";
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                        return "StructureCheck.MissingParticleBetweenConnectionAndNormalClosingBracket";
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                        return "StructureCheck.MissingParticleBetweenConnectionAndRingClosure";
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                        return "StructureCheck.InvalidLastCharacter";
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                        return "StructureCheck.MissingParticleBetweenTwoConnections";
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                        return "StructureCheck.MissingParticleBetweenConnectionAndHeadOrTail";
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return "StructureCheck.InvalidPositionOfBackboneIndex";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterConnection";
+                }
+            case PSmilesConstants.TOKEN_KIND_HEAD:
+            case PSmilesConstants.TOKEN_KIND_TAIL:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return "StructureCheck.MonomerAfterHeadOrTail";
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        return "StructureCheck.MissingAConnectionAfterHeadOrTail";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterHeadTail";
+                }
+            case PSmilesConstants.TOKEN_KIND_START:
+            case PSmilesConstants.TOKEN_KIND_END:
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                    case PSmilesConstants.TOKEN_KIND_HEAD:
+                    case PSmilesConstants.TOKEN_KIND_TAIL:
+                    case PSmilesConstants.TOKEN_KIND_START:
+                    case PSmilesConstants.TOKEN_KIND_END:
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return null;
+                    default:
+                        return "StructureCheck.InvalidParticleAfterStartEnd";
+                }
+            case PSmilesConstants.TOKEN_KIND_MONOMER:
+                if (aContext.isMonomer) {
+                    return "StructureCheck.MonomerInMonomer";
+                }
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                    case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                    case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                    case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                        return null;
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                        return "StructureCheck.MonomerAfterMonomer";
+                    default:
+                        return "StructureCheck.InvalidParticleAfterMonomer";
+                }
+            case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                String tmpKey = this.addBackboneIndex(aContext, aValue, true);
+                if (tmpKey != null) {
+                    return tmpKey;
+                }
+                switch (aNextKind) {
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                    case PSmilesConstants.TOKEN_KIND_NUMBER:
+                        return "StructureCheck.MissingAConnectionAfterBackboneIndex";
+                    default:
+                        return null;
+                }
+            default:
+                return "StructureCheck.InvalidParticlename";
+        }
+    }
+
+    /**
+     * Adds a backbone index to a context
+     *
+     * @param aContext Context
+     * @param aValue Backbone index
+     * @param anIsZeroChecked True: Zero is checked, false: Otherwise
+     * @return Message key or null
+     */
+    private String addBackboneIndex(StructureContext aContext, int aValue, boolean anIsZeroChecked) {
+        if (anIsZeroChecked && aValue == 0) {
+            return "StructureCheck.ZeroInBackboneindex";
+        }
+        if (aContext.backboneIndexSet == null) {
+            aContext.backboneIndexSet = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        }
+        if (!aContext.backboneIndexSet.add(aValue)) {
+            return "StructureCheck.RedundancyOfBackboneIndices";
+        }
+        if (aValue > aContext.maximumBackboneIndex) {
+            aContext.maximumBackboneIndex = aValue;
+        }
+        return null;
+    }
+
+    /**
+     * Finishes a context, i.e. performs all checks that need the complete
+     * context (see PSmilesInner.checkSubStructure())
+     *
+     * @param aContext Context
+     */
+    private void finishContext(StructureContext aContext) {
+        if (aContext.numberOfCharacters == 0) {
+            return;
+        }
+        // <editor-fold defaultstate="collapsed" desc="First and last character">
+        switch (aContext.firstCharacter) {
+            case '0':
+            case '[':
+            case ']':
+            case '-':
+            case ')':
+            case '\'':
+                this.setContextError(aContext, CONTEXT_FIRST_CHARACTER,
+                        aContext.isMonomer ? "StructureCheck.InvalidFirstCharacterOfMonomer" : "StructureCheck.InvalidFirstCharacterOfStructure",
+                        aContext.firstCharacterOffset);
+                break;
+            default:
+                break;
+        }
+        switch (aContext.lastCharacter) {
+            case '[':
+            case '-':
+            case '(':
+                this.setContextError(aContext, CONTEXT_LAST_CHARACTER,
+                        aContext.isMonomer ? "StructureCheck.InvalidLastCharacterOfMonomer" : "StructureCheck.InvalidLastCharacterOfStructure",
+                        aContext.lastCharacterOffset);
+                break;
+            default:
+                break;
+        }
+        // Structures like (A-B)A and (A-B)-
+        if (aContext.firstCharacter == '(' && aContext.suffixLength > 0 && aContext.characterPriorSuffix == ')'
+                && aContext.indexOfCharacterPriorSuffix >= 2) {
+            this.setContextError(aContext, CONTEXT_PARTICLE_AFTER_BRANCH, "StructureCheck.InvalidParticleAfterNormalClosingBracket",
+                    aContext.lastCharacterOffset - aContext.suffixLength + 1);
+        }
+        if (aContext.isMonomer && aContext.numberOfQuotes > 0) {
+            this.setContextError(aContext, CONTEXT_BACKBONE_IN_MONOMER, "StructureCheck.BackboneIndexInMonomer", aContext.firstCharacterOffset);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Angular brackets and ring closures">
+        if (aContext.isInAngularBrackets) {
+            this.setContextError(aContext, CONTEXT_ANGULAR_SEQUENCE, "StructureCheck.MissingClosingAngularBracket", aContext.angularContentOffset);
+        }
+        if (aContext.hasAngularBracket) {
+            String tmpKey = null;
+            if (aContext.numberOfStartTags > 1) {
+                tmpKey = "StructureCheck.TooManyStartTag";
+            } else if (aContext.numberOfEndTags > 1) {
+                tmpKey = "StructureCheck.TooManyEndTag";
+            } else if (aContext.numberOfStartTags == 1 && aContext.numberOfEndTags == 0) {
+                tmpKey = "StructureCheck.MissingEndAttribute";
+            } else if (aContext.numberOfStartTags == 0 && aContext.numberOfEndTags == 1) {
+                tmpKey = "StructureCheck.MissingStartAttribute";
+            } else if (aContext.isMonomer) {
+                if (aContext.numberOfHeads == 0) {
+                    tmpKey = "StructureCheck.MissingHeadAttribute";
+                } else if (aContext.numberOfHeads > 1) {
+                    tmpKey = "StructureCheck.TooManyHead";
+                } else if (aContext.numberOfTails == 0) {
+                    tmpKey = "StructureCheck.MissingTailAttribute";
+                } else if (aContext.numberOfTails > 1) {
+                    tmpKey = "StructureCheck.TooManyTail";
+                }
+            }
+            if (tmpKey != null) {
+                this.setContextError(aContext, CONTEXT_ANGULAR_COUNT, tmpKey, aContext.firstCharacterOffset);
+            }
+        } else if (aContext.isMonomer) {
+            this.setContextError(aContext, CONTEXT_ANGULAR_COUNT, "StructureCheck.MissingHeadOrTailAttribute", aContext.firstCharacterOffset);
+        }
+        if (!aContext.ringClosureLabels.isEmpty()) {
+            String tmpKey = this.checkRingClosureLabels(aContext.ringClosureLabels);
+            if (tmpKey != null) {
+                this.setContextError(aContext, CONTEXT_RING_CLOSURE, tmpKey, aContext.firstCharacterOffset);
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Normal brackets">
+        if (aContext.numberOfOpeningBrackets > aContext.numberOfClosingBrackets) {
+            this.setContextError(aContext, CONTEXT_NORMAL_BRACKET, "StructureCheck.MissingClosingNormalBracket", aContext.lastCharacterOffset);
+        } else if (aContext.numberOfClosingBrackets > aContext.numberOfOpeningBrackets) {
+            this.setContextError(aContext, CONTEXT_NORMAL_BRACKET, "StructureCheck.MissingOpeningNormalBracket", aContext.firstCharacterOffset);
+        } else if (aContext.negativeBracketDepthOffset >= 0) {
+            this.setContextError(aContext, CONTEXT_NORMAL_BRACKET, "StructureCheck.MissingOpeningNormalBracket", aContext.negativeBracketDepthOffset);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Backbone indices">
+        if (aContext.emptyQuotesOffset >= 0) {
+            this.setContextError(aContext, CONTEXT_BACKBONE, "StructureCheck.IllegalBackboneIndexFormat", aContext.emptyQuotesOffset);
+        } else if (aContext.numberOfQuotes % 2 != 0) {
+            this.setContextError(aContext, CONTEXT_BACKBONE, "StructureCheck.MissingBackboneIndex", aContext.lastCharacterOffset);
+        } else if (aContext.numberOfQuotes == 2) {
+            this.setContextError(aContext, CONTEXT_BACKBONE, "StructureCheck.TooLessBackboneindex", aContext.firstCharacterOffset);
+        } else if (aContext.illegalQuoteOffset >= 0) {
+            this.setContextError(aContext, CONTEXT_BACKBONE, "StructureCheck.IllegalBackboneIndexFormat", aContext.illegalQuoteOffset);
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Tokens">
+        if (aContext.errorCategory > CONTEXT_TOKEN || this.isCollectingDiagnostics) {
+            String tmpKey = null;
+            boolean tmpIsDiagnostic = !aContext.isPreviousTokenDiagnosed;
+            if (aContext.numberOfTokens == 1) {
+                switch (aContext.firstTokenKind) {
+                    case PSmilesConstants.TOKEN_KIND_MONOMER:
+                    case PSmilesConstants.TOKEN_KIND_PARTICLE:
+                    case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                        break;
+                    default:
+                        tmpKey = "StructureCheck.InvalidParticlename";
+                        break;
+                }
+            } else if (aContext.numberOfTokens > 1) {
+                if (aContext.previousTokenKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
+                    tmpKey = "StructureCheck.MissingParticleAfterNumber";
+                } else if (aContext.previousTokenKind == PSmilesConstants.TOKEN_KIND_MONOMER && aContext.isMonomer) {
+                    tmpKey = "StructureCheck.MonomerInMonomer";
+                } else if (aContext.previousTokenKind == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX) {
+                    tmpKey = this.addBackboneIndex(aContext, aContext.previousTokenValue, false);
+                }
+                if (tmpKey == null && aContext.backboneIndexSet != null && !aContext.backboneIndexSet.isEmpty()
+                        && aContext.backboneIndexSet.size() < aContext.maximumBackboneIndex) {
+                    tmpKey = "StructureCheck.MissingBackboneIndex";
+                    tmpIsDiagnostic = true;
+                }
+            }
+            if (tmpKey != null) {
+                this.setContextError(aContext, CONTEXT_TOKEN, tmpKey, aContext.previousTokenOffset, tmpIsDiagnostic);
+            }
+        }
+
+        // </editor-fold>
+        // <editor-fold defaultstate="collapsed" desc="Structure out of one part">
+        if (aContext.regions.size() > 1) {
+            if (!this.isOnePart(aContext.regions.toArray(new int[0][]))) {
+                this.setContextError(aContext, CONTEXT_ONE_PART, "StructureCheck.StructureNotOnePart", aContext.firstCharacterOffset);
+            }
+        }
+        // </editor-fold>
+    }
+
+    /**
+     * Checks ring closure labels: Each label must occur exactly twice
+     *
+     * @param aLabels Ring closure labels
+     * @return Message key or null
+     */
+    private String checkRingClosureLabels(ArrayList<String> aLabels) {
+        String[] tmpLabels = aLabels.toArray(new String[0]);
+        Arrays.sort(tmpLabels);
+        int tmpCount = tmpLabels.length;
+        if (tmpCount == 1) {
+            return "StructureCheck.MissingRingClosure";
+        }
+        for (int i = 0; i < tmpCount; i += 2) {
+            if (i + 1 == tmpCount || !tmpLabels[i].equals(tmpLabels[i + 1])) {
+                return "StructureCheck.MissingRingClosure";
+            }
+            if (i + 2 < tmpCount && tmpLabels[i].equals(tmpLabels[i + 2])) {
+                return "StructureCheck.TooManyRingClosures";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether the regions of a structure like (A[1]-B)(B-A[1])
+     * form only one part (see PSmilesInner.isOnePart())
+     *
+     * @param aPartConnectionMarker Connection markers: 1st index stands for
+     * region, 2nd index for connection marker index
+     * @return True: Structure is out of only one part, false: Otherwise
+     */
+    private boolean isOnePart(int[][] aPartConnectionMarker) {
+        if (aPartConnectionMarker[0].length == 0) {
+            return false;
+        }
+        HashSet<Integer> tmpPartOfStructure = new HashSet<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        tmpPartOfStructure.add(0);
+        int tmpActualMarkerNumber;
+        for (int i = 0; i < aPartConnectionMarker.length - 1; i++) {
+            for (int ii = 0; ii < aPartConnectionMarker[i].length; ii++) {
+                tmpActualMarkerNumber = aPartConnectionMarker[i][ii];
+                for (int j = i + 1; j < aPartConnectionMarker.length; j++) {
+                    for (int jj = 0; jj < aPartConnectionMarker[j].length; jj++) {
+                        if (tmpActualMarkerNumber == aPartConnectionMarker[j][jj]) {
+                            if (!tmpPartOfStructure.contains(j)) {
+                                tmpPartOfStructure.add(j);
+                                j = aPartConnectionMarker[i].length;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return tmpPartOfStructure.size() == aPartConnectionMarker.length;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="- Compilation methods">
+    /**
+     * Compiles a raw token, i.e. appends compiled tokens, particles and
+     * bonds (see PSmilesInner.getPSmilesCompilerTokenList() and
+     * PSmilesInner.getNeighborParticles())
+     *
+     * @param aKind Token kind
+     * @param aValue Token value
+     */
+    private void compileToken(byte aKind, int aValue) {
+        if (this.isValidationOnly) {
+            this.countToken(aKind, aValue);
+            return;
+        }
+        if (aKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
+            if (this.hasPendingNumber) {
+                this.addCompiledToken(this.pendingNumberToken);
+            }
+            this.hasPendingNumber = true;
+            this.pendingNumberValue = aValue;
+            this.pendingNumberToken = this.getTokenString();
+            return;
+        }
+        boolean tmpHasNumber = this.hasPendingNumber;
+        this.hasPendingNumber = false;
+        switch (aKind) {
+            case PSmilesConstants.TOKEN_KIND_PARTICLE:
+            case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                String tmpParticle = this.getTokenString();
+                if (tmpHasNumber) {
+                    for (int i = 0; i < this.pendingNumberValue; i++) {
+                        if (i > 0) {
+                            this.addCompiledToken(PSmilesConstants.PARTICLE_SEPARATOR);
+                        }
+                        this.addCompiledToken("1");
+                        this.attachParticle(this.addParticle(tmpParticle));
+                    }
+                } else {
+                    this.attachParticle(this.addParticle(tmpParticle));
+                }
+                return;
+            case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                if (!this.isInCurlyBrackets) {
+                    this.beginBlock(tmpHasNumber && this.pendingNumberValue > 0 ? this.pendingNumberValue : 1);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        if (tmpHasNumber) {
+            this.addCompiledToken(this.pendingNumberToken);
+        }
+        switch (aKind) {
+            case PSmilesConstants.TOKEN_KIND_MONOMER:
+                this.attachParticle(this.addParticle(this.getTokenString()));
+                break;
+            case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN:
+                this.addCompiledToken("(");
+                if (this.branchDepth == this.branchStack.length) {
+                    this.branchStack = Arrays.copyOf(this.branchStack, 2 * this.branchDepth);
+                }
+                this.branchStack[this.branchDepth++] = this.attachmentParticle;
+                break;
+            case PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE:
+                this.addCompiledToken(")");
+                if (this.branchDepth > 0) {
+                    this.attachmentParticle = this.branchStack[--this.branchDepth];
+                }
+                if (this.pendingTailSlot >= 0 && this.branchDepth < this.pendingTailDepth) {
+                    this.pendingTailSlot = -1;
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_CONNECTION:
+                this.addCompiledToken(PSmilesConstants.PARTICLE_SEPARATOR);
+                break;
+            case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE:
+                this.addCompiledToken("}");
+                if (this.isInCurlyBrackets) {
+                    this.endBlock();
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                this.addCompiledToken(this.getTokenString());
+                if (this.lastParticle >= 0 && aValue >= 0) {
+                    this.addRingClosure(aValue, this.lastParticle, this.isInCurlyBrackets ? this.blockScope : 0);
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_HEAD:
+                this.addCompiledToken("[HEAD]");
+                if (this.isInCurlyBrackets && this.lastParticle >= this.blockParticleStart) {
+                    this.blockHeadParticle = this.lastParticle;
+                    if (this.blockHeadSlot >= 0) {
+                        this.bonds[2 * this.blockHeadSlot + 1] = this.lastParticle;
+                    }
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_TAIL:
+                this.addCompiledToken("[TAIL]");
+                if (this.isInCurlyBrackets && this.lastParticle >= this.blockParticleStart) {
+                    this.blockTailParticle = this.lastParticle;
+                    this.bonds[2 * this.blockTailSlot] = this.lastParticle;
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_START:
+                this.addCompiledToken("[START]");
+                if (!this.hasStartAttribute) {
+                    this.hasStartAttribute = true;
+                    this.startParticle = this.lastParticle < 0 ? 0 : this.lastParticle;
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_END:
+                this.addCompiledToken("[END]");
+                if (this.endParticle < 0) {
+                    this.endParticle = this.lastParticle < 0 ? 0 : this.lastParticle;
+                }
+                break;
+            case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                this.addCompiledToken(this.getTokenString());
+                if (this.lastParticle >= 0) {
+                    this.backboneIndices[this.lastParticle] = aValue;
+                }
+                break;
+            default:
+                this.addCompiledToken(this.getTokenString());
+                break;
+        }
+    }
+
+    /**
+     * Counts the particles of a raw token in validation-only mode, i.e.
+     * repetitions of particles and blocks are multiplied instead of expanded
+     * (see compileToken())
+     *
+     * @param aKind Token kind
+     * @param aValue Token value
+     */
+    private void countToken(byte aKind, int aValue) {
+        if (aKind == PSmilesConstants.TOKEN_KIND_NUMBER) {
+            this.hasPendingNumber = true;
+            this.pendingNumberValue = aValue;
+            return;
+        }
+        boolean tmpHasNumber = this.hasPendingNumber;
+        this.hasPendingNumber = false;
+        long tmpRepetition = this.isInCurlyBrackets ? this.blockRepetition : 1;
+        switch (aKind) {
+            case PSmilesConstants.TOKEN_KIND_PARTICLE:
+            case PSmilesConstants.TOKEN_KIND_UNAVAILABLE_PARTICLE:
+                if (tmpHasNumber) {
+                    tmpRepetition = getSaturatedProduct(tmpRepetition, this.pendingNumberValue);
+                }
+                this.numberOfCountedParticles = getSaturatedSum(this.numberOfCountedParticles, tmpRepetition);
+                break;
+            case PSmilesConstants.TOKEN_KIND_MONOMER:
+                this.numberOfCountedParticles = getSaturatedSum(this.numberOfCountedParticles, tmpRepetition);
+                break;
+            case PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN:
+                if (!this.isInCurlyBrackets) {
+                    this.blockRepetition = tmpHasNumber && this.pendingNumberValue > 0 ? this.pendingNumberValue : 1;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Begins a monomer block (curly opening bracket)
+     *
+     * @param aRepetition Repetition of block
+     */
+    private void beginBlock(int aRepetition) {
+        this.addCompiledToken("{");
+        this.blockHeadSlot = -1;
+        if (this.pendingTailSlot >= 0 && this.branchDepth == this.pendingTailDepth) {
+            // TAIL particle of previous block is bonded to HEAD particle of this block
+            this.blockHeadSlot = this.pendingTailSlot;
+            this.pendingTailSlot = -1;
+        } else if (this.attachmentParticle >= 0) {
+            this.blockHeadSlot = this.addBond(this.attachmentParticle, -1);
+        }
+        this.blockTailSlot = this.addBond(-1, -1);
+        this.blockTokenStart = this.numberOfCompiledTokens - 1;
+        this.blockParticleStart = this.numberOfParticles;
+        this.blockBondStart = this.numberOfBonds;
+        this.blockRingStart = this.numberOfRingClosures;
+        this.blockHeadParticle = -1;
+        this.blockTailParticle = -1;
+        this.blockRepetition = aRepetition;
+        this.blockDepth = this.branchDepth;
+        this.blockScope = ++this.numberOfScopes;
+        this.attachmentParticle = -1;
+    }
+
+    /**
+     * Ends a monomer block (curly closing bracket) and appends all
+     * repetitions of the block
+     */
+    private void endBlock() {
+        int tmpTailSlot = this.blockTailSlot;
+        if (this.blockRepetition > 1) {
+            int tmpTokenEnd = this.numberOfCompiledTokens;
+            int tmpNumberOfBlockTokens = tmpTokenEnd - this.blockTokenStart;
+            int tmpParticleEnd = this.numberOfParticles;
+            int tmpNumberOfBlockParticles = tmpParticleEnd - this.blockParticleStart;
+            int tmpBondEnd = this.numberOfBonds;
+            int tmpRingEnd = this.numberOfRingClosures;
+            for (int i = 1; i < this.blockRepetition; i++) {
+                int tmpParticleOffset = i * tmpNumberOfBlockParticles;
+                int tmpTokenOffset = i * tmpNumberOfBlockTokens;
+                if (this.blockHeadParticle >= 0) {
+                    this.bonds[2 * tmpTailSlot + 1] = this.blockHeadParticle + tmpParticleOffset;
+                }
+                tmpTailSlot = this.addBond(this.blockTailParticle >= 0 ? this.blockTailParticle + tmpParticleOffset : -1, -1);
+                for (int j = this.blockTokenStart; j < tmpTokenEnd; j++) {
+                    this.addCompiledToken(this.compiledTokens[j]);
+                }
+                for (int j = this.blockParticleStart; j < tmpParticleEnd; j++) {
+                    this.ensureParticleCapacity();
+                    this.particleIndices[this.numberOfParticles] = this.particleIndices[j] + tmpTokenOffset;
+                    this.backboneIndices[this.numberOfParticles] = this.backboneIndices[j];
+                    this.numberOfParticles++;
+                }
+                for (int j = this.blockBondStart; j < tmpBondEnd; j++) {
+                    int tmpFirst = this.bonds[2 * j];
+                    int tmpSecond = this.bonds[2 * j + 1];
+                    this.addBond(tmpFirst >= 0 ? tmpFirst + tmpParticleOffset : -1, tmpSecond >= 0 ? tmpSecond + tmpParticleOffset : -1);
+                }
+                int tmpScope = ++this.numberOfScopes;
+                for (int j = this.blockRingStart; j < tmpRingEnd; j++) {
+                    this.addRingClosure(this.ringLabels[j], this.ringParticles[j] + tmpParticleOffset, tmpScope);
+                }
+            }
+            this.lastParticle = this.numberOfParticles - 1;
+        }
+        this.pendingTailSlot = tmpTailSlot;
+        this.pendingTailDepth = this.blockDepth;
+        this.attachmentParticle = -1;
+    }
+
+    /**
+     * Appends a compiled token
+     *
+     * @param aToken Token
+     */
+    private void addCompiledToken(String aToken) {
+        if (this.numberOfCompiledTokens == this.compiledTokens.length) {
+            this.compiledTokens = Arrays.copyOf(this.compiledTokens, 2 * this.numberOfCompiledTokens);
+        }
+        this.compiledTokens[this.numberOfCompiledTokens++] = aToken;
+    }
+
+    /**
+     * Appends a particle as compiled token
+     *
+     * @param aParticle Particle
+     * @return Index of particle
+     */
+    private int addParticle(String aParticle) {
+        this.ensureParticleCapacity();
+        this.particleIndices[this.numberOfParticles] = this.numberOfCompiledTokens;
+        this.backboneIndices[this.numberOfParticles] = 0;
+        this.addCompiledToken(aParticle);
+        return this.numberOfParticles++;
+    }
+
+    /**
+     * Ensures capacity for one more particle
+     */
+    private void ensureParticleCapacity() {
+        if (this.numberOfParticles == this.particleIndices.length) {
+            this.particleIndices = Arrays.copyOf(this.particleIndices, 2 * this.numberOfParticles);
+            this.backboneIndices = Arrays.copyOf(this.backboneIndices, 2 * this.numberOfParticles);
+        }
+    }
+
+    /**
+     * Bonds a particle to its predecessor (TAIL particle of a previous block
+     * or attachment particle)
+     *
+     * @param aParticle Particle
+     */
+    private void attachParticle(int aParticle) {
+        if (this.pendingTailSlot >= 0 && this.branchDepth == this.pendingTailDepth) {
+            this.bonds[2 * this.pendingTailSlot + 1] = aParticle;
+            this.pendingTailSlot = -1;
+        } else if (this.attachmentParticle >= 0) {
+            this.addBond(this.attachmentParticle, aParticle);
+        }
+        this.attachmentParticle = aParticle;
+        this.lastParticle = aParticle;
+    }
+
+    /**
+     * Appends a bond
+     *
+     * @param aFirstParticle First particle (-1: Not yet known)
+     * @param aSecondParticle Second particle (-1: Not yet known)
+     * @return Index of bond
+     */
+    private int addBond(int aFirstParticle, int aSecondParticle) {
+        if (2 * this.numberOfBonds == this.bonds.length) {
+            this.bonds = Arrays.copyOf(this.bonds, 2 * this.bonds.length);
+        }
+        this.bonds[2 * this.numberOfBonds] = aFirstParticle;
+        this.bonds[2 * this.numberOfBonds + 1] = aSecondParticle;
+        return this.numberOfBonds++;
+    }
+
+    /**
+     * Appends a ring closure
+     *
+     * @param aLabel Ring closure label
+     * @param aParticle Particle of ring closure
+     * @param aScope Scope of ring closure
+     */
+    private void addRingClosure(int aLabel, int aParticle, int aScope) {
+        if (this.numberOfRingClosures == this.ringLabels.length) {
+            this.ringLabels = Arrays.copyOf(this.ringLabels, 2 * this.numberOfRingClosures);
+            this.ringParticles = Arrays.copyOf(this.ringParticles, 2 * this.numberOfRingClosures);
+            this.ringScopes = Arrays.copyOf(this.ringScopes, 2 * this.numberOfRingClosures);
+        }
+        this.ringLabels[this.numberOfRingClosures] = aLabel;
+        this.ringParticles[this.numberOfRingClosures] = aParticle;
+        this.ringScopes[this.numberOfRingClosures] = aScope;
+        this.numberOfRingClosures++;
+    }
+
+    /**
+     * Pairs the ring closures of each scope (see RingClosureMatcher) and
+     * appends the resulting bonds in ascending order of their labels (if not
+     * already existing)
+     */
+    private void addRingClosureBonds() {
+        if (this.numberOfRingClosures == 0) {
+            return;
+        }
+        RingClosureMatcher tmpMatcher = new RingClosureMatcher(true);
+        for (int i = 0; i < this.numberOfRingClosures; i++) {
+            tmpMatcher.addRingClosure(this.ringScopes[i], this.ringLabels[i], this.ringParticles[i]);
+        }
+        int[] tmpRingClosureBonds = tmpMatcher.getBonds(this.bonds, this.numberOfBonds);
+        for (int i = 0; i < tmpRingClosureBonds.length; i += 2) {
+            this.addBond(tmpRingClosureBonds[i], tmpRingClosureBonds[i + 1]);
+        }
+    }
+
+    /**
+     * Returns the sum of two non-negative counts
+     *
+     * @param aFirstCount First count (non-negative)
+     * @param aSecondCount Second count (non-negative)
+     * @return Sum or Long.MAX_VALUE if too large
+     */
+    private static long getSaturatedSum(long aFirstCount, long aSecondCount) {
+        long tmpSum = aFirstCount + aSecondCount;
+        return tmpSum < 0 ? Long.MAX_VALUE : tmpSum;
+    }
+
+    /**
+     * Returns the product of two non-negative counts
+     *
+     * @param aFirstCount First count (non-negative)
+     * @param aSecondCount Second count (non-negative)
+     * @return Product or Long.MAX_VALUE if too large
+     */
+    private static long getSaturatedProduct(long aFirstCount, long aSecondCount) {
+        if (aFirstCount != 0 && aSecondCount > Long.MAX_VALUE / aFirstCount) {
+            return Long.MAX_VALUE;
+        }
+        return aFirstCount * aSecondCount;
+    }
+    // </editor-fold>
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class StructureContext">
+    /**
+     * Check state of a structure context, i.e. the body of a part or a
+     * monomer (content of curly brackets)
+     */
+    private static class StructureContext {
+
+        /**
+         * True: Context is a monomer, false: Context is a body
+         */
+        private final boolean isMonomer;
+
+        /**
+         * Content of current angular brackets
+         */
+        private final StringBuilder angularContent = new StringBuilder();
+
+        /**
+         * Ring closure labels
+         */
+        private final ArrayList<String> ringClosureLabels = new ArrayList<>();
+
+        /**
+         * Connection markers of current region
+         */
+        private final ArrayDeque<Integer> regionMarkers = new ArrayDeque<>();
+
+        /**
+         * Connection markers of all regions
+         */
+        private final ArrayList<int[]> regions = new ArrayList<>();
+
+        /**
+         * Error category
+         */
+        private int errorCategory;
+
+        /**
+         * Error message key
+         */
+        private String errorKey;
+
+        /**
+         * Error offset
+         */
+        private int errorOffset;
+
+        /**
+         * Number of characters
+         */
+        private int numberOfCharacters;
+
+        /**
+         * First character
+         */
+        private char firstCharacter;
+
+        /**
+         * Offset of first character
+         */
+        private int firstCharacterOffset;
+
+        /**
+         * Last character
+         */
+        private char lastCharacter;
+
+        /**
+         * Offset of last character
+         */
+        private int lastCharacterOffset;
+
+        /**
+         * Length of trailing sequence of particle, connection and angular
+         * bracket characters
+         */
+        private int suffixLength;
+
+        /**
+         * Character prior trailing sequence
+         */
+        private char characterPriorSuffix;
+
+        /**
+         * Index of character prior trailing sequence
+         */
+        private int indexOfCharacterPriorSuffix;
+
+        /**
+         * Number of quotes
+         */
+        private int numberOfQuotes;
+
+        /**
+         * True: Scan is between quotes, false: Otherwise
+         */
+        private boolean isInQuotes;
+
+        /**
+         * Offset of first empty quotes (-1: None)
+         */
+        private int emptyQuotesOffset;
+
+        /**
+         * Offset of first illegal character between quotes (-1: None)
+         */
+        private int illegalQuoteOffset;
+
+        /**
+         * Number of normal opening brackets
+         */
+        private int numberOfOpeningBrackets;
+
+        /**
+         * Number of normal closing brackets
+         */
+        private int numberOfClosingBrackets;
+
+        /**
+         * Depth of normal brackets
+         */
+        private int bracketDepth;
+
+        /**
+         * Offset of first normal closing bracket without opening bracket
+         * (-1: None)
+         */
+        private int negativeBracketDepthOffset;
+
+        /**
+         * True: Context has angular brackets, false: Otherwise
+         */
+        private boolean hasAngularBracket;
+
+        /**
+         * True: Scan is between angular brackets, false: Otherwise
+         */
+        private boolean isInAngularBrackets;
+
+        /**
+         * Offset of current angular opening bracket
+         */
+        private int angularContentOffset;
+
+        /**
+         * Number of [HEAD] attributes
+         */
+        private int numberOfHeads;
+
+        /**
+         * Number of [TAIL] attributes
+         */
+        private int numberOfTails;
+
+        /**
+         * Number of [START] attributes
+         */
+        private int numberOfStartTags;
+
+        /**
+         * Number of [END] attributes
+         */
+        private int numberOfEndTags;
+
+        /**
+         * Number of raw tokens
+         */
+        private int numberOfTokens;
+
+        /**
+         * Kind of first raw token
+         */
+        private byte firstTokenKind;
+
+        /**
+         * Kind of previous raw token
+         */
+        private byte previousTokenKind;
+
+        /**
+         * Value of previous raw token
+         */
+        private int previousTokenValue;
+
+        /**
+         * Offset of previous raw token
+         */
+        private int previousTokenOffset;
+
+        /**
+         * True: Previous raw token is already diagnosed, false: Otherwise
+         */
+        private boolean isPreviousTokenDiagnosed;
+
+        /**
+         * Backbone indices
+         */
+        private HashSet<Integer> backboneIndexSet;
+
+        /**
+         * Maximum backbone index
+         */
+        private int maximumBackboneIndex;
+
+        /**
+         * Depth of normal brackets of regions
+         */
+        private int regionDepth;
+
+        /**
+         * Constructor
+         *
+         * @param anIsMonomer True: Context is a monomer, false: Context is a
+         * body
+         */
+        private StructureContext(boolean anIsMonomer) {
+            this.isMonomer = anIsMonomer;
+            this.reset();
+        }
+
+        /**
+         * Resets the context
+         */
+        private void reset() {
+            this.angularContent.setLength(0);
+            this.ringClosureLabels.clear();
+            this.regionMarkers.clear();
+            this.regions.clear();
+            this.errorCategory = NO_ERROR;
+            this.errorKey = null;
+            this.errorOffset = -1;
+            this.numberOfCharacters = 0;
+            this.firstCharacter = 0;
+            this.firstCharacterOffset = 0;
+            this.lastCharacter = 0;
+            this.lastCharacterOffset = 0;
+            this.suffixLength = 0;
+            this.characterPriorSuffix = 0;
+            this.indexOfCharacterPriorSuffix = -1;
+            this.numberOfQuotes = 0;
+            this.isInQuotes = false;
+            this.emptyQuotesOffset = -1;
+            this.illegalQuoteOffset = -1;
+            this.numberOfOpeningBrackets = 0;
+            this.numberOfClosingBrackets = 0;
+            this.bracketDepth = 0;
+            this.negativeBracketDepthOffset = -1;
+            this.hasAngularBracket = false;
+            this.isInAngularBrackets = false;
+            this.angularContentOffset = 0;
+            this.numberOfHeads = 0;
+            this.numberOfTails = 0;
+            this.numberOfStartTags = 0;
+            this.numberOfEndTags = 0;
+            this.numberOfTokens = 0;
+            this.firstTokenKind = PSmilesConstants.TOKEN_KIND_OTHER;
+            this.previousTokenKind = PSmilesConstants.TOKEN_KIND_OTHER;
+            this.previousTokenValue = 0;
+            this.previousTokenOffset = 0;
+            this.isPreviousTokenDiagnosed = false;
+            this.backboneIndexSet = null;
+            this.maximumBackboneIndex = 0;
+            this.regionDepth = 0;
+        }
+    }
+    // </editor-fold>
+
+}
@@ -19,10 +19,9 @@
  */
 package de.gnwi.psmiles;
 
-import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.regex.Pattern;
 
 /**
@@ -31,28 +30,189 @@ import java.util.regex.Pattern;
  * @author Mirco Daniel
  */
 public class PSmilesUtility {
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Process-wide cache of canonical tokens
+     * key: token, value: canonical token
+     */
+    private static final ConcurrentLruCache<String, String> TOKEN_CACHE =
+            new ConcurrentLruCache<>(PSmilesConstants.DEFAULT_TOKEN_CACHE_MAXIMUM_WEIGHT, aToken -> 1);
+
+    /**
+     * Process-wide cache of structure tokens
+     * key: input structure, value: tokens
+     */
+    private static final ConcurrentLruCache<String, String[]> STRUCTURE_TOKENS_CACHE =
+            new ConcurrentLruCache<>(PSmilesConstants.DEFAULT_STRUCTURE_TOKENS_CACHE_MAXIMUM_WEIGHT, aTokens -> aTokens.length + 1);
+
+    /**
+     * Process-wide cache of compiled tokens of parts
+     * key: part structure, value: compiled tokens
+     */
+    private static final ConcurrentLruCache<String, String[]> COMPILED_TOKENS_CACHE =
+            new ConcurrentLruCache<>(PSmilesConstants.DEFAULT_COMPILED_TOKENS_CACHE_MAXIMUM_WEIGHT, aTokens -> aTokens.length + 1);
+
+    /**
+     * Process-wide caches of adjacent arrays of parts (one cache per parser
+     * engine so that the part structure itself is the key)
+     * key: part structure, value: adjacent array
+     */
+    private static final EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, int[][]>> ADJACENT_ARRAY_CACHES =
+            PSmilesUtility.createAdjacentArrayCaches();
+
+    /**
+     * Process-wide caches of compiled input structures (one cache per parser
+     * engine so that the input structure itself is the key)
+     * key: input structure, value: compiled input structure
+     * (weight: length of input structure plus number of particles, i.e.
+     * invalid structures are weighed by their length)
+     */
+    private static final EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, CompiledPSmiles>> COMPILED_PSMILES_CACHES =
+            PSmilesUtility.createCompiledPSmilesCaches();
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static class variables">
+    /**
+     * Process-wide dictionary of particle type IDs (replaced by a new empty
+     * dictionary in clearCaches())
+     */
+    private static volatile ParticleTypeDictionary particleTypeDictionary = new ParticleTypeDictionary();
+    // </editor-fold>
+    //
     // <editor-fold defaultstate="collapsed" desc="Private variables">
     /**
      * Pattern for input structure to match
      */
     private final Pattern inputStructurePattern = Pattern.compile(PSmilesConstants.INPUTSTRUCTURE_ALLOWED_CHARACTERS_REGEX_STRING);
 
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public static methods">
+    /**
+     * Process-wide cache of canonical tokens (see ConcurrentLruCache for
+     * configuration and counters)
+     *
+     * @return Cache of canonical tokens
+     */
+    public static ConcurrentLruCache<String, String> getTokenCache() {
+        return TOKEN_CACHE;
+    }
+
     /**
-    * Structure tokens as HashMap
-    */
-    private final HashMap<String, String> outerStructureTokensHashMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-    
+     * Process-wide cache of structure tokens (see ConcurrentLruCache for
+     * configuration and counters)
+     *
+     * @return Cache of structure tokens
+     */
+    public static ConcurrentLruCache<String, String[]> getStructureTokensCache() {
+        return STRUCTURE_TOKENS_CACHE;
+    }
+
     /**
-     * Innerstructure tokens as HashMap
-     * key: input structure, value: tokens
+     * Process-wide cache of compiled tokens of parts (see ConcurrentLruCache
+     * for configuration and counters)
+     *
+     * @return Cache of compiled tokens
      */
-    private final HashMap<String, String[]> structureTokensHashMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-        
+    public static ConcurrentLruCache<String, String[]> getCompiledTokensCache() {
+        return COMPILED_TOKENS_CACHE;
+    }
+
     /**
-     * Adjacentarray as HashMap
+     * Process-wide cache of adjacent arrays of parts of a parser engine (see
+     * ConcurrentLruCache for configuration and counters)
+     *
+     * @param aParserEngine Parser engine
+     * @return Cache of adjacent arrays of aParserEngine
+     * @throws IllegalArgumentException Thrown if aParserEngine is null
      */
-    private final HashMap<String, int[][]> adjacentArrayHashMap = new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
-    
+    public static ConcurrentLruCache<String, int[][]> getAdjacentArrayCache(PSmilesConstants.ParserEngine aParserEngine) throws IllegalArgumentException {
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("PSmilesUtility.getAdjacentArrayCache: aParserEngine is null.");
+        }
+        return ADJACENT_ARRAY_CACHES.get(aParserEngine);
+    }
+
+    /**
+     * Process-wide cache of compiled input structures of a parser engine (see
+     * ConcurrentLruCache for configuration and counters)
+     *
+     * @param aParserEngine Parser engine
+     * @return Cache of compiled input structures of aParserEngine
+     * @throws IllegalArgumentException Thrown if aParserEngine is null
+     */
+    public static ConcurrentLruCache<String, CompiledPSmiles> getCompiledPSmilesCache(PSmilesConstants.ParserEngine aParserEngine) throws IllegalArgumentException {
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("PSmilesUtility.getCompiledPSmilesCache: aParserEngine is null.");
+        }
+        return COMPILED_PSMILES_CACHES.get(aParserEngine);
+    }
+
+    /**
+     * Returns the compiled input structure from the process-wide cache of
+     * compiled input structures: The input structure is compiled (and
+     * cached) if it is not yet cached. NOTE: Only input structures that are
+     * no monomers and that are compiled with all particles available are
+     * cached (cache of aParserEngine, cache key: input structure).
+     *
+     * @param anInputStructure An input structure (NOT allowed to be a monomer
+     * or to contain monomer shortcuts)
+     * @param aParserEngine Parser engine
+     * @param aPreviousCompiledPSmiles Previously compiled input structure for
+     * incremental compilation (may be null, see CompiledPSmiles)
+     * @return Compiled input structure (may be invalid)
+     * @throws IllegalArgumentException Thrown if anInputStructure or
+     * aParserEngine is null
+     */
+    public static CompiledPSmiles getCompiledPSmiles(String anInputStructure, PSmilesConstants.ParserEngine aParserEngine,
+            CompiledPSmiles aPreviousCompiledPSmiles) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (anInputStructure == null) {
+            throw new IllegalArgumentException("PSmilesUtility.getCompiledPSmiles: anInputStructure is null.");
+        }
+        if (aParserEngine == null) {
+            throw new IllegalArgumentException("PSmilesUtility.getCompiledPSmiles: aParserEngine is null.");
+        }
+
+        // </editor-fold>
+        ConcurrentLruCache<String, CompiledPSmiles> tmpCache = COMPILED_PSMILES_CACHES.get(aParserEngine);
+        CompiledPSmiles tmpCompiledPSmiles = tmpCache.get(anInputStructure);
+        if (tmpCompiledPSmiles == null) {
+            tmpCompiledPSmiles = tmpCache.putIfAbsent(anInputStructure,
+                    new CompiledPSmiles(anInputStructure, new HashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY), false, aParserEngine, aPreviousCompiledPSmiles));
+        }
+        return tmpCompiledPSmiles;
+    }
+
+    /**
+     * Process-wide dictionary of particle type IDs. Compiled input structures
+     * keep the dictionary of their IDs (see
+     * CompiledPSmiles.getParticleTypeDictionary()), i.e. IDs of structures
+     * compiled before and after clearCaches() are NOT comparable.
+     *
+     * @return Dictionary of particle type IDs
+     */
+    public static ParticleTypeDictionary getParticleTypeDictionary() {
+        return particleTypeDictionary;
+    }
+
+    /**
+     * Removes all entries of all process-wide caches and replaces the
+     * process-wide dictionary of particle type IDs by a new empty dictionary
+     */
+    public static void clearCaches() {
+        TOKEN_CACHE.clear();
+        STRUCTURE_TOKENS_CACHE.clear();
+        COMPILED_TOKENS_CACHE.clear();
+        for (ConcurrentLruCache<String, int[][]> tmpCache : ADJACENT_ARRAY_CACHES.values()) {
+            tmpCache.clear();
+        }
+        for (ConcurrentLruCache<String, CompiledPSmiles> tmpCache : COMPILED_PSMILES_CACHES.values()) {
+            tmpCache.clear();
+        }
+        particleTypeDictionary = new ParticleTypeDictionary();
+    }
     // </editor-fold>
     //
     // <editor-fold defaultstate="collapsed" desc="Public methods">
@@ -355,60 +515,187 @@ public class PSmilesUtility {
         }
         return true;
     }
+
+    /**
+     * Returns the label of a ring closure token in canonical form (e.g. 12
+     * for "[12]")
+     *
+     * @param aToken Token
+     * @return Label or -1 if aToken is not a ring closure token in canonical
+     * form (no leading zeros, label not greater than Integer.MAX_VALUE)
+     */
+    public int getRingClosureLabel(String aToken) {
+        if (aToken == null || aToken.length() < 3 || aToken.charAt(0) != '[' || aToken.charAt(aToken.length() - 1) != ']') {
+            return -1;
+        }
+        if (aToken.charAt(1) == '0' && aToken.length() > 3) {
+            return -1;
+        }
+        long tmpLabel = 0;
+        for (int i = 1; i < aToken.length() - 1; i++) {
+            char tmpCharacter = aToken.charAt(i);
+            if (tmpCharacter < '0' || tmpCharacter > '9') {
+                return -1;
+            }
+            tmpLabel = 10 * tmpLabel + (tmpCharacter - '0');
+            if (tmpLabel > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) tmpLabel;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="- Token kind related methods">
+    /**
+     * Returns the kind of a token. NOTE: The kinds correspond one-to-one to
+     * the is-methods (e.g. TOKEN_KIND_PARTICLE for isParticle()) which are
+     * mutually exclusive.
+     *
+     * @param aToken Token
+     * @return Kind of token (see PSmilesConstants.TOKEN_KIND_...)
+     */
+    public byte getTokenKind(String aToken) {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aToken == null || aToken.isEmpty()) {
+            return PSmilesConstants.TOKEN_KIND_OTHER;
+        }
+
+        // </editor-fold>
+        int tmpLength = aToken.length();
+        char tmpFirstCharacter = aToken.charAt(0);
+        char tmpLastCharacter = aToken.charAt(tmpLength - 1);
+        if (tmpLength > 1 && Character.isUpperCase(aToken.charAt(1)) && aToken.indexOf('#') >= 0) {
+            return PSmilesConstants.TOKEN_KIND_MONOMER;
+        }
+        if (tmpLength == 1) {
+            switch (tmpFirstCharacter) {
+                case '-':
+                    return PSmilesConstants.TOKEN_KIND_CONNECTION;
+                case '(':
+                    return PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_OPEN;
+                case ')':
+                    return PSmilesConstants.TOKEN_KIND_NORMAL_BRACKET_CLOSE;
+                case '{':
+                    return PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_OPEN;
+                case '}':
+                    return PSmilesConstants.TOKEN_KIND_CURLY_BRACKET_CLOSE;
+                case '<':
+                    return PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_OPEN;
+                case '>':
+                    return PSmilesConstants.TOKEN_KIND_ANGLE_BRACKET_CLOSE;
+                default:
+                    break;
+            }
+        }
+        if (tmpFirstCharacter == '[' && tmpLastCharacter == ']') {
+            switch (aToken) {
+                case "[HEAD]":
+                    return PSmilesConstants.TOKEN_KIND_HEAD;
+                case "[TAIL]":
+                    return PSmilesConstants.TOKEN_KIND_TAIL;
+                case "[START]":
+                    return PSmilesConstants.TOKEN_KIND_START;
+                case "[END]":
+                    return PSmilesConstants.TOKEN_KIND_END;
+                default:
+                    return PSmilesUtility.hasOnlyDigits(aToken, 1, tmpLength - 1) ? PSmilesConstants.TOKEN_KIND_RING_CLOSURE : PSmilesConstants.TOKEN_KIND_OTHER;
+            }
+        }
+        if (tmpFirstCharacter == '\'' && tmpLastCharacter == '\'') {
+            return PSmilesUtility.hasOnlyDigits(aToken, 1, tmpLength - 1) ? PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX : PSmilesConstants.TOKEN_KIND_OTHER;
+        }
+        if (PSmilesUtility.hasOnlyDigits(aToken, 0, tmpLength)) {
+            return PSmilesConstants.TOKEN_KIND_NUMBER;
+        }
+        if (tmpLength <= 10 && Character.isUpperCase(tmpFirstCharacter)) {
+            for (int i = 1; i < tmpLength; i++) {
+                char tmpCharacter = aToken.charAt(i);
+                if (!(tmpCharacter >= 'a' && tmpCharacter <= 'z')
+                        && !(tmpCharacter >= 'A' && tmpCharacter <= 'Z')
+                        && !Character.isDigit(tmpCharacter)) {
+                    return PSmilesConstants.TOKEN_KIND_OTHER;
+                }
+            }
+            return PSmilesConstants.TOKEN_KIND_PARTICLE;
+        }
+        return PSmilesConstants.TOKEN_KIND_OTHER;
+    }
+
+    /**
+     * Returns the kinds of tokens
+     *
+     * @param aTokens Tokens
+     * @return Kinds of tokens (see getTokenKind()) or null if aTokens is null
+     */
+    public byte[] getTokenKinds(String[] aTokens) {
+        if (aTokens == null) {
+            return null;
+        }
+        byte[] tmpTokenKinds = new byte[aTokens.length];
+        for (int i = 0; i < aTokens.length; i++) {
+            tmpTokenKinds[i] = this.getTokenKind(aTokens[i]);
+        }
+        return tmpTokenKinds;
+    }
+
+    /**
+     * Returns the integer values of tokens: Frequency of a number, label of
+     * a ring closure and index of a backbone index token
+     *
+     * @param aTokens Tokens
+     * @param aTokenKinds Kinds of tokens (see getTokenKinds())
+     * @return Integer values of tokens: -1 for all other tokens or if the
+     * value is not in the range of an integer, null if aTokens or
+     * aTokenKinds is null
+     */
+    public int[] getTokenValues(String[] aTokens, byte[] aTokenKinds) {
+        if (aTokens == null || aTokenKinds == null) {
+            return null;
+        }
+        int[] tmpTokenValues = new int[aTokens.length];
+        for (int i = 0; i < aTokens.length; i++) {
+            switch (aTokenKinds[i]) {
+                case PSmilesConstants.TOKEN_KIND_NUMBER:
+                    tmpTokenValues[i] = PSmilesUtility.getDigitsValue(aTokens[i], 0, aTokens[i].length());
+                    break;
+                case PSmilesConstants.TOKEN_KIND_RING_CLOSURE:
+                case PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX:
+                    tmpTokenValues[i] = PSmilesUtility.getDigitsValue(aTokens[i], 1, aTokens[i].length() - 1);
+                    break;
+                default:
+                    tmpTokenValues[i] = -1;
+                    break;
+            }
+        }
+        return tmpTokenValues;
+    }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="- Token related methods">
     /**
      * Determine the adjacent array (all particles connected with particle i
      * in a row)
      *
-     * @param aPartStructureString Part structure string
-     * @param aConnectedParticleList Connected particle list
+     * @param aParserEngine Parser engine that created the part
+     * @param aPartStructure Part structure (cache key)
+     * @param aBondOffsets Bond offsets of compressed sparse row (CSR) graph
+     * @param aBondTargets Bond targets of compressed sparse row (CSR) graph
      * @param aInnerParticleIndicesLength Inner particle indices length
      * @return Adjacent array
      */
-    public int[][] getAdjacentArray(String aPartStructureString, LinkedList<int[]> aConnectedParticleList, int aInnerParticleIndicesLength) {
-        // <editor-fold defaultstate="collapsed" desc="Local variables">
-        int tmpEdgeLength = aConnectedParticleList.size();
-        int tmpConnectionLength;
-        int tmpFirstParticleIndex = 0;
-        int tmpLastParticleIndex;
-        Queue<Integer> tmpQueue = new ArrayDeque<>();
-        
-        // </editor-fold>
-        if (aInnerParticleIndicesLength == 1 || aPartStructureString == null || aPartStructureString.isEmpty() || aConnectedParticleList.isEmpty()) {
+    public int[][] getAdjacentArray(PSmilesConstants.ParserEngine aParserEngine, String aPartStructure, int[] aBondOffsets, int[] aBondTargets, int aInnerParticleIndicesLength) {
+        if (aInnerParticleIndicesLength == 1 || aParserEngine == null || aPartStructure == null || aPartStructure.isEmpty() || aBondTargets == null || aBondTargets.length == 0) {
             return null;
         }
-        int[][] tmpConnectedParticleArray = aConnectedParticleList.toArray(new int[0][]);
-        int[][] tmpResult = new int[aInnerParticleIndicesLength][];
-        if (this.adjacentArrayHashMap.containsKey(aPartStructureString)) {
-            return this.adjacentArrayHashMap.get(aPartStructureString);
-        }
-        for (int i = 0; i < tmpEdgeLength; i++) {
-            if (tmpFirstParticleIndex == tmpConnectedParticleArray[i][0]) {
-                tmpQueue.add(tmpConnectedParticleArray[i][1]);
-            } else {
-                tmpConnectionLength = tmpQueue.size();
-                tmpResult[tmpFirstParticleIndex] = new int[tmpConnectionLength];
-                tmpLastParticleIndex = 0;
-                while (!tmpQueue.isEmpty()) {
-                    tmpResult[tmpFirstParticleIndex][tmpLastParticleIndex] = tmpQueue.remove();
-                    tmpLastParticleIndex++;
-                }
-                tmpFirstParticleIndex++;
-                tmpQueue.add(tmpConnectedParticleArray[i][1]);
-            }
+        ConcurrentLruCache<String, int[][]> tmpCache = ADJACENT_ARRAY_CACHES.get(aParserEngine);
+        int[][] tmpCachedResult = tmpCache.get(aPartStructure);
+        if (tmpCachedResult != null) {
+            return tmpCachedResult;
         }
-        if (!tmpQueue.isEmpty()) {
-            tmpConnectionLength = tmpQueue.size();
-            tmpResult[tmpFirstParticleIndex] = new int[tmpConnectionLength];
-            tmpLastParticleIndex = 0;
-            while (!tmpQueue.isEmpty()) {
-                tmpResult[tmpFirstParticleIndex][tmpLastParticleIndex] = tmpQueue.remove();
-                tmpLastParticleIndex++;
-            }
+        int[][] tmpResult = new int[aInnerParticleIndicesLength][];
+        for (int i = 0; i < aInnerParticleIndicesLength; i++) {
+            tmpResult[i] = Arrays.copyOfRange(aBondTargets, aBondOffsets[i], aBondOffsets[i + 1]);
         }
-        this.adjacentArrayHashMap.put(aPartStructureString, tmpResult);
-        return tmpResult;
+        return tmpCache.putIfAbsent(aPartStructure, tmpResult);
     }
     /**
      * Tokenizes molecular structure. NOTE: Molecular structure string may only
@@ -431,8 +718,9 @@ public class PSmilesUtility {
         if (aMolecularStructureString == null && aMolecularStructureString.isEmpty()) {
             return new String[]{};
         }
-        if (this.structureTokensHashMap.containsKey(aMolecularStructureString)) {
-            return this.structureTokensHashMap.get(aMolecularStructureString);
+        tmpResult = STRUCTURE_TOKENS_CACHE.get(aMolecularStructureString);
+        if (tmpResult != null) {
+            return tmpResult;
         } else {
             tmpSeparatedTokens = this.prepareTokenizedStructure(aMolecularStructureString) + "_";
             tmpFrequencyOfSplitToken = this.getFrequencyOfCharacterInString(tmpSeparatedTokens, "_");
@@ -441,12 +729,10 @@ public class PSmilesUtility {
             tmpEndIndexOfSubString = tmpSeparatedTokens.indexOf("_", tmpEndIndexOfSubString + 1);
             tmpCurrentToken = tmpSeparatedTokens.substring(tmpBeginIndexOfSubString, tmpEndIndexOfSubString);
             tmpBeginIndexOfSubString = tmpEndIndexOfSubString + 1;
-            this.outerStructureTokensHashMap.putIfAbsent(tmpCurrentToken, tmpCurrentToken);
-            tmpResult[tmpCurrentTokenNumber] = this.outerStructureTokensHashMap.get(tmpCurrentToken);
+            tmpResult[tmpCurrentTokenNumber] = TOKEN_CACHE.putIfAbsent(tmpCurrentToken, tmpCurrentToken);
             tmpCurrentTokenNumber++;
         } while(tmpCurrentTokenNumber < tmpFrequencyOfSplitToken); 
-        this.structureTokensHashMap.put(aMolecularStructureString, tmpResult);
-        return tmpResult;
+        return STRUCTURE_TOKENS_CACHE.putIfAbsent(aMolecularStructureString, tmpResult);
         }
     }
 
@@ -695,5 +981,92 @@ public class PSmilesUtility {
         return tmpSeparatedTokens;
     }
     // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static methods">
+    /**
+     * Creates the caches of compiled input structures (one cache per parser
+     * engine)
+     *
+     * @return Caches of compiled input structures
+     */
+    private static EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, CompiledPSmiles>> createCompiledPSmilesCaches() {
+        EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, CompiledPSmiles>> tmpCaches = new EnumMap<>(PSmilesConstants.ParserEngine.class);
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            tmpCaches.put(tmpParserEngine, new ConcurrentLruCache<>(PSmilesConstants.DEFAULT_COMPILED_PSMILES_CACHE_MAXIMUM_WEIGHT, PSmilesConstants.COMPILED_PSMILES_CACHE_NUMBER_OF_SEGMENTS,
+                    (anInputStructure, aCompiledPSmiles) -> anInputStructure.length() + aCompiledPSmiles.getTotalNumberOfParticles() + 1));
+        }
+        return tmpCaches;
+    }
+
+    /**
+     * Creates the caches of adjacent arrays of parts (one cache per parser
+     * engine)
+     *
+     * @return Caches of adjacent arrays
+     */
+    private static EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, int[][]>> createAdjacentArrayCaches() {
+        EnumMap<PSmilesConstants.ParserEngine, ConcurrentLruCache<String, int[][]>> tmpCaches = new EnumMap<>(PSmilesConstants.ParserEngine.class);
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            tmpCaches.put(tmpParserEngine, new ConcurrentLruCache<>(PSmilesConstants.DEFAULT_ADJACENT_ARRAY_CACHE_MAXIMUM_WEIGHT, PSmilesUtility::getWeight));
+        }
+        return tmpCaches;
+    }
+
+    /**
+     * Returns the weight of an adjacent array for caching
+     *
+     * @param anAdjacentArray Adjacent array
+     * @return Number of array elements (including rows)
+     */
+    private static int getWeight(int[][] anAdjacentArray) {
+        int tmpWeight = anAdjacentArray.length + 1;
+        for (int[] tmpRow : anAdjacentArray) {
+            tmpWeight += tmpRow.length;
+        }
+        return tmpWeight;
+    }
+
+    /**
+     * Returns if all characters of a string in a range are digits
+     *
+     * @param aString A string
+     * @param aBeginIndex Begin index (inclusive)
+     * @param anEndIndex End index (exclusive)
+     * @return True: All characters in range are digits (or range is empty),
+     * false: Otherwise
+     */
+    private static boolean hasOnlyDigits(String aString, int aBeginIndex, int anEndIndex) {
+        for (int i = aBeginIndex; i < anEndIndex; i++) {
+            if (!Character.isDigit(aString.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the integer value of the digits of a string in a range (see
+     * Integer.parseInt())
+     *
+     * @param aString A string
+     * @param aBeginIndex Begin index (inclusive)
+     * @param anEndIndex End index (exclusive)
+     * @return Integer value or -1 if range is empty or value is not in the
+     * range of an integer
+     */
+    private static int getDigitsValue(String aString, int aBeginIndex, int anEndIndex) {
+        if (aBeginIndex >= anEndIndex) {
+            return -1;
+        }
+        long tmpValue = 0;
+        for (int i = aBeginIndex; i < anEndIndex; i++) {
+            tmpValue = 10 * tmpValue + Character.digit(aString.charAt(i), 10);
+            if (tmpValue > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) tmpValue;
+    }
+    // </editor-fold>
 
 }
@@ -0,0 +1,183 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.HashMap;
+
+/**
+ * Validates input structures without construction of parts, graphs or
+ * matrices: All checks of CompiledPSmiles (outer parts, input structure and
+ * sub structures) are performed in a single streaming scan (see
+ * PSmilesParser.validate()) and particles are counted instead of compiled.
+ * The internal parser and its buffers are re-used for every validation so
+ * that validations of many input structures cause hardly any garbage.
+ * NOTE: Not thread-safe, i.e. use one validator per thread.
+ *
+ * @author Achim Zielesny
+ */
+public final class PSmilesValidator {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Re-used parser
+     */
+    private final PSmilesParser parser;
+
+    /**
+     * Available particles (an empty map means all particles are available)
+     */
+    private final HashMap<String, String> availableParticles;
+
+    /**
+     * True: Input structures are monomers, false: Otherwise
+     */
+    private final boolean isMonomer;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * True: Last validated input structure is valid, false: Otherwise
+     */
+    private boolean isValid;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Constructor for input structures (no monomers) with all particles
+     * being available
+     */
+    public PSmilesValidator() {
+        this(new HashMap<>(), false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param anAvailableParticles Available particles (an empty map means all
+     * particles are available)
+     * @param anIsMonomer True: Input structures are monomers, false:
+     * Otherwise
+     * @throws IllegalArgumentException Thrown if anAvailableParticles is null
+     */
+    public PSmilesValidator(HashMap<String, String> anAvailableParticles, boolean anIsMonomer) throws IllegalArgumentException {
+        if (anAvailableParticles == null) {
+            throw new IllegalArgumentException("PSmilesValidator.Constructor: anAvailableParticles is null.");
+        }
+        this.parser = new PSmilesParser();
+        this.availableParticles = anAvailableParticles;
+        this.isMonomer = anIsMonomer;
+        this.isValid = false;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * True: Last validated input structure is valid, false: Otherwise
+     *
+     * @return True: Last validated input structure is valid, false:
+     * Otherwise
+     */
+    public boolean isValid() {
+        return this.isValid;
+    }
+
+    /**
+     * Returns the error message of the last validation (identical to the
+     * error message of CompiledPSmiles with parser engine SINGLE_PASS)
+     *
+     * @return Error message or null
+     */
+    public String getErrorMessage() {
+        return this.parser.getErrorMessage();
+    }
+
+    /**
+     * Returns the error code of the last validation
+     *
+     * @return Error code or null
+     */
+    public PSmilesConstants.ErrorCode getErrorCode() {
+        return this.parser.getErrorCode();
+    }
+
+    /**
+     * Returns the offset of the error of the last validation
+     *
+     * @return Zero-based index of the error in the input structure without
+     * white spaces or -1 if there is no error
+     */
+    public int getErrorOffset() {
+        return this.parser.getErrorOffset();
+    }
+
+    /**
+     * Returns the number of parts (with repetitions) of the last valid input
+     * structure
+     *
+     * @return Number of parts or 0 if the input structure is invalid
+     */
+    public long getNumberOfParts() {
+        return this.parser.getNumberOfParts();
+    }
+
+    /**
+     * Returns the total number of particles (with repetitions) of the last
+     * valid input structure
+     *
+     * @return Total number of particles (Long.MAX_VALUE if too large) or 0 if
+     * the input structure is invalid
+     */
+    public long getNumberOfParticles() {
+        return this.parser.getNumberOfParticles();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Validates an input structure. The characters of the input structure
+     * are read sequentially, i.e. a huge input structure may be validated
+     * from a MappedCharSequence.
+     *
+     * @param anInputStructure Input structure (may be null)
+     * @return True: Input structure is valid, false: Otherwise
+     */
+    public boolean validate(CharSequence anInputStructure) {
+        this.isValid = this.parser.validate(anInputStructure, this.availableParticles, this.isMonomer);
+        return this.isValid;
+    }
+
+    /**
+     * Validates an input structure and collects all violations in a single
+     * pass (see PSmilesParser.diagnose()), e.g. for the curation of
+     * structure libraries. Messages are not resolved before
+     * PSmilesDiagnostic.getMessage() is called.
+     *
+     * @param anInputStructure Input structure (may be null)
+     * @return Diagnostics in ascending order of their offsets (empty array
+     * if the input structure is valid)
+     */
+    public PSmilesDiagnostic[] diagnose(CharSequence anInputStructure) {
+        PSmilesDiagnostic[] tmpDiagnostics = this.parser.diagnose(anInputStructure, this.availableParticles, this.isMonomer);
+        this.isValid = this.parser.getErrorCode() == null;
+        return tmpDiagnostics;
+    }
+    // </editor-fold>
+
+}
@@ -0,0 +1,264 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+/**
+ * Immutable typed particle matrix with primitive columns: Particle numbers,
+ * particle type IDs (see ParticleTypeDictionary), backbone indices, optional
+ * x/y/z coordinates and the relative connections of every row in CSR form
+ * (the relative connections of row i are getRelativeConnections()[k] with
+ * getConnectionOffsets()[i] &lt;= k &lt; getConnectionOffsets()[i + 1] in
+ * ascending order, e.g. 1 means a connection to the next particle). The
+ * string form of PSmiles.getParticlePositionsAndConnections() is derived
+ * with toStringMatrix().
+ * NOTE: Returned arrays are shared and must NOT be changed.
+ *
+ * @author Achim Zielesny
+ */
+public final class ParticleMatrix {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Number of rows
+     */
+    private final int numberOfRows;
+
+    /**
+     * Dictionary of the particle type IDs
+     */
+    private final ParticleTypeDictionary particleTypeDictionary;
+
+    /**
+     * Particle numbers
+     */
+    private final int[] particleNumbers;
+
+    /**
+     * Particle type IDs
+     */
+    private final int[] particleTypeIds;
+
+    /**
+     * Backbone indices
+     */
+    private final int[] backboneIndices;
+
+    /**
+     * X-coordinates (null if there are no coordinates)
+     */
+    private final double[] xCoordinates;
+
+    /**
+     * Y-coordinates (null if there are no coordinates)
+     */
+    private final double[] yCoordinates;
+
+    /**
+     * Z-coordinates (null if there are no coordinates)
+     */
+    private final double[] zCoordinates;
+
+    /**
+     * CSR offsets of relative connections (length is number of rows + 1)
+     */
+    private final int[] connectionOffsets;
+
+    /**
+     * Relative connections
+     */
+    private final int[] relativeConnections;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor (arrays are NOT copied)
+     *
+     * @param aParticleTypeDictionary Dictionary of the particle type IDs
+     * @param aParticleNumbers Particle numbers
+     * @param aParticleTypeIds Particle type IDs
+     * @param aBackboneIndices Backbone indices
+     * @param anXCoordinates X-coordinates (may be null)
+     * @param aYCoordinates Y-coordinates (may be null)
+     * @param aZCoordinates Z-coordinates (may be null)
+     * @param aConnectionOffsets CSR offsets of relative connections
+     * @param aRelativeConnections Relative connections
+     */
+    ParticleMatrix(ParticleTypeDictionary aParticleTypeDictionary, int[] aParticleNumbers, int[] aParticleTypeIds, int[] aBackboneIndices, double[] anXCoordinates, double[] aYCoordinates,
+            double[] aZCoordinates, int[] aConnectionOffsets, int[] aRelativeConnections) {
+        this.numberOfRows = aParticleNumbers.length;
+        this.particleTypeDictionary = aParticleTypeDictionary;
+        this.particleNumbers = aParticleNumbers;
+        this.particleTypeIds = aParticleTypeIds;
+        this.backboneIndices = aBackboneIndices;
+        this.xCoordinates = anXCoordinates;
+        this.yCoordinates = aYCoordinates;
+        this.zCoordinates = aZCoordinates;
+        this.connectionOffsets = aConnectionOffsets;
+        this.relativeConnections = aRelativeConnections;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public properties">
+    /**
+     * Number of rows
+     *
+     * @return Number of rows
+     */
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    /**
+     * Particle numbers
+     *
+     * @return Particle numbers
+     */
+    public int[] getParticleNumbers() {
+        return this.particleNumbers;
+    }
+
+    /**
+     * Dictionary of the particle type IDs
+     *
+     * @return Dictionary of the particle type IDs
+     */
+    public ParticleTypeDictionary getParticleTypeDictionary() {
+        return this.particleTypeDictionary;
+    }
+
+    /**
+     * Particle type IDs (see getParticleTypeDictionary())
+     *
+     * @return Particle type IDs
+     */
+    public int[] getParticleTypeIds() {
+        return this.particleTypeIds;
+    }
+
+    /**
+     * Particle of specified row
+     *
+     * @param aRow Row
+     * @return Particle
+     */
+    public String getParticle(int aRow) {
+        return this.particleTypeDictionary.getParticle(this.particleTypeIds[aRow]);
+    }
+
+    /**
+     * Backbone indices
+     *
+     * @return Backbone indices
+     */
+    public int[] getBackboneIndices() {
+        return this.backboneIndices;
+    }
+
+    /**
+     * X-coordinates
+     *
+     * @return X-coordinates or null if there are no coordinates
+     */
+    public double[] getXCoordinates() {
+        return this.xCoordinates;
+    }
+
+    /**
+     * Y-coordinates
+     *
+     * @return Y-coordinates or null if there are no coordinates
+     */
+    public double[] getYCoordinates() {
+        return this.yCoordinates;
+    }
+
+    /**
+     * Z-coordinates
+     *
+     * @return Z-coordinates or null if there are no coordinates
+     */
+    public double[] getZCoordinates() {
+        return this.zCoordinates;
+    }
+
+    /**
+     * CSR offsets of relative connections
+     *
+     * @return CSR offsets of relative connections (length is number of rows
+     * + 1)
+     */
+    public int[] getConnectionOffsets() {
+        return this.connectionOffsets;
+    }
+
+    /**
+     * Relative connections
+     *
+     * @return Relative connections
+     */
+    public int[] getRelativeConnections() {
+        return this.relativeConnections;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * True: Matrix has coordinates, false: Otherwise
+     *
+     * @return True: Matrix has coordinates, false: Otherwise
+     */
+    public boolean hasCoordinates() {
+        return this.xCoordinates != null;
+    }
+
+    /**
+     * Returns the string form of the matrix (see
+     * PSmiles.getParticlePositionsAndConnections())
+     *
+     * @return String form of the matrix
+     */
+    public String[][] toStringMatrix() {
+        String[][] tmpResult = new String[this.numberOfRows][];
+        for (int i = 0; i < this.numberOfRows; i++) {
+            int tmpFirstConnection = this.connectionOffsets[i];
+            int tmpNumberOfConnections = this.connectionOffsets[i + 1] - tmpFirstConnection;
+            String[] tmpRow = new String[6 + tmpNumberOfConnections];
+            tmpRow[0] = Integer.toString(this.particleNumbers[i]);
+            tmpRow[1] = this.particleTypeDictionary.getParticle(this.particleTypeIds[i]);
+            tmpRow[2] = Integer.toString(this.backboneIndices[i]);
+            if (this.xCoordinates != null) {
+                tmpRow[3] = Double.toString(this.xCoordinates[i]);
+                tmpRow[4] = Double.toString(this.yCoordinates[i]);
+                tmpRow[5] = Double.toString(this.zCoordinates[i]);
+            } else {
+                tmpRow[3] = "";
+                tmpRow[4] = "";
+                tmpRow[5] = "";
+            }
+            for (int k = 0; k < tmpNumberOfConnections; k++) {
+                tmpRow[6 + k] = Integer.toString(this.relativeConnections[tmpFirstConnection + k]);
+            }
+            tmpResult[i] = tmpRow;
+        }
+        return tmpResult;
+    }
+    // </editor-fold>
+
+}
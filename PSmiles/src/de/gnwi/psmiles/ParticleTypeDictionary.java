@@ -0,0 +1,177 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary that assigns every distinct particle name a dense
+ * integer particle type ID (0, 1, 2, ... in order of first occurrence). IDs
+ * are never reassigned or removed, i.e. particle type IDs of different
+ * structures with the same dictionary may be compared with a primitive
+ * compare. The process-wide dictionary (see
+ * PSmilesUtility.getParticleTypeDictionary()) only receives particles of
+ * valid input structures and is replaced by an empty dictionary with
+ * PSmilesUtility.clearCaches().
+ *
+ * @author Achim Zielesny
+ */
+public final class ParticleTypeDictionary {
+
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Particle name to particle type ID map
+     */
+    private final ConcurrentHashMap<String, Integer> particleToTypeIdMap;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Particle names (index is particle type ID)
+     */
+    private volatile String[] particles;
+
+    /**
+     * Number of particle types
+     */
+    private volatile int numberOfParticleTypes;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     */
+    public ParticleTypeDictionary() {
+        this.particleToTypeIdMap = new ConcurrentHashMap<>(PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY);
+        this.particles = new String[PSmilesConstants.DEFAULT_HASHMAP_INITIAL_CAPACITY];
+        this.numberOfParticleTypes = 0;
+    }
+
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public methods">
+    /**
+     * Returns the particle type ID of a particle (a new ID is assigned if
+     * the particle is not yet known)
+     *
+     * @param aParticle Particle
+     * @return Particle type ID
+     * @throws IllegalArgumentException Thrown if aParticle is null
+     */
+    public int getParticleTypeId(String aParticle) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aParticle == null) {
+            throw new IllegalArgumentException("ParticleTypeDictionary.getParticleTypeId: aParticle is null.");
+        }
+
+        // </editor-fold>
+        Integer tmpParticleTypeId = this.particleToTypeIdMap.get(aParticle);
+        if (tmpParticleTypeId != null) {
+            return tmpParticleTypeId;
+        }
+        synchronized (this) {
+            tmpParticleTypeId = this.particleToTypeIdMap.get(aParticle);
+            if (tmpParticleTypeId != null) {
+                return tmpParticleTypeId;
+            }
+            int tmpNewParticleTypeId = this.numberOfParticleTypes;
+            if (tmpNewParticleTypeId == this.particles.length) {
+                this.particles = Arrays.copyOf(this.particles, 2 * this.particles.length);
+            }
+            this.particles[tmpNewParticleTypeId] = aParticle;
+            this.numberOfParticleTypes = tmpNewParticleTypeId + 1;
+            // NOTE: Particle name must be set before the ID is published
+            this.particleToTypeIdMap.put(aParticle, tmpNewParticleTypeId);
+            return tmpNewParticleTypeId;
+        }
+    }
+
+    /**
+     * Returns the particle type ID of a known particle
+     *
+     * @param aParticle Particle
+     * @return Particle type ID or -1 if aParticle is null or not known
+     */
+    public int getKnownParticleTypeId(String aParticle) {
+        if (aParticle == null) {
+            return -1;
+        }
+        Integer tmpParticleTypeId = this.particleToTypeIdMap.get(aParticle);
+        return tmpParticleTypeId == null ? -1 : tmpParticleTypeId;
+    }
+
+    /**
+     * Returns the particle of a particle type ID
+     *
+     * @param aParticleTypeId Particle type ID
+     * @return Particle
+     * @throws IllegalArgumentException Thrown if aParticleTypeId is not
+     * assigned
+     */
+    public String getParticle(int aParticleTypeId) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aParticleTypeId < 0 || aParticleTypeId >= this.numberOfParticleTypes) {
+            throw new IllegalArgumentException("ParticleTypeDictionary.getParticle: aParticleTypeId is not assigned.");
+        }
+
+        // </editor-fold>
+        return this.particles[aParticleTypeId];
+    }
+
+    /**
+     * Returns the particle type IDs of particles
+     *
+     * @param aParticles Particles
+     * @return Particle type IDs (same order as aParticles)
+     * @throws IllegalArgumentException Thrown if aParticles is null
+     */
+    public int[] getParticleTypeIds(String[] aParticles) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aParticles == null) {
+            throw new IllegalArgumentException("ParticleTypeDictionary.getParticleTypeIds: aParticles is null.");
+        }
+
+        // </editor-fold>
+        int[] tmpParticleTypeIds = new int[aParticles.length];
+        String tmpPreviousParticle = null;
+        int tmpPreviousParticleTypeId = -1;
+        for (int i = 0; i < aParticles.length; i++) {
+            // Runs of identical particles (e.g. 100A) are looked up only once
+            if (aParticles[i] != tmpPreviousParticle) {
+                tmpPreviousParticle = aParticles[i];
+                tmpPreviousParticleTypeId = this.getParticleTypeId(tmpPreviousParticle);
+            }
+            tmpParticleTypeIds[i] = tmpPreviousParticleTypeId;
+        }
+        return tmpParticleTypeIds;
+    }
+
+    /**
+     * Returns the number of particle types
+     *
+     * @return Number of particle types
+     */
+    public int getNumberOfParticleTypes() {
+        return this.numberOfParticleTypes;
+    }
+    // </editor-fold>
+
+}
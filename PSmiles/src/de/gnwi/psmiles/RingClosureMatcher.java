@@ -0,0 +1,345 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass matcher for ring closures. Opening and closing ring closure
+ * labels are paired with a primitive open-label table (key: scope and label)
+ * and the resulting bonds are de-duplicated with a primitive hash set of
+ * packed particle pairs, i.e. matching is linear in the number of ring
+ * closure labels.
+ *
+ * @author Achim Zielesny
+ */
+final class RingClosureMatcher {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Marker for an empty slot of a hash table (packed keys are never -1)
+     */
+    private static final long EMPTY_KEY = -1L;
+
+    /**
+     * Value of a label that was already closed and may not be reused
+     */
+    private static final int CLOSED_LABEL = -1;
+
+    /**
+     * Initial capacity
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Multiplier for hashing of packed keys (golden ratio)
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * True: Label may be opened again after it was closed, false: Further
+     * occurrences of a closed label are ignored
+     */
+    private final boolean isLabelReusable;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Keys of open-label table (packed scope and label)
+     */
+    private long[] labelKeys;
+
+    /**
+     * Values of open-label table (particle of open ring closure or
+     * CLOSED_LABEL)
+     */
+    private int[] labelValues;
+
+    /**
+     * Number of keys in open-label table
+     */
+    private int numberOfLabels;
+
+    /**
+     * Labels of matched pairs
+     */
+    private int[] pairLabels;
+
+    /**
+     * Particles of matched pairs (consecutive pairs of particle indices)
+     */
+    private int[] pairParticles;
+
+    /**
+     * Number of matched pairs
+     */
+    private int numberOfPairs;
+
+    /**
+     * True: Labels of matched pairs are in ascending order, false: Otherwise
+     */
+    private boolean isPairLabelOrder;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     *
+     * @param anIsLabelReusable True: Label may be opened again after it was
+     * closed, false: Further occurrences of a closed label are ignored
+     */
+    RingClosureMatcher(boolean anIsLabelReusable) {
+        this.isLabelReusable = anIsLabelReusable;
+        this.labelKeys = new long[INITIAL_CAPACITY];
+        Arrays.fill(this.labelKeys, EMPTY_KEY);
+        this.labelValues = new int[INITIAL_CAPACITY];
+        this.pairLabels = new int[INITIAL_CAPACITY];
+        this.pairParticles = new int[2 * INITIAL_CAPACITY];
+        this.isPairLabelOrder = true;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Adds a ring closure: The first occurrence of a label in a scope opens
+     * the ring closure, the next occurrence closes it.
+     *
+     * @param aScope Scope of ring closure (non-negative)
+     * @param aLabel Ring closure label (non-negative)
+     * @param aParticle Particle index of ring closure
+     */
+    void addRingClosure(int aScope, int aLabel, int aParticle) {
+        long tmpKey = ((long) aScope << 32) | aLabel;
+        int tmpSlot = getSlot(this.labelKeys, tmpKey);
+        if (this.labelKeys[tmpSlot] == EMPTY_KEY) {
+            this.labelKeys[tmpSlot] = tmpKey;
+            this.labelValues[tmpSlot] = aParticle;
+            this.numberOfLabels++;
+            if (2 * this.numberOfLabels > this.labelKeys.length) {
+                this.enlargeLabelTable();
+            }
+        } else if (this.labelValues[tmpSlot] != CLOSED_LABEL) {
+            this.addPair(aLabel, this.labelValues[tmpSlot], aParticle);
+            if (this.isLabelReusable) {
+                // Remove key: Next occurrence opens a new ring closure
+                this.removeLabel(tmpSlot);
+            } else {
+                this.labelValues[tmpSlot] = CLOSED_LABEL;
+            }
+        }
+    }
+
+    /**
+     * Returns the bonds of the matched ring closures in ascending order of
+     * their labels (pairs with equal labels in order of closing). Bonds that
+     * are already in aBonds or that occur repeatedly are omitted.
+     *
+     * @param aBonds Existing bonds as consecutive pairs of particle indices
+     * @param aNumberOfBonds Number of existing bonds
+     * @return Bonds as consecutive pairs of particle indices
+     */
+    int[] getBonds(int[] aBonds, int aNumberOfBonds) {
+        if (this.numberOfPairs == 0) {
+            return new int[0];
+        }
+        int[] tmpPairOrder = this.getPairOrder();
+        long[] tmpBondSet = new long[getTableCapacity(aNumberOfBonds + this.numberOfPairs)];
+        Arrays.fill(tmpBondSet, EMPTY_KEY);
+        for (int i = 0; i < aNumberOfBonds; i++) {
+            // Incomplete bonds (negative particle index) can not be matched
+            if (aBonds[2 * i] >= 0 && aBonds[2 * i + 1] >= 0) {
+                addToSet(tmpBondSet, ((long) aBonds[2 * i] << 32) | aBonds[2 * i + 1]);
+            }
+        }
+        int[] tmpResult = new int[2 * this.numberOfPairs];
+        int tmpNumberOfBonds = 0;
+        for (int i = 0; i < this.numberOfPairs; i++) {
+            int tmpFirstParticle = this.pairParticles[2 * tmpPairOrder[i]];
+            int tmpSecondParticle = this.pairParticles[2 * tmpPairOrder[i] + 1];
+            if (addToSet(tmpBondSet, ((long) tmpFirstParticle << 32) | tmpSecondParticle)) {
+                tmpResult[2 * tmpNumberOfBonds] = tmpFirstParticle;
+                tmpResult[2 * tmpNumberOfBonds + 1] = tmpSecondParticle;
+                tmpNumberOfBonds++;
+            }
+        }
+        return tmpNumberOfBonds == this.numberOfPairs ? tmpResult : Arrays.copyOf(tmpResult, 2 * tmpNumberOfBonds);
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Appends a matched pair
+     *
+     * @param aLabel Label
+     * @param aFirstParticle Particle of opening ring closure
+     * @param aSecondParticle Particle of closing ring closure
+     */
+    private void addPair(int aLabel, int aFirstParticle, int aSecondParticle) {
+        if (this.numberOfPairs == this.pairLabels.length) {
+            this.pairLabels = Arrays.copyOf(this.pairLabels, 2 * this.numberOfPairs);
+            this.pairParticles = Arrays.copyOf(this.pairParticles, 4 * this.numberOfPairs);
+        }
+        if (this.numberOfPairs > 0 && this.pairLabels[this.numberOfPairs - 1] > aLabel) {
+            this.isPairLabelOrder = false;
+        }
+        this.pairLabels[this.numberOfPairs] = aLabel;
+        this.pairParticles[2 * this.numberOfPairs] = aFirstParticle;
+        this.pairParticles[2 * this.numberOfPairs + 1] = aSecondParticle;
+        this.numberOfPairs++;
+    }
+
+    /**
+     * Returns the pair indices in ascending order of labels (stable)
+     *
+     * @return Pair indices
+     */
+    private int[] getPairOrder() {
+        int[] tmpResult = new int[this.numberOfPairs];
+        if (this.isPairLabelOrder) {
+            for (int i = 0; i < this.numberOfPairs; i++) {
+                tmpResult[i] = i;
+            }
+        } else {
+            long[] tmpSortKeys = new long[this.numberOfPairs];
+            for (int i = 0; i < this.numberOfPairs; i++) {
+                tmpSortKeys[i] = ((long) this.pairLabels[i] << 32) | i;
+            }
+            Arrays.sort(tmpSortKeys);
+            for (int i = 0; i < this.numberOfPairs; i++) {
+                tmpResult[i] = (int) tmpSortKeys[i];
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Removes a key from the open-label table (backward shift deletion of
+     * linear probing)
+     *
+     * @param aSlot Slot of key
+     */
+    private void removeLabel(int aSlot) {
+        int tmpMask = this.labelKeys.length - 1;
+        int tmpFreeSlot = aSlot;
+        int tmpSlot = aSlot;
+        while (true) {
+            tmpSlot = (tmpSlot + 1) & tmpMask;
+            long tmpKey = this.labelKeys[tmpSlot];
+            if (tmpKey == EMPTY_KEY) {
+                break;
+            }
+            int tmpHomeSlot = getHomeSlot(tmpKey, tmpMask);
+            // Move key if its home slot is not in (tmpFreeSlot, tmpSlot]
+            if (((tmpSlot - tmpHomeSlot) & tmpMask) >= ((tmpSlot - tmpFreeSlot) & tmpMask)) {
+                this.labelKeys[tmpFreeSlot] = tmpKey;
+                this.labelValues[tmpFreeSlot] = this.labelValues[tmpSlot];
+                tmpFreeSlot = tmpSlot;
+            }
+        }
+        this.labelKeys[tmpFreeSlot] = EMPTY_KEY;
+        this.numberOfLabels--;
+    }
+
+    /**
+     * Doubles the capacity of the open-label table
+     */
+    private void enlargeLabelTable() {
+        long[] tmpKeys = this.labelKeys;
+        int[] tmpValues = this.labelValues;
+        this.labelKeys = new long[2 * tmpKeys.length];
+        Arrays.fill(this.labelKeys, EMPTY_KEY);
+        this.labelValues = new int[2 * tmpKeys.length];
+        for (int i = 0; i < tmpKeys.length; i++) {
+            if (tmpKeys[i] != EMPTY_KEY) {
+                int tmpSlot = getSlot(this.labelKeys, tmpKeys[i]);
+                this.labelKeys[tmpSlot] = tmpKeys[i];
+                this.labelValues[tmpSlot] = tmpValues[i];
+            }
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static methods">
+    /**
+     * Returns the slot of a key in a hash table with linear probing, i.e.
+     * the slot that contains the key or the empty slot where it has to be
+     * inserted
+     *
+     * @param aTable Hash table (capacity is a power of 2)
+     * @param aKey Key
+     * @return Slot
+     */
+    private static int getSlot(long[] aTable, long aKey) {
+        int tmpMask = aTable.length - 1;
+        int tmpSlot = getHomeSlot(aKey, tmpMask);
+        while (aTable[tmpSlot] != EMPTY_KEY && aTable[tmpSlot] != aKey) {
+            tmpSlot = (tmpSlot + 1) & tmpMask;
+        }
+        return tmpSlot;
+    }
+
+    /**
+     * Returns the home slot of a key
+     *
+     * @param aKey Key
+     * @param aMask Capacity of hash table - 1
+     * @return Home slot
+     */
+    private static int getHomeSlot(long aKey, int aMask) {
+        long tmpHash = aKey * HASH_MULTIPLIER;
+        return (int) (tmpHash ^ (tmpHash >>> 32)) & aMask;
+    }
+
+    /**
+     * Adds a key to a hash set with linear probing (capacity must be
+     * sufficient)
+     *
+     * @param aSet Hash set
+     * @param aKey Key
+     * @return True: Key was added, false: Key was already contained
+     */
+    private static boolean addToSet(long[] aSet, long aKey) {
+        int tmpSlot = getSlot(aSet, aKey);
+        if (aSet[tmpSlot] == aKey) {
+            return false;
+        }
+        aSet[tmpSlot] = aKey;
+        return true;
+    }
+
+    /**
+     * Returns the capacity of a hash table (power of 2) with load factor of
+     * at most 0.5
+     *
+     * @param aNumberOfKeys Number of keys
+     * @return Capacity
+     */
+    private static int getTableCapacity(int aNumberOfKeys) {
+        int tmpCapacity = INITIAL_CAPACITY;
+        while (tmpCapacity < 2 * aNumberOfKeys) {
+            tmpCapacity <<= 1;
+        }
+        return tmpCapacity;
+    }
+    // </editor-fold>
+
+}
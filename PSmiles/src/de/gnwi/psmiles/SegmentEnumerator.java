@@ -0,0 +1,374 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles;
+
+import java.util.Arrays;
+
+/**
+ * Enumerator of next-neighbor segments, i.e. of all simple paths of
+ * particles up to a maximum segment length. The paths are walked depth-first
+ * along the CSR adjacency of the particles with reusable path buffers and the
+ * particle type index sequences of the (oriented) segments are counted in
+ * primitive hash tables (one table for every segment length), i.e.
+ * enumeration is linear in the number of paths and allocation-free except for
+ * the growth of the hash tables.
+ *
+ * @author Achim Zielesny
+ */
+final class SegmentEnumerator {
+
+    // <editor-fold defaultstate="collapsed" desc="Package-private static final class variables">
+    /**
+     * Orientation: Segments are counted in the direction of their walk
+     */
+    static final int ORIENTATION_WALK = 0;
+
+    /**
+     * Orientation: Segments are reversed if the first particle is
+     * lexicographically greater than the last particle
+     */
+    static final int ORIENTATION_END_PARTICLES = 1;
+
+    /**
+     * Orientation: Segments are reversed if the reversed particle sequence is
+     * lexicographically smaller
+     */
+    static final int ORIENTATION_CANONICAL = 2;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Initial capacity of hash tables
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Multiplier for hashing of segments (golden ratio)
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private final class variables">
+    /**
+     * Maximum segment length
+     */
+    private final int maximumSegmentLength;
+
+    /**
+     * Orientation of segments
+     */
+    private final int orientation;
+
+    /**
+     * Lexicographic ranks of particle types (index is particle type index)
+     */
+    private final int[] particleTypeRanks;
+
+    /**
+     * Particle indices of current path
+     */
+    private final int[] path;
+
+    /**
+     * Next bond position (in CSR bond targets) of every particle of current
+     * path
+     */
+    private final int[] nextBondPositions;
+
+    /**
+     * Particle type indices of current oriented segment
+     */
+    private final int[] segment;
+
+    /**
+     * Keys of hash tables (index is segment length - 1): Consecutive particle
+     * type index sequences of segment length
+     */
+    private final int[][] segmentKeys;
+
+    /**
+     * Counts of hash tables (index is segment length - 1, 0: Empty slot)
+     */
+    private final int[][] segmentCounts;
+
+    /**
+     * Number of different segments (index is segment length - 1)
+     */
+    private final int[] numberOfSegments;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Flags for particles of current path (index is particle index)
+     */
+    private boolean[] isOnPath;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     *
+     * @param aMaximumSegmentLength Maximum segment length (greater 0)
+     * @param anOrientation Orientation of segments (ORIENTATION_WALK,
+     * ORIENTATION_END_PARTICLES or ORIENTATION_CANONICAL)
+     * @param aParticleTypeRanks Lexicographic ranks of particle types (index
+     * is particle type index)
+     */
+    SegmentEnumerator(int aMaximumSegmentLength, int anOrientation, int[] aParticleTypeRanks) {
+        this.maximumSegmentLength = aMaximumSegmentLength;
+        this.orientation = anOrientation;
+        this.particleTypeRanks = aParticleTypeRanks;
+        this.path = new int[aMaximumSegmentLength];
+        this.nextBondPositions = new int[aMaximumSegmentLength];
+        this.segment = new int[aMaximumSegmentLength];
+        this.segmentKeys = new int[aMaximumSegmentLength][];
+        this.segmentCounts = new int[aMaximumSegmentLength][];
+        this.numberOfSegments = new int[aMaximumSegmentLength];
+        for (int i = 0; i < aMaximumSegmentLength; i++) {
+            this.segmentKeys[i] = new int[INITIAL_CAPACITY * (i + 1)];
+            this.segmentCounts[i] = new int[INITIAL_CAPACITY];
+        }
+        this.isOnPath = new boolean[INITIAL_CAPACITY];
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Package-private methods">
+    /**
+     * Removes all counted segments
+     */
+    void clear() {
+        for (int i = 0; i < this.maximumSegmentLength; i++) {
+            if (this.numberOfSegments[i] > 0) {
+                Arrays.fill(this.segmentCounts[i], 0);
+                this.numberOfSegments[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Counts all segments of the particles in the specified range. All bonds
+     * of these particles must connect particles of this range.
+     *
+     * @param aFirstParticle First particle index (inclusive)
+     * @param anEndParticle End particle index (exclusive)
+     * @param aBondOffsets CSR bond offsets
+     * @param aBondTargets CSR bond targets
+     * @param aParticleTypeIndices Particle type indices (index is particle index)
+     * @param aMultiplicity Multiplicity of every segment
+     */
+    void addSegments(int aFirstParticle, int anEndParticle, int[] aBondOffsets, int[] aBondTargets, int[] aParticleTypeIndices, int aMultiplicity) {
+        if (this.isOnPath.length < anEndParticle) {
+            this.isOnPath = new boolean[Math.max(anEndParticle, 2 * this.isOnPath.length)];
+        }
+        for (int tmpStartParticle = aFirstParticle; tmpStartParticle < anEndParticle; tmpStartParticle++) {
+            this.path[0] = tmpStartParticle;
+            this.nextBondPositions[0] = aBondOffsets[tmpStartParticle];
+            this.isOnPath[tmpStartParticle] = true;
+            this.addSegment(1, aParticleTypeIndices, aMultiplicity);
+            int tmpLength = 1;
+            while (tmpLength > 0) {
+                int tmpLastParticle = this.path[tmpLength - 1];
+                if (tmpLength < this.maximumSegmentLength && this.nextBondPositions[tmpLength - 1] < aBondOffsets[tmpLastParticle + 1]) {
+                    int tmpNextParticle = aBondTargets[this.nextBondPositions[tmpLength - 1]++];
+                    if (!this.isOnPath[tmpNextParticle]) {
+                        this.path[tmpLength] = tmpNextParticle;
+                        this.nextBondPositions[tmpLength] = aBondOffsets[tmpNextParticle];
+                        this.isOnPath[tmpNextParticle] = true;
+                        tmpLength++;
+                        this.addSegment(tmpLength, aParticleTypeIndices, aMultiplicity);
+                    }
+                } else {
+                    this.isOnPath[tmpLastParticle] = false;
+                    tmpLength--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the different segments of specified length
+     *
+     * @param aSegmentLength Segment length
+     * @param aParticleTypes Particle types (index is particle type index)
+     * @return Segments (particles joined by PARTICLE_SEPARATOR) or null if
+     * there are no segments of specified length
+     */
+    String[] getSegments(int aSegmentLength, String[] aParticleTypes) {
+        int tmpNumberOfSegments = this.numberOfSegments[aSegmentLength - 1];
+        if (tmpNumberOfSegments == 0) {
+            return null;
+        }
+        String[] tmpResult = new String[tmpNumberOfSegments];
+        int[] tmpCounts = this.segmentCounts[aSegmentLength - 1];
+        int tmpIndex = 0;
+        for (int i = 0; i < tmpCounts.length; i++) {
+            if (tmpCounts[i] > 0) {
+                tmpResult[tmpIndex++] = this.getSegment(aSegmentLength, i, aParticleTypes);
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Returns the frequencies of the different segments of specified length
+     * in ascending order of segments. For ORIENTATION_CANONICAL every path
+     * (that is walked in both directions) is counted once.
+     *
+     * @param aSegmentLength Segment length
+     * @param aParticleTypes Particle types (index is particle type index)
+     * @return Segment frequencies or null if there are no segments of
+     * specified length
+     */
+    ParticleFrequency[] getSegmentFrequencies(int aSegmentLength, String[] aParticleTypes) {
+        int tmpNumberOfSegments = this.numberOfSegments[aSegmentLength - 1];
+        if (tmpNumberOfSegments == 0) {
+            return null;
+        }
+        int tmpDivisor = this.orientation == ORIENTATION_CANONICAL && aSegmentLength > 1 ? 2 : 1;
+        ParticleFrequency[] tmpResult = new ParticleFrequency[tmpNumberOfSegments];
+        int[] tmpCounts = this.segmentCounts[aSegmentLength - 1];
+        int tmpIndex = 0;
+        for (int i = 0; i < tmpCounts.length; i++) {
+            if (tmpCounts[i] > 0) {
+                tmpResult[tmpIndex++] = new ParticleFrequency(this.getSegment(aSegmentLength, i, aParticleTypes), tmpCounts[i] / tmpDivisor);
+            }
+        }
+        Arrays.sort(tmpResult);
+        return tmpResult;
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Counts the oriented segment of the current path
+     *
+     * @param aLength Length of current path
+     * @param aParticleTypeIndices Particle type indices (index is particle index)
+     * @param aMultiplicity Multiplicity of segment
+     */
+    private void addSegment(int aLength, int[] aParticleTypeIndices, int aMultiplicity) {
+        boolean tmpIsReversed = false;
+        if (aLength > 1) {
+            if (this.orientation == ORIENTATION_END_PARTICLES) {
+                tmpIsReversed = this.particleTypeRanks[aParticleTypeIndices[this.path[0]]] > this.particleTypeRanks[aParticleTypeIndices[this.path[aLength - 1]]];
+            } else if (this.orientation == ORIENTATION_CANONICAL) {
+                for (int i = 0, j = aLength - 1; i < j; i++, j--) {
+                    int tmpForwardRank = this.particleTypeRanks[aParticleTypeIndices[this.path[i]]];
+                    int tmpBackwardRank = this.particleTypeRanks[aParticleTypeIndices[this.path[j]]];
+                    if (tmpForwardRank != tmpBackwardRank) {
+                        tmpIsReversed = tmpForwardRank > tmpBackwardRank;
+                        break;
+                    }
+                }
+            }
+        }
+        long tmpHash = 0L;
+        for (int i = 0; i < aLength; i++) {
+            this.segment[i] = aParticleTypeIndices[this.path[tmpIsReversed ? aLength - 1 - i : i]];
+            tmpHash = (tmpHash + this.segment[i] + 1) * HASH_MULTIPLIER;
+        }
+        int[] tmpKeys = this.segmentKeys[aLength - 1];
+        int[] tmpCounts = this.segmentCounts[aLength - 1];
+        int tmpMask = tmpCounts.length - 1;
+        int tmpSlot = (int) (tmpHash ^ (tmpHash >>> 32)) & tmpMask;
+        while (tmpCounts[tmpSlot] > 0) {
+            if (this.isSegmentInSlot(tmpKeys, tmpSlot, aLength)) {
+                tmpCounts[tmpSlot] += aMultiplicity;
+                return;
+            }
+            tmpSlot = (tmpSlot + 1) & tmpMask;
+        }
+        System.arraycopy(this.segment, 0, tmpKeys, tmpSlot * aLength, aLength);
+        tmpCounts[tmpSlot] = aMultiplicity;
+        this.numberOfSegments[aLength - 1]++;
+        if (2 * this.numberOfSegments[aLength - 1] > tmpCounts.length) {
+            this.enlargeTable(aLength);
+        }
+    }
+
+    /**
+     * Checks whether the current oriented segment is in the specified slot
+     *
+     * @param aKeys Keys of hash table
+     * @param aSlot Slot
+     * @param aLength Segment length
+     * @return True: Current oriented segment is in slot, false: Otherwise
+     */
+    private boolean isSegmentInSlot(int[] aKeys, int aSlot, int aLength) {
+        int tmpOffset = aSlot * aLength;
+        for (int i = 0; i < aLength; i++) {
+            if (aKeys[tmpOffset + i] != this.segment[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the capacity of the hash table of specified segment length
+     *
+     * @param aLength Segment length
+     */
+    private void enlargeTable(int aLength) {
+        int[] tmpKeys = this.segmentKeys[aLength - 1];
+        int[] tmpCounts = this.segmentCounts[aLength - 1];
+        int[] tmpNewKeys = new int[2 * tmpKeys.length];
+        int[] tmpNewCounts = new int[2 * tmpCounts.length];
+        int tmpMask = tmpNewCounts.length - 1;
+        for (int i = 0; i < tmpCounts.length; i++) {
+            if (tmpCounts[i] > 0) {
+                long tmpHash = 0L;
+                for (int j = 0; j < aLength; j++) {
+                    tmpHash = (tmpHash + tmpKeys[i * aLength + j] + 1) * HASH_MULTIPLIER;
+                }
+                int tmpSlot = (int) (tmpHash ^ (tmpHash >>> 32)) & tmpMask;
+                while (tmpNewCounts[tmpSlot] > 0) {
+                    tmpSlot = (tmpSlot + 1) & tmpMask;
+                }
+                System.arraycopy(tmpKeys, i * aLength, tmpNewKeys, tmpSlot * aLength, aLength);
+                tmpNewCounts[tmpSlot] = tmpCounts[i];
+            }
+        }
+        this.segmentKeys[aLength - 1] = tmpNewKeys;
+        this.segmentCounts[aLength - 1] = tmpNewCounts;
+    }
+
+    /**
+     * Returns the segment in the specified slot
+     *
+     * @param aLength Segment length
+     * @param aSlot Slot
+     * @param aParticleTypes Particle types (index is particle type index)
+     * @return Segment (particles joined by PARTICLE_SEPARATOR)
+     */
+    private String getSegment(int aLength, int aSlot, String[] aParticleTypes) {
+        int[] tmpKeys = this.segmentKeys[aLength - 1];
+        StringBuilder tmpBuilder = new StringBuilder(8 * aLength);
+        for (int i = 0; i < aLength; i++) {
+            if (i > 0) {
+                tmpBuilder.append(PSmilesConstants.PARTICLE_SEPARATOR);
+            }
+            tmpBuilder.append(aParticleTypes[tmpKeys[aSlot * aLength + i]]);
+        }
+        return tmpBuilder.toString();
+    }
+    // </editor-fold>
+
+}
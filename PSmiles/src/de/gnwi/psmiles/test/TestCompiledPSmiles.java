@@ -0,0 +1,827 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ * 
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles.test;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import de.gnwi.psmiles.CanonicalLabeling;
+import de.gnwi.psmiles.CompiledPSmiles;
+import de.gnwi.psmiles.DepthFirstPath;
+import de.gnwi.psmiles.GraphMetrics;
+import de.gnwi.psmiles.MappedCharSequence;
+import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmiles.PSmilesBatchCompiler;
+import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PSmilesDiff;
+import de.gnwi.psmiles.PSmilesInner;
+import de.gnwi.psmiles.PSmilesUtility;
+import de.gnwi.psmiles.ParticleMatrix;
+import de.gnwi.psmiles.ParticleFrequency;
+import de.gnwi.psmiles.ParticleTypeDictionary;
+import de.gnwi.psmiles.PointInSpace;
+
+/**
+ * Test class for class CompiledPSmiles
+ *
+ * @author Achim Zielesny
+ */
+public class TestCompiledPSmiles extends TestCase {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Structures
+     */
+    private static final String[] STRUCTURES = new String[]{
+        "A-B-C",
+        "A[START]-B(C)(D)-E[END]",
+        "A[1]-B-C-D[1]-E",
+        "2<A-B><C-D(E)>",
+        "[I]A-B[I]-C",
+        "A-B-",
+        null
+    };
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public test methods">
+    /**
+     * Test of PSmiles as view on a shared compiled structure
+     */
+    public void testView() {
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            for (String tmpStructure : STRUCTURES) {
+                PSmiles tmpPSmiles = new PSmiles(tmpStructure, tmpParserEngine);
+                CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles(tmpStructure, tmpParserEngine);
+                PSmiles tmpView = new PSmiles(tmpCompiledPSmiles, 1);
+                assertEquals("Test1.1 " + tmpStructure, tmpPSmiles.isValid(), tmpView.isValid());
+                assertEquals("Test1.2 " + tmpStructure, tmpPSmiles.getErrorMessage(), tmpView.getErrorMessage());
+                assertSame("Test1.3 " + tmpStructure, tmpCompiledPSmiles, tmpView.getCompiledPSmiles());
+                if (tmpStructure != null) {
+                    // PSmiles objects of the same input structure share the cached compiled input structure
+                    assertSame("Test1.13 " + tmpStructure, tmpPSmiles.getCompiledPSmiles(), new PSmiles(tmpStructure, tmpParserEngine).getCompiledPSmiles());
+                    assertNotSame("Test1.14 " + tmpStructure, tmpPSmiles.getCompiledPSmiles(), new PSmiles(tmpStructure, new HashMap<>(), true, tmpParserEngine).getCompiledPSmiles());
+                }
+                assertTrue("Test1.4 " + tmpStructure, Arrays.deepEquals(tmpPSmiles.getParticlePositionsAndConnections(), tmpView.getParticlePositionsAndConnections()));
+                assertTrue("Test1.5 " + tmpStructure, Arrays.deepEquals(tmpPSmiles.getNextNeighbors(3, false), tmpView.getNextNeighbors(3, false)));
+                if (tmpCompiledPSmiles.isValid()) {
+                    int[] tmpOffsets = tmpCompiledPSmiles.getBondOffsets();
+                    assertEquals("Test1.6 " + tmpStructure, tmpCompiledPSmiles.getTotalNumberOfParticles() + 1, tmpOffsets.length);
+                    for (int i = 0; i < tmpCompiledPSmiles.getTotalNumberOfParticles(); i++) {
+                        assertEquals("Test1.7 " + tmpStructure, tmpCompiledPSmiles.getNumberOfConnects()[i], tmpOffsets[i + 1] - tmpOffsets[i]);
+                    }
+                    assertEquals("Test1.8 " + tmpStructure, tmpPSmiles.getMaximumNumberOfConnectionsOfSingleParticle(),
+                            tmpView.getMaximumNumberOfConnectionsOfSingleParticle());
+                }
+            }
+        }
+        CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles("2<A-B(C)>");
+        assertEquals("Test1.9", 2, tmpCompiledPSmiles.getNumberOfParts());
+        assertEquals("Test1.10", 6, tmpCompiledPSmiles.getTotalNumberOfParticles());
+        assertEquals("Test1.11", 2, tmpCompiledPSmiles.getFrequencyOfSpecifiedParticle("C"));
+        // Bonds of second part are shifted by number of particles of first part
+        assertTrue("Test1.12", Arrays.equals(new int[]{1, 2, 0, 1, 4, 5, 3, 4}, tmpCompiledPSmiles.getBondTargets()));
+    }
+
+    /**
+     * Test of concurrent queries on a shared compiled structure
+     *
+     * @throws Exception Thrown if a query fails
+     */
+    public void testConcurrentQueries() throws Exception {
+        final CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles("A[START]-B(C-D)(E[1]-F-G[1])-H-I[END]");
+        final PointInSpace tmpFirst = new PointInSpace(0.0, 0.0, 0.0);
+        final PointInSpace tmpLast = new PointInSpace(10.0, 0.0, 0.0);
+        final String[][] tmpNextNeighbors = tmpCompiledPSmiles.getNextNeighbors(4, true);
+        final PointInSpace[][] tmpCoordinates = tmpCompiledPSmiles.getParticleCoordinates(tmpFirst, tmpLast, 1.0);
+        ExecutorService tmpExecutorService = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] tmpFutures = new Future<?>[16];
+            for (int i = 0; i < tmpFutures.length; i++) {
+                tmpFutures[i] = tmpExecutorService.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        assertTrue("Test2.1", Arrays.deepEquals(tmpNextNeighbors, tmpCompiledPSmiles.getNextNeighbors(4, true)));
+                        PointInSpace[][] tmpResult = tmpCompiledPSmiles.getParticleCoordinates(tmpFirst, tmpLast, 1.0);
+                        for (int k = 0; k < tmpResult[0].length; k++) {
+                            assertEquals("Test2.2", tmpCoordinates[0][k].getX(), tmpResult[0][k].getX());
+                        }
+                        assertEquals("Test2.3", 9, new PSmiles(tmpCompiledPSmiles, 1).getParticlePositionsAndConnections().length);
+                    }
+                });
+            }
+            for (Future<?> tmpFuture : tmpFutures) {
+                tmpFuture.get();
+            }
+        } finally {
+            tmpExecutorService.shutdown();
+            tmpExecutorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Test of parallel batch compilation
+     *
+     * @throws Exception Thrown if compilation fails
+     */
+    public void testBatchCompiler() throws Exception {
+        List<String> tmpInputStructures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tmpInputStructures.add(STRUCTURES[i % STRUCTURES.length]);
+            tmpInputStructures.add("A-" + (i % 100 + 1) + "B");
+            tmpInputStructures.add("A-B-" + "C".repeat(i % 7 + 1));
+        }
+        ForkJoinPool tmpForkJoinPool = new ForkJoinPool(4);
+        try {
+            for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+                PSmilesBatchCompiler tmpBatchCompiler = new PSmilesBatchCompiler(tmpForkJoinPool, tmpParserEngine);
+                CompiledPSmiles[] tmpResults = tmpBatchCompiler.compile(tmpInputStructures);
+                assertEquals("Test3.1", tmpInputStructures.size(), tmpResults.length);
+                for (int i = 0; i < tmpResults.length; i++) {
+                    PSmiles tmpPSmiles = new PSmiles(tmpInputStructures.get(i), tmpParserEngine);
+                    assertEquals("Test3.2 " + tmpInputStructures.get(i), tmpPSmiles.isValid(), tmpResults[i].isValid());
+                    assertEquals("Test3.3 " + tmpInputStructures.get(i), tmpPSmiles.getErrorMessage(), tmpResults[i].getErrorMessage());
+                    assertEquals("Test3.4 " + tmpInputStructures.get(i), tmpPSmiles.getInputStructure(), tmpResults[i].getInputStructure());
+                }
+                // Repeated structures are compiled only once
+                assertSame("Test3.5", tmpResults[2], tmpResults[2 + 3 * 7]);
+                assertSame("Test3.6", tmpResults[2], tmpBatchCompiler.compile(tmpInputStructures.get(2)));
+            }
+        } finally {
+            tmpForkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * Test of compilation from memory-mapped input files
+     *
+     * @throws Exception Thrown if input file can not be written or mapped
+     */
+    public void testMappedInput() throws Exception {
+        Path tmpFilePath = Files.createTempFile("PSmiles", ".txt");
+        try {
+            for (String tmpStructure : STRUCTURES) {
+                if (tmpStructure == null) {
+                    continue;
+                }
+                String tmpInputStructure = " " + tmpStructure.replace("-", " -\n") + "\n";
+                Files.write(tmpFilePath, tmpInputStructure.getBytes(StandardCharsets.US_ASCII));
+                for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+                    CompiledPSmiles tmpExpected = new CompiledPSmiles(tmpInputStructure, tmpParserEngine);
+                    CompiledPSmiles tmpMapped = new CompiledPSmiles(new MappedCharSequence(tmpFilePath), tmpParserEngine);
+                    assertEquals("Test4.1 " + tmpStructure, tmpExpected.isValid(), tmpMapped.isValid());
+                    assertEquals("Test4.2 " + tmpStructure, tmpExpected.getErrorMessage(), tmpMapped.getErrorMessage());
+                    assertEquals("Test4.3 " + tmpStructure, tmpExpected.getInputStructure(), tmpMapped.getInputStructure());
+                    if (tmpExpected.isValid()) {
+                        assertTrue("Test4.4 " + tmpStructure, Arrays.equals(tmpExpected.getBondTargets(), tmpMapped.getBondTargets()));
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmpFilePath);
+        }
+        MappedCharSequence tmpSequence = new MappedCharSequence(ByteBuffer.wrap("xxA-B-Cxx".getBytes(StandardCharsets.US_ASCII)));
+        CharSequence tmpSubSequence = tmpSequence.subSequence(2, 7);
+        assertEquals("Test4.5", "A-B-C", tmpSubSequence.toString());
+        assertEquals("Test4.6", "A-B-C", new CompiledPSmiles(tmpSubSequence, PSmilesConstants.ParserEngine.SINGLE_PASS).getInputStructure());
+        // Input structures without white spaces are not copied, parts with white spaces are read from the buffer
+        String tmpStructure = "2<A-B(C)><D-E>";
+        assertSame("Test4.7", tmpStructure, new CompiledPSmiles(tmpStructure, PSmilesConstants.ParserEngine.SINGLE_PASS).getInputStructure());
+        CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles(new MappedCharSequence(ByteBuffer.wrap("2<A-B(C)> <D - E>".getBytes(StandardCharsets.US_ASCII))),
+                PSmilesConstants.ParserEngine.SINGLE_PASS);
+        assertEquals("Test4.8", tmpStructure, tmpCompiledPSmiles.getInputStructure());
+        assertEquals("Test4.9", 8, tmpCompiledPSmiles.getTotalNumberOfParticles());
+    }
+
+    /**
+     * Test of particle type IDs
+     */
+    public void testParticleTypeIds() {
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            CompiledPSmiles tmpFirst = new CompiledPSmiles("2<Aa-B(C)><C-3Aa>", tmpParserEngine);
+            CompiledPSmiles tmpSecond = new CompiledPSmiles("C-Aa-Dd", tmpParserEngine);
+            ParticleTypeDictionary tmpParticleTypeDictionary = tmpFirst.getParticleTypeDictionary();
+            assertSame("Test5.0", tmpParticleTypeDictionary, tmpSecond.getParticleTypeDictionary());
+            int[] tmpParticleTypeIds = tmpFirst.getParticleTypeIds();
+            assertEquals("Test5.1", tmpFirst.getTotalNumberOfParticles(), tmpParticleTypeIds.length);
+            assertEquals("Test5.2", tmpParticleTypeIds[0], tmpParticleTypeIds[9]);
+            assertEquals("Test5.3", tmpParticleTypeIds[2], tmpSecond.getParticleTypeIds()[0]);
+            assertEquals("Test5.4", tmpParticleTypeIds[0], tmpSecond.getParticleTypeIds()[1]);
+            assertEquals("Test5.5", "Aa", tmpParticleTypeDictionary.getParticle(tmpParticleTypeIds[0]));
+            assertEquals("Test5.6", 5, tmpFirst.getFrequencyOfParticleType(tmpParticleTypeIds[0]));
+            assertEquals("Test5.7", 3, tmpFirst.getFrequencyOfParticleType(tmpParticleTypeIds[2]));
+            assertEquals("Test5.8", 0, tmpFirst.getFrequencyOfParticleType(tmpSecond.getParticleTypeIds()[2]));
+            assertEquals("Test5.9", tmpFirst.getFrequencyOfSpecifiedParticle("B"), tmpFirst.getFrequencyOfParticleType(tmpParticleTypeDictionary.getKnownParticleTypeId("B")));
+        }
+        ParticleTypeDictionary tmpParticleTypeDictionary = PSmilesUtility.getParticleTypeDictionary();
+        assertEquals("Test5.10", -1, tmpParticleTypeDictionary.getKnownParticleTypeId("Unknown"));
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            // Particles of invalid input structures do not receive IDs
+            assertFalse("Test5.11", new CompiledPSmiles("Aa-Invalidparticle(", tmpParserEngine).isValid());
+            assertFalse("Test5.12", new CompiledPSmiles("Invalidpart-Aa-B", tmpParserEngine).isValid());
+            assertEquals("Test5.13", -1, tmpParticleTypeDictionary.getKnownParticleTypeId("Invalidparticle"));
+            assertEquals("Test5.14", -1, tmpParticleTypeDictionary.getKnownParticleTypeId("Invalidpart"));
+        }
+        // clearCaches() replaces the dictionary, compiled structures keep theirs
+        CompiledPSmiles tmpOld = new CompiledPSmiles("Aa-B-C", PSmilesConstants.ParserEngine.SINGLE_PASS);
+        PSmilesUtility.clearCaches();
+        ParticleTypeDictionary tmpNewParticleTypeDictionary = PSmilesUtility.getParticleTypeDictionary();
+        assertNotSame("Test5.15", tmpParticleTypeDictionary, tmpNewParticleTypeDictionary);
+        assertEquals("Test5.16", 0, tmpNewParticleTypeDictionary.getNumberOfParticleTypes());
+        assertSame("Test5.17", tmpParticleTypeDictionary, tmpOld.getParticleTypeDictionary());
+        assertEquals("Test5.18", "C", tmpOld.getParticleTypeDictionary().getParticle(tmpOld.getParticleTypeIds()[2]));
+        CompiledPSmiles tmpNew = new CompiledPSmiles("C-B-Aa", PSmilesConstants.ParserEngine.SINGLE_PASS);
+        assertSame("Test5.19", tmpNewParticleTypeDictionary, tmpNew.getParticleTypeDictionary());
+        assertEquals("Test5.20", 1, tmpOld.getFrequencyOfParticleType(tmpParticleTypeDictionary.getKnownParticleTypeId("Aa")));
+        assertEquals("Test5.21", 1, tmpNew.getFrequencyOfParticleType(tmpNewParticleTypeDictionary.getKnownParticleTypeId("Aa")));
+        PSmilesDiff tmpDiff = new PSmilesDiff(tmpOld, new CompiledPSmiles("Aa-B-C-Dd", PSmilesConstants.ParserEngine.SINGLE_PASS));
+        assertEquals("Test5.22", 0, tmpDiff.getRemovedParticleIndices().length);
+    }
+
+    /**
+     * Test of next neighbor frequencies
+     */
+    public void testNextNeighborFrequencies() {
+        CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles("3<C-A-B-A>");
+        ParticleFrequency[][] tmpFrequencies = tmpCompiledPSmiles.getNextNeighborFrequencies(3, false);
+        assertEquals("Test6.1", "[A:6, B:3, C:3]", this.toString(tmpFrequencies[0]));
+        assertEquals("Test6.2", "[A-B:6, A-C:3]", this.toString(tmpFrequencies[1]));
+        assertEquals("Test6.3", "[A-B-A:3, B-A-C:3]", this.toString(tmpFrequencies[2]));
+        tmpFrequencies = tmpCompiledPSmiles.getNextNeighborFrequencies(3, true);
+        assertEquals("Test6.4", "[A-B:6, A-C:3, B-A:6, C-A:3]", this.toString(tmpFrequencies[1]));
+        assertEquals("Test6.5", "[A-B-A:6, B-A-C:3, C-A-B:3]", this.toString(tmpFrequencies[2]));
+        tmpCompiledPSmiles = new CompiledPSmiles("A[1]-B-C[1]");
+        tmpFrequencies = tmpCompiledPSmiles.getNextNeighborFrequencies(4, false);
+        assertEquals("Test6.6", "[A-B-C:1, A-C-B:1, B-A-C:1]", this.toString(tmpFrequencies[2]));
+        assertNull("Test6.7", tmpFrequencies[3]);
+        // Both directions of a segment with lexicographically greater first particle
+        String[][] tmpNextNeighbors = new CompiledPSmiles("<A-B><C-A>").getNextNeighbors(2, false);
+        assertEquals("Test6.8", "[A-B, A-C]", Arrays.toString(this.sort(tmpNextNeighbors[1])));
+        assertNull("Test6.9", new CompiledPSmiles("A-").getNextNeighborFrequencies(2, false));
+    }
+
+    /**
+     * Test of typed particle matrix
+     */
+    public void testParticleMatrix() {
+        PointInSpace[] tmpFirstParticles = new PointInSpace[]{new PointInSpace(0.0, 0.0, 0.0), new PointInSpace(1.0, 1.0, 1.0)};
+        PointInSpace[] tmpLastParticles = new PointInSpace[]{new PointInSpace(5.0, 0.0, 0.0), new PointInSpace(1.0, 6.0, 1.0)};
+        PSmiles tmpPSmiles = new PSmiles("2<A'1'-B(C)-D'2'>", new HashMap<>(), false, 3, tmpFirstParticles, tmpLastParticles, 1.0);
+        ParticleMatrix tmpParticleMatrix = tmpPSmiles.getParticleMatrix();
+        assertSame("Test7.1", tmpParticleMatrix, tmpPSmiles.getParticleMatrix());
+        assertEquals("Test7.2", 16, tmpParticleMatrix.getNumberOfRows());
+        assertTrue("Test7.3", tmpParticleMatrix.hasCoordinates());
+        String[][] tmpStrings = tmpPSmiles.getParticlePositionsAndConnections();
+        assertEquals("Test7.4", tmpParticleMatrix.getNumberOfRows(), tmpStrings.length);
+        for (int i = 0; i < tmpStrings.length; i++) {
+            assertEquals("Test7.5", Integer.toString(i + 3), tmpStrings[i][0]);
+            assertEquals("Test7.6", tmpParticleMatrix.getParticle(i), tmpStrings[i][1]);
+            assertEquals("Test7.7", Integer.toString(tmpParticleMatrix.getBackboneIndices()[i]), tmpStrings[i][2]);
+            assertEquals("Test7.8", tmpParticleMatrix.getXCoordinates()[i], Double.parseDouble(tmpStrings[i][3]), 0.0);
+            assertEquals("Test7.9", tmpParticleMatrix.getConnectionOffsets()[i + 1] - tmpParticleMatrix.getConnectionOffsets()[i], tmpStrings[i].length - 6);
+        }
+        assertEquals("Test7.10", "[4, B, 0, 1.0, 0.0, 0.0, -1, 1, 2]", Arrays.toString(tmpStrings[1]));
+        assertEquals("Test7.11", "[17, C, 0, 1.0, 3.0, 1.0, -1]", Arrays.toString(tmpStrings[14]));
+        assertEquals("Test7.12", "[18, D, 2, 1.0, 2.0, 1.0, -2]", Arrays.toString(tmpStrings[15]));
+        // Matrix without coordinates is determined on demand
+        tmpPSmiles = new PSmiles("A-B-C");
+        assertFalse("Test7.13", tmpPSmiles.getParticleMatrix().hasCoordinates());
+        assertEquals("Test7.14", "[2, B, 0, , , , -1, 1]", Arrays.toString(tmpPSmiles.getParticlePositionsAndConnections()[1]));
+        assertNull("Test7.15", new PSmiles("A-").getParticleMatrix());
+        assertNull("Test7.16", new PSmiles("A-").getParticlePositionsAndConnections());
+    }
+
+    /**
+     * Test of part runs
+     */
+    public void testPartRuns() {
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles("3<A-B(C)>2<D>", tmpParserEngine);
+            assertEquals("Test8.1", 5, tmpCompiledPSmiles.getNumberOfParts());
+            assertEquals("Test8.2", 2, tmpCompiledPSmiles.getNumberOfPartRuns());
+            assertEquals("Test8.3", 3, tmpCompiledPSmiles.getFrequencyOfPartRun(0));
+            assertEquals("Test8.4", 2, tmpCompiledPSmiles.getFrequencyOfPartRun(1));
+            assertEquals("Test8.5", 9, tmpCompiledPSmiles.getParticleOffsetOfPartRun(1));
+            assertEquals("Test8.6", "D", tmpCompiledPSmiles.getPartOfPartRun(1).getInnerParticles()[0]);
+            assertEquals("Test8.7", 11, tmpCompiledPSmiles.getTotalNumberOfParticles());
+            assertEquals("Test8.8", 3, tmpCompiledPSmiles.getFrequencyOfSpecifiedParticle("B"));
+            assertEquals("Test8.9", 2, tmpCompiledPSmiles.getFrequencyOfSpecifiedParticle("D"));
+            assertEquals("Test8.10", 11, tmpCompiledPSmiles.getNumberOfDisplayParticles());
+            assertEquals("Test8.11", 2, tmpCompiledPSmiles.getPartIndexOfParticle(7));
+            assertEquals("Test8.12", 1, tmpCompiledPSmiles.getParticleIndexInPart(7));
+            assertEquals("Test8.13", 4, tmpCompiledPSmiles.getPartIndexOfParticle(10));
+            assertEquals("Test8.14", 0, tmpCompiledPSmiles.getParticleIndexInPart(10));
+            assertTrue("Test8.15", Arrays.equals(new int[]{1, 2, 0, 1, 4, 5, 3, 4, 7, 8, 6, 7}, tmpCompiledPSmiles.getBondTargets()));
+            assertTrue("Test8.16", Arrays.equals(new int[]{0, 1, 3, 4, 5, 7, 8, 9, 11, 12, 12, 12}, tmpCompiledPSmiles.getBondOffsets()));
+            try {
+                tmpCompiledPSmiles.getPartIndexOfParticle(11);
+                fail("Test8.17");
+            } catch (IllegalArgumentException anException) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Test of particle coordinates in primitive arrays
+     */
+    public void testParticleCoordinatesIntoArrays() {
+        PointInSpace[] tmpFirstParticles = new PointInSpace[]{new PointInSpace(1.0, 2.0, 3.0), new PointInSpace(0.0, 0.0, 0.0)};
+        PointInSpace[] tmpLastParticles = new PointInSpace[]{new PointInSpace(4.0, 2.0, 3.5), new PointInSpace(100.0, 50.0, 5.0)};
+        for (String tmpStructure : new String[]{"A", "3<A-B(C)-D>2<E>", "A[1]-B(C-D)-E[1]-F", "A[START]-B(C)-D[END]-E"}) {
+            CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles(tmpStructure);
+            PointInSpace[][] tmpExpected = tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7);
+            int tmpNumberOfParticles = tmpCompiledPSmiles.getTotalNumberOfParticles();
+            int tmpOffset = 2;
+            double[] tmpXCoordinates = new double[tmpOffset + 2 * tmpNumberOfParticles];
+            double[] tmpYCoordinates = new double[tmpOffset + 2 * tmpNumberOfParticles];
+            double[] tmpZCoordinates = new double[tmpOffset + 2 * tmpNumberOfParticles];
+            tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, tmpOffset);
+            DoubleBuffer tmpCoordinateBuffer = DoubleBuffer.allocate(3 * 2 * tmpNumberOfParticles);
+            tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, tmpCoordinateBuffer);
+            assertEquals("Test9.1 " + tmpStructure, 0, tmpCoordinateBuffer.remaining());
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < tmpNumberOfParticles; j++) {
+                    int tmpIndex = i * tmpNumberOfParticles + j;
+                    assertEquals("Test9.2 " + tmpStructure, tmpExpected[i][j].getX(), tmpXCoordinates[tmpOffset + tmpIndex]);
+                    assertEquals("Test9.3 " + tmpStructure, tmpExpected[i][j].getY(), tmpYCoordinates[tmpOffset + tmpIndex]);
+                    assertEquals("Test9.4 " + tmpStructure, tmpExpected[i][j].getZ(), tmpZCoordinates[tmpOffset + tmpIndex]);
+                    assertEquals("Test9.5 " + tmpStructure, tmpExpected[i][j].getX(), tmpCoordinateBuffer.get(3 * tmpIndex));
+                    assertEquals("Test9.6 " + tmpStructure, tmpExpected[i][j].getZ(), tmpCoordinateBuffer.get(3 * tmpIndex + 2));
+                }
+            }
+            try {
+                tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, tmpOffset + 1);
+                fail("Test9.7 " + tmpStructure);
+            } catch (IllegalArgumentException anException) {
+                // Expected
+            }
+        }
+        // Side chain particles get the coordinates of their main chain particle
+        CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles("A[START]-B(C-D)-E[END]");
+        PointInSpace[][] tmpCoordinates = tmpCompiledPSmiles.getParticleCoordinates(new PointInSpace(0.0, 0.0, 0.0), new PointInSpace(2.0, 0.0, 0.0), 1.0);
+        assertEquals("Test9.8", 1.0, tmpCoordinates[0][1].getX());
+        assertEquals("Test9.9", 1.0, tmpCoordinates[0][2].getX());
+        assertEquals("Test9.10", 1.0, tmpCoordinates[0][3].getX());
+        assertEquals("Test9.11", 2.0, tmpCoordinates[0][4].getX());
+    }
+
+    /**
+     * Test of parallel replica placement of particle coordinates
+     *
+     * @throws Exception Thrown if placement fails
+     */
+    public void testParallelParticleCoordinates() throws Exception {
+        int tmpNumberOfReplicas = 20000;
+        PointInSpace[] tmpFirstParticles = new PointInSpace[tmpNumberOfReplicas];
+        PointInSpace[] tmpLastParticles = new PointInSpace[tmpNumberOfReplicas];
+        for (int i = 0; i < tmpNumberOfReplicas; i++) {
+            tmpFirstParticles[i] = new PointInSpace(i, 0.5 * i, 1.0);
+            tmpLastParticles[i] = new PointInSpace(i + 3.0, -0.25 * i, 7.0);
+        }
+        ForkJoinPool tmpForkJoinPool = new ForkJoinPool(4);
+        try {
+            for (String tmpStructure : new String[]{"A", "3<A-B(C)-D>2<E>", "A[1]-B(C-D)-E[1]-F"}) {
+                CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles(tmpStructure);
+                int tmpNumberOfParticles = tmpCompiledPSmiles.getTotalNumberOfParticles();
+                PointInSpace[][] tmpExpected = tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7);
+                PointInSpace[][] tmpResult = tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, tmpForkJoinPool);
+                assertEquals("Test10.1 " + tmpStructure, tmpExpected.length, tmpResult.length);
+                double[] tmpXCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+                double[] tmpYCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+                double[] tmpZCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+                tmpCompiledPSmiles.getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, tmpXCoordinates, tmpYCoordinates, tmpZCoordinates, 0, tmpForkJoinPool);
+                for (int i = 0; i < tmpNumberOfReplicas; i++) {
+                    assertEquals("Test10.2 " + tmpStructure, tmpExpected[i].length, tmpResult[i].length);
+                    for (int j = 0; j < tmpNumberOfParticles; j++) {
+                        int tmpIndex = i * tmpNumberOfParticles + j;
+                        assertEquals("Test10.3 " + tmpStructure, tmpExpected[i][j].getX(), tmpResult[i][j].getX());
+                        assertEquals("Test10.4 " + tmpStructure, tmpExpected[i][j].getZ(), tmpResult[i][j].getZ());
+                        assertEquals("Test10.5 " + tmpStructure, tmpExpected[i][j].getX(), tmpXCoordinates[tmpIndex]);
+                        assertEquals("Test10.6 " + tmpStructure, tmpExpected[i][j].getY(), tmpYCoordinates[tmpIndex]);
+                        assertEquals("Test10.7 " + tmpStructure, tmpExpected[i][j].getZ(), tmpZCoordinates[tmpIndex]);
+                    }
+                }
+            }
+            try {
+                new CompiledPSmiles("A-B").getParticleCoordinates(tmpFirstParticles, tmpLastParticles, 0.7, (ExecutorService) null);
+                fail("Test10.8");
+            } catch (IllegalArgumentException anException) {
+                // Expected
+            }
+        } finally {
+            tmpForkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * Test of memoised main chain paths of parts
+     */
+    public void testMemoisedMainChainPaths() {
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            for (String tmpStructure : new String[]{"A-B(C-D)-E(F)-G-H", "A[1]-B(C-D)-E[1]-F-G(H)", "<A-B(C)-D[END]-E(F[START])><G-H-I(J-K-L)>"}) {
+                PSmiles tmpPSmiles = new PSmiles(tmpStructure, tmpParserEngine);
+                for (PSmilesInner tmpPart : tmpPSmiles.getPartsOfPSmiles()) {
+                    DepthFirstPath tmpDepthFirstPath = new DepthFirstPath(tmpPart.getAdjacentArray(), 0);
+                    tmpDepthFirstPath = new DepthFirstPath(tmpPart.getAdjacentArray(), tmpDepthFirstPath.getEndParticleIndex());
+                    int[] tmpHeuristicDiameter = tmpPart.getHeuristicDiameter();
+                    assertTrue("Test11.1 " + tmpStructure, Arrays.equals(tmpDepthFirstPath.getDiameterPath(), tmpHeuristicDiameter));
+                    // Returned paths are copies of the memoised path
+                    tmpHeuristicDiameter[0] = -1;
+                    assertTrue("Test11.2 " + tmpStructure, Arrays.equals(tmpDepthFirstPath.getDiameterPath(), tmpPart.getHeuristicDiameter()));
+                    assertNotSame("Test11.3 " + tmpStructure, tmpPart.getHeuristicDiameter(), tmpPart.getHeuristicDiameter());
+                }
+            }
+            PSmiles tmpPSmiles = new PSmiles("<A-B(C)-D[END]-E(F[START])><G-H>", tmpParserEngine);
+            int[] tmpPathStartToEnd = tmpPSmiles.getPartsOfPSmiles()[0].getPathStartToEnd();
+            assertTrue("Test11.4", Arrays.equals(new int[]{5, 4, 3}, tmpPathStartToEnd));
+            tmpPathStartToEnd[0] = -1;
+            assertTrue("Test11.5", Arrays.equals(new int[]{5, 4, 3}, tmpPSmiles.getPartsOfPSmiles()[0].getPathStartToEnd()));
+            assertNull("Test11.6", tmpPSmiles.getPartsOfPSmiles()[1].getPathStartToEnd());
+        }
+    }
+
+    /**
+     * Test of exact graph metrics of parts
+     */
+    public void testGraphMetrics() {
+        String[] tmpStructures = new String[]{
+            "MeAcNHBB[4](MeSHSS[1])-MeAcNHBB-MeAcNHPD2(Me-HAcN)-MeAcNHBB(PrOH)-MeAcNHBB(MeSHSS[2])-MeAcNHBB(Pr)-MeAcNHBB-MeAcNHBB-MeAcNHBB(PrOH)-MeAcNHBB(MeSHSS[3])-MeAcNHBB(AcNH2)-MeAcNHBB(PrOH)-AzolidBB-MeAcNHBB-MeAcNHBB(MeSHSS[1])-MeAcNHBB(PrOH)-MeAcNHBB(MeSHSS[2])-MeAcNHBB(MeOH)-MeAcNHPD1(Me-Pyrrole-Ph)-AzolidPD1-MeAcNHPD1(Pr)-MeAcNHBB(MeSHSS[3])-MeAcNHBB(PrOH)-MeAcNHPD3(Pr-GuanidineP)-MeAcNHBB(AcNH2)-MeAcNHBB-MeAcNHPD1(Me-Pr)-AzolidPD1-MeAcNHPD1[4](Pr)",
+            "A[1]-B-C-D-E-F[1]",
+            "A[1]-B(C-D-E-F-G)-H[2]-I-J[1]-K-L[2]-M",
+            "A-B(C-D)-E(F)-G-H",
+            "A[1]-B(C[2]-D-E[2])-F-G[1]-H",
+            "A[1]-B[2]-C-D[1]-E-F[2](G[3]-H-I-J[3])-K",
+            "A[1]-B[2]-C[3]-D[1]-E[2]-F[3]",
+            "A[1]-" + "B-".repeat(1000) + "C[1]",
+            "A"
+        };
+        for (String tmpStructure : tmpStructures) {
+            PSmilesInner tmpPart = new PSmiles(tmpStructure).getPartsOfPSmiles()[0];
+            GraphMetrics tmpGraphMetrics = tmpPart.getGraphMetrics();
+            assertSame("Test12.1 " + tmpStructure, tmpGraphMetrics, tmpPart.getGraphMetrics());
+            int[] tmpExpectedEccentricities = this.getEccentricities(tmpPart.getBondOffsets(), tmpPart.getBondTargets());
+            assertTrue("Test12.2 " + tmpStructure, Arrays.equals(tmpExpectedEccentricities, tmpGraphMetrics.getEccentricities()));
+            int tmpExpectedDiameter = Arrays.stream(tmpExpectedEccentricities).max().getAsInt();
+            int tmpExpectedRadius = Arrays.stream(tmpExpectedEccentricities).min().getAsInt();
+            assertEquals("Test12.3 " + tmpStructure, tmpExpectedDiameter, tmpGraphMetrics.getDiameter());
+            assertEquals("Test12.4 " + tmpStructure, tmpExpectedRadius, tmpGraphMetrics.getRadius());
+            for (int tmpCenterParticleIndex : tmpGraphMetrics.getCenter()) {
+                assertEquals("Test12.5 " + tmpStructure, tmpExpectedRadius, tmpExpectedEccentricities[tmpCenterParticleIndex]);
+            }
+            // Diameter path is a path of bonded particles
+            int[] tmpDiameterPath = tmpGraphMetrics.getDiameterPath();
+            assertEquals("Test12.6 " + tmpStructure, tmpExpectedDiameter + 1, tmpDiameterPath.length);
+            for (int i = 1; i < tmpDiameterPath.length; i++) {
+                boolean tmpIsBonded = false;
+                for (int k = tmpPart.getBondOffsets()[tmpDiameterPath[i - 1]]; k < tmpPart.getBondOffsets()[tmpDiameterPath[i - 1] + 1]; k++) {
+                    tmpIsBonded |= tmpPart.getBondTargets()[k] == tmpDiameterPath[i];
+                }
+                assertTrue("Test12.7 " + tmpStructure, tmpIsBonded);
+            }
+        }
+        // Ring of 6 particles: Heuristic diameter is not exact
+        GraphMetrics tmpGraphMetrics = new PSmiles("A[1]-B-C-D-E-F[1]").getPartsOfPSmiles()[0].getGraphMetrics();
+        assertEquals("Test12.8", 3, tmpGraphMetrics.getDiameter());
+        assertEquals("Test12.9", 6, tmpGraphMetrics.getCenter().length);
+        try {
+            new GraphMetrics(new int[]{0, 0, 0}, new int[0]);
+            fail("Test12.10");
+        } catch (IllegalArgumentException anException) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test of token kinds and token values: Kinds agree with the
+     * is-methods of PSmilesUtility
+     */
+    public void testTokenKinds() {
+        PSmilesUtility tmpUtility = new PSmilesUtility();
+        String[] tmpTokens = new String[]{
+            "A", "H2O", "Abcdefghijk", "a", "#Lys", "3", "0", "99999999999", "[1]", "[]", "[HEAD]", "[TAIL]", "[START]", "[END]",
+            "'2'", "'", "-", "(", ")", "{", "}", "<", ">", "[A]", "'A'", "_"
+        };
+        byte[] tmpKinds = tmpUtility.getTokenKinds(tmpTokens);
+        for (int i = 0; i < tmpTokens.length; i++) {
+            String tmpToken = tmpTokens[i];
+            assertEquals("Test13.1 " + tmpToken, tmpUtility.isParticle(tmpToken), tmpKinds[i] == PSmilesConstants.TOKEN_KIND_PARTICLE);
+            assertEquals("Test13.2 " + tmpToken, tmpUtility.isMonomer(tmpToken), tmpKinds[i] == PSmilesConstants.TOKEN_KIND_MONOMER);
+            assertEquals("Test13.3 " + tmpToken, tmpUtility.isIntegerNumber(tmpToken), tmpKinds[i] == PSmilesConstants.TOKEN_KIND_NUMBER);
+            assertEquals("Test13.4 " + tmpToken, tmpUtility.isRingClosure(tmpToken), tmpKinds[i] == PSmilesConstants.TOKEN_KIND_RING_CLOSURE);
+            assertEquals("Test13.5 " + tmpToken, tmpUtility.isBackboneIndex(tmpToken), tmpKinds[i] == PSmilesConstants.TOKEN_KIND_BACKBONE_INDEX);
+            assertEquals("Test13.6 " + tmpToken, tmpUtility.isHeadTail(tmpToken),
+                    tmpKinds[i] == PSmilesConstants.TOKEN_KIND_HEAD || tmpKinds[i] == PSmilesConstants.TOKEN_KIND_TAIL);
+            assertEquals("Test13.7 " + tmpToken, tmpUtility.isStartEnd(tmpToken),
+                    tmpKinds[i] == PSmilesConstants.TOKEN_KIND_START || tmpKinds[i] == PSmilesConstants.TOKEN_KIND_END);
+        }
+        assertEquals("Test13.8", PSmilesConstants.TOKEN_KIND_OTHER, tmpUtility.getTokenKind("_"));
+        int[] tmpValues = tmpUtility.getTokenValues(tmpTokens, tmpKinds);
+        assertEquals("Test13.9", 3, tmpValues[5]);
+        assertEquals("Test13.10", 0, tmpValues[6]);
+        assertEquals("Test13.11", -1, tmpValues[7]);
+        assertEquals("Test13.12", 1, tmpValues[8]);
+        assertEquals("Test13.13", -1, tmpValues[9]);
+        assertEquals("Test13.14", 2, tmpValues[14]);
+        assertEquals("Test13.15", -1, tmpValues[0]);
+    }
+
+    /**
+     * Test of setCoordinates(): The compiled input structure and the topology
+     * columns of the particle matrix are re-used
+     */
+    public void testSetCoordinates() {
+        PointInSpace[] tmpFirstParticles = new PointInSpace[]{new PointInSpace(0.0, 0.0, 0.0), new PointInSpace(1.0, 1.0, 1.0)};
+        PointInSpace[] tmpLastParticles = new PointInSpace[]{new PointInSpace(5.0, 0.0, 0.0), new PointInSpace(1.0, 6.0, 1.0)};
+        PointInSpace[] tmpOtherFirstParticles = new PointInSpace[]{new PointInSpace(2.0, 0.0, 0.0), new PointInSpace(1.0, 3.0, 1.0)};
+        PointInSpace[] tmpOtherLastParticles = new PointInSpace[]{new PointInSpace(2.0, 7.0, 0.0), new PointInSpace(8.0, 3.0, 1.0)};
+        String tmpStructure = "2<A'1'-B(C)-D'2'><E-F>";
+        PSmiles tmpPSmiles = new PSmiles(tmpStructure, new HashMap<>(), false, 3, tmpFirstParticles, tmpLastParticles, 1.0);
+        CompiledPSmiles tmpCompiledPSmiles = tmpPSmiles.getCompiledPSmiles();
+        ParticleMatrix tmpParticleMatrix = tmpPSmiles.getParticleMatrix();
+        tmpPSmiles.setCoordinates(7, tmpOtherFirstParticles, tmpOtherLastParticles, 1.5);
+        assertSame("Test15.1", tmpCompiledPSmiles, tmpPSmiles.getCompiledPSmiles());
+        String tmpExpected = Arrays.deepToString(new PSmiles(tmpStructure, new HashMap<>(), false, 7, tmpOtherFirstParticles, tmpOtherLastParticles, 1.5)
+                .getParticlePositionsAndConnections());
+        assertEquals("Test15.2", tmpExpected, Arrays.deepToString(tmpPSmiles.getParticlePositionsAndConnections()));
+        assertSame("Test15.3", tmpParticleMatrix.getRelativeConnections(), tmpPSmiles.getParticleMatrix().getRelativeConnections());
+        assertEquals("Test15.4", 7, tmpPSmiles.getParticleMatrix().getParticleNumbers()[0]);
+        tmpPSmiles.setCoordinates(1, new PointInSpace[]{tmpFirstParticles[0]}, new PointInSpace[]{tmpLastParticles[0]}, 1.0);
+        tmpExpected = Arrays.deepToString(new PSmiles(tmpStructure, new HashMap<>(), false, 1, new PointInSpace[]{tmpFirstParticles[0]},
+                new PointInSpace[]{tmpLastParticles[0]}, 1.0).getParticlePositionsAndConnections());
+        assertEquals("Test15.5", tmpExpected, Arrays.deepToString(tmpPSmiles.getParticlePositionsAndConnections()));
+        int[] tmpStartIndices = new int[]{1, 19, 37};
+        PointInSpace[][] tmpFirstParticlesOfSets = new PointInSpace[][]{tmpFirstParticles, tmpOtherFirstParticles, tmpFirstParticles};
+        PointInSpace[][] tmpLastParticlesOfSets = new PointInSpace[][]{tmpLastParticles, tmpOtherLastParticles, tmpOtherLastParticles};
+        ParticleMatrix[] tmpParticleMatrices = tmpPSmiles.getParticleMatrices(tmpStartIndices, tmpFirstParticlesOfSets, tmpLastParticlesOfSets, 1.0);
+        for (int i = 0; i < tmpStartIndices.length; i++) {
+            tmpExpected = Arrays.deepToString(new PSmiles(tmpStructure, new HashMap<>(), false, tmpStartIndices[i], tmpFirstParticlesOfSets[i],
+                    tmpLastParticlesOfSets[i], 1.0).getParticlePositionsAndConnections());
+            assertEquals("Test15.6", tmpExpected, Arrays.deepToString(tmpParticleMatrices[i].toStringMatrix()));
+            assertSame("Test15.7", tmpParticleMatrices[0].getParticleTypeIds(), tmpParticleMatrices[i].getParticleTypeIds());
+        }
+        try {
+            tmpPSmiles.getParticleMatrices(tmpStartIndices, tmpFirstParticlesOfSets, new PointInSpace[1][], 1.0);
+            fail("Test15.8");
+        } catch (IllegalArgumentException anException) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test of incremental compilation: Unchanged parts are re-used and the
+     * difference of particles and bonds transforms the previous into the new
+     * structure
+     */
+    public void testIncrementalCompilation() {
+        PSmiles tmpPSmiles = new PSmiles("<A-B(C)><D-E>");
+        PSmilesInner tmpFirstPart = tmpPSmiles.getPartsOfPSmiles()[0];
+        PSmilesDiff tmpDiff = tmpPSmiles.setInputStructureIncrementally("<A-B(C)><D-F-E>");
+        assertSame("Test14.1", tmpFirstPart, tmpPSmiles.getPartsOfPSmiles()[0]);
+        assertEquals("Test14.2", "[]", Arrays.toString(tmpDiff.getRemovedParticleIndices()));
+        assertEquals("Test14.3", "[4]", Arrays.toString(tmpDiff.getAddedParticleIndices()));
+        assertEquals("Test14.4", "[3, 4]", Arrays.toString(tmpDiff.getRemovedBonds()));
+        assertEquals("Test14.5", "[3, 4, 4, 5]", Arrays.toString(tmpDiff.getAddedBonds()));
+        assertEquals("Test14.6", "[0, 1, 2, 3, 5]", Arrays.toString(tmpDiff.getOldToNewParticleIndices()));
+        tmpDiff = tmpPSmiles.setInputStructureIncrementally("<A-B(C)><D-F-E>");
+        assertTrue("Test14.7", tmpDiff.isEmpty());
+        tmpDiff = tmpPSmiles.setInputStructureIncrementally("A'1'-B'2'-C");
+        tmpDiff = tmpPSmiles.setInputStructureIncrementally("A'2'-B'1'-C");
+        assertEquals("Test14.8", "[0, 1]", Arrays.toString(tmpDiff.getChangedParticleIndices()));
+        tmpDiff = tmpPSmiles.setInputStructureIncrementally("A'2'-B'1'-");
+        assertFalse("Test14.9", tmpPSmiles.isValid());
+        assertEquals("Test14.10", 3, tmpDiff.getRemovedParticleIndices().length);
+        assertEquals("Test14.11", 0, tmpDiff.getAddedBonds().length);
+        String[] tmpEdits = new String[]{
+            "A-B-C", "A-B-C-D", "A-B(X)-C-D", "A1-B(X)-C-D1", "A1-B(X)-C-D1-A", "2<A-B>", "2<A-B><C>", "<A-B><C-D>", "<A-B-C><C-D>", 
+            "A-B-C[START]-D-E[END]", "A-B-C-D[START]-E[END]", "Y-2{A-B[HEAD]-B-C[TAIL]}-Z", "Y-3{A-B[HEAD]-B-C[TAIL]}-Z", "A", "A-A-A", "A-A"
+        };
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            CompiledPSmiles tmpPrevious = new CompiledPSmiles("", new HashMap<>(), false, tmpParserEngine);
+            for (String tmpEdit : tmpEdits) {
+                CompiledPSmiles tmpCurrent = new CompiledPSmiles(tmpEdit, new HashMap<>(), false, tmpParserEngine, tmpPrevious);
+                assertTrue("Test14.12 " + tmpEdit, tmpCurrent.isValid());
+                assertEquals("Test14.13 " + tmpEdit, Arrays.toString(new CompiledPSmiles(tmpEdit, tmpParserEngine).getBondTargets()),
+                        Arrays.toString(tmpCurrent.getBondTargets()));
+                tmpDiff = new PSmilesDiff(tmpPrevious, tmpCurrent);
+                HashSet<Long> tmpBonds = this.getBonds(tmpPrevious, tmpDiff.getOldToNewParticleIndices());
+                for (int i = 0; i < tmpDiff.getRemovedBonds().length; i += 2) {
+                    tmpBonds.remove(this.getBond(tmpDiff.getOldToNewParticleIndices()[tmpDiff.getRemovedBonds()[i]],
+                            tmpDiff.getOldToNewParticleIndices()[tmpDiff.getRemovedBonds()[i + 1]]));
+                }
+                for (int i = 0; i < tmpDiff.getAddedBonds().length; i += 2) {
+                    assertTrue("Test14.14 " + tmpEdit, tmpBonds.add(this.getBond(tmpDiff.getAddedBonds()[i], tmpDiff.getAddedBonds()[i + 1])));
+                }
+                assertEquals("Test14.15 " + tmpEdit, this.getBonds(tmpCurrent, null), tmpBonds);
+                tmpPrevious = tmpCurrent;
+            }
+        }
+        // Parts are re-used only for an equal hashmap of available particles (a snapshot is compared)
+        HashMap<String, String> tmpAvailableParticles = new HashMap<>();
+        tmpAvailableParticles.put("A", "A");
+        tmpAvailableParticles.put("B", "B");
+        CompiledPSmiles tmpPrevious = new CompiledPSmiles("<A-B><A>", tmpAvailableParticles, false, PSmilesConstants.ParserEngine.TOKEN_PIPELINE);
+        tmpAvailableParticles.put("C", "C");
+        CompiledPSmiles tmpCurrent = new CompiledPSmiles("<A-B><C>", tmpAvailableParticles, false, PSmilesConstants.ParserEngine.TOKEN_PIPELINE, tmpPrevious);
+        assertTrue("Test14.16", tmpCurrent.isValid());
+        assertNotSame("Test14.17", tmpPrevious.getPartsOfPSmiles()[0], tmpCurrent.getPartsOfPSmiles()[0]);
+        CompiledPSmiles tmpNext = new CompiledPSmiles("<A-B><C-A>", new HashMap<>(tmpAvailableParticles), false, PSmilesConstants.ParserEngine.TOKEN_PIPELINE,
+                tmpCurrent);
+        assertSame("Test14.18", tmpCurrent.getPartsOfPSmiles()[0], tmpNext.getPartsOfPSmiles()[0]);
+    }
+
+    /**
+     * Test of canonical PSMILES and structural hash
+     */
+    public void testCanonicalPSmiles() {
+        // Pairs of equivalent structures
+        String[][] tmpEquivalentStructures = new String[][]{
+            {"A-B(C)-D", "A-B(D)-C"},
+            {"B-A-C", "C-A-B"},
+            {"A[1]-B-C[1]", "C[7]-B-A[7]"},
+            {"3A", "A-A-A"},
+            {"A - B\n-C", "A-B-C"},
+            {"A-{B[HEAD]-C[TAIL]}-D", "D-C-B-A"},
+            {"<A-B><C>", "<C><B-A>"},
+            {"2<A>", "<A><A>"},
+            {"2<A-B><C>", "<B-A><C><A-B>"},
+            {"A'1'-B(C)-D'2'", "D'2'-B(C)-A'1'"},
+            {"A[START]-B-C[END]", "C[END]-B-A[START]"},
+            {"A[1]-A(A[2])-A(A[1])-A[2]", "A[1]-A-A[2]-A-A-A[1][2]"},
+            {"MeAcNHBB[4](MeSHSS[1])-MeAcNHBB-MeAcNHPD2(Me-HAcN)-MeAcNHBB(PrOH)-MeAcNHBB(MeSHSS[1])-MeAcNHPD1[4](Pr)",
+                "Pr-MeAcNHPD1[2]-MeAcNHBB(MeSHSS[1])-MeAcNHBB(PrOH)-MeAcNHPD2(Me-HAcN)-MeAcNHBB-MeAcNHBB[2](MeSHSS[1])"}
+        };
+        for (String[] tmpStructures : tmpEquivalentStructures) {
+            CompiledPSmiles tmpFirst = new CompiledPSmiles(tmpStructures[0]);
+            CompiledPSmiles tmpSecond = new CompiledPSmiles(tmpStructures[1]);
+            String tmpCanonicalPSmiles = tmpFirst.getCanonicalPSmiles();
+            assertNotNull("Test16.1 " + tmpStructures[0], tmpCanonicalPSmiles);
+            assertEquals("Test16.2 " + tmpStructures[0], tmpCanonicalPSmiles, tmpSecond.getCanonicalPSmiles());
+            assertTrue("Test16.3 " + tmpStructures[0], Arrays.equals(tmpFirst.getStructuralHash(), tmpSecond.getStructuralHash()));
+            // Canonical PSMILES is valid and its own canonical PSMILES
+            CompiledPSmiles tmpCanonical = new CompiledPSmiles(tmpCanonicalPSmiles);
+            assertTrue("Test16.4 " + tmpCanonicalPSmiles, tmpCanonical.isValid());
+            assertEquals("Test16.5 " + tmpCanonicalPSmiles, tmpCanonicalPSmiles, tmpCanonical.getCanonicalPSmiles());
+            assertEquals("Test16.6 " + tmpCanonicalPSmiles, tmpFirst.getTotalNumberOfParticles(), tmpCanonical.getTotalNumberOfParticles());
+        }
+        // Pairs of different structures
+        String[][] tmpDifferentStructures = new String[][]{
+            {"A-B-C", "B-A-C"},
+            {"A[1]-B-C[1]", "A-B-C"},
+            {"A'1'-B'2'", "A'2'-B'1'"},
+            {"A[START]-B-C[END]", "A[END]-B-C[START]"},
+            {"2<A-B>", "3<A-B>"},
+            {"<A-B><C>", "A-B-C"}
+        };
+        for (String[] tmpStructures : tmpDifferentStructures) {
+            CompiledPSmiles tmpFirst = new CompiledPSmiles(tmpStructures[0]);
+            CompiledPSmiles tmpSecond = new CompiledPSmiles(tmpStructures[1]);
+            assertFalse("Test16.7 " + tmpStructures[0], tmpFirst.getCanonicalPSmiles().equals(tmpSecond.getCanonicalPSmiles()));
+            assertFalse("Test16.8 " + tmpStructures[0], Arrays.equals(tmpFirst.getStructuralHash(), tmpSecond.getStructuralHash()));
+        }
+        assertEquals("Test16.9", "A(B)-C", new CompiledPSmiles("B-A-C").getCanonicalPSmiles());
+        assertEquals("Test16.10", "2<A-B><C>", new CompiledPSmiles("<C><B-A><A-B>").getCanonicalPSmiles());
+        assertEquals("Test16.11", 2, new CompiledPSmiles("A-B").getStructuralHash().length);
+        assertNull("Test16.12", new CompiledPSmiles("A-x").getCanonicalPSmiles());
+        assertNull("Test16.13", new CompiledPSmiles("A-x").getStructuralHash());
+        // Canonical labeling is determined once per part
+        PSmilesInner tmpPart = new PSmiles("A-B(C)-D").getPartsOfPSmiles()[0];
+        CanonicalLabeling tmpCanonicalLabeling = tmpPart.getCanonicalLabeling();
+        assertSame("Test16.14", tmpCanonicalLabeling, tmpPart.getCanonicalLabeling());
+        for (int i = 0; i < tmpCanonicalLabeling.getCanonicalOrder().length; i++) {
+            assertEquals("Test16.15", i, tmpCanonicalLabeling.getCanonicalIndices()[tmpCanonicalLabeling.getCanonicalOrder()[i]]);
+        }
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private methods">
+    /**
+     * Returns particle frequencies as string
+     *
+     * @param aFrequencies Particle frequencies
+     * @return Particle frequencies as string
+     */
+    private String toString(ParticleFrequency[] aFrequencies) {
+        StringBuilder tmpBuilder = new StringBuilder("[");
+        for (int i = 0; i < aFrequencies.length; i++) {
+            if (i > 0) {
+                tmpBuilder.append(", ");
+            }
+            tmpBuilder.append(aFrequencies[i].getParticle()).append(':').append(aFrequencies[i].getFrequency());
+        }
+        return tmpBuilder.append(']').toString();
+    }
+
+    /**
+     * Returns eccentricities of all particles (one breadth-first search per
+     * particle)
+     *
+     * @param aBondOffsets Bond offsets
+     * @param aBondTargets Bond targets
+     * @return Eccentricities
+     */
+    private int[] getEccentricities(int[] aBondOffsets, int[] aBondTargets) {
+        int tmpNumberOfParticles = aBondOffsets.length - 1;
+        int[] tmpResult = new int[tmpNumberOfParticles];
+        int[] tmpDistances = new int[tmpNumberOfParticles];
+        int[] tmpQueue = new int[tmpNumberOfParticles];
+        for (int i = 0; i < tmpNumberOfParticles; i++) {
+            Arrays.fill(tmpDistances, -1);
+            int tmpHead = 0;
+            int tmpTail = 0;
+            tmpQueue[tmpTail++] = i;
+            tmpDistances[i] = 0;
+            while (tmpHead < tmpTail) {
+                int tmpParticleIndex = tmpQueue[tmpHead++];
+                for (int k = aBondOffsets[tmpParticleIndex]; k < aBondOffsets[tmpParticleIndex + 1]; k++) {
+                    if (tmpDistances[aBondTargets[k]] < 0) {
+                        tmpDistances[aBondTargets[k]] = tmpDistances[tmpParticleIndex] + 1;
+                        tmpQueue[tmpTail++] = aBondTargets[k];
+                    }
+                }
+            }
+            tmpResult[i] = tmpDistances[tmpQueue[tmpTail - 1]];
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Returns the bonds of a compiled input structure with mapped particle
+     * indices (bonds with unmapped particles are omitted)
+     *
+     * @param aCompiledPSmiles Compiled input structure
+     * @param aParticleMapping Particle mapping (null: Identity)
+     * @return Bonds
+     */
+    private HashSet<Long> getBonds(CompiledPSmiles aCompiledPSmiles, int[] aParticleMapping) {
+        HashSet<Long> tmpBonds = new HashSet<>();
+        if (!aCompiledPSmiles.isValid()) {
+            return tmpBonds;
+        }
+        int[] tmpBondOffsets = aCompiledPSmiles.getBondOffsets();
+        int[] tmpBondTargets = aCompiledPSmiles.getBondTargets();
+        for (int i = 0; i < tmpBondOffsets.length - 1; i++) {
+            for (int k = tmpBondOffsets[i]; k < tmpBondOffsets[i + 1]; k++) {
+                int tmpFirst = aParticleMapping == null ? i : aParticleMapping[i];
+                int tmpSecond = aParticleMapping == null ? tmpBondTargets[k] : aParticleMapping[tmpBondTargets[k]];
+                if (tmpFirst > -1 && tmpSecond > -1) {
+                    tmpBonds.add(this.getBond(tmpFirst, tmpSecond));
+                }
+            }
+        }
+        return tmpBonds;
+    }
+
+    /**
+     * Returns an undirected bond as a single value
+     *
+     * @param aParticleIndex1 Index of first particle
+     * @param aParticleIndex2 Index of second particle
+     * @return Bond
+     */
+    private long getBond(int aParticleIndex1, int aParticleIndex2) {
+        return ((long) Math.min(aParticleIndex1, aParticleIndex2) << 32) | Math.max(aParticleIndex1, aParticleIndex2);
+    }
+
+    /**
+     * Returns sorted copy of array
+     *
+     * @param anArray Array
+     * @return Sorted copy of array
+     */
+    private String[] sort(String[] anArray) {
+        String[] tmpResult = anArray.clone();
+        Arrays.sort(tmpResult);
+        return tmpResult;
+    }
+    // </editor-fold>
+
+}
@@ -90,5 +90,36 @@ public class TestDepthFirstPath extends TestCase {
     	assertEquals(13, tmpResultPath[5]);
     	assertEquals(6, tmpResultPath.length);
     }
+
+    /**
+     * Test of a long linear chain on a thread with a small stack. The chain
+     * has 10^6 particles by default, a long run with e.g. 10^7 particles is
+     * set with system property psmiles.test.longChainParticles.
+     *
+     * @throws Exception Thrown if thread is interrupted
+     */
+    public void testLongChain() throws Exception {
+    	int tmpNumberOfParticles = Integer.getInteger("psmiles.test.longChainParticles", 1000000);
+    	int[][] tmpAdjacentArray = new int[tmpNumberOfParticles][];
+    	tmpAdjacentArray[0] = new int[]{1};
+    	for (int i = 1; i < tmpNumberOfParticles - 1; i++) {
+    		tmpAdjacentArray[i] = new int[]{i - 1, i + 1};
+    	}
+    	tmpAdjacentArray[tmpNumberOfParticles - 1] = new int[]{tmpNumberOfParticles - 2};
+    	DepthFirstPath[] tmpDFP = new DepthFirstPath[1];
+    	Thread tmpThread = new Thread(null, () -> tmpDFP[0] = new DepthFirstPath(tmpAdjacentArray, tmpNumberOfParticles / 2), "DepthFirstPath", 256 * 1024);
+    	tmpThread.start();
+    	tmpThread.join();
+    	assertNotNull(tmpDFP[0]);
+    	assertEquals(0, tmpDFP[0].getEndParticleIndex());
+    	int[] tmpResultPath = tmpDFP[0].getDiameterPath();
+    	assertEquals(tmpNumberOfParticles / 2 + 1, tmpResultPath.length);
+    	assertEquals(tmpNumberOfParticles / 2, tmpResultPath[0]);
+    	assertEquals(0, tmpResultPath[tmpResultPath.length - 1]);
+    	
+    	tmpDFP[0] = new DepthFirstPath(tmpAdjacentArray, 0);
+    	assertEquals(tmpNumberOfParticles - 1, tmpDFP[0].getEndParticleIndex());
+    	assertEquals(tmpNumberOfParticles, tmpDFP[0].getDiameterPath().length);
+    }
     
 }
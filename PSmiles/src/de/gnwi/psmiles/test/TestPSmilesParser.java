@@ -0,0 +1,510 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmiles.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import junit.framework.TestCase;
+import de.gnwi.psmiles.CompiledPSmiles;
+import de.gnwi.psmiles.ConcurrentLruCache;
+import de.gnwi.psmiles.MessagePSmiles;
+import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PSmilesDiagnostic;
+import de.gnwi.psmiles.PSmilesInner;
+import de.gnwi.psmiles.PSmilesParser;
+import de.gnwi.psmiles.PSmilesUtility;
+import de.gnwi.psmiles.PSmilesValidator;
+
+/**
+ * Test class for class PSmilesParser
+ *
+ * @author Achim Zielesny
+ */
+public class TestPSmilesParser extends TestCase {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Valid input structures
+     */
+    private static final String[] VALID_STRUCTURES = new String[]{
+        "A",
+        "A-B-C",
+        "3A",
+        "A-3B-C",
+        "3<A>2<A><C-C-C>50<D>",
+        "A-B(C-D)(E)-F",
+        "A[1]-B-C-D[1]",
+        "A[1]-B[2]-C-D[1]-E[2]",
+        "(A[1]-B)(B-A[1])",
+        "A'1'-B'2'-C'3'-D",
+        "A[START]-B-C[END]-D",
+        "A-{B[HEAD]-C[TAIL]}-D",
+        "A-3{B[HEAD]-C(E)-D[TAIL]}-F",
+        "2{A[HEAD]-B[TAIL]}-C-2{D[HEAD]-E[TAIL]}",
+        "{A[HEAD]-B[TAIL]}",
+        "A-#Hugo-B",
+        "MetNH2(Met-HAcSC[START])-HAcPD1-MetNH2(Met-Met-HAcSC)-HAc[END]",
+        "Et[1](Et(Pr-Pr))-Me[2](Et[2]-Et[3][4][6](CisBut[4][5]-MeOH-Et-Me[5][6](Me)))(Me)-Et[1][3]",
+        " A - B - C "
+    };
+
+    /**
+     * Invalid input structures
+     */
+    private static final String[] INVALID_STRUCTURES = new String[]{
+        null,
+        "",
+        "A*-A",
+        "A B",
+        "A<B>",
+        "<A>B",
+        "<A>2<>",
+        "-A",
+        "A-",
+        "A--B",
+        "A(-B)",
+        "A()",
+        "A((B))",
+        "A[1]-B",
+        "A[1]-B[1]-C[1]",
+        "A-B)",
+        "A-(B",
+        "(A)-B",
+        "(A)",
+        "A''-B",
+        "A'1'-B",
+        "A'0'-B'1'-C",
+        "A'1'-B'1'-C",
+        "A'1'-B'3'-C",
+        "A[START]-B",
+        "A-B[END]",
+        "A[HEAD]-B",
+        "A-{B-C}",
+        "A-{B[HEAD]-C}",
+        "A-{B[HEAD]-C[TAIL]",
+        "A-{}-B",
+        "A-{B[HEAD]-C[TAIL][START]}",
+        "A{B[HEAD]-C[TAIL]}",
+        "A-#Hugo#Hugo",
+        "x-A",
+        "3-A",
+        "A-3"
+    };
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Test methods">
+    /**
+     * Test of parser engine properties of PSmiles
+     */
+    public void testParserEngine() {
+        PSmiles tmpPSmiles = new PSmiles("A-B");
+        assertEquals("Test1.1", PSmilesConstants.DEFAULT_PARSER_ENGINE, tmpPSmiles.getParserEngine());
+
+        tmpPSmiles = new PSmiles("A-B", PSmilesConstants.ParserEngine.SINGLE_PASS);
+        assertEquals("Test1.2", PSmilesConstants.ParserEngine.SINGLE_PASS, tmpPSmiles.getParserEngine());
+        assertTrue("Test1.3", tmpPSmiles.isValid());
+
+        tmpPSmiles.setInputStructure("A-");
+        assertEquals("Test1.4", PSmilesConstants.ParserEngine.SINGLE_PASS, tmpPSmiles.getParserEngine());
+        assertFalse("Test1.5", tmpPSmiles.isValid());
+
+        try {
+            tmpPSmiles.setParserEngine(null);
+            fail("Test1.6");
+        } catch (IllegalArgumentException anException) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test of valid input structures: Both parser engines must lead to
+     * identical results
+     */
+    public void testValidStructures() {
+        for (int i = 0; i < VALID_STRUCTURES.length; i++) {
+            String tmpStructure = VALID_STRUCTURES[i];
+            PSmiles tmpTokenPipeline = new PSmiles(tmpStructure, PSmilesConstants.ParserEngine.TOKEN_PIPELINE);
+            PSmiles tmpSinglePass = new PSmiles(tmpStructure, PSmilesConstants.ParserEngine.SINGLE_PASS);
+            String tmpLabel = "Test2." + (i + 1) + " " + tmpStructure;
+            assertTrue(tmpLabel, tmpTokenPipeline.isValid());
+            assertTrue(tmpLabel, tmpSinglePass.isValid());
+            assertEquals(tmpLabel, tmpTokenPipeline.getInputStructure(), tmpSinglePass.getInputStructure());
+            assertTrue(tmpLabel, Arrays.equals(tmpTokenPipeline.getStructureTokens(), tmpSinglePass.getStructureTokens()));
+            assertTrue(tmpLabel, Arrays.equals(tmpTokenPipeline.getParticleIndices(), tmpSinglePass.getParticleIndices()));
+            assertTrue(tmpLabel, Arrays.equals(tmpTokenPipeline.getBackboneIndices(), tmpSinglePass.getBackboneIndices()));
+            assertTrue(tmpLabel, Arrays.equals(tmpTokenPipeline.getParticles(), tmpSinglePass.getParticles()));
+            assertEquals(tmpLabel, tmpTokenPipeline.hasMultipleParts(), tmpSinglePass.hasMultipleParts());
+            assertEquals(tmpLabel, tmpTokenPipeline.getMaximumNumberOfConnectionsOfSingleParticle(), tmpSinglePass.getMaximumNumberOfConnectionsOfSingleParticle());
+            assertTrue(tmpLabel, Arrays.deepEquals(tmpTokenPipeline.getParticlePositionsAndConnections(), tmpSinglePass.getParticlePositionsAndConnections()));
+            PSmilesInner[] tmpTokenPipelineParts = tmpTokenPipeline.getPartsOfPSmiles();
+            PSmilesInner[] tmpSinglePassParts = tmpSinglePass.getPartsOfPSmiles();
+            assertEquals(tmpLabel, tmpTokenPipelineParts.length, tmpSinglePassParts.length);
+            for (int j = 0; j < tmpTokenPipelineParts.length; j++) {
+                assertTrue(tmpLabel, Arrays.deepEquals(tmpTokenPipelineParts[j].getAdjacentArray(), tmpSinglePassParts[j].getAdjacentArray()));
+                assertEquals(tmpLabel, tmpTokenPipelineParts[j].getStartParticleIndex(), tmpSinglePassParts[j].getStartParticleIndex());
+                assertEquals(tmpLabel, tmpTokenPipelineParts[j].getEndParticleIndex(), tmpSinglePassParts[j].getEndParticleIndex());
+            }
+        }
+    }
+
+    /**
+     * Test of invalid input structures: Both parser engines must lead to
+     * identical error messages
+     */
+    public void testInvalidStructures() {
+        for (int i = 0; i < INVALID_STRUCTURES.length; i++) {
+            String tmpStructure = INVALID_STRUCTURES[i];
+            PSmiles tmpTokenPipeline = new PSmiles(tmpStructure, PSmilesConstants.ParserEngine.TOKEN_PIPELINE);
+            PSmiles tmpSinglePass = new PSmiles(tmpStructure, PSmilesConstants.ParserEngine.SINGLE_PASS);
+            String tmpLabel = "Test3." + (i + 1) + " " + tmpStructure;
+            assertFalse(tmpLabel, tmpTokenPipeline.isValid());
+            assertFalse(tmpLabel, tmpSinglePass.isValid());
+            assertNotNull(tmpLabel, tmpSinglePass.getErrorMessage());
+            assertEquals(tmpLabel, tmpTokenPipeline.getErrorMessage(), tmpSinglePass.getErrorMessage());
+            assertEquals(tmpLabel, tmpTokenPipeline.getInputStructure(), tmpSinglePass.getInputStructure());
+        }
+    }
+
+    /**
+     * Test of available particles and monomers
+     */
+    public void testAvailableParticlesAndMonomers() {
+        HashMap<String, String> tmpAvailableParticles = new HashMap<>();
+        tmpAvailableParticles.put("A", "A");
+        tmpAvailableParticles.put("B", "B");
+        PSmilesParser tmpParser = new PSmilesParser();
+        assertTrue("Test4.1", tmpParser.parse("A-B-A", tmpAvailableParticles, false));
+        assertFalse("Test4.2", tmpParser.parse("A-C-A", tmpAvailableParticles, false));
+        assertEquals("Test4.3", MessagePSmiles.getString("StructureCheck.InvalidParticlename"), tmpParser.getErrorMessage());
+
+        tmpAvailableParticles = new HashMap<>();
+        assertTrue("Test4.4", tmpParser.parse("{A[HEAD]-B[TAIL]}", tmpAvailableParticles, true));
+        assertFalse("Test4.5", tmpParser.parse("A-B", tmpAvailableParticles, true));
+        assertEquals("Test4.6", MessagePSmiles.getString("StructureCheck.NoMonomer"), tmpParser.getErrorMessage());
+    }
+
+    /**
+     * Test of parse results of PSmilesParser
+     */
+    public void testParseResults() {
+        PSmilesParser tmpParser = new PSmilesParser();
+        assertTrue("Test5.1", tmpParser.parse("2<A-B>< C >", new HashMap<>(), false));
+        assertEquals("Test5.2", "2<A-B><C>", tmpParser.getInputStructure());
+        assertTrue("Test5.3", tmpParser.hasParts());
+        assertTrue("Test5.4", Arrays.equals(new String[]{"A-B", "A-B", "C"}, tmpParser.getParts()));
+        assertEquals("Test5.5", 3, tmpParser.getPartsOfPSmiles().length);
+        assertSame("Test5.6", tmpParser.getPartsOfPSmiles()[0], tmpParser.getPartsOfPSmiles()[1]);
+        assertEquals("Test5.7", -1, tmpParser.getErrorOffset());
+
+        assertFalse("Test5.8", tmpParser.parse("A-B-", new HashMap<>(), false));
+        assertEquals("Test5.9", 3, tmpParser.getErrorOffset());
+        assertNull("Test5.10", tmpParser.getParts());
+        assertNull("Test5.11", tmpParser.getPartsOfPSmiles());
+
+        assertFalse("Test5.12", tmpParser.parse("A B", new HashMap<>(), false));
+        assertNull("Test5.13", tmpParser.getInputStructure());
+
+        // Parts with frequency 0 are omitted
+        assertTrue("Test5.14", tmpParser.parse("0<A>2<B>", new HashMap<>(), false));
+        assertTrue("Test5.15", Arrays.equals(new String[]{"B", "B"}, tmpParser.getParts()));
+        assertFalse("Test5.16", tmpParser.parse("0<A>", new HashMap<>(), false));
+        assertEquals("Test5.17", MessagePSmiles.getString("StructureCheck.IllegalFrequency"), tmpParser.getErrorMessage());
+
+        try {
+            tmpParser.parse("A", null, false);
+            fail("Test5.18");
+        } catch (IllegalArgumentException anException) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test of a long chain with branches and ring closures
+     */
+    public void testLongChain() {
+        int tmpNumberOfSegments = 20000;
+        StringBuilder tmpBuilder = new StringBuilder();
+        for (int i = 0; i < tmpNumberOfSegments; i++) {
+            if (i > 0) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append("MetNH2(Met-HAcSC)-HAc");
+            if (i % 10 == 0) {
+                tmpBuilder.append('[').append(i / 20 + 1).append(']');
+            }
+        }
+        PSmilesParser tmpParser = new PSmilesParser();
+        assertTrue("Test6.1", tmpParser.parse(tmpBuilder.toString(), new HashMap<>(), false));
+        PSmilesInner tmpPart = tmpParser.getPartsOfPSmiles()[0];
+        assertEquals("Test6.2", 4 * tmpNumberOfSegments, tmpPart.getInnerParticles().length);
+        int[][] tmpAdjacentArray = tmpPart.getAdjacentArray();
+        // MetNH2 of first segment: Met, HAc of first segment
+        assertTrue("Test6.3", Arrays.equals(new int[]{1, 3}, tmpAdjacentArray[0]));
+        // HAc of first segment: MetNH2 of first and second segment and ring closure with HAc of 11th segment
+        int[] tmpNeighbors = tmpAdjacentArray[3].clone();
+        Arrays.sort(tmpNeighbors);
+        assertTrue("Test6.4", Arrays.equals(new int[]{0, 4, 43}, tmpNeighbors));
+    }
+
+    /**
+     * Test of compressed sparse row (CSR) bond graph
+     */
+    public void testBondGraph() {
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            PSmilesInner tmpPart = new PSmiles("A[1]-B(C)-D[1]", tmpParserEngine).getPartsOfPSmiles()[0];
+            assertTrue("Test7.1", Arrays.equals(new int[]{0, 2, 5, 6, 8}, tmpPart.getBondOffsets()));
+            assertTrue("Test7.2", Arrays.equals(new int[]{1, 3, 2, 3, 0, 1, 1, 0}, tmpPart.getBondTargets()));
+        }
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            for (String tmpStructure : VALID_STRUCTURES) {
+                PSmiles tmpPSmiles = new PSmiles(tmpStructure, tmpParserEngine);
+                for (PSmilesInner tmpInner : tmpPSmiles.getPartsOfPSmiles()) {
+                    int[] tmpOffsets = tmpInner.getBondOffsets();
+                    int[][] tmpAdjacentArray = tmpInner.getAdjacentArray();
+                    assertEquals("Test7.3 " + tmpStructure, tmpInner.getInnerParticles().length + 1, tmpOffsets.length);
+                    for (int i = 0; tmpAdjacentArray != null && i < tmpAdjacentArray.length; i++) {
+                        int[] tmpRow = Arrays.copyOfRange(tmpInner.getBondTargets(), tmpOffsets[i], tmpOffsets[i + 1]);
+                        assertTrue("Test7.4 " + tmpStructure, Arrays.equals(tmpRow, tmpAdjacentArray[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of many ring closures with labels in descending order
+     */
+    public void testRingClosures() {
+        int tmpNumberOfRings = 300;
+        StringBuilder tmpBuilder = new StringBuilder();
+        for (int i = tmpNumberOfRings; i > 0; i--) {
+            if (i < tmpNumberOfRings) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append("A[").append(i).append("]-B-C[").append(i).append(']');
+        }
+        int[][] tmpReferenceAdjacentArray = null;
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            PSmiles tmpPSmiles = new PSmiles(tmpBuilder.toString(), tmpParserEngine);
+            assertTrue("Test8.1", tmpPSmiles.isValid());
+            int[][] tmpAdjacentArray = tmpPSmiles.getPartsOfPSmiles()[0].getAdjacentArray();
+            for (int i = 0; i < tmpNumberOfRings; i++) {
+                int[] tmpNeighbors = tmpAdjacentArray[3 * i].clone();
+                Arrays.sort(tmpNeighbors);
+                // A: B, C of ring and C of previous segment
+                int[] tmpExpected = i == 0 ? new int[]{1, 2} : new int[]{3 * i - 1, 3 * i + 1, 3 * i + 2};
+                assertTrue("Test8.2", Arrays.equals(tmpExpected, tmpNeighbors));
+            }
+            if (tmpReferenceAdjacentArray == null) {
+                tmpReferenceAdjacentArray = tmpAdjacentArray;
+            } else {
+                assertTrue("Test8.3", Arrays.deepEquals(tmpReferenceAdjacentArray, tmpAdjacentArray));
+            }
+        }
+        // Ring closure is identical to existing bond: No duplicate bond
+        for (PSmilesConstants.ParserEngine tmpParserEngine : PSmilesConstants.ParserEngine.values()) {
+            PSmiles tmpPSmiles = new PSmiles("A[1]-B[1]", tmpParserEngine);
+            assertTrue("Test8.4", Arrays.equals(new int[]{0, 1, 2}, tmpPSmiles.getPartsOfPSmiles()[0].getBondOffsets()));
+        }
+    }
+    /**
+     * Test of bounded concurrent cache
+     */
+    public void testConcurrentLruCache() {
+        ConcurrentLruCache<String, int[]> tmpCache = new ConcurrentLruCache<>(16 * 4, aValue -> aValue.length);
+        assertNull("Test9.1", tmpCache.get("a"));
+        assertEquals("Test9.2", 1L, tmpCache.getMissCount());
+        int[] tmpValue = new int[]{1, 2};
+        assertSame("Test9.3", tmpValue, tmpCache.putIfAbsent("a", tmpValue));
+        assertSame("Test9.4", tmpValue, tmpCache.putIfAbsent("a", new int[]{3}));
+        assertSame("Test9.5", tmpValue, tmpCache.get("a"));
+        assertEquals("Test9.6", 1L, tmpCache.getHitCount());
+        // Value heavier than segment share is not cached
+        tmpCache.putIfAbsent("b", new int[100]);
+        assertNull("Test9.7", tmpCache.get("b"));
+        for (int i = 0; i < 1000; i++) {
+            tmpCache.putIfAbsent("k" + i, new int[]{i});
+        }
+        assertTrue("Test9.8", tmpCache.getWeight() <= tmpCache.getMaximumWeight());
+        assertTrue("Test9.9", tmpCache.getEvictionCount() > 0L);
+        tmpCache.setMaximumWeight(0L);
+        assertEquals("Test9.10", 0, tmpCache.getSize());
+        // Repeated parse hits shared structure token cache
+        PSmilesUtility.clearCaches();
+        new CompiledPSmiles("A-B(C)-D");
+        long tmpHitCount = PSmilesUtility.getStructureTokensCache().getHitCount();
+        new CompiledPSmiles("A-B(C)-D");
+        assertTrue("Test9.11", PSmilesUtility.getStructureTokensCache().getHitCount() > tmpHitCount);
+        // Repeated PSmiles construction hits shared compiled input structure cache
+        new PSmiles("A-B(C)-D");
+        tmpHitCount = PSmilesUtility.getCompiledPSmilesCache(PSmilesConstants.DEFAULT_PARSER_ENGINE).getHitCount();
+        new PSmiles("A-B(C)-D");
+        assertTrue("Test9.12", PSmilesUtility.getCompiledPSmilesCache(PSmilesConstants.DEFAULT_PARSER_ENGINE).getHitCount() > tmpHitCount);
+        // Single segment: Value may weigh up to maximum weight
+        tmpCache = new ConcurrentLruCache<>(16 * 4, 1, (aKey, aValue) -> aValue.length);
+        tmpValue = new int[64];
+        tmpCache.putIfAbsent("c", tmpValue);
+        assertSame("Test9.13", tmpValue, tmpCache.get("c"));
+        try {
+            new ConcurrentLruCache<String, int[]>(16 * 4, 3, (aKey, aValue) -> aValue.length);
+            fail("Test9.14");
+        } catch (IllegalArgumentException anException) {
+            // Expected: Number of segments is not a power of 2
+        }
+        // Invalid input structure is weighed by its length
+        PSmilesUtility.clearCaches();
+        StringBuilder tmpBuilder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            tmpBuilder.append("A-");
+        }
+        String tmpInvalidStructure = tmpBuilder.toString();
+        new PSmiles(tmpInvalidStructure);
+        assertTrue("Test9.15", PSmilesUtility.getCompiledPSmilesCache(PSmilesConstants.DEFAULT_PARSER_ENGINE).getWeight() > tmpInvalidStructure.length());
+        // One cache of compiled input structures per parser engine
+        PSmilesUtility.clearCaches();
+        new PSmiles("A-B(C)-D", PSmilesConstants.ParserEngine.SINGLE_PASS);
+        assertEquals("Test9.16", 1, PSmilesUtility.getCompiledPSmilesCache(PSmilesConstants.ParserEngine.SINGLE_PASS).getSize());
+        assertEquals("Test9.17", 0, PSmilesUtility.getCompiledPSmilesCache(PSmilesConstants.ParserEngine.TOKEN_PIPELINE).getSize());
+    }
+
+    /**
+     * Test of validation without creation of parts: Validity, error message,
+     * error offset and counts must correspond to those of a parse
+     */
+    public void testValidator() {
+        PSmilesValidator tmpValidator = new PSmilesValidator();
+        PSmilesParser tmpParser = new PSmilesParser();
+        for (String[] tmpStructures : new String[][]{VALID_STRUCTURES, INVALID_STRUCTURES}) {
+            for (String tmpStructure : tmpStructures) {
+                String tmpLabel = "Test10.1 " + tmpStructure;
+                CompiledPSmiles tmpCompiledPSmiles = new CompiledPSmiles(tmpStructure, PSmilesConstants.ParserEngine.SINGLE_PASS);
+                assertEquals(tmpLabel, tmpCompiledPSmiles.isValid(), tmpValidator.validate(tmpStructure));
+                assertEquals(tmpLabel, tmpCompiledPSmiles.isValid(), tmpValidator.isValid());
+                assertEquals(tmpLabel, tmpCompiledPSmiles.getErrorMessage(), tmpValidator.getErrorMessage());
+                tmpParser.parse(tmpStructure, new HashMap<>(), false);
+                assertEquals(tmpLabel, tmpParser.getErrorOffset(), tmpValidator.getErrorOffset());
+                assertEquals(tmpLabel, tmpParser.getNumberOfParts(), tmpValidator.getNumberOfParts());
+                assertEquals(tmpLabel, tmpParser.getNumberOfParticles(), tmpValidator.getNumberOfParticles());
+                if (tmpCompiledPSmiles.isValid()) {
+                    assertEquals(tmpLabel, tmpCompiledPSmiles.getNumberOfParts(), tmpValidator.getNumberOfParts());
+                    assertEquals(tmpLabel, tmpCompiledPSmiles.getTotalNumberOfParticles(), tmpValidator.getNumberOfParticles());
+                }
+            }
+        }
+        assertTrue("Test10.2", tmpValidator.validate("3<A-2B>2<#Hugo-3{C[HEAD]-2D[TAIL]}>"));
+        assertEquals("Test10.3", 5L, tmpValidator.getNumberOfParts());
+        assertEquals("Test10.4", 3L * 3L + 2L * (1L + 3L * 3L), tmpValidator.getNumberOfParticles());
+        // Repetitions are counted, not expanded
+        assertTrue("Test10.5", tmpValidator.validate("1000000<A-1000000{B[HEAD]-1000000C[TAIL]}>"));
+        assertEquals("Test10.6", 1000000L * (1L + 1000000L * 1000001L), tmpValidator.getNumberOfParticles());
+        assertTrue("Test10.7", tmpParser.validate("A-B", new HashMap<>(), false));
+        assertNull("Test10.8", tmpParser.getParts());
+        HashMap<String, String> tmpAvailableParticles = new HashMap<>();
+        tmpAvailableParticles.put("A", "A");
+        tmpValidator = new PSmilesValidator(tmpAvailableParticles, true);
+        assertTrue("Test10.9", tmpValidator.validate("{A[HEAD]-A[TAIL]}"));
+        assertFalse("Test10.10", tmpValidator.validate("{A[HEAD]-B[TAIL]}"));
+        assertEquals("Test10.11", MessagePSmiles.getString("StructureCheck.InvalidParticlename"), tmpValidator.getErrorMessage());
+        assertEquals("Test10.12", 0L, tmpValidator.getNumberOfParticles());
+        try {
+            new PSmilesValidator(null, false);
+            fail("Test10.13");
+        } catch (IllegalArgumentException anException) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test of diagnostics: All violations are collected in a single pass
+     * with error codes and offsets
+     */
+    public void testDiagnostics() {
+        PSmilesValidator tmpValidator = new PSmilesValidator();
+        for (String tmpStructure : INVALID_STRUCTURES) {
+            String tmpLabel = "Test11.1 " + tmpStructure;
+            assertFalse(tmpLabel, tmpValidator.validate(tmpStructure));
+            PSmilesConstants.ErrorCode tmpErrorCode = tmpValidator.getErrorCode();
+            int tmpErrorOffset = tmpValidator.getErrorOffset();
+            assertNotNull(tmpLabel, tmpErrorCode);
+            assertEquals(tmpLabel, tmpValidator.getErrorMessage(), tmpErrorCode.getMessage());
+            PSmilesDiagnostic[] tmpDiagnostics = tmpValidator.diagnose(tmpStructure);
+            assertFalse(tmpLabel, tmpValidator.isValid());
+            assertEquals(tmpLabel, tmpErrorCode, tmpValidator.getErrorCode());
+            boolean tmpHasError = false;
+            for (PSmilesDiagnostic tmpDiagnostic : tmpDiagnostics) {
+                tmpHasError |= tmpDiagnostic.getErrorCode() == tmpErrorCode && tmpDiagnostic.getOffset() == tmpErrorOffset;
+            }
+            assertTrue(tmpLabel, tmpHasError);
+        }
+        for (String tmpStructure : VALID_STRUCTURES) {
+            assertEquals("Test11.2 " + tmpStructure, 0, tmpValidator.diagnose(tmpStructure).length);
+            assertTrue("Test11.30 " + tmpStructure, tmpValidator.isValid());
+        }
+        PSmilesDiagnostic[] tmpDiagnostics = tmpValidator.diagnose("A--B-x-C(D");
+        assertEquals("Test11.3", 3, tmpDiagnostics.length);
+        assertEquals("Test11.4", PSmilesConstants.ErrorCode.MISSING_PARTICLE_BETWEEN_TWO_CONNECTIONS, tmpDiagnostics[0].getErrorCode());
+        assertEquals("Test11.5", 1, tmpDiagnostics[0].getOffset());
+        // Invalid particle "x" is diagnosed once (at the preceding connection)
+        assertEquals("Test11.6", PSmilesConstants.ErrorCode.INVALID_PARTICLE_AFTER_CONNECTION, tmpDiagnostics[1].getErrorCode());
+        assertEquals("Test11.7", 4, tmpDiagnostics[1].getOffset());
+        assertEquals("Test11.8", PSmilesConstants.ErrorCode.MISSING_CLOSING_NORMAL_BRACKET, tmpDiagnostics[2].getErrorCode());
+        assertEquals("Test11.9", 9, tmpDiagnostics[2].getOffset());
+        // Source offsets include white spaces
+        tmpDiagnostics = tmpValidator.diagnose("A -\n -B - x");
+        assertEquals("Test11.10", 2, tmpDiagnostics.length);
+        assertEquals("Test11.11", 1, tmpDiagnostics[0].getOffset());
+        assertEquals("Test11.12", 2, tmpDiagnostics[0].getSourceOffset());
+        assertEquals("Test11.13", PSmilesConstants.ErrorCode.INVALID_PARTICLE_AFTER_CONNECTION, tmpDiagnostics[1].getErrorCode());
+        assertEquals("Test11.14", 8, tmpDiagnostics[1].getSourceOffset());
+        // Violations in parts with frequency 0 are ignored
+        tmpDiagnostics = tmpValidator.diagnose("0<A--B><C-D>2<E-->");
+        assertEquals("Test11.15", 2, tmpDiagnostics.length);
+        assertTrue("Test11.16", tmpDiagnostics[0].getOffset() > 12);
+        assertSame("Test11.17", PSmilesConstants.ErrorCode.NO_TOKENS, PSmilesConstants.ErrorCode.getErrorCode("StructureCheck.NoTokens"));
+        assertNull("Test11.18", PSmilesConstants.ErrorCode.getErrorCode("Unknown"));
+        // Invalid characters do not make the neighbouring particle name invalid
+        String[] tmpStructures = new String[] {"A.B", "A-B.", "Test3.13", "A.B.C"};
+        int[][] tmpOffsets = new int[][] {{1}, {3}, {5}, {1, 3}};
+        for (int i = 0; i < tmpStructures.length; i++) {
+            tmpDiagnostics = tmpValidator.diagnose(tmpStructures[i]);
+            assertEquals("Test11.19 " + tmpStructures[i], tmpOffsets[i].length, tmpDiagnostics.length);
+            for (int j = 0; j < tmpOffsets[i].length; j++) {
+                assertEquals("Test11.20 " + tmpStructures[i], PSmilesConstants.ErrorCode.INVALID_CHARACTER, tmpDiagnostics[j].getErrorCode());
+                assertEquals("Test11.21 " + tmpStructures[i], tmpOffsets[i][j], tmpDiagnostics[j].getOffset());
+            }
+        }
+        // An invalid particle is diagnosed once
+        tmpDiagnostics = tmpValidator.diagnose("Abc-xY-Z9");
+        assertEquals("Test11.22", 1, tmpDiagnostics.length);
+        assertEquals("Test11.23", PSmilesConstants.ErrorCode.INVALID_PARTICLE_AFTER_CONNECTION, tmpDiagnostics[0].getErrorCode());
+        assertEquals("Test11.24", 3, tmpDiagnostics[0].getOffset());
+        tmpDiagnostics = tmpValidator.diagnose("A-.-B");
+        assertEquals("Test11.25", 1, tmpDiagnostics.length);
+        assertEquals("Test11.26", PSmilesConstants.ErrorCode.INVALID_CHARACTER, tmpDiagnostics[0].getErrorCode());
+        // Independent violations are still diagnosed separately
+        tmpDiagnostics = tmpValidator.diagnose("A-B-C--D-E--F");
+        assertEquals("Test11.27", 2, tmpDiagnostics.length);
+        assertEquals("Test11.28", 5, tmpDiagnostics[0].getOffset());
+        assertEquals("Test11.29", 10, tmpDiagnostics[1].getOffset());
+    }
+    // </editor-fold>
+
+}
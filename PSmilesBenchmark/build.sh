@@ -0,0 +1,96 @@
+#!/bin/sh
+#
+# PSmiles (Particle SMILES)
+# Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+#
+# Source code is available at <https://github.com/zielesny/PSMILES>
+#
+# This program is free software: you can redistribute it and/or modify
+# it under the terms of the GNU General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# This program is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU General Public License for more details.
+#
+# You should have received a copy of the GNU General Public License
+# along with this program.  If not, see <http://www.gnu.org/licenses/>.
+#
+# Builds jar/PSmilesBenchmark.jar from the current PSmiles,
+# PSmilesToGraphStream and PSmilesBenchmark sources.
+#
+# The JMH jars are downloaded once from Maven Central into jar/ and checked
+# against the SHA-256 sums below. The GraphStream jars are taken from
+# ../PSmilesToGraphStream/jar, the structure library from the PSmilesViewer
+# sources.
+#
+# Usage: ./build.sh
+# Run:   java -jar jar/PSmilesBenchmark.jar [include regex] [result file]
+#   or   java -cp jar/PSmilesBenchmark.jar org.openjdk.jmh.Main [JMH command line]
+#
+set -e
+
+JMH_VERSION=1.37
+MAVEN_CENTRAL=https://repo1.maven.org/maven2
+
+cd "$(dirname "$0")"
+BENCHMARK_DIR=$(pwd)
+ROOT_DIR=$(cd .. && pwd)
+JAR_DIR=$BENCHMARK_DIR/jar
+BUILD_DIR=$BENCHMARK_DIR/build
+
+# Download and verify a Maven Central artifact: path, file name, SHA-256
+fetch() {
+    if [ ! -f "$JAR_DIR/$2" ]; then
+        echo "Downloading $2"
+        curl -sSfL -o "$JAR_DIR/$2.part" "$MAVEN_CENTRAL/$1/$2"
+        mv "$JAR_DIR/$2.part" "$JAR_DIR/$2"
+    fi
+    echo "$3  $JAR_DIR/$2" | sha256sum -c --quiet - || {
+        echo "Checksum mismatch for $2" >&2
+        rm -f "$JAR_DIR/$2"
+        exit 1
+    }
+}
+
+mkdir -p "$JAR_DIR"
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION jmh-core-$JMH_VERSION.jar \
+    dc0eaf2bbf0036a70b60798c785d6e03a9daf06b68b8edb0f1ba9eb3421baeb3
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION jmh-generator-annprocess-$JMH_VERSION.jar \
+    6a5604b5b804e0daca1145df1077609321687734a8b49387e49f10557c186c77
+fetch net/sf/jopt-simple/jopt-simple/5.0.4 jopt-simple-5.0.4.jar \
+    df26cc58f235f477db07f753ba5a3ab243ebe5789d9f89ecf68dd62ea9a66c28
+fetch org/apache/commons/commons-math3/3.6.1 commons-math3-3.6.1.jar \
+    1e56d7b058d28b65abd256b8458e3885b674c1d588fa43cd7d1cbb9c7ef2b308
+cp "$ROOT_DIR/PSmilesToGraphStream/jar/gs-core-1.3.jar" "$ROOT_DIR/PSmilesToGraphStream/jar/gs-algo-1.3.jar" "$JAR_DIR"
+
+rm -rf "$BUILD_DIR"
+mkdir -p "$BUILD_DIR/psmiles" "$BUILD_DIR/psmilestographstream" "$BUILD_DIR/psmilesbenchmark/de/gnwi/psmilesviewer"
+
+# PSmiles (without tests)
+javac -nowarn -encoding UTF-8 -d "$BUILD_DIR/psmiles" \
+    $(find "$ROOT_DIR/PSmiles/src" -name '*.java' ! -path '*/test/*')
+cp "$ROOT_DIR"/PSmiles/src/de/gnwi/psmiles/*.properties "$BUILD_DIR/psmiles/de/gnwi/psmiles/"
+jar cf "$JAR_DIR/PSmiles.jar" -C "$BUILD_DIR/psmiles" .
+
+# PSmilesToGraphStream
+javac -nowarn -encoding UTF-8 -d "$BUILD_DIR/psmilestographstream" \
+    -cp "$JAR_DIR/PSmiles.jar:$JAR_DIR/gs-core-1.3.jar:$JAR_DIR/gs-algo-1.3.jar" \
+    $(find "$ROOT_DIR/PSmilesToGraphStream/src" -name '*.java')
+(cd "$ROOT_DIR/PSmilesToGraphStream/src" && find . -type f ! -name '*.java' -exec cp --parents {} "$BUILD_DIR/psmilestographstream" \;)
+jar cf "$JAR_DIR/PSmilesToGraphStream.jar" -C "$BUILD_DIR/psmilestographstream" .
+
+# PSmilesBenchmark: The JMH annotation processor generates the benchmark
+# classes and META-INF/BenchmarkList
+CLASS_PATH="PSmiles.jar PSmilesToGraphStream.jar gs-core-1.3.jar gs-algo-1.3.jar jmh-core-$JMH_VERSION.jar jopt-simple-5.0.4.jar commons-math3-3.6.1.jar"
+javac -nowarn -encoding UTF-8 -d "$BUILD_DIR/psmilesbenchmark" \
+    -cp "$(for tmpJar in $CLASS_PATH; do printf '%s:' "$JAR_DIR/$tmpJar"; done)" \
+    -processorpath "$JAR_DIR/jmh-generator-annprocess-$JMH_VERSION.jar:$JAR_DIR/jmh-core-$JMH_VERSION.jar" \
+    $(find "$BENCHMARK_DIR/src" -name '*.java')
+cp "$ROOT_DIR/PSmilesViewer/src/de/gnwi/psmilesviewer/Structures.properties" "$BUILD_DIR/psmilesbenchmark/de/gnwi/psmilesviewer/"
+printf 'Main-Class: de.gnwi.psmilesbenchmark.BenchmarkRunner\nClass-Path: %s\n' "$CLASS_PATH" > "$BUILD_DIR/MANIFEST.MF"
+jar cfm "$JAR_DIR/PSmilesBenchmark.jar" "$BUILD_DIR/MANIFEST.MF" -C "$BUILD_DIR/psmilesbenchmark" .
+
+echo "Built $JAR_DIR/PSmilesBenchmark.jar"
@@ -0,0 +1,77 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the PSmiles benchmarks with throughput, latency percentiles (sample
+ * time mode) and allocation rate (GC profiler). Results are written in JSON
+ * format so that later runs can be compared with a baseline.
+ * <p>
+ * Usage: BenchmarkRunner [include regex] [result file]
+ * <p>
+ * Default include regex is "de.gnwi.psmilesbenchmark.*", default result file
+ * is "psmiles-benchmark.json". Parameters may be restricted with the
+ * standard JMH command line (org.openjdk.jmh.Main) instead, e.g. "-p
+ * numberOfParticles=10,1000 -prof gc".
+ *
+ * @author Achim Zielesny
+ */
+public class BenchmarkRunner {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Default include regex
+     */
+    private static final String DEFAULT_INCLUDE = "de.gnwi.psmilesbenchmark.*";
+
+    /**
+     * Default result file
+     */
+    private static final String DEFAULT_RESULT_FILE = "psmiles-benchmark.json";
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Main">
+    /**
+     * Main
+     *
+     * @param args Include regex and result file (both optional)
+     * @throws RunnerException Thrown if benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String tmpInclude = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String tmpResultFile = args.length > 1 ? args[1] : DEFAULT_RESULT_FILE;
+        Options tmpOptions = new OptionsBuilder()
+                .include(tmpInclude)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(tmpResultFile)
+                .build();
+        new Runner(tmpOptions).run();
+    }
+    // </editor-fold>
+
+}
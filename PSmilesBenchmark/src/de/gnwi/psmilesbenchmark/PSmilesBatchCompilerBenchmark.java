@@ -0,0 +1,160 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import de.gnwi.psmiles.CompiledPSmiles;
+import de.gnwi.psmiles.PSmilesBatchCompiler;
+import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PSmilesUtility;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of PSmilesBatchCompiler: One benchmark operation compiles
+ * a batch of generated structures of all structure kinds with empty
+ * process-wide cache of compiled structures.
+ *
+ * @author Achim Zielesny
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PSmilesBatchCompilerBenchmark {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Maximum number of particles of a generated structure
+     */
+    private static final int MAXIMUM_NUMBER_OF_PARTICLES = 250;
+
+    /**
+     * Seed for shuffling the batch
+     */
+    private static final long SEED = 42L;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public class variables (JMH parameters)">
+    /**
+     * Number of threads of ForkJoinPool
+     */
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    /**
+     * Number of occurrences of every distinct structure in the batch
+     */
+    @Param({"1", "4"})
+    public int numberOfDuplicates;
+
+    /**
+     * Parser engine
+     */
+    @Param({"TOKEN_PIPELINE", "SINGLE_PASS"})
+    public PSmilesConstants.ParserEngine parserEngine;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Input structures of batch
+     */
+    private List<String> inputStructures;
+
+    /**
+     * ForkJoinPool for compilation tasks
+     */
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * Batch compiler
+     */
+    private PSmilesBatchCompiler batchCompiler;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Setup and tear down">
+    /**
+     * Generates the batch and creates the batch compiler
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.inputStructures = new ArrayList<>();
+        for (StructureGenerator.StructureKind tmpStructureKind : StructureGenerator.StructureKind.values()) {
+            for (int i = 1; i <= MAXIMUM_NUMBER_OF_PARTICLES; i++) {
+                String tmpInputStructure = StructureGenerator.getStructure(tmpStructureKind, i);
+                for (int j = 0; j < this.numberOfDuplicates; j++) {
+                    this.inputStructures.add(tmpInputStructure);
+                }
+            }
+        }
+        Collections.shuffle(this.inputStructures, new Random(SEED));
+        this.forkJoinPool = new ForkJoinPool(this.parallelism);
+        this.batchCompiler = new PSmilesBatchCompiler(this.forkJoinPool, this.parserEngine);
+    }
+
+    /**
+     * Clears the process-wide caches so that every structure is compiled
+     */
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+        PSmilesUtility.clearCaches();
+    }
+
+    /**
+     * Shuts down the ForkJoinPool
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.forkJoinPool.shutdown();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Benchmarks">
+    /**
+     * Benchmark of PSmilesBatchCompiler.compile()
+     *
+     * @return Compiled structures
+     * @throws InterruptedException Thrown if compilation is interrupted
+     */
+    @Benchmark
+    public CompiledPSmiles[] compile() throws InterruptedException {
+        return this.batchCompiler.compile(this.inputStructures);
+    }
+    // </editor-fold>
+
+}
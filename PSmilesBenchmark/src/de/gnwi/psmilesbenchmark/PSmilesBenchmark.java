@@ -0,0 +1,445 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import de.gnwi.psmiles.DepthFirstPath;
+import de.gnwi.psmiles.GraphMetrics;
+import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PSmilesValidator;
+import de.gnwi.psmiles.ParticleFrequency;
+import de.gnwi.psmiles.ParticleMatrix;
+import de.gnwi.psmiles.PointInSpace;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the PSmiles pipeline for synthetic structures (see
+ * StructureGenerator) with 10 to 10^6 particles
+ *
+ * @author Achim Zielesny
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss64m", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class PSmilesBenchmark {
+
+    // <editor-fold defaultstate="collapsed" desc="Public class variables (JMH parameters)">
+    /**
+     * Kind of structure
+     */
+    @Param({"LINEAR_CHAIN", "DENDRIMER", "RING_RICH", "RING", "MANY_PARTS", "REPEATED_BLOCKS", "BACKBONE_CHAIN"})
+    public StructureGenerator.StructureKind structureKind;
+
+    /**
+     * Number of particles
+     */
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int numberOfParticles;
+
+    /**
+     * Parser engine
+     */
+    @Param({"TOKEN_PIPELINE", "SINGLE_PASS"})
+    public PSmilesConstants.ParserEngine parserEngine;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Input structure
+     */
+    private String inputStructure;
+
+    /**
+     * PSmiles object of input structure
+     */
+    private PSmiles pSmiles;
+
+    /**
+     * PSmiles object that is reused for setInputStructure()
+     */
+    private PSmiles reusedPSmiles;
+
+    /**
+     * Validator that is reused for validate()
+     */
+    private PSmilesValidator validator;
+
+    /**
+     * Adjacent array of the first part of the input structure
+     */
+    private int[][] adjacentArray;
+
+    /**
+     * First particle coordinate
+     */
+    private PointInSpace firstParticleCoordinate;
+
+    /**
+     * Last particle coordinate
+     */
+    private PointInSpace lastParticleCoordinate;
+
+    /**
+     * X coordinates of particles
+     */
+    private double[] xCoordinates;
+
+    /**
+     * Y coordinates of particles
+     */
+    private double[] yCoordinates;
+
+    /**
+     * Z coordinates of particles
+     */
+    private double[] zCoordinates;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public static classes (JMH states)">
+    /**
+     * Parameters of next neighbor benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class NextNeighborParameters {
+
+        /**
+         * Segment length
+         */
+        @Param({"1", "2", "3", "4", "5", "6"})
+        public int segmentLength;
+
+        /**
+         * True: Doublets are considered, false: Otherwise
+         */
+        @Param({"false", "true"})
+        public boolean hasDoublet;
+
+    }
+
+    /**
+     * New PSmiles object for every benchmark invocation (for results that
+     * are cached by PSmiles). NOTE: Setup is excluded from measurement but
+     * invocation level setup is only reliable for operations that take
+     * longer than about a millisecond.
+     */
+    @State(Scope.Thread)
+    public static class FreshPSmiles {
+
+        /**
+         * New PSmiles object
+         */
+        private PSmiles pSmiles;
+
+        /**
+         * Creates a new PSmiles object
+         *
+         * @param aBenchmark Benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(PSmilesBenchmark aBenchmark) {
+            this.pSmiles = new PSmiles(aBenchmark.inputStructure, aBenchmark.parserEngine);
+        }
+
+    }
+
+    /**
+     * Replicas (pairs of first and last particle coordinates) for replica
+     * placement benchmarks: The number of replicas is chosen so that about
+     * 10^6 particle coordinates are determined in total.
+     */
+    @State(Scope.Benchmark)
+    public static class Replicas {
+
+        /**
+         * Total number of particle coordinates of all replicas
+         */
+        private static final int TOTAL_NUMBER_OF_COORDINATES = 1000000;
+
+        /**
+         * Coordinates of the first particles
+         */
+        private PointInSpace[] firstParticleCoordinates;
+
+        /**
+         * Coordinates of the last particles
+         */
+        private PointInSpace[] lastParticleCoordinates;
+
+        /**
+         * X coordinates of particles of all replicas
+         */
+        private double[] xCoordinates;
+
+        /**
+         * Y coordinates of particles of all replicas
+         */
+        private double[] yCoordinates;
+
+        /**
+         * Z coordinates of particles of all replicas
+         */
+        private double[] zCoordinates;
+
+        /**
+         * Creates the replicas and coordinate arrays
+         *
+         * @param aBenchmark Benchmark state
+         */
+        @Setup(Level.Trial)
+        public void setUp(PSmilesBenchmark aBenchmark) {
+            int tmpNumberOfParticles = aBenchmark.pSmiles.getTotalNumberOfParticles();
+            int tmpNumberOfReplicas = Math.max(1, TOTAL_NUMBER_OF_COORDINATES / tmpNumberOfParticles);
+            this.firstParticleCoordinates = new PointInSpace[tmpNumberOfReplicas];
+            this.lastParticleCoordinates = new PointInSpace[tmpNumberOfReplicas];
+            for (int i = 0; i < tmpNumberOfReplicas; i++) {
+                this.firstParticleCoordinates[i] = new PointInSpace(i, 0.0, 0.0);
+                this.lastParticleCoordinates[i] = new PointInSpace(i, 10.0, 10.0);
+            }
+            this.xCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+            this.yCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+            this.zCoordinates = new double[tmpNumberOfReplicas * tmpNumberOfParticles];
+        }
+
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Setup">
+    /**
+     * Generates the input structure and creates the PSmiles objects
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.inputStructure = StructureGenerator.getStructure(this.structureKind, this.numberOfParticles);
+        this.pSmiles = new PSmiles(this.inputStructure, this.parserEngine);
+        if (!this.pSmiles.isValid()) {
+            throw new IllegalStateException("PSmilesBenchmark.setUp: Generated structure is invalid: " + this.pSmiles.getErrorMessage());
+        }
+        this.reusedPSmiles = new PSmiles("A", this.parserEngine);
+        this.validator = new PSmilesValidator();
+        this.adjacentArray = this.pSmiles.getPartsOfPSmiles()[0].getAdjacentArray();
+        this.firstParticleCoordinate = new PointInSpace(0.0, 0.0, 0.0);
+        this.lastParticleCoordinate = new PointInSpace(10.0, 10.0, 10.0);
+        this.xCoordinates = new double[this.pSmiles.getTotalNumberOfParticles()];
+        this.yCoordinates = new double[this.pSmiles.getTotalNumberOfParticles()];
+        this.zCoordinates = new double[this.pSmiles.getTotalNumberOfParticles()];
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Benchmarks">
+    /**
+     * Benchmark of new PSmiles(String)
+     *
+     * @return PSmiles object
+     */
+    @Benchmark
+    public PSmiles newPSmiles() {
+        return new PSmiles(this.inputStructure, this.parserEngine);
+    }
+
+    /**
+     * Benchmark of setInputStructure()
+     *
+     * @return PSmiles object
+     */
+    @Benchmark
+    public PSmiles setInputStructure() {
+        this.reusedPSmiles.setInputStructure(this.inputStructure);
+        return this.reusedPSmiles;
+    }
+
+    /**
+     * Benchmark of validation only (to be compared with newPSmiles()).
+     * NOTE: Validation does not depend on the parser engine.
+     *
+     * @return Total number of particles
+     */
+    @Benchmark
+    public long validate() {
+        this.validator.validate(this.inputStructure);
+        return this.validator.getNumberOfParticles();
+    }
+
+    /**
+     * Benchmark of getNextNeighbors()
+     *
+     * @param aParameters Next neighbor parameters
+     * @return Next neighbors
+     */
+    @Benchmark
+    public String[][] getNextNeighbors(NextNeighborParameters aParameters) {
+        return this.pSmiles.getNextNeighbors(aParameters.segmentLength, aParameters.hasDoublet);
+    }
+
+    /**
+     * Benchmark of getNextNeighborFrequencies()
+     *
+     * @param aParameters Next neighbor parameters
+     * @return Next neighbor frequencies
+     */
+    @Benchmark
+    public ParticleFrequency[][] getNextNeighborFrequencies(NextNeighborParameters aParameters) {
+        return this.pSmiles.getNextNeighborFrequencies(aParameters.segmentLength, aParameters.hasDoublet);
+    }
+
+    /**
+     * Benchmark of getParticleCoordinates()
+     *
+     * @return Particle coordinates
+     */
+    @Benchmark
+    public PointInSpace[][] getParticleCoordinates() {
+        return this.pSmiles.getParticleCoordinates(this.firstParticleCoordinate, this.lastParticleCoordinate, 1.0);
+    }
+
+    /**
+     * Benchmark of getParticleCoordinates() into primitive coordinate arrays
+     *
+     * @return X coordinates
+     */
+    @Benchmark
+    public double[] getParticleCoordinatesIntoArrays() {
+        this.pSmiles.getParticleCoordinates(new PointInSpace[]{this.firstParticleCoordinate}, new PointInSpace[]{this.lastParticleCoordinate}, 1.0,
+                this.xCoordinates, this.yCoordinates, this.zCoordinates, 0);
+        return this.xCoordinates;
+    }
+
+    /**
+     * Benchmark of the depth first path (heuristic diameter) of the first
+     * part. NOTE: Adjacent array is null for parts with a single particle.
+     *
+     * @return Diameter path
+     */
+    @Benchmark
+    public int[] getDepthFirstPath() {
+        if (this.adjacentArray == null) {
+            return null;
+        }
+        DepthFirstPath tmpDepthFirstPath = new DepthFirstPath(this.adjacentArray, 0);
+        tmpDepthFirstPath = new DepthFirstPath(this.adjacentArray, tmpDepthFirstPath.getEndParticleIndex());
+        return tmpDepthFirstPath.getDiameterPath();
+    }
+
+    /**
+     * Benchmark of exact graph metrics (diameter and eccentricities) of the
+     * first part
+     *
+     * @return Eccentricities
+     */
+    @Benchmark
+    public int[] getGraphMetrics() {
+        GraphMetrics tmpGraphMetrics = new GraphMetrics(this.pSmiles.getPartsOfPSmiles()[0]);
+        tmpGraphMetrics.getDiameter();
+        return tmpGraphMetrics.getEccentricities();
+    }
+
+    /**
+     * Benchmark of serial getParticleCoordinates() of replicas into primitive
+     * coordinate arrays
+     *
+     * @param aReplicas Replicas
+     * @return X coordinates
+     */
+    @Benchmark
+    public double[] getReplicaCoordinatesSerial(Replicas aReplicas) {
+        this.pSmiles.getParticleCoordinates(aReplicas.firstParticleCoordinates, aReplicas.lastParticleCoordinates, 1.0,
+                aReplicas.xCoordinates, aReplicas.yCoordinates, aReplicas.zCoordinates, 0);
+        return aReplicas.xCoordinates;
+    }
+
+    /**
+     * Benchmark of parallel getParticleCoordinates() of replicas into
+     * primitive coordinate arrays with the common fork-join pool
+     *
+     * @param aReplicas Replicas
+     * @return X coordinates
+     * @throws InterruptedException Thrown if interrupted
+     */
+    @Benchmark
+    public double[] getReplicaCoordinatesParallel(Replicas aReplicas) throws InterruptedException {
+        this.pSmiles.getParticleCoordinates(aReplicas.firstParticleCoordinates, aReplicas.lastParticleCoordinates, 1.0,
+                aReplicas.xCoordinates, aReplicas.yCoordinates, aReplicas.zCoordinates, 0, ForkJoinPool.commonPool());
+        return aReplicas.xCoordinates;
+    }
+
+    /**
+     * Benchmark of getParticlePositionsAndConnections() of a new PSmiles
+     * object
+     *
+     * @param aFreshPSmiles New PSmiles object
+     * @return Particle positions and connections
+     */
+    @Benchmark
+    public String[][] getParticlePositionsAndConnections(FreshPSmiles aFreshPSmiles) {
+        return aFreshPSmiles.pSmiles.getParticlePositionsAndConnections();
+    }
+
+    /**
+     * Benchmark of getParticleMatrix() of a new PSmiles object
+     *
+     * @param aFreshPSmiles New PSmiles object
+     * @return Typed particle matrix
+     */
+    @Benchmark
+    public ParticleMatrix getParticleMatrix(FreshPSmiles aFreshPSmiles) {
+        return aFreshPSmiles.pSmiles.getParticleMatrix();
+    }
+
+    /**
+     * Benchmark of getParticleToFrequencyMap() of a new PSmiles object
+     *
+     * @param aFreshPSmiles New PSmiles object
+     * @return Particle to frequency map
+     */
+    @Benchmark
+    public HashMap<String, ParticleFrequency> getParticleToFrequencyMap(FreshPSmiles aFreshPSmiles) {
+        return aFreshPSmiles.pSmiles.getParticleToFrequencyMap();
+    }
+
+    /**
+     * Benchmark of getCanonicalPSmiles() of a new PSmiles object (to be
+     * compared with newPSmiles())
+     *
+     * @param aFreshPSmiles New PSmiles object
+     * @return Canonical PSMILES
+     */
+    @Benchmark
+    public String getCanonicalPSmiles(FreshPSmiles aFreshPSmiles) {
+        return aFreshPSmiles.pSmiles.getCanonicalPSmiles();
+    }
+    // </editor-fold>
+
+}
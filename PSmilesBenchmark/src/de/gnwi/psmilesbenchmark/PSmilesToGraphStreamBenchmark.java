@@ -0,0 +1,124 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmilestographstream.PSmilesToGraphStream;
+import java.util.concurrent.TimeUnit;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of PSmilesToGraphStream.convertPSmilesToStreamGraph() and
+ * PSmilesToGraphStream.updatePsmilesGraph() for synthetic structures (see
+ * StructureGenerator). The structure library is
+ * covered by StructureLibraryBenchmark.
+ *
+ * @author Achim Zielesny
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss64m", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class PSmilesToGraphStreamBenchmark {
+
+    // <editor-fold defaultstate="collapsed" desc="Public class variables (JMH parameters)">
+    /**
+     * Kind of structure
+     */
+    @Param({"LINEAR_CHAIN", "DENDRIMER", "RING_RICH", "MANY_PARTS", "BACKBONE_CHAIN"})
+    public StructureGenerator.StructureKind structureKind;
+
+    /**
+     * Number of particles
+     */
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int numberOfParticles;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * PSmiles object of generated structure
+     */
+    private PSmiles pSmiles;
+
+    /**
+     * Converter
+     */
+    private PSmilesToGraphStream pSmilesToGraphStream;
+
+    /**
+     * Graph that is updated
+     */
+    private Graph graph;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Setup">
+    /**
+     * Creates the PSmiles object and the converter
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.pSmiles = new PSmiles(StructureGenerator.getStructure(this.structureKind, this.numberOfParticles));
+        this.pSmilesToGraphStream = new PSmilesToGraphStream();
+        this.graph = new SingleGraph("Benchmark");
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Benchmarks">
+    /**
+     * Benchmark of convertPSmilesToStreamGraph()
+     *
+     * @return Graphs
+     */
+    @Benchmark
+    public Graph[] convertPSmilesToStreamGraph() {
+        return this.pSmilesToGraphStream.convertPSmilesToStreamGraph(this.pSmiles);
+    }
+
+    /**
+     * Benchmark of updatePsmilesGraph() for all parts (labels of particles
+     * with backbone index are built from the backbone indices of the parts)
+     *
+     * @return Graph
+     */
+    @Benchmark
+    public Graph updatePsmilesGraph() {
+        this.pSmilesToGraphStream.updatePsmilesGraph(this.graph, this.pSmiles);
+        return this.graph;
+    }
+
+    // </editor-fold>
+
+}
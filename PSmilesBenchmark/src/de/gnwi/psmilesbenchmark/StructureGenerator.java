@@ -0,0 +1,305 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+/**
+ * Generator for synthetic PSmiles input structures with a defined number of
+ * particles
+ *
+ * @author Achim Zielesny
+ */
+public final class StructureGenerator {
+
+    // <editor-fold defaultstate="collapsed" desc="Public enum StructureKind">
+    /**
+     * Kind of synthetic structure
+     */
+    public enum StructureKind {
+
+        /**
+         * Linear chain, e.g. A-B-C-A-B-C
+         */
+        LINEAR_CHAIN,
+        /**
+         * Dendrimer (balanced binary tree of branches)
+         */
+        DENDRIMER,
+        /**
+         * Chain of small rings, e.g. A[1]-B-C-D[1]-A[2]-B-C-D[2]
+         */
+        RING_RICH,
+        /**
+         * Single ring, e.g. A[1]-B-C-D[1]
+         */
+        RING,
+        /**
+         * Many parts of different length, e.g. &lt;A-B&gt;&lt;A-B-C&gt;
+         */
+        MANY_PARTS,
+        /**
+         * Repeated block of particles with HEAD and TAIL tag, e.g.
+         * A-3{B[HEAD]-C-D[TAIL]}-E
+         */
+        REPEATED_BLOCKS,
+        /**
+         * Linear chain with backbone indices, e.g. A'1'-B'2'-C'3'
+         */
+        BACKBONE_CHAIN
+
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Particles of generated structures
+     */
+    private static final String[] PARTICLES = new String[]{"A", "B", "C", "D"};
+
+    /**
+     * Number of particles of a ring
+     */
+    private static final int RING_SIZE = 4;
+
+    /**
+     * Maximum number of particles of a part
+     */
+    private static final int MAXIMUM_PART_SIZE = 9;
+
+    /**
+     * Number of particles of a repeated block
+     */
+    private static final int BLOCK_SIZE = 3;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     */
+    private StructureGenerator() {
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public static methods">
+    /**
+     * Returns a synthetic structure
+     *
+     * @param aStructureKind Kind of structure
+     * @param aNumberOfParticles Number of particles (greater zero)
+     * @return Structure with aNumberOfParticles particles
+     * @throws IllegalArgumentException Thrown if an argument is illegal
+     */
+    public static String getStructure(StructureKind aStructureKind, int aNumberOfParticles) throws IllegalArgumentException {
+        // <editor-fold defaultstate="collapsed" desc="Checks">
+        if (aStructureKind == null) {
+            throw new IllegalArgumentException("StructureGenerator.getStructure: aStructureKind is null.");
+        }
+        if (aNumberOfParticles < 1) {
+            throw new IllegalArgumentException("StructureGenerator.getStructure: aNumberOfParticles is less than 1.");
+        }
+
+        // </editor-fold>
+        switch (aStructureKind) {
+            case LINEAR_CHAIN:
+                return StructureGenerator.getLinearChain(aNumberOfParticles);
+            case DENDRIMER:
+                return StructureGenerator.getDendrimer(aNumberOfParticles);
+            case RING_RICH:
+                return StructureGenerator.getRingRichStructure(aNumberOfParticles);
+            case RING:
+                return StructureGenerator.getRing(aNumberOfParticles);
+            case MANY_PARTS:
+                return StructureGenerator.getManyPartStructure(aNumberOfParticles);
+            case REPEATED_BLOCKS:
+                return StructureGenerator.getRepeatedBlockStructure(aNumberOfParticles);
+            case BACKBONE_CHAIN:
+                return StructureGenerator.getBackboneChain(aNumberOfParticles);
+            default:
+                throw new IllegalArgumentException("StructureGenerator.getStructure: Unknown aStructureKind.");
+        }
+    }
+
+    /**
+     * Returns a linear chain
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Linear chain with aNumberOfParticles particles
+     */
+    public static String getLinearChain(int aNumberOfParticles) {
+        StringBuilder tmpBuilder = new StringBuilder(2 * aNumberOfParticles);
+        for (int i = 0; i < aNumberOfParticles; i++) {
+            if (i > 0) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append(PARTICLES[i % PARTICLES.length]);
+        }
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a dendrimer: Every particle has (up to) two subtrees of equal
+     * size where the first subtree is a branch, i.e. the branch depth is
+     * logarithmic in the number of particles.
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Dendrimer with aNumberOfParticles particles
+     */
+    public static String getDendrimer(int aNumberOfParticles) {
+        StringBuilder tmpBuilder = new StringBuilder(4 * aNumberOfParticles);
+        StructureGenerator.appendDendrimer(tmpBuilder, aNumberOfParticles, 0);
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a chain of rings with RING_SIZE particles (and a linear chain
+     * for remaining particles). Every ring has its own ring closure label.
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Ring-rich structure with aNumberOfParticles particles
+     */
+    public static String getRingRichStructure(int aNumberOfParticles) {
+        StringBuilder tmpBuilder = new StringBuilder(4 * aNumberOfParticles);
+        int tmpNumberOfRings = aNumberOfParticles / RING_SIZE;
+        for (int i = 0; i < aNumberOfParticles; i++) {
+            if (i > 0) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append(PARTICLES[i % PARTICLES.length]);
+            int tmpRing = i / RING_SIZE;
+            int tmpPosition = i % RING_SIZE;
+            if (tmpRing < tmpNumberOfRings && (tmpPosition == 0 || tmpPosition == RING_SIZE - 1)) {
+                tmpBuilder.append('[').append(tmpRing + 1).append(']');
+            }
+        }
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a single ring (a linear chain for less than 3 particles)
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Ring with aNumberOfParticles particles
+     */
+    public static String getRing(int aNumberOfParticles) {
+        if (aNumberOfParticles < 3) {
+            return StructureGenerator.getLinearChain(aNumberOfParticles);
+        }
+        StringBuilder tmpBuilder = new StringBuilder(2 * aNumberOfParticles + 6);
+        for (int i = 0; i < aNumberOfParticles; i++) {
+            if (i > 0) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append(PARTICLES[i % PARTICLES.length]);
+            if (i == 0 || i == aNumberOfParticles - 1) {
+                tmpBuilder.append("[1]");
+            }
+        }
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a structure with many parts (linear chains with 1 to
+     * MAXIMUM_PART_SIZE particles)
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Structure with many parts and aNumberOfParticles particles
+     */
+    public static String getManyPartStructure(int aNumberOfParticles) {
+        StringBuilder tmpBuilder = new StringBuilder(3 * aNumberOfParticles);
+        int tmpRemainingParticles = aNumberOfParticles;
+        int tmpPartIndex = 0;
+        while (tmpRemainingParticles > 0) {
+            int tmpPartSize = Math.min(tmpPartIndex % MAXIMUM_PART_SIZE + 1, tmpRemainingParticles);
+            tmpBuilder.append('<').append(StructureGenerator.getLinearChain(tmpPartSize)).append('>');
+            tmpRemainingParticles -= tmpPartSize;
+            tmpPartIndex++;
+        }
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a structure with a repeated block of BLOCK_SIZE particles with
+     * HEAD and TAIL tag between two particles (and a linear chain for
+     * remaining particles), e.g. A-3{B[HEAD]-C-D[TAIL]}-E
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Structure with repeated blocks and aNumberOfParticles
+     * particles
+     */
+    public static String getRepeatedBlockStructure(int aNumberOfParticles) {
+        int tmpNumberOfBlocks = (aNumberOfParticles - 2) / BLOCK_SIZE;
+        if (tmpNumberOfBlocks < 1) {
+            return StructureGenerator.getLinearChain(aNumberOfParticles);
+        }
+        StringBuilder tmpBuilder = new StringBuilder(32);
+        tmpBuilder.append("A-").append(tmpNumberOfBlocks).append("{B[HEAD]-C-D[TAIL]}-E");
+        for (int i = 2 + BLOCK_SIZE * tmpNumberOfBlocks; i < aNumberOfParticles; i++) {
+            tmpBuilder.append('-').append(PARTICLES[i % PARTICLES.length]);
+        }
+        return tmpBuilder.toString();
+    }
+
+    /**
+     * Returns a linear chain where every particle has a backbone index (a
+     * single particle has no backbone index)
+     *
+     * @param aNumberOfParticles Number of particles
+     * @return Linear chain with backbone indices and aNumberOfParticles
+     * particles
+     */
+    public static String getBackboneChain(int aNumberOfParticles) {
+        if (aNumberOfParticles == 1) {
+            return PARTICLES[0];
+        }
+        StringBuilder tmpBuilder = new StringBuilder(10 * aNumberOfParticles);
+        for (int i = 0; i < aNumberOfParticles; i++) {
+            if (i > 0) {
+                tmpBuilder.append('-');
+            }
+            tmpBuilder.append(PARTICLES[i % PARTICLES.length]).append('\'').append(i + 1).append('\'');
+        }
+        return tmpBuilder.toString();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private static methods">
+    /**
+     * Appends a dendrimer
+     *
+     * @param aBuilder Builder
+     * @param aNumberOfParticles Number of particles of dendrimer
+     * @param aParticleIndex Index of first particle of dendrimer
+     */
+    private static void appendDendrimer(StringBuilder aBuilder, int aNumberOfParticles, int aParticleIndex) {
+        aBuilder.append(PARTICLES[aParticleIndex % PARTICLES.length]);
+        int tmpNumberOfBranchParticles = (aNumberOfParticles - 1) / 2;
+        int tmpNumberOfChainParticles = aNumberOfParticles - 1 - tmpNumberOfBranchParticles;
+        if (tmpNumberOfBranchParticles > 0) {
+            aBuilder.append('(');
+            StructureGenerator.appendDendrimer(aBuilder, tmpNumberOfBranchParticles, aParticleIndex + 1);
+            aBuilder.append(')');
+        }
+        if (tmpNumberOfChainParticles > 0) {
+            aBuilder.append('-');
+            StructureGenerator.appendDendrimer(aBuilder, tmpNumberOfChainParticles, aParticleIndex + 1 + tmpNumberOfBranchParticles);
+        }
+    }
+    // </editor-fold>
+
+}
@@ -0,0 +1,72 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import de.gnwi.psmiles.PSmiles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+
+/**
+ * Library of example structures of the PSmiles Viewer application (file
+ * 'Structures.properties' of package de.gnwi.psmilesviewer which must be on
+ * the classpath)
+ *
+ * @author Achim Zielesny
+ */
+public final class StructureLibrary {
+
+    // <editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Resource bundle name and package location
+     */
+    private static final String BUNDLE_NAME = "de.gnwi.psmilesviewer.Structures";
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Constructor">
+    /**
+     * Constructor
+     */
+    private StructureLibrary() {
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public static methods">
+    /**
+     * Returns all valid structures of the library (sorted by their keys)
+     *
+     * @return Valid structures of the library
+     */
+    public static String[] getValidStructures() {
+        ResourceBundle tmpResourceBundle = ResourceBundle.getBundle(BUNDLE_NAME);
+        String[] tmpKeys = tmpResourceBundle.keySet().toArray(new String[0]);
+        Arrays.sort(tmpKeys);
+        ArrayList<String> tmpStructures = new ArrayList<>(tmpKeys.length);
+        for (String tmpKey : tmpKeys) {
+            String tmpStructure = tmpResourceBundle.getString(tmpKey).trim();
+            if (new PSmiles(tmpStructure).isValid()) {
+                tmpStructures.add(tmpStructure);
+            }
+        }
+        return tmpStructures.toArray(new String[0]);
+    }
+    // </editor-fold>
+
+}
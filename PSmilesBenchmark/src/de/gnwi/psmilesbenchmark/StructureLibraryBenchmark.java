@@ -0,0 +1,254 @@
+/**
+ * PSmiles (Particle SMILES)
+ * Copyright (C) 2018  Achim Zielesny (achim.zielesny@googlemail.com)
+ *
+ * Source code is available at <https://github.com/zielesny/PSMILES>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gnwi.psmilesbenchmark;
+
+import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PointInSpace;
+import de.gnwi.psmilestographstream.PSmilesToGraphStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of the PSmiles pipeline for all valid structures of the
+ * structure library (see StructureLibrary): One benchmark operation
+ * processes the whole library.
+ *
+ * @author Achim Zielesny
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StructureLibraryBenchmark {
+
+    // <editor-fold defaultstate="collapsed" desc="Public class variables (JMH parameters)">
+    /**
+     * Parser engine
+     */
+    @Param({"TOKEN_PIPELINE", "SINGLE_PASS"})
+    public PSmilesConstants.ParserEngine parserEngine;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Private class variables">
+    /**
+     * Input structures
+     */
+    private String[] inputStructures;
+
+    /**
+     * PSmiles objects of input structures
+     */
+    private PSmiles[] pSmilesArray;
+
+    /**
+     * PSmiles object that is reused for setInputStructure()
+     */
+    private PSmiles reusedPSmiles;
+
+    /**
+     * First particle coordinate
+     */
+    private PointInSpace firstParticleCoordinate;
+
+    /**
+     * Last particle coordinate
+     */
+    private PointInSpace lastParticleCoordinate;
+
+    /**
+     * Converter to GraphStream graphs
+     */
+    private PSmilesToGraphStream pSmilesToGraphStream;
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Public static classes (JMH states)">
+    /**
+     * Parameters of next neighbor benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class NextNeighborParameters {
+
+        /**
+         * Segment length
+         */
+        @Param({"1", "2", "3", "4", "5", "6"})
+        public int segmentLength;
+
+        /**
+         * True: Doublets are considered, false: Otherwise
+         */
+        @Param({"false", "true"})
+        public boolean hasDoublet;
+
+    }
+
+    /**
+     * New PSmiles objects for every benchmark invocation (for results that
+     * are cached by PSmiles)
+     */
+    @State(Scope.Thread)
+    public static class FreshPSmiles {
+
+        /**
+         * New PSmiles objects
+         */
+        private PSmiles[] pSmilesArray;
+
+        /**
+         * Creates new PSmiles objects
+         *
+         * @param aBenchmark Benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(StructureLibraryBenchmark aBenchmark) {
+            this.pSmilesArray = new PSmiles[aBenchmark.inputStructures.length];
+            for (int i = 0; i < this.pSmilesArray.length; i++) {
+                this.pSmilesArray[i] = new PSmiles(aBenchmark.inputStructures[i], aBenchmark.parserEngine);
+            }
+        }
+
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Setup">
+    /**
+     * Reads the structure library and creates the PSmiles objects
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.inputStructures = StructureLibrary.getValidStructures();
+        this.pSmilesArray = new PSmiles[this.inputStructures.length];
+        for (int i = 0; i < this.pSmilesArray.length; i++) {
+            this.pSmilesArray[i] = new PSmiles(this.inputStructures[i], this.parserEngine);
+        }
+        this.reusedPSmiles = new PSmiles("A", this.parserEngine);
+        this.firstParticleCoordinate = new PointInSpace(0.0, 0.0, 0.0);
+        this.lastParticleCoordinate = new PointInSpace(10.0, 10.0, 10.0);
+        this.pSmilesToGraphStream = new PSmilesToGraphStream();
+    }
+    // </editor-fold>
+    //
+    // <editor-fold defaultstate="collapsed" desc="Benchmarks">
+    /**
+     * Benchmark of new PSmiles(String)
+     *
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void newPSmiles(Blackhole aBlackhole) {
+        for (String tmpInputStructure : this.inputStructures) {
+            aBlackhole.consume(new PSmiles(tmpInputStructure, this.parserEngine));
+        }
+    }
+
+    /**
+     * Benchmark of setInputStructure()
+     *
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void setInputStructure(Blackhole aBlackhole) {
+        for (String tmpInputStructure : this.inputStructures) {
+            this.reusedPSmiles.setInputStructure(tmpInputStructure);
+            aBlackhole.consume(this.reusedPSmiles.isValid());
+        }
+    }
+
+    /**
+     * Benchmark of getNextNeighbors()
+     *
+     * @param aParameters Next neighbor parameters
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void getNextNeighbors(NextNeighborParameters aParameters, Blackhole aBlackhole) {
+        for (PSmiles tmpPSmiles : this.pSmilesArray) {
+            aBlackhole.consume(tmpPSmiles.getNextNeighbors(aParameters.segmentLength, aParameters.hasDoublet));
+        }
+    }
+
+    /**
+     * Benchmark of getParticleCoordinates()
+     *
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void getParticleCoordinates(Blackhole aBlackhole) {
+        for (PSmiles tmpPSmiles : this.pSmilesArray) {
+            aBlackhole.consume(tmpPSmiles.getParticleCoordinates(this.firstParticleCoordinate, this.lastParticleCoordinate, 1.0));
+        }
+    }
+
+    /**
+     * Benchmark of getParticlePositionsAndConnections() of new PSmiles
+     * objects
+     *
+     * @param aFreshPSmiles New PSmiles objects
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void getParticlePositionsAndConnections(FreshPSmiles aFreshPSmiles, Blackhole aBlackhole) {
+        for (PSmiles tmpPSmiles : aFreshPSmiles.pSmilesArray) {
+            aBlackhole.consume(tmpPSmiles.getParticlePositionsAndConnections());
+        }
+    }
+
+    /**
+     * Benchmark of getParticleToFrequencyMap() of new PSmiles objects
+     *
+     * @param aFreshPSmiles New PSmiles objects
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void getParticleToFrequencyMap(FreshPSmiles aFreshPSmiles, Blackhole aBlackhole) {
+        for (PSmiles tmpPSmiles : aFreshPSmiles.pSmilesArray) {
+            aBlackhole.consume(tmpPSmiles.getParticleToFrequencyMap());
+        }
+    }
+
+    /**
+     * Benchmark of PSmilesToGraphStream.convertPSmilesToStreamGraph()
+     *
+     * @param aBlackhole Blackhole
+     */
+    @Benchmark
+    public void convertPSmilesToStreamGraph(Blackhole aBlackhole) {
+        for (PSmiles tmpPSmiles : this.pSmilesArray) {
+            aBlackhole.consume(this.pSmilesToGraphStream.convertPSmilesToStreamGraph(tmpPSmiles));
+        }
+    }
+    // </editor-fold>
+
+}
@@ -24,11 +24,15 @@ import org.graphstream.graph.*;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.graphstream.ui.spriteManager.*;
 import de.gnwi.psmiles.PSmiles;
+import de.gnwi.psmiles.PSmilesDiff;
+import de.gnwi.psmiles.PSmilesInner;
 import java.awt.Color;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +42,20 @@ import java.util.stream.Collectors;
  */
 public class PSmilesToGraphStream {
     
+    //<editor-fold defaultstate="collapsed" desc="Private static final class variables">
+    /**
+     * Pattern for abbreviated labels of particles without backbone index
+     * (compiled once instead of once per node).
+     */
+    private static final Pattern LABEL_PATTERN = Pattern.compile("([A-Z][a-zA-Z0-9])[a-zA-Z0-9]{2,6}([a-zA-Z0-9][a-zA-Z0-9])");
+    
+    /**
+     * Pattern for abbreviated labels of particles with backbone index
+     * (compiled once instead of once per node).
+     */
+    private static final Pattern BACKBONE_LABEL_PATTERN = Pattern.compile("([A-Z][a-zA-Z0-9])[a-zA-Z0-9]{2,8}");
+    //</editor-fold>
+    
     //<editor-fold defaultstate="collapsed" desc="Private class variables">
     /**
      * The current node color for graphs created with this class' non-static
@@ -108,6 +126,29 @@ public class PSmilesToGraphStream {
      * The String representation of the '.css' file added to the graph as stylesheet.
      */
     private String stylesheet;
+    
+    /**
+     * Node IDs of all particles of the graph that was built by the last call of
+     * updatePsmilesGraph() for all parts (null if the last call displayed a 
+     * single part only or the PSmiles object was invalid).
+     */
+    private String[] particleNodeIDs;
+    
+    /**
+     * The graph that belongs to particleNodeIDs.
+     */
+    private Graph particleNodeIDsGraph;
+    
+    /**
+     * IDs of the START and END annotation nodes of the graph that belongs to
+     * particleNodeIDs.
+     */
+    private ArrayList<String> annotationNodeIDs;
+    
+    /**
+     * Counter of incremental graph updates to create unique IDs of added nodes.
+     */
+    private int incrementalUpdateCounter;
     //</editor-fold>
     
     //<editor-fold defaultstate="collapsed" desc="Public constructor">
@@ -131,6 +172,10 @@ public class PSmilesToGraphStream {
         this.isNodeSizeUpdated = false;
         this.isFullParticleNameDisplay = Constants.IS_FULL_PARTICLE_NAME_DISPLAY_DEFAULT;
         this.stylesheet = "";
+        this.particleNodeIDs = null;
+        this.particleNodeIDsGraph = null;
+        this.annotationNodeIDs = new ArrayList<>();
+        this.incrementalUpdateCounter = 0;
         /*getClass().getResource() doesn't work if a '.jar' file is executed.
         Following code works in IDE as well as in '.jar' file.*/
         try {
@@ -201,15 +246,17 @@ public class PSmilesToGraphStream {
      * displayed in the graph
      * @param aPartNumber the part of the {@link de.gnwi.psmiles.PSmiles} 
      * object to be displayed
+     * @return the node IDs of the particles of the part or 'null' if the 
+     * {@link de.gnwi.psmiles.PSmiles}' error message is not 'null'
      * @throws IllegalArgumentException if aGraph or aPSmiles is 'null' or aPartNumber
      * is invalid
      * @author Jonas Schaub
      */
-    private void buildNodesAndEdges(PSmiles aPSmiles, Graph aGraph, int aPartNumber) {
+    private String[] buildNodesAndEdges(PSmiles aPSmiles, Graph aGraph, int aPartNumber) {
         if (aPSmiles == null) { throw new IllegalArgumentException("aPSmiles (instance of class PSmiles) is null."); }
         if (aGraph == null) { throw new IllegalArgumentException("aGraph (instance of class Graph) is null."); }
         if (aPSmiles.getErrorMessage() != null) {
-            return;
+            return null;
         }
         int tmpPartsNumber = aPSmiles.getPartsOfPSmiles().length;
         if (aPartNumber > tmpPartsNumber || aPartNumber < 0) {
@@ -218,12 +265,9 @@ public class PSmilesToGraphStream {
         }
         int tmpParticleNumber;
         String[][] tmpNodeID = new String[tmpPartsNumber][];
-        String tmpLabel;
         StringBuilder tmpNodeIDBuilder;
         StringBuilder tmpEdgeIDBuilder;
         Node tmpNode;
-        URL tmpStartFileName = null;
-        URL tmpEndFileName = null;
         tmpParticleNumber = aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerParticles().length;
         tmpNodeID[aPartNumber] = new String[tmpParticleNumber];
         for (int j = 0; j < tmpParticleNumber; j++) {
@@ -238,19 +282,7 @@ public class PSmilesToGraphStream {
             aGraph.addNode(tmpNodeID[aPartNumber][j]);
             tmpNode = aGraph.getNode(tmpNodeID[aPartNumber][j]);
             tmpNode.setAttribute("ui.class", aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerParticles()[j]);
-            if (!this.isFullParticleNameDisplay) {
-                if (aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerBackboneIndices()[j] != 0) {
-                    tmpLabel = aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerParticles()[j].replaceAll("([A-Z][a-zA-Z0-9])[a-zA-Z0-9]{2,8}", "$1.");
-                } else {
-                    tmpLabel =  aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerParticles()[j].replaceAll("([A-Z][a-zA-Z0-9])[a-zA-Z0-9]{2,6}([a-zA-Z0-9][a-zA-Z0-9])", "$1.$2");
-                } 
-            } else {
-                tmpLabel = aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerParticles()[j];
-            }
-            if (aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerBackboneIndices()[j] != 0) {
-                    tmpLabel = tmpLabel + "'" + aPSmiles.getPartsOfPSmiles()[aPartNumber].getInnerBackboneIndices()[j] + "'";
-            }
-            tmpNode.addAttribute("ui.label", tmpLabel);
+            tmpNode.addAttribute("ui.label", this.getNodeLabel(aPSmiles.getPartsOfPSmiles()[aPartNumber], j));
         }
         // Build edges
         if (tmpParticleNumber > 1) {
@@ -269,40 +301,118 @@ public class PSmilesToGraphStream {
         }
         // Build nodes for annotations
         if (aPSmiles.getPartsOfPSmiles()[aPartNumber].getStartParticleIndex() > -1) {
-            int tmpStartIndex = aPSmiles.getPartsOfPSmiles()[aPartNumber].getStartParticleIndex();
-            int tmpEndIndex = aPSmiles.getPartsOfPSmiles()[aPartNumber].getEndParticleIndex();
-            
-            Node tmpStartNode = aGraph.addNode(tmpNodeID[aPartNumber][tmpStartIndex]+"_START");
-            Edge tmpEdgeToStartNode = aGraph.addEdge(tmpNodeID[aPartNumber][tmpStartIndex]+"_START_edge", 
-                    tmpNodeID[aPartNumber][tmpStartIndex]+"_START", tmpNodeID[aPartNumber][tmpStartIndex]);
-            tmpEdgeToStartNode.addAttribute("ui.class", "START");
-            if (this.isFullParticleNameDisplay) {
-                tmpStartNode.addAttribute("ui.label", "START");
-                tmpStartFileName = this.getClass().getResource(Constants.GRAPHSTREAM_START_TAG);
-                tmpStartNode.addAttribute("ui.style", "icon: url('" + tmpStartFileName + "');");
-                tmpStartNode.addAttribute("ui.class", "START");
-            } else {
-                tmpStartNode.addAttribute("ui.label", " ");
-                tmpStartFileName = this.getClass().getResource(Constants.GRAPHSTREAM_START_TAG_WITH_BORDERS);
-                tmpStartNode.addAttribute("ui.style", "fill-image: url('" + tmpStartFileName + "');");
-                tmpStartNode.addAttribute("ui.class", "REDSTART");
-            }
-            
-            Node tmpEndNode = aGraph.addNode(tmpNodeID[aPartNumber][tmpEndIndex]+"_END");
-            Edge tmpEdgeToEndNode = aGraph.addEdge(tmpNodeID[aPartNumber][tmpEndIndex]+"_END_edge", 
-                    tmpNodeID[aPartNumber][tmpEndIndex]+"_END", tmpNodeID[aPartNumber][tmpEndIndex]);
-            tmpEdgeToEndNode.addAttribute("ui.class", "END");
-            if (this.isFullParticleNameDisplay) {
-                tmpEndNode.addAttribute("ui.label", "END");
-                tmpEndFileName = this.getClass().getResource(Constants.GRAPHSTREAM_END_TAG);
-                tmpEndNode.addAttribute("ui.style", "icon: url('" + tmpEndFileName + "');");
-                tmpEndNode.addAttribute("ui.class", "END");
+            this.addAnnotationNodes(aGraph, tmpNodeID[aPartNumber][aPSmiles.getPartsOfPSmiles()[aPartNumber].getStartParticleIndex()],
+                    tmpNodeID[aPartNumber][aPSmiles.getPartsOfPSmiles()[aPartNumber].getEndParticleIndex()]);
+        }
+        return tmpNodeID[aPartNumber];
+    }
+    
+    /**
+     * Returns the label of the node of a particle.
+     * 
+     * @param aPart a part of a {@link de.gnwi.psmiles.PSmiles} object
+     * @param aParticleIndex the index of the particle in the part
+     * @return the label of the node
+     * @author Jonas Schaub
+     */
+    private String getNodeLabel(PSmilesInner aPart, int aParticleIndex) {
+        String tmpParticle = aPart.getInnerParticles()[aParticleIndex];
+        int tmpBackboneIndex = aPart.getInnerBackboneIndices()[aParticleIndex];
+        String tmpLabel;
+        if (!this.isFullParticleNameDisplay) {
+            if (tmpBackboneIndex != 0) {
+                tmpLabel = BACKBONE_LABEL_PATTERN.matcher(tmpParticle).replaceAll("$1.");
             } else {
-                tmpEndNode.addAttribute("ui.label", " ");
-                tmpEndFileName = this.getClass().getResource(Constants.GRAPHSTREAM_END_TAG_WITH_BORDERS);
-                tmpEndNode.addAttribute("ui.style", "fill-image: url('" + tmpEndFileName + "');");
-                tmpEndNode.addAttribute("ui.class", "REDEND");
-            }
+                tmpLabel = LABEL_PATTERN.matcher(tmpParticle).replaceAll("$1.$2");
+            } 
+        } else {
+            tmpLabel = tmpParticle;
+        }
+        if (tmpBackboneIndex != 0) {
+                tmpLabel = tmpLabel + "'" + tmpBackboneIndex + "'";
+        }
+        return tmpLabel;
+    }
+    
+    /**
+     * Adds the special nodes for the particles with [START] and [END] tags to 
+     * the graph. The IDs of the added nodes are stored in annotationNodeIDs.
+     * 
+     * @param aGraph a GraphStream graph that displays the PSMILES structure
+     * @param aStartNodeID the node ID of the particle with [START] tag
+     * @param anEndNodeID the node ID of the particle with [END] tag
+     * @author Jonas Schaub
+     */
+    private void addAnnotationNodes(Graph aGraph, String aStartNodeID, String anEndNodeID) {
+        URL tmpStartFileName = null;
+        URL tmpEndFileName = null;
+        
+        Node tmpStartNode = aGraph.addNode(aStartNodeID+"_START");
+        Edge tmpEdgeToStartNode = aGraph.addEdge(aStartNodeID+"_START_edge", 
+                aStartNodeID+"_START", aStartNodeID);
+        tmpEdgeToStartNode.addAttribute("ui.class", "START");
+        if (this.isFullParticleNameDisplay) {
+            tmpStartNode.addAttribute("ui.label", "START");
+            tmpStartFileName = this.getClass().getResource(Constants.GRAPHSTREAM_START_TAG);
+            tmpStartNode.addAttribute("ui.style", "icon: url('" + tmpStartFileName + "');");
+            tmpStartNode.addAttribute("ui.class", "START");
+        } else {
+            tmpStartNode.addAttribute("ui.label", " ");
+            tmpStartFileName = this.getClass().getResource(Constants.GRAPHSTREAM_START_TAG_WITH_BORDERS);
+            tmpStartNode.addAttribute("ui.style", "fill-image: url('" + tmpStartFileName + "');");
+            tmpStartNode.addAttribute("ui.class", "REDSTART");
+        }
+        
+        Node tmpEndNode = aGraph.addNode(anEndNodeID+"_END");
+        Edge tmpEdgeToEndNode = aGraph.addEdge(anEndNodeID+"_END_edge", 
+                anEndNodeID+"_END", anEndNodeID);
+        tmpEdgeToEndNode.addAttribute("ui.class", "END");
+        if (this.isFullParticleNameDisplay) {
+            tmpEndNode.addAttribute("ui.label", "END");
+            tmpEndFileName = this.getClass().getResource(Constants.GRAPHSTREAM_END_TAG);
+            tmpEndNode.addAttribute("ui.style", "icon: url('" + tmpEndFileName + "');");
+            tmpEndNode.addAttribute("ui.class", "END");
+        } else {
+            tmpEndNode.addAttribute("ui.label", " ");
+            tmpEndFileName = this.getClass().getResource(Constants.GRAPHSTREAM_END_TAG_WITH_BORDERS);
+            tmpEndNode.addAttribute("ui.style", "fill-image: url('" + tmpEndFileName + "');");
+            tmpEndNode.addAttribute("ui.class", "REDEND");
+        }
+        this.annotationNodeIDs.add(tmpStartNode.getId());
+        this.annotationNodeIDs.add(tmpEndNode.getId());
+    }
+    
+    /**
+     * Resets the node IDs of the particles and annotations of the last graph
+     * built for all parts.
+     * 
+     * @author Achim Zielesny
+     */
+    private void resetParticleNodeIDs() {
+        this.particleNodeIDs = null;
+        this.particleNodeIDsGraph = null;
+        this.annotationNodeIDs.clear();
+    }
+    
+    /**
+     * Sets the node attributes that have been updated (node color, node 
+     * shape, node weight and node size) for a single node.
+     * 
+     * @param aNode a node
+     * @author Achim Zielesny
+     */
+    private void setUpdatedNodeAttributes(Node aNode) {
+        if (this.isNodeColorUpdated) {
+            aNode.addAttribute("ui.color", this.currentNodeColor);
+        }
+        if (this.isNodeShapeUpdated) {
+            aNode.addAttribute("ui.style", "shape: " + this.currentNodeShapeKey + ";");
+        }
+        if (this.isNodeWeightUpdated) {
+            aNode.addAttribute("layout.weight", this.currentNodeWeight);
+        }
+        if (this.isNodeSizeUpdated) {
+            aNode.addAttribute("ui.size", this.currentNodeSize);
         }
     }
     //</editor-fold>
@@ -706,14 +816,21 @@ public class PSmilesToGraphStream {
         if (aPSmiles == null) { throw new IllegalArgumentException("aPSmiles (instance of class PSmiles) is null."); }
         if (aGraph == null) { throw new IllegalArgumentException("aGraph (instance of class Graph) is null."); }
         aGraph.clear();
+        this.resetParticleNodeIDs();
         if (aPSmiles.getErrorMessage() != null) {
             return;
         }
         int tmpPartsNumber = aPSmiles.getPartsOfPSmiles().length;
         this.addAttributes(aGraph);
+        String[] tmpParticleNodeIDs = new String[aPSmiles.getTotalNumberOfParticles()];
+        int tmpParticleOffset = 0;
         for (int i = 0; i < tmpPartsNumber; i++) {
-            this.buildNodesAndEdges(aPSmiles, aGraph, i);
+            String[] tmpNodeIDsOfPart = this.buildNodesAndEdges(aPSmiles, aGraph, i);
+            System.arraycopy(tmpNodeIDsOfPart, 0, tmpParticleNodeIDs, tmpParticleOffset, tmpNodeIDsOfPart.length);
+            tmpParticleOffset += tmpNodeIDsOfPart.length;
         }
+        this.particleNodeIDs = tmpParticleNodeIDs;
+        this.particleNodeIDsGraph = aGraph;
         if (this.isNodeColorUpdated) {
             for (Node tmpNode : aGraph) {
                 tmpNode.addAttribute("ui.color", this.currentNodeColor);
@@ -766,6 +883,7 @@ public class PSmilesToGraphStream {
         if (aPSmiles == null) { throw new IllegalArgumentException("aPSmiles (instance of class PSmiles) is null."); }
         if (aGraph == null) { throw new IllegalArgumentException("aGraph (instance of class Graph) is null."); }
         aGraph.clear();
+        this.resetParticleNodeIDs();
         if (aPSmiles.getErrorMessage() != null) {
             return;
         }
@@ -802,6 +920,125 @@ public class PSmilesToGraphStream {
             }
         }
     }
+    
+    /**
+     * Changes a GraphStream {@link org.graphstream.graph.Graph} object that 
+     * displays all parts of the previous input structure of aPSmiles to match
+     * its new input structure (see 
+     * {@link de.gnwi.psmiles.PSmiles#setInputStructureIncrementally(String)}).
+     * Only removed and added nodes and edges of aPSmilesDiff are changed in the
+     * graph so that unchanged nodes keep their positions in the layout of an 
+     * observing {@link org.graphstream.ui.view.Viewer}. If the graph was not 
+     * built by the last call of {@link #updatePsmilesGraph(Graph, PSmiles)} or
+     * aPSmilesDiff does not match the graph, the graph is updated completely 
+     * with {@link #updatePsmilesGraph(Graph, PSmiles)}.
+     *
+     * @param aGraph a GraphStream {@link org.graphstream.graph.Graph} that 
+     * should display the {@link de.gnwi.psmiles.PSmiles} structure
+     * @param aPSmiles a {@link de.gnwi.psmiles.PSmiles} object that should be displayed in the graph
+     * @param aPSmilesDiff the difference between the previous and the new 
+     * input structure of aPSmiles
+     * @throws IllegalArgumentException if aGraph, aPSmiles or aPSmilesDiff is 'null'
+     * @author Achim Zielesny
+     */
+    public void updatePsmilesGraph(Graph aGraph, PSmiles aPSmiles, PSmilesDiff aPSmilesDiff) throws IllegalArgumentException {
+        if (aPSmiles == null) { throw new IllegalArgumentException("aPSmiles (instance of class PSmiles) is null."); }
+        if (aGraph == null) { throw new IllegalArgumentException("aGraph (instance of class Graph) is null."); }
+        if (aPSmilesDiff == null) { throw new IllegalArgumentException("aPSmilesDiff (instance of class PSmilesDiff) is null."); }
+        if (aPSmiles.getErrorMessage() != null
+                || this.particleNodeIDs == null
+                || this.particleNodeIDsGraph != aGraph
+                || this.particleNodeIDs.length != aPSmilesDiff.getOldToNewParticleIndices().length
+                || aPSmiles.getTotalNumberOfParticles() != aPSmilesDiff.getNewToOldParticleIndices().length) {
+            this.updatePsmilesGraph(aGraph, aPSmiles);
+            return;
+        }
+        this.incrementalUpdateCounter++;
+        int[] tmpOldToNewParticleIndices = aPSmilesDiff.getOldToNewParticleIndices();
+        int[] tmpNewToOldParticleIndices = aPSmilesDiff.getNewToOldParticleIndices();
+        // Remove annotation nodes (with their edges)
+        for (String tmpAnnotationNodeID : this.annotationNodeIDs) {
+            aGraph.removeNode(tmpAnnotationNodeID);
+        }
+        this.annotationNodeIDs.clear();
+        // Remove edges between remaining nodes (edges of removed nodes are removed with their nodes)
+        int[] tmpRemovedBonds = aPSmilesDiff.getRemovedBonds();
+        for (int i = 0; i < tmpRemovedBonds.length; i += 2) {
+            if (tmpOldToNewParticleIndices[tmpRemovedBonds[i]] > -1 && tmpOldToNewParticleIndices[tmpRemovedBonds[i + 1]] > -1) {
+                aGraph.removeEdge(this.particleNodeIDs[tmpRemovedBonds[i]], this.particleNodeIDs[tmpRemovedBonds[i + 1]]);
+            }
+        }
+        // Remove nodes
+        for (int tmpRemovedParticleIndex : aPSmilesDiff.getRemovedParticleIndices()) {
+            aGraph.removeNode(this.particleNodeIDs[tmpRemovedParticleIndex]);
+        }
+        // Map remaining nodes and add nodes
+        PSmilesInner[] tmpParts = aPSmiles.getPartsOfPSmiles();
+        int[] tmpParticleOffsets = new int[tmpParts.length + 1];
+        for (int i = 0; i < tmpParts.length; i++) {
+            tmpParticleOffsets[i + 1] = tmpParticleOffsets[i] + tmpParts[i].getInnerParticles().length;
+        }
+        String[] tmpParticleNodeIDs = new String[tmpNewToOldParticleIndices.length];
+        for (int i = 0; i < tmpNewToOldParticleIndices.length; i++) {
+            if (tmpNewToOldParticleIndices[i] > -1) {
+                tmpParticleNodeIDs[i] = this.particleNodeIDs[tmpNewToOldParticleIndices[i]];
+            }
+        }
+        int tmpPartNumber = 0;
+        for (int tmpAddedParticleIndex : aPSmilesDiff.getAddedParticleIndices()) {
+            while (tmpAddedParticleIndex >= tmpParticleOffsets[tmpPartNumber + 1]) {
+                tmpPartNumber++;
+            }
+            int tmpIndexInPart = tmpAddedParticleIndex - tmpParticleOffsets[tmpPartNumber];
+            StringBuilder tmpNodeIDBuilder = new StringBuilder(tmpParts[tmpPartNumber].getInnerParticles()[tmpIndexInPart]);
+            tmpNodeIDBuilder.append('(');
+            tmpNodeIDBuilder.append(tmpPartNumber);
+            tmpNodeIDBuilder.append(',');
+            tmpNodeIDBuilder.append(tmpIndexInPart);
+            tmpNodeIDBuilder.append(")#");
+            tmpNodeIDBuilder.append(this.incrementalUpdateCounter);
+            tmpParticleNodeIDs[tmpAddedParticleIndex] = tmpNodeIDBuilder.toString();
+            Node tmpNode = aGraph.addNode(tmpParticleNodeIDs[tmpAddedParticleIndex]);
+            tmpNode.setAttribute("ui.class", tmpParts[tmpPartNumber].getInnerParticles()[tmpIndexInPart]);
+            tmpNode.addAttribute("ui.label", this.getNodeLabel(tmpParts[tmpPartNumber], tmpIndexInPart));
+            this.setUpdatedNodeAttributes(tmpNode);
+        }
+        // Update labels of nodes with changed backbone index
+        tmpPartNumber = 0;
+        for (int tmpChangedParticleIndex : aPSmilesDiff.getChangedParticleIndices()) {
+            while (tmpChangedParticleIndex >= tmpParticleOffsets[tmpPartNumber + 1]) {
+                tmpPartNumber++;
+            }
+            aGraph.getNode(tmpParticleNodeIDs[tmpChangedParticleIndex]).addAttribute("ui.label", 
+                    this.getNodeLabel(tmpParts[tmpPartNumber], tmpChangedParticleIndex - tmpParticleOffsets[tmpPartNumber]));
+        }
+        // Add edges
+        int[] tmpAddedBonds = aPSmilesDiff.getAddedBonds();
+        for (int i = 0; i < tmpAddedBonds.length; i += 2) {
+            Edge tmpEdge = aGraph.addEdge(tmpParticleNodeIDs[tmpAddedBonds[i]] + tmpParticleNodeIDs[tmpAddedBonds[i + 1]], 
+                    tmpParticleNodeIDs[tmpAddedBonds[i]], tmpParticleNodeIDs[tmpAddedBonds[i + 1]]);
+            if (this.isEdgeWeightUpdated) {
+                tmpEdge.addAttribute("layout.weight", this.currentEdgeWeight);
+            }
+        }
+        // Add annotation nodes
+        for (int i = 0; i < tmpParts.length; i++) {
+            if (tmpParts[i].getStartParticleIndex() > -1) {
+                this.addAnnotationNodes(aGraph, tmpParticleNodeIDs[tmpParticleOffsets[i] + tmpParts[i].getStartParticleIndex()],
+                        tmpParticleNodeIDs[tmpParticleOffsets[i] + tmpParts[i].getEndParticleIndex()]);
+            }
+        }
+        for (String tmpAnnotationNodeID : this.annotationNodeIDs) {
+            Node tmpAnnotationNode = aGraph.getNode(tmpAnnotationNodeID);
+            this.setUpdatedNodeAttributes(tmpAnnotationNode);
+            if (this.isEdgeWeightUpdated) {
+                for (Edge tmpEdge : tmpAnnotationNode.getEachEdge()) {
+                    tmpEdge.addAttribute("layout.weight", this.currentEdgeWeight);
+                }
+            }
+        }
+        this.particleNodeIDs = tmpParticleNodeIDs;
+    }
     //</editor-fold>
 
 }
\ No newline at end of file
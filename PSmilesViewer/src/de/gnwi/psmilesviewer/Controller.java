@@ -22,6 +22,7 @@ package de.gnwi.psmilesviewer;
 
 import de.gnwi.psmiles.PSmiles;
 import de.gnwi.psmiles.PSmilesConstants;
+import de.gnwi.psmiles.PSmilesDiff;
 import de.gnwi.psmilestographstream.PSmilesToGraphStream;
 import java.awt.Color;
 import java.awt.Component;
@@ -1012,9 +1013,10 @@ public class Controller {
         this.setApplicationCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         String tmpInputStructure;
         String tmpErrorMessage;
+        PSmilesDiff tmpPSmilesDiff;
         try {
             tmpInputStructure = this.viewerPanel.getLineNotationTextArea().getText();
-            this.psmiles.setInputStructure(tmpInputStructure);
+            tmpPSmilesDiff = this.psmiles.setInputStructureIncrementally(tmpInputStructure);
         } catch (Exception anException) {
             tmpErrorMessage = Language.getString("UNEXPECTED_ERROR");
             JOptionPane.showMessageDialog(this.mainFrame, tmpErrorMessage, 
@@ -1042,13 +1044,15 @@ public class Controller {
                 this.viewerPanel.getPartDisplayComboBox().setEnabled(false);
             }
             this.isPartDisplayComboBoxListenerToBeDisabled = false;
-            this.psmilesToGraph.updatePsmilesGraph(this.graph, this.psmiles);
+            // Only changed nodes and edges are updated if the graph displays all parts
+            this.psmilesToGraph.updatePsmilesGraph(this.graph, this.psmiles, tmpPSmilesDiff);
             this.viewerPanel.getGraphStreamViewPanel().getCamera().resetView();
             this.resetAlternativeViewerPanelZoom();
         } else {
             this.viewerPanel.getMessageLabel().setForeground(this.userPreferences.getCurrentErrorColor());
             this.viewerPanel.getMessageLabel().setText(tmpErrorMessage);
-            this.graph.clear();
+            // Graph is cleared
+            this.psmilesToGraph.updatePsmilesGraph(this.graph, this.psmiles);
             this.viewerPanel.getPartDisplayComboBox().setEnabled(false);
             this.viewerPanel.getResetOfGraphStreamViewPanelButton().setEnabled(false);
             this.viewerPanel.getGraphStreamViewPanel().getCamera().resetView();